@@ -0,0 +1,322 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+/**
+ * CallJournal
+ *
+ * Local append-only journal for finished calls, so a call survives a
+ * database outage or a crash before CallLogWriter has committed it.
+ *
+ *  - Every call is appended (and forced to disk) before it is queued.
+ *  - When the call is committed an ACK record is appended. ACKs are not
+ *    forced: a lost ACK only means the call is replayed once more, and
+ *    replayed calls are checked against the database first (dedup).
+ *  - On start, calls without an ACK from earlier runs are recovered.
+ *
+ * Storage: fixed-size, memory-mapped segment files calls-NNNNNNNNNNNNNNNN.log
+ * in -Drtf.journal.dir (default ~/.rtf/journal), -Drtf.journal.segmentKB
+ * each (default 4096). A segment is deleted once all of its calls are
+ * acknowledged. Record layout:
+ *
+ *   int length | int CRC32C(body) | body = byte type, long id [, call]
+ *
+ * A length of 0 ends a segment; a bad length or checksum (torn write at a
+ * crash) ends it too.
+ *
+ * One process at a time owns the directory (file lock); a second instance
+ * on the same machine runs without a journal.
+ */
+final class CallJournal {
+
+    /** A call read back from the journal. */
+    static final class Entry {
+        final long id;
+        final CallLogWriter.CallRecord record;
+
+        Entry(long id, CallLogWriter.CallRecord record) {
+            this.id = id;
+            this.record = record;
+        }
+    }
+
+    private static final class Segment {
+        final long seq;
+        final Path path;
+        FileChannel channel;       // open while this is the segment being written
+        MappedByteBuffer buffer;
+        int live;                  // calls not acknowledged yet
+
+        Segment(long seq, Path path) {
+            this.seq = seq;
+            this.path = path;
+        }
+    }
+
+    private static final byte CALL = 1;
+    private static final byte ACK = 2;
+    private static final int HEADER = 8;
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final Map<Long, Segment> owner = new HashMap<>();   // unacknowledged call id -> segment
+    private final Map<Long, Integer> offsets = new HashMap<>(); // call id -> offset (current run only)
+    private final List<Entry> recovered = new ArrayList<>();
+
+    private Segment current;
+    private long lastSeq = 0;
+    private long nextId = 1;
+
+    private CallJournal(Path dir, int segmentBytes, FileChannel lockChannel, FileLock lock) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+    }
+
+    /**
+     * Opens the journal and recovers unacknowledged calls. Returns null if
+     * another process holds the directory.
+     */
+    static CallJournal open(Path dir, int segmentBytes) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel lockChannel = FileChannel.open(dir.resolve("journal.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = lockChannel.tryLock();
+        if (lock == null) {
+            lockChannel.close();
+            return null;
+        }
+
+        CallJournal journal = new CallJournal(dir, segmentBytes, lockChannel, lock);
+        journal.recover();
+        journal.roll();
+        return journal;
+    }
+
+    /** Calls from earlier runs that were never acknowledged, oldest first. */
+    synchronized List<Entry> recovered() {
+        return new ArrayList<>(recovered);
+    }
+
+    /** Appends a call and forces it to disk. Returns its journal id. */
+    synchronized long append(CallLogWriter.CallRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(CALL);
+        long id = nextId++;
+        out.writeLong(id);
+        record.writeTo(out);
+
+        int offset = write(bytes.toByteArray(), true);
+        current.live++;
+        owner.put(id, current);
+        offsets.put(id, offset);
+        return id;
+    }
+
+    /** Marks a call as committed (or given up). */
+    synchronized void ack(long id) throws IOException {
+        Segment seg = owner.remove(id);
+        offsets.remove(id);
+        if (seg == null) return;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ACK);
+        out.writeLong(id);
+        write(bytes.toByteArray(), false);
+
+        if (--seg.live == 0 && seg != current) {
+            delete(seg);
+        }
+    }
+
+    /** Reads back a call appended by this run and not acknowledged yet. */
+    synchronized CallLogWriter.CallRecord read(long id) throws IOException {
+        Integer offset = offsets.get(id);
+        if (offset == null) return null;
+        ByteBuffer buf = owner.get(id).buffer.duplicate(); // still mapped after a roll
+        buf.position(offset);
+        Entry e = decode(buf);
+        return e == null ? null : e.record;
+    }
+
+    synchronized int unacknowledged() {
+        return owner.size();
+    }
+
+    synchronized void close() {
+        try {
+            if (current != null) {
+                current.buffer.force();
+                current.channel.close();
+            }
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // ---- Internals ----
+
+    /** Writes one record into the current segment, rolling over when full. */
+    private int write(byte[] body, boolean sync) throws IOException {
+        int size = HEADER + body.length;
+        if (size + 4 > segmentBytes) {
+            throw new IOException("Journal record too large: " + size + " bytes");
+        }
+        if (current.buffer.remaining() < size + 4) {
+            roll();
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+
+        MappedByteBuffer buf = current.buffer;
+        int offset = buf.position();
+        buf.putInt(body.length);
+        buf.putInt((int) crc.getValue());
+        buf.put(body);
+        buf.putInt(buf.position(), 0); // end marker, overwritten by the next record
+
+        if (sync) buf.force(offset, size);
+        return offset;
+    }
+
+    /** Starts a new segment file. */
+    private void roll() throws IOException {
+        Segment previous = current;
+        if (previous != null) {
+            previous.buffer.force();
+            previous.channel.close();
+        }
+
+        long seq = ++lastSeq;
+        Segment seg = new Segment(seq, dir.resolve(String.format("calls-%016d.log", seq)));
+        seg.channel = FileChannel.open(seg.path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        seg.buffer = seg.channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        seg.buffer.putInt(0, 0);
+        segments.put(seq, seg);
+        current = seg;
+
+        if (previous != null && previous.live == 0) {
+            delete(previous);
+        }
+    }
+
+    private void delete(Segment seg) {
+        segments.remove(seg.seq);
+        try {
+            Files.deleteIfExists(seg.path);
+        } catch (IOException e) {
+            // Still mapped (Windows): removed on the next start, when it holds no live calls
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "calls-*.log")) {
+            for (Path p : stream) files.add(p);
+        }
+        files.sort(null);
+
+        Map<Long, Entry> calls = new LinkedHashMap<>();
+        Map<Long, Segment> callSegment = new HashMap<>();
+        Set<Long> acked = new HashSet<>();
+
+        for (Path path : files) {
+            String name = path.getFileName().toString();
+            long seq = Long.parseLong(name.substring(6, name.length() - 4));
+            Segment seg = new Segment(seq, path);
+            segments.put(seq, seg);
+            lastSeq = Math.max(lastSeq, seq);
+
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(path));
+            while (true) {
+                Entry e;
+                try {
+                    e = decode(buf);
+                } catch (IOException ex) {
+                    e = null; // unreadable body: treat like a torn tail
+                }
+                if (e == null) break;
+                nextId = Math.max(nextId, e.id + 1);
+                if (e.record != null) {
+                    calls.put(e.id, e);
+                    callSegment.put(e.id, seg);
+                } else {
+                    acked.add(e.id);
+                }
+            }
+        }
+
+        for (Entry e : calls.values()) {
+            if (acked.contains(e.id)) continue;
+            Segment seg = callSegment.get(e.id);
+            seg.live++;
+            owner.put(e.id, seg);
+            recovered.add(e);
+        }
+
+        for (Segment seg : new ArrayList<>(segments.values())) {
+            if (seg.live == 0) delete(seg);
+        }
+    }
+
+    /**
+     * Reads the record at the buffer position. Returns null at the end of
+     * the segment or at a damaged record; an ACK comes back with a null record.
+     */
+    private static Entry decode(ByteBuffer buf) throws IOException {
+        if (buf.remaining() < HEADER) return null;
+        int start = buf.position();
+        int length = buf.getInt();
+        int checksum = buf.getInt();
+        if (length <= 0 || length > buf.remaining()) {
+            buf.position(start);
+            return null;
+        }
+
+        byte[] body = new byte[length];
+        buf.get(body);
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        if ((int) crc.getValue() != checksum) {
+            buf.position(start);
+            return null;
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = in.readByte();
+        long id = in.readLong();
+        if (type == ACK) return new Entry(id, null);
+        if (type != CALL) throw new IOException("Unknown journal record type " + type);
+        return new Entry(id, CallLogWriter.CallRecord.readFrom(in));
+    }
+}
@@ -0,0 +1,745 @@
+import javax.swing.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CallLogWriter
+ *
+ * Write-behind pipeline for finished calls. The call screen hands over an
+ * immutable CallRecord and returns at once; one background thread drains
+ * the queue in batches and writes each batch in a single transaction:
+ *
+ *  1) Calls        - one MERGE for the whole batch, generated CallIDs come
+ *                    back through OUTPUT (plain JDBC batches cannot return keys)
+ *  2) Complaints   - one insert per complaint call (needs its ComplaintID)
+ *  3) ComplaintTexts, CallDetails - JDBC batches
+ *
+ * Failure handling:
+ *  - Transient errors (connection loss, deadlock victim, lock timeout) roll
+ *    the batch back and retry it with exponential backoff, until it succeeds.
+ *    A commit whose outcome was lost may have gone through, so a retried
+ *    batch looks every call up first, like a replayed one.
+ *  - Any other error splits the batch into single records, so one bad record
+ *    cannot block the rest. A single record that still fails is reported to
+ *    stderr and to the user, and dropped.
+ *
+ * Durability: every call is appended to the local CallJournal before it is
+ * queued and acknowledged there once committed (or dropped). Calls left
+ * over from a crash are replayed at start; a replayed call is first looked
+ * up in the database (same staff, phone and start/end time) so it is never
+ * written twice.
+ *
+ * Backpressure: the queue is bounded (-Drtf.calllog.capacity, default 1000).
+ * When it is full, a journaled call spills to the journal and is fed back in
+ * once the writer catches up, so agents keep working through an outage.
+ * Without a journal (disabled or locked by another instance) submit() waits
+ * briefly (-Drtf.calllog.offerWaitMs, default 100) and then refuses the call,
+ * so the screen can ask the agent to try again.
+ *
+ * Other settings:
+ *  -Drtf.calllog.batchSize  records per transaction (default 50)
+ *  -Drtf.calllog.lingerMs   how long to wait for more records to fill a batch (default 50)
+ *  -Drtf.journal.enabled    false to run without the journal
+ *
+ * Tables used:
+ *  - Calls, CallDetails
+ *  - Complaints, ComplaintTexts
+ */
+public final class CallLogWriter {
+
+    /** One finished call, as captured by the call screen. Immutable. */
+    public static final class CallRecord {
+        private final Integer customerId;
+        private final int staffId;
+        private final int callTypeId;
+        private final Integer callTopicId;
+        private final Integer callResultId;
+        private final boolean createComplaint;
+        private final Integer relatedComplaintId;
+        private final String phone;
+        private final String notes;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final int durationSec;
+
+        /**
+         * @param createComplaint    also open a complaint for this call (needs a customer)
+         * @param relatedComplaintId link the call to this existing complaint instead, or null
+         * @param notes              trimmed notes, "" for none
+         */
+        public CallRecord(Integer customerId, int staffId, int callTypeId,
+                          Integer callTopicId, Integer callResultId,
+                          boolean createComplaint, Integer relatedComplaintId,
+                          String phone, String notes,
+                          LocalDateTime startTime, LocalDateTime endTime, int durationSec) {
+            if (createComplaint && customerId == null) {
+                throw new IllegalArgumentException("A complaint needs a customer.");
+            }
+            if (createComplaint && relatedComplaintId != null) {
+                throw new IllegalArgumentException("A call either opens a complaint or is linked to one.");
+            }
+            this.customerId = customerId;
+            this.staffId = staffId;
+            this.callTypeId = callTypeId;
+            this.callTopicId = callTopicId;
+            this.callResultId = callResultId;
+            this.createComplaint = createComplaint;
+            this.relatedComplaintId = relatedComplaintId;
+            this.phone = phone;
+            this.notes = notes;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.durationSec = durationSec;
+        }
+
+        public int staffId() {
+            return staffId;
+        }
+
+        public boolean createComplaint() {
+            return createComplaint;
+        }
+
+        /** Journal encoding (CallJournal). */
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeByte(2); // format version
+            writeNullableInt(out, customerId);
+            out.writeInt(staffId);
+            out.writeInt(callTypeId);
+            writeNullableInt(out, callTopicId);
+            writeNullableInt(out, callResultId);
+            out.writeBoolean(createComplaint);
+            writeNullableInt(out, relatedComplaintId);
+            writeString(out, phone);
+            writeString(out, notes);
+            writeString(out, startTime.toString());
+            writeString(out, endTime.toString());
+            out.writeInt(durationSec);
+        }
+
+        static CallRecord readFrom(DataInputStream in) throws IOException {
+            int version = in.readByte();
+            if (version != 1 && version != 2) throw new IOException("Unknown call record version " + version);
+            Integer customerId = readNullableInt(in);
+            int staffId = in.readInt();
+            int callTypeId = in.readInt();
+            Integer callTopicId = readNullableInt(in);
+            Integer callResultId = readNullableInt(in);
+            boolean createComplaint = in.readBoolean();
+            Integer relatedComplaintId = version >= 2 ? readNullableInt(in) : null;
+            String phone = readString(in);
+            String notes = readString(in);
+            LocalDateTime startTime = LocalDateTime.parse(readString(in));
+            LocalDateTime endTime = LocalDateTime.parse(readString(in));
+            int durationSec = in.readInt();
+            return new CallRecord(customerId, staffId, callTypeId, callTopicId, callResultId,
+                    createComplaint, relatedComplaintId, phone, notes, startTime, endTime, durationSec);
+        }
+
+        private static void writeNullableInt(DataOutputStream out, Integer value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) out.writeInt(value);
+        }
+
+        private static Integer readNullableInt(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readInt() : null;
+        }
+
+        // Not writeUTF: notes may be longer than 64 KB
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String toString() {
+            return "call from " + phone + " (staff " + staffId + ", customer " + customerId
+                    + ", " + startTime + " - " + endTime + ")";
+        }
+    }
+
+    /** A call on its way to the database. */
+    private static final class Pending {
+        final CallRecord record;   // null for a spilled call until it is read back
+        final long journalId;      // 0 = not journaled
+        final boolean replayed;    // left over from an earlier run: may already be in the database
+        int callId;                // set once inserted
+        Integer complaintId;       // set once inserted, if the call opened a complaint
+
+        Pending(CallRecord record, long journalId, boolean replayed) {
+            this.record = record;
+            this.journalId = journalId;
+            this.replayed = replayed;
+        }
+    }
+
+    private static final int CAPACITY = Integer.getInteger("rtf.calllog.capacity", 1000);
+    private static final int BATCH_SIZE = Math.max(1, Integer.getInteger("rtf.calllog.batchSize", 50));
+    private static final long LINGER_MS = Long.getLong("rtf.calllog.lingerMs", 50);
+    private static final long OFFER_WAIT_MS = Long.getLong("rtf.calllog.offerWaitMs", 100);
+
+    private static final long REPLAY_INTERVAL_MS = 1000;
+    private static final long RETRY_MIN_MS = 200;
+    private static final long RETRY_MAX_MS = 10_000;
+
+    /** Title of a complaint opened from a call; the CallID follows. */
+    static final String CALL_COMPLAINT_TITLE = "Complaint from call #";
+
+    private static final String INSERT_COMPLAINT_SQL = """
+        INSERT INTO Complaints
+        (CustomerID, ProductID, ComplaintCategoryID, ComplaintSourceID,
+         CallID, ComplaintStatusID, ComplaintPriorityID, AssignedStaffID, IsActive)
+        VALUES (?, NULL, NULL, ?, ?, ?, ?, ?, 1)
+        """;
+
+    private static final String INSERT_TEXTS_SQL = """
+        INSERT INTO ComplaintTexts
+        (ComplaintID, Title, Description, CreatedAt, ClosedAt, LastUpdatedAt)
+        VALUES (?, ?, ?, SYSDATETIME(), NULL, SYSDATETIME())
+        """;
+
+    // Dedup for replayed and retried calls; times within a second (datetime columns round)
+    private static final String EXISTS_SQL = """
+        SELECT TOP 1 c.CallID
+        FROM Calls c
+        JOIN CallDetails cd ON c.CallID = cd.CallID
+        WHERE c.StaffID = ?
+          AND cd.PhoneNumber = ?
+          AND cd.StartTime >= ? AND cd.StartTime < ?
+          AND cd.EndTime >= ? AND cd.EndTime < ?
+        """;
+
+    private static final String INSERT_DETAILS_SQL = """
+        INSERT INTO CallDetails
+        (CallID, PhoneNumber, StartTime, EndTime, DurationSec, RelatedComplaintID, Notes)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final BlockingQueue<Pending> QUEUE = new ArrayBlockingQueue<>(CAPACITY);
+
+    // Journaled calls waiting for room in the queue (spilled, or recovered at start)
+    private static final Deque<Pending> BACKLOG = new ArrayDeque<>();
+
+    private static final CallJournal JOURNAL = openJournal();
+
+    // Accepted but not yet committed or dropped (queued, in the backlog or in the current batch)
+    private static final AtomicInteger PENDING = new AtomicInteger();
+    private static final AtomicLong WRITTEN = new AtomicLong();
+    private static final AtomicLong FAILED = new AtomicLong();
+    private static final AtomicLong RETRIES = new AtomicLong();
+
+    static {
+        if (JOURNAL != null) {
+            List<CallJournal.Entry> recovered = JOURNAL.recovered();
+            if (!recovered.isEmpty()) {
+                System.out.println("Call journal: replaying " + recovered.size() + " unsaved call(s)");
+            }
+            synchronized (BACKLOG) {
+                for (CallJournal.Entry e : recovered) {
+                    BACKLOG.add(new Pending(e.record, e.id, true));
+                }
+            }
+            PENDING.addAndGet(recovered.size());
+
+            Thread replayer = new Thread(CallLogWriter::replay, "call-journal-replay");
+            replayer.setDaemon(true);
+            replayer.start();
+        }
+
+        Thread writer = new Thread(CallLogWriter::run, "call-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        // Daemon thread: give queued calls a chance to reach the database on exit
+        // (anything left stays in the journal for the next start)
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            flush(5_000);
+            if (JOURNAL != null) JOURNAL.close();
+        }, "call-log-flush"));
+    }
+
+    private CallLogWriter() {
+    }
+
+    private static CallJournal openJournal() {
+        if (!Boolean.parseBoolean(System.getProperty("rtf.journal.enabled", "true"))) return null;
+        Path dir = Paths.get(System.getProperty("rtf.journal.dir",
+                System.getProperty("user.home") + "/.rtf/journal"));
+        int segmentBytes = Integer.getInteger("rtf.journal.segmentKB", 4096) * 1024;
+        try {
+            CallJournal journal = CallJournal.open(dir, segmentBytes);
+            if (journal == null) {
+                System.err.println("Call journal " + dir + " is in use by another instance; running without it");
+            }
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace(); // calls still get written, just not crash-safe
+            return null;
+        }
+    }
+
+    /** Starts the writer and replays calls left in the journal by an earlier run. */
+    public static void start() {
+        // Class initialization does the work
+    }
+
+    /**
+     * Hands over a finished call. With the journal the call is on disk when
+     * this returns and it is never refused. Without it, returns false if the
+     * queue stayed full for the offer wait (writer behind, usually database down).
+     */
+    public static boolean submit(CallRecord record) {
+        long journalId = 0;
+        if (JOURNAL != null) {
+            try {
+                journalId = JOURNAL.append(record);
+            } catch (IOException e) {
+                e.printStackTrace(); // disk trouble: fall back to memory only for this call
+            }
+        }
+
+        PENDING.incrementAndGet();
+        Pending p = new Pending(record, journalId, false);
+
+        if (journalId != 0) {
+            synchronized (BACKLOG) {
+                // Keep order: while there is a backlog, new calls queue up behind it
+                if (!BACKLOG.isEmpty() || !QUEUE.offer(p)) {
+                    BACKLOG.add(new Pending(null, journalId, false)); // the record stays on disk only
+                }
+            }
+            return true;
+        }
+
+        boolean accepted;
+        try {
+            accepted = QUEUE.offer(p, OFFER_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) PENDING.decrementAndGet();
+        return accepted;
+    }
+
+    /** Calls accepted but not written yet. */
+    public static int pending() {
+        return PENDING.get();
+    }
+
+    /** Waits until everything accepted so far is written (or dropped). */
+    public static boolean flush(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (PENDING.get() > 0) {
+            if (System.currentTimeMillis() >= deadline) return false;
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String getStats() {
+        int backlog;
+        synchronized (BACKLOG) {
+            backlog = BACKLOG.size();
+        }
+        return "pending=" + PENDING.get() + " backlog=" + backlog + " written=" + WRITTEN.get()
+                + " failed=" + FAILED.get() + " retries=" + RETRIES.get()
+                + " journal=" + (JOURNAL != null ? JOURNAL.unacknowledged() + " unacknowledged" : "off");
+    }
+
+    // ---- Replay thread: moves the backlog into the queue as room frees up ----
+
+    private static void replay() {
+        while (true) {
+            try {
+                Thread.sleep(REPLAY_INTERVAL_MS);
+                while (QUEUE.remainingCapacity() > 0) {
+                    Pending p;
+                    synchronized (BACKLOG) {
+                        p = BACKLOG.poll();
+                    }
+                    if (p == null) break;
+
+                    if (p.record == null) {
+                        CallRecord record = null;
+                        try {
+                            record = JOURNAL.read(p.journalId);
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                        if (record == null) { // unreadable: nothing left to write
+                            PENDING.decrementAndGet();
+                            continue;
+                        }
+                        p = new Pending(record, p.journalId, p.replayed);
+                    }
+                    QUEUE.put(p); // only this thread fills the queue from the backlog
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // keep replaying
+            }
+        }
+    }
+
+    // ---- Writer thread ----
+
+    private static void run() {
+        List<Pending> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                batch.add(QUEUE.take());
+                QUEUE.drainTo(batch, BATCH_SIZE - batch.size());
+
+                // Quiet period: wait a little for a fuller batch (fewer commits at peak)
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MS);
+                while (batch.size() < BATCH_SIZE) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) break;
+                    Pending next = QUEUE.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    QUEUE.drainTo(batch, BATCH_SIZE - batch.size());
+                }
+
+                write(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // keep the writer alive
+            } finally {
+                PENDING.addAndGet(-batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    /** Writes the batch, retrying transient errors and isolating bad records. */
+    private static void write(List<Pending> batch) throws InterruptedException {
+        write(batch, false);
+    }
+
+    /**
+     * @param mayBeWritten an earlier attempt may have committed without us
+     *                     seeing it (connection lost during commit), so every
+     *                     record is looked up before it is inserted
+     */
+    private static void write(List<Pending> batch, boolean mayBeWritten) throws InterruptedException {
+        long backoff = RETRY_MIN_MS;
+        List<Pending> inserted;
+        while (true) {
+            try (Connection conn = DbConfig.getConnection()) {
+                inserted = insertBatch(conn, batch, mayBeWritten);
+                break;
+            } catch (SQLException | RuntimeException e) {
+                if (e instanceof SQLException && isTransient((SQLException) e)) {
+                    RETRIES.incrementAndGet();
+                    mayBeWritten = true;
+                    System.err.println("Call log write failed (" + e.getMessage() + "), retrying "
+                            + batch.size() + " call(s) in " + backoff + " ms");
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, RETRY_MAX_MS);
+                    continue;
+                }
+                // Permanent (constraint violation, missing reference data, ...): isolate the bad record
+                if (batch.size() > 1) {
+                    for (Pending p : batch) {
+                        write(List.of(p), mayBeWritten);
+                    }
+                    return;
+                }
+                dropped(batch.get(0), e);
+                return;
+            }
+        }
+
+        // Committed. Nothing below may send the records back through the
+        // failure path: they are in the database already
+        WRITTEN.addAndGet(batch.size());
+        for (Pending p : inserted) {
+            try {
+                committed(p);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        acknowledge(batch);
+    }
+
+    /** Dashboard counters (the complaint is assigned to this staff), events and in-memory indexes. */
+    private static void committed(Pending p) {
+        DailyCounters.callLogged(p.record.staffId, p.record.createComplaint);
+        ComplaintEvents.publish(new ComplaintEvents.CallLogged(
+                p.callId, p.record.staffId, p.record.customerId, p.complaintId));
+        if (p.complaintId != null) {
+            ComplaintEvents.publish(new ComplaintEvents.ComplaintCreated(p.complaintId,
+                    p.record.customerId, p.record.staffId, CALL_COMPLAINT_TITLE + p.callId));
+            DuplicateDetector.added(p.complaintId, p.record.customerId, null,
+                    CALL_COMPLAINT_TITLE + p.callId, complaintDescription(p.record.notes));
+            // Category (still NULL) and urgency from the notes, in the background
+            ComplaintClassifier.enqueue(p.complaintId, CALL_COMPLAINT_TITLE + p.callId,
+                    complaintDescription(p.record.notes), true);
+            SlaEscalator.opened(p.complaintId, null);
+        }
+    }
+
+    private static void acknowledge(List<Pending> batch) {
+        if (JOURNAL == null) return;
+        for (Pending p : batch) {
+            if (p.journalId == 0) continue;
+            try {
+                JOURNAL.ack(p.journalId);
+            } catch (IOException e) {
+                e.printStackTrace(); // replayed at the next start and skipped by the dedup check
+            }
+        }
+    }
+
+    private static void dropped(Pending p, Exception e) {
+        // Given up: also remove it from the journal, or it would fail again at every start
+        acknowledge(List.of(p));
+        CallRecord record = p.record;
+        FAILED.incrementAndGet();
+        System.err.println("Call could not be saved and was dropped: " + record);
+        e.printStackTrace();
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                "A call could not be saved:\n" + record + "\n\n" + e.getMessage()
+                        + "\n\nPlease enter it again.",
+                "Call Not Saved", JOptionPane.ERROR_MESSAGE));
+    }
+
+    /** Connection trouble, deadlock victim, lock / query timeout, Azure throttling. */
+    static boolean isTransient(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientException || t instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                SQLException s = (SQLException) t;
+                String state = s.getSQLState();
+                if (state != null && (state.startsWith("08") || state.equals("40001"))) {
+                    return true;
+                }
+                switch (s.getErrorCode()) {
+                    case 1205:  // deadlock victim
+                    case 1222:  // lock request timeout
+                    case -2:    // timeout
+                    case 40197:
+                    case 40501:
+                    case 40613:
+                        return true;
+                    default:
+                        break;
+                }
+            }
+        }
+        return false;
+    }
+
+    // ---- SQL ----
+
+    /**
+     * One transaction for the whole batch.
+     *
+     * @param lookUpAll look every call up first, not only replayed ones
+     * @return the calls actually inserted (calls already written left out)
+     */
+    private static List<Pending> insertBatch(Connection conn, List<Pending> pending, boolean lookUpAll)
+            throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            List<Pending> fresh = new ArrayList<>(pending.size());
+            for (Pending p : pending) {
+                if (!(p.replayed || lookUpAll) || !alreadyWritten(conn, p.record)) fresh.add(p);
+            }
+            if (fresh.isEmpty()) {
+                conn.commit();
+                return fresh;
+            }
+
+            List<CallRecord> batch = new ArrayList<>(fresh.size());
+            for (Pending p : fresh) batch.add(p.record);
+
+            int[] callIds = insertCalls(conn, batch);
+
+            Integer[] complaintIds = new Integer[batch.size()];
+            boolean anyComplaint = false;
+            try (PreparedStatement psC = conn.prepareStatement(INSERT_COMPLAINT_SQL, new String[]{"ComplaintID"})) {
+                for (int i = 0; i < batch.size(); i++) {
+                    CallRecord r = batch.get(i);
+                    if (!r.createComplaint) continue;
+                    anyComplaint = true;
+
+                    psC.setInt(1, r.customerId);
+                    psC.setInt(2, ReferenceData.callCenterSourceId());
+                    psC.setInt(3, callIds[i]);
+                    psC.setInt(4, ReferenceData.openStatusId());
+                    psC.setInt(5, ReferenceData.defaultPriorityId());
+                    psC.setInt(6, r.staffId);
+                    psC.executeUpdate();
+
+                    try (ResultSet keys = psC.getGeneratedKeys()) {
+                        if (!keys.next()) throw new SQLException("Failed to retrieve generated ComplaintID.");
+                        complaintIds[i] = keys.getInt(1);
+                    }
+                }
+            }
+
+            if (anyComplaint) {
+                try (PreparedStatement psT = conn.prepareStatement(INSERT_TEXTS_SQL)) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (complaintIds[i] == null) continue;
+                        psT.setInt(1, complaintIds[i]);
+                        psT.setString(2, CALL_COMPLAINT_TITLE + callIds[i]);
+                        psT.setString(3, complaintDescription(batch.get(i).notes));
+                        psT.addBatch();
+                    }
+                    psT.executeBatch();
+                }
+            }
+
+            try (PreparedStatement psD = conn.prepareStatement(INSERT_DETAILS_SQL)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    CallRecord r = batch.get(i);
+                    psD.setInt(1, callIds[i]);
+                    psD.setString(2, r.phone);
+                    psD.setTimestamp(3, Timestamp.valueOf(r.startTime));   // StartTime = when screen opened
+                    psD.setTimestamp(4, Timestamp.valueOf(r.endTime));     // EndTime = when End Call pressed
+                    psD.setInt(5, r.durationSec);
+                    setNullableInt(psD, 6, complaintIds[i] != null ? complaintIds[i] : r.relatedComplaintId);
+                    psD.setString(7, r.notes.isEmpty() ? null : r.notes);
+                    psD.addBatch();
+                }
+                psD.executeBatch();
+            }
+
+            conn.commit();
+            for (int i = 0; i < fresh.size(); i++) {
+                fresh.get(i).callId = callIds[i];
+                fresh.get(i).complaintId = complaintIds[i];
+            }
+            return fresh;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    static String complaintDescription(String notes) {
+        return notes.isEmpty() ? "Complaint created from call. No additional notes." : notes;
+    }
+
+    private static boolean alreadyWritten(Connection conn, CallRecord r) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(EXISTS_SQL)) {
+            ps.setInt(1, r.staffId);
+            ps.setString(2, r.phone);
+            ps.setTimestamp(3, Timestamp.valueOf(r.startTime.minusSeconds(1)));
+            ps.setTimestamp(4, Timestamp.valueOf(r.startTime.plusSeconds(1)));
+            ps.setTimestamp(5, Timestamp.valueOf(r.endTime.minusSeconds(1)));
+            ps.setTimestamp(6, Timestamp.valueOf(r.endTime.plusSeconds(1)));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Inserts all Calls rows with one statement. MERGE (unlike INSERT) can
+     * output a source column, which ties every generated CallID to its record;
+     * OUTPUT INTO a table variable also works when Calls has triggers.
+     *
+     * @return CallID per batch position
+     */
+    private static int[] insertCalls(Connection conn, List<CallRecord> batch) throws SQLException {
+        StringBuilder sql = new StringBuilder("""
+            SET NOCOUNT ON;
+            DECLARE @ids TABLE (Seq INT PRIMARY KEY, CallID INT);
+            MERGE INTO Calls AS tgt
+            USING (VALUES
+            """);
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? "    " : "  , ").append("(?, ?, ?, ?, ?, ?)\n");
+        }
+        sql.append("""
+            ) AS src (Seq, CustomerID, StaffID, CallTypeID, CallTopicID, CallResultID)
+            ON 1 = 0
+            WHEN NOT MATCHED THEN
+                INSERT (CustomerID, StaffID, CallTypeID, CallTopicID, CallResultID)
+                VALUES (src.CustomerID, src.StaffID, src.CallTypeID, src.CallTopicID, src.CallResultID)
+            OUTPUT src.Seq, INSERTED.CallID INTO @ids;
+            SELECT Seq, CallID FROM @ids;
+            """);
+
+        int[] callIds = new int[batch.size()];
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (int i = 0; i < batch.size(); i++) {
+                CallRecord r = batch.get(i);
+                ps.setInt(p++, i);
+                setNullableInt(ps, p++, r.customerId);
+                ps.setInt(p++, r.staffId);
+                ps.setInt(p++, r.callTypeId);
+                setNullableInt(ps, p++, r.callTopicId);
+                setNullableInt(ps, p++, r.callResultId);
+            }
+
+            int found = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    callIds[rs.getInt("Seq")] = rs.getInt("CallID");
+                    found++;
+                }
+            }
+            if (found != batch.size()) {
+                throw new SQLException("Expected " + batch.size() + " generated CallIDs, got " + found + ".");
+            }
+        }
+        return callIds;
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+}
@@ -7,7 +7,12 @@ import java.awt.event.FocusEvent;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import javax.swing.JFormattedTextField;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.text.MaskFormatter;
 
 public class CallProcessingFrame extends JFrame {
@@ -16,23 +21,17 @@ public class CallProcessingFrame extends JFrame {
     private static final String PHONE_REGEX = "^0\\(\\d{3}\\) \\d{3} \\d{2} \\d{2}$";
     private static final String PHONE_PLACEHOLDER = "0(555) 123 45 67";
 
-    // !!! UPDATE THESE IDs ACCORDING TO YOUR DATABASE !!!
-    // ComplaintSources: e.g. row "Call Center"
-    private static final int DEFAULT_COMPLAINT_SOURCE_ID = 2;
-    // ComplaintStatus: e.g. row "Open"
-    private static final int DEFAULT_COMPLAINT_STATUS_OPEN_ID = 1;
-    // ComplaintPriority: e.g. row "Medium"
-    private static final int DEFAULT_COMPLAINT_PRIORITY_NORMAL_ID = 2;
-
     private final StaffUser staff;
 
     private JFormattedTextField txtPhone;
     private JButton btnFindCustomer;
+    private JButton btnTimeline;
     private JLabel lblCustomerInfo;
+    private final Map<ScreenPop.Part, JTextArea> contextAreas = new EnumMap<>(ScreenPop.Part.class);
 
-    private JComboBox<ComboItem> cbCallType;
-    private JComboBox<ComboItem> cbCallTopic;
-    private JComboBox<ComboItem> cbCallResult;
+    private JComboBox<ReferenceData.Item> cbCallType;
+    private JComboBox<ReferenceData.Item> cbCallTopic;
+    private JComboBox<ReferenceData.Item> cbCallResult;
 
     private JTextArea txtNotes;
     private JButton btnEndCall;
@@ -40,9 +39,17 @@ public class CallProcessingFrame extends JFrame {
     // If a customer is found (or created) by phone, their ID is stored here
     private Integer currentCustomerId = null;
 
+    // Customer context of this call (screen-pop), and whose context is shown
+    private final ScreenPop screenPop = new ScreenPop();
+    private Integer contextCustomerId = null;
+    private String poppedPhone = null;
+
     // Call start time (when this screen is opened)
     private LocalDateTime callStartTime;
 
+    // Background DB work for this window (cancelled when the window is disposed)
+    private final DbExecutor.Group tasks = new DbExecutor.Group(this);
+
     public CallProcessingFrame(StaffUser staff) {
         this.staff = staff;
 
@@ -85,6 +92,27 @@ public class CallProcessingFrame extends JFrame {
 
         btnFindCustomer.addActionListener(e -> findCustomerByPhone());
 
+        btnTimeline = new JButton("History");
+        btnTimeline.addActionListener(e -> openTimeline());
+
+        // Screen-pop: look the caller up as soon as the number is complete
+        txtPhone.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                onPhoneEdited();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                onPhoneEdited();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                onPhoneEdited();
+            }
+        });
+
         // Comboboxes
         JLabel lblCallType = new JLabel("Call Type:");
         cbCallType = new JComboBox<>();
@@ -116,6 +144,7 @@ public class CallProcessingFrame extends JFrame {
         phonePanel.add(lblPhone);
         phonePanel.add(txtPhone);
         phonePanel.add(btnFindCustomer);
+        phonePanel.add(btnTimeline);
 
         // Call info (lookup) panel
         JPanel lookupPanel = new JPanel(new GridLayout(3, 2, 5, 5));
@@ -130,7 +159,18 @@ public class CallProcessingFrame extends JFrame {
         // Customer info panel
         JPanel customerPanel = new JPanel(new BorderLayout());
         customerPanel.setBorder(BorderFactory.createTitledBorder("Customer Information"));
-        customerPanel.add(lblCustomerInfo, BorderLayout.CENTER);
+        customerPanel.add(lblCustomerInfo, BorderLayout.NORTH);
+
+        JPanel contextPanel = new JPanel(new GridLayout(0, 2, 5, 5));
+        for (ScreenPop.Part part : ScreenPop.Part.values()) {
+            JTextArea area = new JTextArea(3, 30);
+            area.setEditable(false);
+            JScrollPane scroll = new JScrollPane(area);
+            scroll.setBorder(BorderFactory.createTitledBorder(part.title()));
+            contextAreas.put(part, area);
+            contextPanel.add(scroll);
+        }
+        customerPanel.add(contextPanel, BorderLayout.CENTER);
 
         // Notes panel
         JPanel notesPanel = new JPanel(new BorderLayout());
@@ -203,45 +243,31 @@ public class CallProcessingFrame extends JFrame {
      *  - CallTopics
      *  - CallResults
      *
-     * Loads lookup data into combo boxes.
+     * Fills the combo boxes from the shared reference-data cache.
      */
     private void loadLookupData() {
-        loadCombo(cbCallType,
-                "SELECT CallTypeID, Name FROM CallTypes ORDER BY Name",
-                "CallTypeID", "Name");
-
-        loadCombo(cbCallTopic,
-                "SELECT CallTopicID, Name FROM CallTopics ORDER BY Name",
-                "CallTopicID", "Name");
-
-        loadCombo(cbCallResult,
-                "SELECT CallResultID, Name FROM CallResults ORDER BY Name",
-                "CallResultID", "Name");
+        loadCombo(cbCallType, ReferenceData.Kind.CALL_TYPES);
+        loadCombo(cbCallTopic, ReferenceData.Kind.CALL_TOPICS);
+        loadCombo(cbCallResult, ReferenceData.Kind.CALL_RESULTS);
     }
 
-    private void loadCombo(JComboBox<ComboItem> combo,
-                           String sql,
-                           String idColumn,
-                           String nameColumn) {
-
+    private void loadCombo(JComboBox<ReferenceData.Item> combo, ReferenceData.Kind kind) {
         combo.removeAllItems();
+        combo.setEnabled(false);
 
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        ReferenceData.get(kind).whenComplete((table, e) -> SwingUtilities.invokeLater(() -> {
+            if (!isDisplayable()) return; // screen closed meanwhile
 
-            while (rs.next()) {
-                int id = rs.getInt(idColumn);
-                String name = rs.getString(nameColumn);
-                combo.addItem(new ComboItem(id, name));
+            if (e != null) {
+                e.printStackTrace();
+                JOptionPane.showMessageDialog(this,
+                        "Error while loading lookup data:\n" + e.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Error while loading lookup data:\n" + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+            combo.setModel(table.toComboModel());
+            combo.setEnabled(true);
+        }));
     }
 
     private boolean isValidPhoneFormat(String phone) {
@@ -253,7 +279,8 @@ public class CallProcessingFrame extends JFrame {
      *  - Customers
      *  - CustomerContactInfo
      *
-     * Logic: find customer by exact phone number.
+     * Logic: find customer by phone number, via CallerIdIndex first and the
+     * database as fallback.
      * If not found → open NewCustomerPopup (modal) and create a new customer
      * with username + password (CustomerUsers).
      */
@@ -275,81 +302,217 @@ public class CallProcessingFrame extends JFrame {
             return;
         }
 
+        btnFindCustomer.setEnabled(false);
+        lblCustomerInfo.setText("Customer: (searching...)");
+
+        // Caller-ID index hit → only a primary-key read for the name
+        int indexedCustomerId = CallerIdIndex.lookup(phone);
+
+        tasks.submitLatest("findCustomer", conn -> resolveCustomer(conn, phone, indexedCustomerId), row -> {
+            btnFindCustomer.setEnabled(true);
+
+            if (row != null) {
+                // CUSTOMER FOUND
+                currentCustomerId = (Integer) row[0];
+                String firstName = (String) row[1];
+                String lastName = (String) row[2];
+
+                lblCustomerInfo.setText("Customer: " + firstName + " " + lastName +
+                        " (ID: " + currentCustomerId + ")");
+                showCustomerContext(currentCustomerId);
+
+                JOptionPane.showMessageDialog(this,
+                        "Customer found:\n" +
+                                firstName + " " + lastName + "\nCustomer ID: " + currentCustomerId,
+                        "Customer Found",
+                        JOptionPane.INFORMATION_MESSAGE);
+
+            } else {
+                // CUSTOMER NOT FOUND → POPUP FOR NEW CUSTOMER
+                currentCustomerId = null;
+                lblCustomerInfo.setText("Customer not found.");
+                clearCustomerContext();
+                offerNewCustomer(phone);
+            }
+        }, e -> {
+            btnFindCustomer.setEnabled(true);
+            lblCustomerInfo.setText("Customer: (not found)");
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                    "Error while searching customer:\n" + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    /**
+     * Screen-pop: once the typed number is complete and valid, finds the
+     * caller without any dialogs and loads their context (ScreenPop). On a
+     * caller-ID index hit the context starts loading at once, in parallel
+     * with the name. Find Customer still offers to create unknown callers.
+     */
+    private void onPhoneEdited() {
+        String phone = getCleanPhoneFromField();
+        if (!isValidPhoneFormat(phone) || phone.equals(poppedPhone)) return;
+        poppedPhone = phone;
+
+        int indexedCustomerId = CallerIdIndex.lookup(phone);
+        if (indexedCustomerId != CallerIdIndex.NOT_FOUND) {
+            showCustomerContext(indexedCustomerId);
+        }
+        lblCustomerInfo.setText("Customer: (searching...)");
+
+        tasks.submitLatest("screenPop", conn -> resolveCustomer(conn, phone, indexedCustomerId), row -> {
+            if (!phone.equals(poppedPhone)) return; // number changed meanwhile
+
+            if (row != null) {
+                currentCustomerId = (Integer) row[0];
+                lblCustomerInfo.setText("Customer: " + row[1] + " " + row[2] +
+                        " (ID: " + currentCustomerId + ")");
+                showCustomerContext(currentCustomerId);
+            } else {
+                currentCustomerId = null;
+                lblCustomerInfo.setText("Customer not found. Press Find Customer to create one.");
+                clearCustomerContext();
+            }
+        }, e -> {
+            e.printStackTrace();
+            lblCustomerInfo.setText("Customer: (not found)");
+        });
+    }
+
+    /** Opens the linked customer's full history (CustomerTimelineFrame). */
+    private void openTimeline() {
+        if (currentCustomerId == null) {
+            JOptionPane.showMessageDialog(this,
+                    "No customer is linked to this call yet.",
+                    "Warning", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        new CustomerTimelineFrame(currentCustomerId, lblCustomerInfo.getText(), CustomerTimeline.View.STAFF)
+                .setVisible(true);
+    }
+
+    /** Fills the context areas part by part as ScreenPop delivers them. */
+    private void showCustomerContext(int customerId) {
+        if (contextCustomerId == null || contextCustomerId != customerId) {
+            contextCustomerId = customerId;
+            for (JTextArea area : contextAreas.values()) area.setText("Loading...");
+        }
+
+        screenPop.load(customerId, new ScreenPop.Listener() {
+            @Override
+            public void partLoaded(int id, ScreenPop.Part part, List<String> lines) {
+                if (!isContextOf(id)) return;
+                JTextArea area = contextAreas.get(part);
+                area.setText(lines.isEmpty() ? "-" : String.join("\n", lines));
+                area.setCaretPosition(0);
+            }
+
+            @Override
+            public void partFailed(int id, ScreenPop.Part part, Exception e) {
+                e.printStackTrace();
+                if (isContextOf(id)) contextAreas.get(part).setText("(could not be loaded)");
+            }
+        });
+    }
+
+    private boolean isContextOf(int customerId) {
+        return isDisplayable() && contextCustomerId != null && contextCustomerId == customerId;
+    }
+
+    private void clearCustomerContext() {
+        contextCustomerId = null;
+        for (JTextArea area : contextAreas.values()) area.setText("");
+    }
+
+    /**
+     * Runs in the background.
+     *
+     * @return {CustomerID, FirstName, LastName} or null
+     */
+    private static Object[] resolveCustomer(Connection conn, String phone, int indexedCustomerId) throws SQLException {
+        if (indexedCustomerId != CallerIdIndex.NOT_FOUND) {
+            Object[] row = queryCustomerById(conn, indexedCustomerId);
+            if (row != null) return row;
+        }
+
+        // Not indexed (yet), e.g. created by the customer app: ask the database
+        Object[] row = queryCustomerByPhone(conn, phone);
+        if (row != null) CallerIdIndex.put(phone, (Integer) row[0]);
+        return row;
+    }
+
+    /** @return {CustomerID, FirstName, LastName} or null */
+    private static Object[] queryCustomerById(Connection conn, int customerId) throws SQLException {
+        String sql = "SELECT CustomerID, FirstName, LastName FROM Customers WHERE CustomerID = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, customerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? customerRow(rs) : null;
+            }
+        }
+    }
+
+    /** @return {CustomerID, FirstName, LastName} or null */
+    private static Object[] queryCustomerByPhone(Connection conn, String phone) throws SQLException {
         String sql = """
             SELECT c.CustomerID, c.FirstName, c.LastName
             FROM CustomerContactInfo ci
             JOIN Customers c ON ci.CustomerID = c.CustomerID
             WHERE ci.PhoneNumber = ?
             """;
-
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, phone);
-
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    // CUSTOMER FOUND
-                    currentCustomerId = rs.getInt("CustomerID");
-                    String firstName = rs.getString("FirstName");
-                    String lastName = rs.getString("LastName");
-
-                    lblCustomerInfo.setText("Customer: " + firstName + " " + lastName +
-                            " (ID: " + currentCustomerId + ")");
-
-                    JOptionPane.showMessageDialog(this,
-                            "Customer found:\n" +
-                                    firstName + " " + lastName + "\nCustomer ID: " + currentCustomerId,
-                            "Customer Found",
-                            JOptionPane.INFORMATION_MESSAGE);
-
-                } else {
-                    // CUSTOMER NOT FOUND → POPUP FOR NEW CUSTOMER
-                    currentCustomerId = null;
-                    lblCustomerInfo.setText("Customer not found.");
-
-                    int choice = JOptionPane.showConfirmDialog(
-                            this,
-                            "No customer found with this phone number.\n" +
-                                    "Do you want to create a new customer with this number?",
-                            "Customer Not Found",
-                            JOptionPane.YES_NO_OPTION
-                    );
-
-                    if (choice == JOptionPane.YES_OPTION) {
-                        NewCustomerPopup popup = new NewCustomerPopup(this, phone);
-                        popup.setVisible(true); // modal – waits until closed
-
-                        Integer newId = popup.getCreatedCustomerId();
-                        if (newId != null) {
-                            currentCustomerId = newId;
-
-                            String name = popup.getCreatedCustomerName();
-                            String username = popup.getCreatedUsername();
-
-                            lblCustomerInfo.setText(
-                                    "Customer: " +
-                                            (name != null ? name : "(ID " + newId + ")") +
-                                            " (ID: " + newId +
-                                            (username != null ? ", Username: " + username : "") +
-                                            ")"
-                            );
-
-                            JOptionPane.showMessageDialog(this,
-                                    "New customer created and linked to this call.\n" +
-                                            "CustomerID: " + newId,
-                                    "New Customer",
-                                    JOptionPane.INFORMATION_MESSAGE);
-                        }
-                    }
-                }
+                return rs.next() ? customerRow(rs) : null;
             }
+        }
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Error while searching customer:\n" + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
+    private static Object[] customerRow(ResultSet rs) throws SQLException {
+        return new Object[]{
+                rs.getInt("CustomerID"),
+                rs.getString("FirstName"),
+                rs.getString("LastName")
+        };
+    }
+
+    private void offerNewCustomer(String phone) {
+        int choice = JOptionPane.showConfirmDialog(
+                this,
+                "No customer found with this phone number.\n" +
+                        "Do you want to create a new customer with this number?",
+                "Customer Not Found",
+                JOptionPane.YES_NO_OPTION
+        );
+
+        if (choice == JOptionPane.YES_OPTION) {
+            NewCustomerPopup popup = new NewCustomerPopup(this, phone);
+            popup.setVisible(true); // modal – waits until closed
+
+            Integer newId = popup.getCreatedCustomerId();
+            if (newId != null) {
+                currentCustomerId = newId;
+
+                String name = popup.getCreatedCustomerName();
+                String username = popup.getCreatedUsername();
+
+                lblCustomerInfo.setText(
+                        "Customer: " +
+                                (name != null ? name : "(ID " + newId + ")") +
+                                " (ID: " + newId +
+                                (username != null ? ", Username: " + username : "") +
+                                ")"
+                );
+
+                showCustomerContext(newId);
+
+                JOptionPane.showMessageDialog(this,
+                        "New customer created and linked to this call.\n" +
+                                "CustomerID: " + newId,
+                        "New Customer",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
         }
     }
 
@@ -362,11 +525,12 @@ public class CallProcessingFrame extends JFrame {
      *  - CallResults
      *  - Complaints (only if topic is Complaint)
      *  - ComplaintTexts (only if topic is Complaint)
-     *  - ComplaintSources, ComplaintStatus, ComplaintPriority (via default IDs)
+     *  - ComplaintSources, ComplaintStatus, ComplaintPriority (IDs resolved by name via ReferenceData)
      *
      * Logic:
      *  1) Call starts when this screen opens (callStartTime).
-     *  2) When agent clicks "End Call":
+     *  2) When agent clicks "End Call" the call is queued to CallLogWriter,
+     *     which writes it in the background (batched with other calls):
      *     - Insert into Calls (CustomerID, StaffID, CallTypeID, CallTopicID, CallResultID)
      *     - If Topic = Complaint → insert into Complaints + ComplaintTexts
      *     - Insert into CallDetails (CallID, PhoneNumber, StartTime, EndTime, DurationSec, RelatedComplaintID, Notes)
@@ -389,9 +553,9 @@ public class CallProcessingFrame extends JFrame {
             return;
         }
 
-        ComboItem callTypeItem = (ComboItem) cbCallType.getSelectedItem();
-        ComboItem callTopicItem = (ComboItem) cbCallTopic.getSelectedItem();
-        ComboItem callResultItem = (ComboItem) cbCallResult.getSelectedItem();
+        ReferenceData.Item callTypeItem = (ReferenceData.Item) cbCallType.getSelectedItem();
+        ReferenceData.Item callTopicItem = (ReferenceData.Item) cbCallTopic.getSelectedItem();
+        ReferenceData.Item callResultItem = (ReferenceData.Item) cbCallResult.getSelectedItem();
 
         if (callTypeItem == null) {
             JOptionPane.showMessageDialog(this,
@@ -407,214 +571,72 @@ public class CallProcessingFrame extends JFrame {
         String notes = txtNotes.getText().trim();
 
         // Determine if selected topic represents a complaint
-        boolean isComplaintTopic = false;
-        if (callTopicItem != null) {
-            String topicName = callTopicItem.name().toLowerCase();
-            if (topicName.contains("complaint") || topicName.contains("şikayet")) {
-                isComplaintTopic = true;
-            }
-        }
+        boolean isComplaintTopic = callTopicItem != null
+                && ComplaintClassifier.isComplaintTopic(callTopicItem.name());
 
         // Call end time = when End Call button is pressed
         LocalDateTime callEndTime = LocalDateTime.now();
         long durationSecLong = ChronoUnit.SECONDS.between(callStartTime, callEndTime);
         int durationSec = (int) Math.max(durationSecLong, 0);
 
-        Connection conn = null;
-        try {
-            conn = DbConfig.getConnection();
-            conn.setAutoCommit(false);
-
-            int callId;
-
-            // 1) Insert into Calls
-            String insertCallSql = """
-                INSERT INTO Calls (CustomerID, StaffID, CallTypeID, CallTopicID, CallResultID)
-                VALUES (?, ?, ?, ?, ?)
-                """;
-
-            try (PreparedStatement ps = conn.prepareStatement(insertCallSql, Statement.RETURN_GENERATED_KEYS)) {
-
-                if (currentCustomerId != null) {
-                    ps.setInt(1, currentCustomerId);
-                } else {
-                    ps.setNull(1, Types.INTEGER);
-                }
-
-                ps.setInt(2, staff.getStaffId());
-                ps.setInt(3, callTypeId);
-
-                if (callTopicId != null) {
-                    ps.setInt(4, callTopicId);
-                } else {
-                    ps.setNull(4, Types.INTEGER);
-                }
-
-                if (callResultId != null) {
-                    ps.setInt(5, callResultId);
-                } else {
-                    ps.setNull(5, Types.INTEGER);
-                }
-
-                ps.executeUpdate();
-
-                try (ResultSet keys = ps.getGeneratedKeys()) {
-                    if (keys.next()) {
-                        callId = keys.getInt(1);
-                    } else {
-                        throw new SQLException("Failed to retrieve generated CallID.");
-                    }
-                }
-            }
-
-            // 2) If topic is Complaint and we have a customer → create complaint records
-            Integer relatedComplaintId = null;
-
-            if (isComplaintTopic) {
-                if (currentCustomerId == null) {
-                    JOptionPane.showMessageDialog(this,
-                            "Topic is 'Complaint' but no customer is linked to this call.\n" +
-                                    "Complaint record will not be created.",
-                            "Warning", JOptionPane.WARNING_MESSAGE);
-                } else {
-                    // Insert into Complaints
-                    String insertComplaintSql = """
-                        INSERT INTO Complaints
-                        (CustomerID, ProductID, ComplaintCategoryID, ComplaintSourceID,
-                         CallID, ComplaintStatusID, ComplaintPriorityID, AssignedStaffID, IsActive)
-                        VALUES (?, NULL, NULL, ?, ?, ?, ?, ?, 1)
-                        """;
-
-                    try (PreparedStatement psC = conn.prepareStatement(insertComplaintSql, Statement.RETURN_GENERATED_KEYS)) {
-
-                        psC.setInt(1, currentCustomerId);
-                        psC.setInt(2, DEFAULT_COMPLAINT_SOURCE_ID);
-                        psC.setInt(3, callId);
-                        psC.setInt(4, DEFAULT_COMPLAINT_STATUS_OPEN_ID);
-                        psC.setInt(5, DEFAULT_COMPLAINT_PRIORITY_NORMAL_ID);
-                        psC.setInt(6, staff.getStaffId());
-
-                        psC.executeUpdate();
-
-                        try (ResultSet keysC = psC.getGeneratedKeys()) {
-                            if (keysC.next()) {
-                                relatedComplaintId = keysC.getInt(1);
-                            } else {
-                                throw new SQLException("Failed to retrieve generated ComplaintID.");
-                            }
-                        }
-                    }
-
-                    // Insert into ComplaintTexts
-                    if (relatedComplaintId != null) {
-                        String title = "Complaint from call #" + callId;
-                        String description = notes.isEmpty()
-                                ? "Complaint created from call. No additional notes."
-                                : notes;
-
-                        String insertTextsSql = """
-                            INSERT INTO ComplaintTexts
-                            (ComplaintID, Title, Description, CreatedAt, ClosedAt, LastUpdatedAt)
-                            VALUES (?, ?, ?, SYSDATETIME(), NULL, SYSDATETIME())
-                            """;
-
-                        try (PreparedStatement psT = conn.prepareStatement(insertTextsSql)) {
-                            psT.setInt(1, relatedComplaintId);
-                            psT.setString(2, title);
-                            psT.setString(3, description);
-                            psT.executeUpdate();
-                        }
-                    }
-                }
-            }
-
-            // 3) Insert into CallDetails
-            String insertDetailsSql = """
-                INSERT INTO CallDetails
-                (CallID, PhoneNumber, StartTime, EndTime, DurationSec, RelatedComplaintID, Notes)
-                VALUES (?, ?, ?, ?, ?, ?, ?)
-                """;
-
-            try (PreparedStatement ps2 = conn.prepareStatement(insertDetailsSql)) {
-                ps2.setInt(1, callId);
-                ps2.setString(2, phone);
-
-                Timestamp startTs = Timestamp.valueOf(callStartTime);
-                Timestamp endTs = Timestamp.valueOf(callEndTime);
-
-                ps2.setTimestamp(3, startTs);   // StartTime = when screen opened
-                ps2.setTimestamp(4, endTs);     // EndTime = when End Call pressed
-                ps2.setInt(5, durationSec);     // DurationSec
+        if (isComplaintTopic && currentCustomerId == null) {
+            JOptionPane.showMessageDialog(this,
+                    "Topic is 'Complaint' but no customer is linked to this call.\n" +
+                            "Complaint record will not be created.",
+                    "Warning", JOptionPane.WARNING_MESSAGE);
+        }
 
-                if (relatedComplaintId != null) {
-                    ps2.setInt(6, relatedComplaintId);
-                } else {
-                    ps2.setNull(6, Types.INTEGER);
+        Integer customerId = currentCustomerId;
+        boolean createComplaint = isComplaintTopic && customerId != null;
+        Integer relatedComplaintId = null;
+
+        // Same problem as one of the customer's open complaints? Offer to link the call to it
+        if (createComplaint && !notes.isEmpty()) {
+            List<DuplicateDetector.Match> matches = DuplicateDetector.find(customerId, null,
+                    CallLogWriter.CALL_COMPLAINT_TITLE, CallLogWriter.complaintDescription(notes));
+            if (!matches.isEmpty()) {
+                DuplicateDetector.Match best = matches.get(0);
+                Object[] options = {"Link to #" + best.complaintId(), "Open New Complaint", "Cancel"};
+                int choice = JOptionPane.showOptionDialog(this,
+                        "This customer already has a similar open complaint:\n" +
+                                "#" + best.complaintId() + " - " + best.title() +
+                                " (" + Math.round(best.similarity() * 100) + "% similar)\n\n" +
+                                "Link this call to the existing complaint instead of opening a new one?",
+                        "Possible Duplicate", JOptionPane.YES_NO_CANCEL_OPTION,
+                        JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+                if (choice == 0) {
+                    createComplaint = false;
+                    relatedComplaintId = best.complaintId();
+                } else if (choice != 1) {
+                    return; // back to the call screen
                 }
-
-                ps2.setString(7, notes.isEmpty() ? null : notes);
-                ps2.executeUpdate();
-            }
-
-            conn.commit();
-
-            String msg = "Call ended and saved successfully.\nCallID: " + callId +
-                    "\nDuration: " + durationSec + " second(s).";
-
-            if (isComplaintTopic && currentCustomerId != null) {
-                msg += "\nA complaint record was also created and linked to this call.";
             }
+        }
 
-            JOptionPane.showMessageDialog(this, msg, "Call Ended", JOptionPane.INFORMATION_MESSAGE);
-
-            // Prevent double save
-            btnEndCall.setEnabled(false);
+        CallLogWriter.CallRecord record = new CallLogWriter.CallRecord(customerId, staff.getStaffId(),
+                callTypeId, callTopicId, callResultId, createComplaint, relatedComplaintId,
+                phone, notes, callStartTime, callEndTime, durationSec);
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
-            }
+        // Written in the background (CallLogWriter); not bound to this window
+        if (!CallLogWriter.submit(record)) {
             JOptionPane.showMessageDialog(this,
-                    "Error while ending/saving call:\n" + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
+                    "The call log is busy (" + CallLogWriter.pending() + " call(s) waiting to be saved).\n" +
+                            "Please wait a moment and press End Call again.",
+                    "Please Wait", JOptionPane.WARNING_MESSAGE);
+            return;
         }
-    }
 
-    // Simple helper class for JComboBox items (id + display text)
-    private static class ComboItem {
-        private final int id;
-        private final String name;
+        // Call is over: prevent logging it twice
+        btnEndCall.setEnabled(false);
 
-        public ComboItem(int id, String name) {
-            this.id = id;
-            this.name = name;
-        }
-
-        public int id() {
-            return id;
-        }
+        String msg = "Call ended.\nDuration: " + durationSec + " second(s).";
 
-        public String name() {
-            return name;
+        if (createComplaint) {
+            msg += "\nA complaint record will also be created and linked to this call.";
+        } else if (relatedComplaintId != null) {
+            msg += "\nThe call is linked to complaint #" + relatedComplaintId + ".";
         }
 
-        @Override
-        public String toString() {
-            return name;
-        }
+        JOptionPane.showMessageDialog(this, msg, "Call Ended", JOptionPane.INFORMATION_MESSAGE);
     }
 }
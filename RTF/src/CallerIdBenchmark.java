@@ -0,0 +1,108 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * CallerIdBenchmark
+ *
+ * Caller-ID lookup cost with 5M customer numbers: the primitive
+ * LongIntHashMap behind CallerIdIndex vs. a HashMap<String, Integer> keyed
+ * by the formatted number (what an "obvious" cache would look like).
+ *
+ * No database needed:
+ *   java -Xmx4g -cp build/classes CallerIdBenchmark [numbers] [lookups]
+ *
+ * Each variant is measured over several rounds after a warm-up round;
+ * half of the lookups hit, half miss.
+ */
+public class CallerIdBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+
+        SplittableRandom random = new SplittableRandom(42);
+        long[] numbers = new long[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = 5_000_000_000L + random.nextLong(1_000_000_000L); // 5xx xxx xx xx
+        }
+
+        // Lookup input as typed in the call screen; every other one unknown
+        String[] probes = new String[lookups];
+        for (int i = 0; i < lookups; i++) {
+            long n = (i & 1) == 0
+                    ? numbers[random.nextInt(count)]
+                    : 4_000_000_000L + random.nextLong(1_000_000_000L);
+            probes[i] = CallerIdIndex.format(n);
+        }
+
+        long baseHeap = usedHeap();
+
+        long t0 = System.nanoTime();
+        LongIntHashMap primitive = new LongIntHashMap(count);
+        for (int i = 0; i < count; i++) {
+            primitive.putIfAbsent(numbers[i], i + 1, CallerIdIndex.NOT_FOUND);
+        }
+        long primitiveBuild = System.nanoTime() - t0;
+        long primitiveHeap = usedHeap() - baseHeap;
+
+        t0 = System.nanoTime();
+        Map<String, Integer> boxed = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            boxed.putIfAbsent(CallerIdIndex.format(numbers[i]), i + 1);
+        }
+        long boxedBuild = System.nanoTime() - t0;
+        long boxedHeap = usedHeap() - baseHeap - primitiveHeap;
+
+        System.out.printf("%,d numbers, %,d lookups per round%n", count, lookups);
+        System.out.printf("  build  primitive=%d ms  HashMap<String,Integer>=%d ms%n",
+                primitiveBuild / 1_000_000, boxedBuild / 1_000_000);
+        System.out.printf("  heap   primitive~%d MB  HashMap<String,Integer>~%d MB%n",
+                primitiveHeap >> 20, boxedHeap >> 20);
+
+        double[] primitiveNs = new double[ROUNDS];
+        double[] boxedNs = new double[ROUNDS];
+        long sink = 0;
+
+        for (int round = -1; round < ROUNDS; round++) { // round -1 = warm-up
+            t0 = System.nanoTime();
+            for (String probe : probes) {
+                long key = CallerIdIndex.normalize(probe);
+                sink += primitive.get(key, CallerIdIndex.NOT_FOUND);
+            }
+            long primitiveTime = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            for (String probe : probes) {
+                Integer id = boxed.get(probe);
+                sink += id != null ? id : CallerIdIndex.NOT_FOUND;
+            }
+            long boxedTime = System.nanoTime() - t0;
+
+            if (round >= 0) {
+                primitiveNs[round] = (double) primitiveTime / lookups;
+                boxedNs[round] = (double) boxedTime / lookups;
+            }
+        }
+
+        print("normalize + LongIntHashMap", primitiveNs);
+        print("HashMap<String,Integer>   ", boxedNs);
+        System.out.println("  (checksum " + sink + ")");
+    }
+
+    private static void print(String label, double[] nsPerOp) {
+        double[] sorted = nsPerOp.clone();
+        Arrays.sort(sorted);
+        System.out.printf("  %s  median=%.1f ns/op  best=%.1f ns/op%n",
+                label, sorted[sorted.length / 2], sorted[0]);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
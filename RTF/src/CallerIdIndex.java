@@ -0,0 +1,164 @@
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * CallerIdIndex
+ *
+ * In-memory phone number -> CustomerID index for the call screen, so a
+ * caller is recognised without a PhoneNumber = ? query while they wait on
+ * the line.
+ *
+ * Numbers are normalized to a primitive long (the 10-digit national number,
+ * e.g. "0(555) 123 45 67", "+90 555 123 4567" and "5551234567" all map to
+ * 5551234567L) and kept in a LongIntHashMap, so neither keys nor values are
+ * boxed.
+ *
+ * Tables used:
+ *  - CustomerContactInfo (bulk load at startup)
+ *
+ * The index is loaded in bulk once (preload()) and kept current with put()
+ * whenever a customer is created. Lookups are lock-free in the common case
+ * (optimistic StampedLock read).
+ */
+public final class CallerIdIndex {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final long NATIONAL_DIGITS = 10_000_000_000L; // 10^10
+    private static final int COUNTRY_CODE = 90;
+
+    private enum State { NOT_STARTED, LOADING, LOADED }
+
+    private static final StampedLock LOCK = new StampedLock();
+    private static LongIntHashMap map = new LongIntHashMap(1024); // guarded by LOCK
+    private static volatile State state = State.NOT_STARTED;
+
+    private CallerIdIndex() {
+    }
+
+    /**
+     * Normalizes a phone number in any common format to its 10-digit
+     * national number, or returns -1 if it does not look like one.
+     * Allocation-free.
+     */
+    public static long normalize(CharSequence phone) {
+        if (phone == null) return -1;
+
+        long value = 0;
+        int significant = 0; // digits after leading zeros
+
+        for (int i = 0; i < phone.length(); i++) {
+            char ch = phone.charAt(i);
+            if (ch < '0' || ch > '9') continue;
+            if (significant == 0 && ch == '0') continue; // trunk / international prefix
+            if (++significant > 12) return -1;
+            value = value * 10 + (ch - '0');
+        }
+
+        if (significant == 10) return value;
+        if (significant == 12 && value / NATIONAL_DIGITS == COUNTRY_CODE) return value % NATIONAL_DIGITS;
+        return -1;
+    }
+
+    /** Formats a normalized number the way the UI stores it: 0(555) 123 45 67. */
+    public static String format(long key) {
+        String d = String.valueOf(key);
+        return "0(" + d.substring(0, 3) + ") " + d.substring(3, 6) + " "
+                + d.substring(6, 8) + " " + d.substring(8, 10);
+    }
+
+    /** Starts the bulk load in the background. Call once at application startup. */
+    public static void preload() {
+        synchronized (CallerIdIndex.class) {
+            if (state != State.NOT_STARTED) return;
+            state = State.LOADING;
+        }
+
+        String sql = """
+            SELECT CustomerID, PhoneNumber
+            FROM CustomerContactInfo
+            WHERE PhoneNumber IS NOT NULL
+            ORDER BY CustomerID
+            """;
+
+        DbExecutor.supply(conn -> {
+            LongIntHashMap loaded = new LongIntHashMap(1 << 16);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(10_000);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long key = normalize(rs.getString(2));
+                        // Same number on several customers: keep the oldest
+                        if (key > 0) loaded.putIfAbsent(key, rs.getInt(1), NOT_FOUND);
+                    }
+                }
+            }
+            return loaded;
+        }).whenComplete((loaded, ex) -> {
+            if (ex != null) {
+                ex.printStackTrace();
+                state = State.NOT_STARTED; // lookups fall back to the database
+                return;
+            }
+            long stamp = LOCK.writeLock();
+            try {
+                // Customers created while loading are newer than the snapshot
+                map.forEach((key, customerId) -> loaded.put(key, customerId, NOT_FOUND));
+                map = loaded;
+                state = State.LOADED;
+            } finally {
+                LOCK.unlockWrite(stamp);
+            }
+        });
+    }
+
+    /** True once the bulk load has finished; until then lookups may miss. */
+    public static boolean isLoaded() {
+        return state == State.LOADED;
+    }
+
+    /** CustomerID for the phone number, or NOT_FOUND. */
+    public static int lookup(CharSequence phone) {
+        long key = normalize(phone);
+        if (key <= 0) return NOT_FOUND;
+
+        long stamp = LOCK.tryOptimisticRead();
+        int customerId = map.get(key, NOT_FOUND);
+        if (!LOCK.validate(stamp)) {
+            stamp = LOCK.readLock();
+            try {
+                customerId = map.get(key, NOT_FOUND);
+            } finally {
+                LOCK.unlockRead(stamp);
+            }
+        }
+        return customerId;
+    }
+
+    /**
+     * Records a newly created (or newly discovered) customer. No-op while the
+     * index is not in use in this process.
+     */
+    public static void put(String phone, int customerId) {
+        if (state == State.NOT_STARTED) return;
+        long key = normalize(phone);
+        if (key <= 0) return;
+
+        long stamp = LOCK.writeLock();
+        try {
+            map.put(key, customerId, NOT_FOUND);
+        } finally {
+            LOCK.unlockWrite(stamp);
+        }
+    }
+
+    public static int size() {
+        long stamp = LOCK.readLock();
+        try {
+            return map.size();
+        } finally {
+            LOCK.unlockRead(stamp);
+        }
+    }
+}
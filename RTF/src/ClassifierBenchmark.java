@@ -0,0 +1,206 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ClassifierBenchmark
+ *
+ * Trains ComplaintClassifier's category model on synthetic complaints and
+ * measures accuracy and throughput (no database needed):
+ *
+ *   java -cp build/classes ClassifierBenchmark [trainingTexts] [testTexts]
+ *
+ * Each category has its own words (with Turkish suffixes attached, so the
+ * stems matter); every text mixes a few of them into common words drawn
+ * from a Zipf distribution shared by all categories. Some texts carry
+ * urgent wording. Reports training time, held-out accuracy (overall and
+ * for confident answers only), urgency detection, and texts per second on
+ * one thread and through suggest() on the worker pool.
+ *
+ * Before measuring it checks that punctuated and Turkish-letter keywords
+ * (urgent wording, category hints) are matched in their normalized form,
+ * and stops with an error if not.
+ */
+public class ClassifierBenchmark {
+
+    private static final int CATEGORIES = 12;
+    private static final int CATEGORY_WORDS = 40;
+    private static final int COMMON_WORDS = 5000;
+    private static final String[] SYLLABLES = {
+            "fa", "tu", "ra", "ka", "rgo", "ci", "ge", "şi", "kâ", "yet", "me", "sa",
+            "ja", "ğı", "in", "ter", "net", "ö", "de", "ba", "ü", "rün", "ça", "lış"
+    };
+    private static final String[] SUFFIXES = {"", "", "ım", "ı", "da", "dan", "lar", "ları", "ımız"};
+    private static final String[] URGENT = {"acil", "yangın çıktı", "avukatıma", "dolandırıldım", "hastaneye"};
+
+    private final SplittableRandom random = new SplittableRandom(13);
+    private final String[][] categoryWords = new String[CATEGORIES][CATEGORY_WORDS];
+    private final String[] commonWords = new String[COMMON_WORDS];
+    private final double[] cumulative = new double[COMMON_WORDS];
+
+    public static void main(String[] args) throws Exception {
+        int training = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int test = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        new ClassifierBenchmark().run(training, test);
+    }
+
+    private void run(int training, int test) throws Exception {
+        checkKeywords();
+        buildVocabulary();
+
+        List<String> texts = new ArrayList<>(training);
+        List<Integer> categories = new ArrayList<>(training);
+        for (int i = 0; i < training; i++) {
+            int c = random.nextInt(CATEGORIES);
+            texts.add(text(c, false));
+            categories.add(categoryId(c));
+        }
+
+        long t0 = System.nanoTime();
+        ComplaintClassifier.Model model = new ComplaintClassifier.Model(texts, categories, new HashMap<>());
+        long trainMs = (System.nanoTime() - t0) / 1_000_000;
+        ComplaintClassifier.useModel(model);
+        System.out.printf("%,d training texts, %d categories: trained in %,d ms%n", training, CATEGORIES, trainMs);
+
+        String[] titles = new String[test];
+        String[] descriptions = new String[test];
+        int[] expected = new int[test];
+        boolean[] urgent = new boolean[test];
+        for (int i = 0; i < test; i++) {
+            int c = random.nextInt(CATEGORIES);
+            urgent[i] = random.nextInt(10) == 0;
+            String text = text(c, urgent[i]);
+            int cut = text.indexOf(' ', text.indexOf(' ', text.indexOf(' ') + 1) + 1);
+            titles[i] = text.substring(0, cut);
+            descriptions[i] = text.substring(cut + 1);
+            expected[i] = categoryId(c);
+        }
+
+        // Warm-up
+        for (int i = 0; i < Math.min(test, 5000); i++) ComplaintClassifier.analyze(titles[i], descriptions[i]);
+
+        int correct = 0, confident = 0, confidentCorrect = 0, urgentFound = 0, urgentTotal = 0, falseUrgent = 0;
+        long[] nanos = new long[test];
+        t0 = System.nanoTime();
+        for (int i = 0; i < test; i++) {
+            long t = System.nanoTime();
+            ComplaintClassifier.Result r = ComplaintClassifier.analyze(titles[i], descriptions[i]);
+            nanos[i] = System.nanoTime() - t;
+
+            boolean right = r.categoryId() != null && r.categoryId() == expected[i];
+            if (right) correct++;
+            if (r.isConfident()) {
+                confident++;
+                if (right) confidentCorrect++;
+            }
+            if (urgent[i]) {
+                urgentTotal++;
+                if (r.isUrgent()) urgentFound++;
+            } else if (r.isUrgent()) {
+                falseUrgent++;
+            }
+        }
+        double singleSeconds = (System.nanoTime() - t0) / 1e9;
+
+        System.out.printf("accuracy %.1f%%; confident (>= %.2f) on %.1f%% of texts, %.1f%% of those right%n",
+                100.0 * correct / test, ComplaintClassifier.MIN_CONFIDENCE,
+                100.0 * confident / test, confident == 0 ? 0 : 100.0 * confidentCorrect / confident);
+        System.out.printf("urgent wording found in %.1f%% of urgent texts, %.2f%% of the others flagged%n",
+                100.0 * urgentFound / Math.max(1, urgentTotal), 100.0 * falseUrgent / Math.max(1, test - urgentTotal));
+
+        Arrays.sort(nanos);
+        System.out.printf("one thread: %,.0f texts/s  (p50=%.1f us  p99=%.1f us)%n",
+                test / singleSeconds, nanos[test / 2] / 1e3, nanos[test * 99 / 100] / 1e3);
+
+        // Through the worker pool, in chunks that fit its queue
+        t0 = System.nanoTime();
+        int done = 0;
+        for (int from = 0; from < test; from += 5000) {
+            int to = Math.min(test, from + 5000);
+            List<CompletableFuture<ComplaintClassifier.Result>> futures = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) futures.add(ComplaintClassifier.suggest(titles[i], descriptions[i]));
+            for (CompletableFuture<ComplaintClassifier.Result> f : futures) {
+                f.get();
+                done++;
+            }
+        }
+        double poolSeconds = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("worker pool: %,.0f texts/s  (%s)%n", done / poolSeconds, ComplaintClassifier.getStats());
+    }
+
+    private static void checkKeywords() {
+        Map<String, Integer> urgent = ComplaintClassifier.normalizeKeywords(
+                ComplaintClassifier.parseWeights("Acil-Durum:3,acil durum:2,ŞİKÂYET:1,--:4"));
+        check(urgent.equals(Map.of("acil durum", 3, "sikayet", 1)), "urgent keywords normalized: " + urgent);
+
+        Map<String, Integer> hints = new HashMap<>();
+        hints.put("Fatura/İade", 7);
+        hints.put("Kargo-Gecikmesi", 8);
+        hints.put("?", 9);
+        ComplaintClassifier.Model model = new ComplaintClassifier.Model(new ArrayList<>(), new ArrayList<>(), hints);
+        Integer refund = model.classify(DuplicateDetector.normalize("FATURA İADE talebim"), 0).categoryId();
+        Integer cargo = model.classify(DuplicateDetector.normalize("kargo gecikmesi yaşadım"), 0).categoryId();
+        check(refund != null && refund == 7, "Turkish-letter hint matched: " + refund);
+        check(cargo != null && cargo == 8, "punctuated hint matched: " + cargo);
+        check(ComplaintClassifier.urgency(DuplicateDetector.normalize("ACİL dönüş")) > 0, "default urgent wording matched");
+        System.out.println("keyword normalization: ok");
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new IllegalStateException("keyword check failed: " + what);
+    }
+
+    private static int categoryId(int c) {
+        return c + 1;
+    }
+
+    private void buildVocabulary() {
+        // Common words and category words come from one numbering, so they never collide
+        int next = 0;
+        for (int c = 0; c < CATEGORIES; c++) {
+            for (int w = 0; w < CATEGORY_WORDS; w++) categoryWords[c][w] = word(next++);
+        }
+        double sum = 0;
+        for (int i = 0; i < COMMON_WORDS; i++) {
+            commonWords[i] = word(next++);
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < COMMON_WORDS; i++) cumulative[i] /= sum;
+    }
+
+    private static String word(int v) {
+        StringBuilder sb = new StringBuilder();
+        do {
+            sb.append(SYLLABLES[v % SYLLABLES.length]);
+            v /= SYLLABLES.length;
+        } while (v > 0);
+        while (sb.length() < 5) sb.append("ka");
+        return sb.toString();
+    }
+
+    /** 20-60 words; about one in six is a word of the category, with a random suffix. */
+    private String text(int category, boolean urgent) {
+        int words = 20 + random.nextInt(40);
+        StringBuilder sb = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) sb.append(' ');
+            if (random.nextInt(6) == 0) {
+                sb.append(categoryWords[category][random.nextInt(CATEGORY_WORDS)])
+                        .append(SUFFIXES[random.nextInt(SUFFIXES.length)]);
+            } else {
+                int i = Arrays.binarySearch(cumulative, random.nextDouble());
+                sb.append(commonWords[i >= 0 ? i : Math.min(-i - 1, COMMON_WORDS - 1)]);
+            }
+        }
+        if (urgent) {
+            sb.append(' ').append(URGENT[random.nextInt(URGENT.length)])
+                    .append(' ').append(URGENT[random.nextInt(URGENT.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,581 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ComplaintClassifier
+ *
+ * Suggests a category for a complaint text and scores urgent wording, off
+ * the submit path:
+ *
+ *  - Category: multinomial naive Bayes over word stems (first 5 letters of
+ *    each folded word, which is enough for Turkish suffixes), trained from
+ *    the categorised complaints in the database at startup and every
+ *    -Drtf.classify.retrainMin minutes (default 60). Category names and
+ *    -Drtf.classify.categoryKeywords=stem:categoryId,... add keyword hints.
+ *  - Urgency: weighted keywords (danger, injury, legal action, "acil" ...;
+ *    more with -Drtf.classify.urgentKeywords=stem:weight,...), each counted
+ *    once. A score of HIGH_SCORE raises the priority one rank above the
+ *    default, CRITICAL_SCORE to the highest rank. Priorities are only ever
+ *    raised, never lowered. A raise is recorded and announced like any
+ *    escalation: a ComplaintActions row (ActionType "Escalate") in the same
+ *    transaction and a PriorityChanged event after the commit.
+ *
+ * Keywords are matched with one KeywordAutomaton pass per text.
+ *
+ * suggest() classifies on a small worker pool (-Drtf.classify.threads,
+ * default 2) for screens that preselect a category. enqueue() is called
+ * after a complaint was committed: the pool classifies it and a writer
+ * thread applies the result in JDBC batches (the category only where it is
+ * still NULL, e.g. complaints opened from a call). Both are best effort: a
+ * full queue drops the work instead of blocking the caller.
+ *
+ * Tables used:
+ *  - Complaints, ComplaintTexts (training data; category / priority updates)
+ *  - ComplaintActions (escalation rows)
+ *  - ComplaintCategory, ComplaintPriority (via ReferenceData)
+ */
+public final class ComplaintClassifier {
+
+    /** Outcome of classifying one text. */
+    public static final class Result {
+        private final Integer categoryId;
+        private final double confidence;
+        private final int urgency;
+
+        Result(Integer categoryId, double confidence, int urgency) {
+            this.categoryId = categoryId;
+            this.confidence = confidence;
+            this.urgency = urgency;
+        }
+
+        /** Most likely category, or null if nothing points to one. */
+        public Integer categoryId() {
+            return categoryId;
+        }
+
+        /** Estimated probability of categoryId, 0..1. */
+        public double confidence() {
+            return confidence;
+        }
+
+        /** Sum of the urgent keyword weights found. */
+        public int urgency() {
+            return urgency;
+        }
+
+        /** Confident enough to fill in the category without asking. */
+        public boolean isConfident() {
+            return categoryId != null && confidence >= MIN_CONFIDENCE;
+        }
+
+        public boolean isUrgent() {
+            return urgency >= HIGH_SCORE;
+        }
+    }
+
+    /**
+     * Naive Bayes category model plus keyword hints. Immutable; built from
+     * the database, or directly (ClassifierBenchmark).
+     */
+    static final class Model {
+        private static final double KEYWORD_BOOST = Math.log(20);
+
+        private final int[] categoryIds;
+        private final double[] logPrior;
+        private final Map<String, float[]> logLikelihood;
+        private final KeywordAutomaton hints;
+        private final int[] hintCategory;             // hint keyword -> index into categoryIds
+
+        /**
+         * @param texts      training texts (title + description)
+         * @param categories their ComplaintCategoryIDs
+         * @param hints      keyword -> ComplaintCategoryID
+         */
+        Model(List<String> texts, List<Integer> categories, Map<String, Integer> hints) {
+            Map<Integer, Integer> indexOf = new HashMap<>();
+            for (int id : categories) indexOf.putIfAbsent(id, indexOf.size());
+            for (int id : hints.values()) indexOf.putIfAbsent(id, indexOf.size());
+            int n = indexOf.size();
+
+            categoryIds = new int[n];
+            indexOf.forEach((id, i) -> categoryIds[i] = id);
+
+            int[] docs = new int[n];
+            long[] stemsPerClass = new long[n];
+            Map<String, int[]> counts = new HashMap<>();
+            for (int d = 0; d < texts.size(); d++) {
+                int c = indexOf.get(categories.get(d));
+                docs[c]++;
+                for (String stem : stems(texts.get(d))) {
+                    counts.computeIfAbsent(stem, s -> new int[n])[c]++;
+                    stemsPerClass[c]++;
+                }
+            }
+
+            // Laplace smoothing; classes with no training text keep a flat prior
+            int vocabulary = Math.max(1, counts.size());
+            logPrior = new double[n];
+            for (int c = 0; c < n; c++) {
+                logPrior[c] = Math.log((docs[c] + 1.0) / (texts.size() + n));
+            }
+            logLikelihood = new HashMap<>(counts.size() * 2);
+            for (Map.Entry<String, int[]> e : counts.entrySet()) {
+                float[] ll = new float[n];
+                for (int c = 0; c < n; c++) {
+                    ll[c] = (float) Math.log((e.getValue()[c] + 1.0) / (stemsPerClass[c] + vocabulary));
+                }
+                logLikelihood.put(e.getKey(), ll);
+            }
+
+            Map<String, Integer> keywordHints = normalizeKeywords(hints);
+            this.hints = new KeywordAutomaton(new ArrayList<>(keywordHints.keySet()));
+            hintCategory = new int[this.hints.keywordCount()];
+            for (int k = 0; k < hintCategory.length; k++) {
+                hintCategory[k] = indexOf.get(keywordHints.get(this.hints.keyword(k)));
+            }
+        }
+
+        int categoryCount() {
+            return categoryIds.length;
+        }
+
+        /** Fills in categoryId / confidence of a normalized text. */
+        Result classify(String normalized, int urgency) {
+            int n = categoryIds.length;
+            if (n == 0) return new Result(null, 0, urgency);
+
+            double[] score = logPrior.clone();
+            boolean evidence = false;
+            for (String stem : stemsOfNormalized(normalized)) {
+                float[] ll = logLikelihood.get(stem);
+                if (ll == null) continue; // unknown everywhere: no information
+                evidence = true;
+                for (int c = 0; c < n; c++) score[c] += ll[c];
+            }
+            BitSet hinted = new BitSet(n);
+            hints.scan(normalized, (keyword, end) -> hinted.set(hintCategory[keyword]));
+            for (int c = hinted.nextSetBit(0); c >= 0; c = hinted.nextSetBit(c + 1)) {
+                score[c] += KEYWORD_BOOST;
+                evidence = true;
+            }
+            if (!evidence) return new Result(null, 0, urgency);
+
+            // Softmax of the log scores
+            int best = 0;
+            for (int c = 1; c < n; c++) if (score[c] > score[best]) best = c;
+            double sum = 0;
+            for (int c = 0; c < n; c++) sum += Math.exp(score[c] - score[best]);
+            return new Result(categoryIds[best], 1 / sum, urgency);
+        }
+    }
+
+    // ---- Settings ----
+
+    static final int HIGH_SCORE = Integer.getInteger("rtf.classify.highScore", 2);
+    static final int CRITICAL_SCORE = Integer.getInteger("rtf.classify.criticalScore", 4);
+    static final double MIN_CONFIDENCE = Double.parseDouble(System.getProperty("rtf.classify.minConfidence", "0.6"));
+
+    private static final int THREADS = Integer.getInteger("rtf.classify.threads", 2);
+    private static final int QUEUE = Integer.getInteger("rtf.classify.queue", 10_000);
+    private static final int TRAIN_LIMIT = Integer.getInteger("rtf.classify.trainLimit", 50_000);
+    private static final long RETRAIN_MINUTES = Long.getLong("rtf.classify.retrainMin", 60);
+    private static final int WRITE_BATCH = 200;
+    private static final long WRITE_LINGER_MS = 100;
+
+    /**
+     * Urgent wording (normalized stems) and weights; 3 = danger to people,
+     * 2 = legal / "urgent", 1 = anger. Stems match word starts, so short
+     * ones are spelled out where they would hit other words ("kaza" is also
+     * the start of "kazanc", "police" is a folded "poliçe").
+     */
+    private static final String DEFAULT_URGENT = String.join(",",
+            "yangin:3", "caught fire:3", "on fire:3", "duman:3", "smoke:3", "patla:3", "explod:3", "gaz kacag:3", "gas leak:3",
+            "elektrik carp:3", "electric shock:3", "yaralan:3", "injur:3", "zehirlen:3", "poison:3",
+            "hastane:3", "hospital:3", "tehlike:3", "danger:3", "kazaya:3", "kazada:3", "kaza gecir:3", "accident:3",
+            "acil:2", "urgent:2", "derhal:2", "immediately:2", "dolandir:2", "fraud:2",
+            "avukat:2", "lawyer:2", "dava:2", "lawsuit:2", "mahkeme:2", "court:2",
+            "tuketici hakem:2", "polis:2", "police station:2",
+            "magdur:1", "rezalet:1", "kabul edilemez:1", "unacceptable:1", "defalarca:1",
+            "ucuncu kez:1", "third time:1", "hala cozulmedi:1", "still not:1");
+
+    private static final String[] COMPLAINT_TOPIC_WORDS = {"complaint", "sikayet"};
+
+    private static final KeywordAutomaton URGENT;
+    private static final int[] URGENT_WEIGHT;
+    private static final KeywordAutomaton COMPLAINT_TOPIC = new KeywordAutomaton(Arrays.asList(COMPLAINT_TOPIC_WORDS));
+
+    static {
+        Map<String, Integer> urgent = normalizeKeywords(parseWeights(DEFAULT_URGENT));
+        urgent.putAll(normalizeKeywords(parseWeights(System.getProperty("rtf.classify.urgentKeywords", ""))));
+        URGENT = new KeywordAutomaton(new ArrayList<>(urgent.keySet()));
+        URGENT_WEIGHT = new int[URGENT.keywordCount()];
+        for (int i = 0; i < URGENT.keywordCount(); i++) URGENT_WEIGHT[i] = urgent.get(URGENT.keyword(i));
+    }
+
+    private static final String TRAINING_SQL = """
+        SELECT TOP (?) c.ComplaintCategoryID, t.Title, t.Description
+        FROM Complaints c
+        JOIN ComplaintTexts t ON t.ComplaintID = c.ComplaintID
+        WHERE c.ComplaintCategoryID IS NOT NULL
+        ORDER BY c.ComplaintID DESC
+        """;
+
+    private static final String FILL_CATEGORY_SQL = """
+        UPDATE Complaints
+        SET ComplaintCategoryID = ?
+        WHERE ComplaintID = ?
+          AND ComplaintCategoryID IS NULL
+        """;
+
+    // Raise only: the current priority must rank lower than the new one
+    private static final String RAISE_PRIORITY_SQL = """
+        UPDATE Complaints
+        SET ComplaintPriorityID = ?
+        WHERE ComplaintID = ?
+          AND IsActive = 1
+          AND ComplaintPriorityID IN (SELECT ComplaintPriorityID FROM ComplaintPriority WHERE Rank < ?)
+        """;
+
+    // Same row as a manual or SLA escalation, so ChangeFeed reports it as PriorityChanged
+    private static final String INSERT_ACTION_SQL = """
+        INSERT INTO ComplaintActions
+            (ComplaintID, OldStatusID, NewStatusID, PerformedByID, ActionType, ActionDate)
+        SELECT ComplaintID, ComplaintStatusID, ComplaintStatusID, NULL, ?, SYSDATETIME()
+        FROM Complaints
+        WHERE ComplaintID = ?
+        """;
+
+    private static volatile Model model;
+
+    private static final AtomicLong CLASSIFIED = new AtomicLong();
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    private static final ThreadPoolExecutor POOL = new ThreadPoolExecutor(THREADS, THREADS,
+            0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE), daemon("complaint-classifier"));
+
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(daemon("complaint-classifier-training"));
+
+    /** One complaint's changes, applied by the writer thread. */
+    private static final class Update {
+        final int complaintId;
+        final Integer categoryId;   // null = leave as is
+        final int urgency;
+
+        Update(int complaintId, Integer categoryId, int urgency) {
+            this.complaintId = complaintId;
+            this.categoryId = categoryId;
+            this.urgency = urgency;
+        }
+    }
+
+    private static final BlockingQueue<Update> UPDATES = new ArrayBlockingQueue<>(QUEUE);
+
+    private static boolean started;
+
+    private ComplaintClassifier() {
+    }
+
+    /**
+     * Starts training the category model (keyword hints only until it is
+     * ready) and the writer. Call once at application startup.
+     */
+    public static synchronized void preload() {
+        if (started) return;
+        started = true;
+        SCHEDULER.execute(ComplaintClassifier::train);
+        if (RETRAIN_MINUTES > 0) {
+            SCHEDULER.scheduleWithFixedDelay(ComplaintClassifier::train,
+                    RETRAIN_MINUTES, RETRAIN_MINUTES, TimeUnit.MINUTES);
+        }
+        Thread writer = new Thread(ComplaintClassifier::writeLoop, "complaint-classifier-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Replaces the category model (ClassifierBenchmark; the application trains it from the database). */
+    static void useModel(Model m) {
+        model = m;
+    }
+
+    /** Whether a call topic name means the call is a complaint ("Complaint", "Şikayet", ...). */
+    public static boolean isComplaintTopic(String topicName) {
+        return topicName != null && COMPLAINT_TOPIC.matchesAny(topicName);
+    }
+
+    /** Classifies on the calling thread (microseconds); keyword hints only until the model is trained. */
+    public static Result analyze(String title, String description) {
+        String normalized = DuplicateDetector.normalize(
+                (title != null ? title : "") + " " + (description != null ? description : ""));
+        int urgency = urgency(normalized);
+        Model m = model;
+        Result r = m != null ? m.classify(normalized, urgency) : new Result(null, 0, urgency);
+        CLASSIFIED.incrementAndGet();
+        return r;
+    }
+
+    /** Classifies on the worker pool, e.g. while the user is typing. */
+    public static CompletableFuture<Result> suggest(String title, String description) {
+        try {
+            return CompletableFuture.supplyAsync(() -> analyze(title, description), POOL);
+        } catch (RejectedExecutionException e) {
+            DROPPED.incrementAndGet();
+            return CompletableFuture.completedFuture(new Result(null, 0, 0));
+        }
+    }
+
+    /**
+     * Classifies a committed complaint in the background and raises its
+     * priority for urgent wording. Returns at once.
+     *
+     * @param fillCategory also set the category if the complaint has none
+     */
+    public static void enqueue(int complaintId, String title, String description, boolean fillCategory) {
+        try {
+            POOL.execute(() -> {
+                Result r = analyze(title, description);
+                Integer category = fillCategory && r.isConfident() ? r.categoryId() : null;
+                if (category == null && r.urgency() < HIGH_SCORE) return; // nothing to change
+                if (!UPDATES.offer(new Update(complaintId, category, r.urgency()))) DROPPED.incrementAndGet();
+            });
+        } catch (RejectedExecutionException e) {
+            DROPPED.incrementAndGet();
+        }
+    }
+
+    /** For diagnostics: texts classified, work dropped because the queues were full. */
+    public static String getStats() {
+        Model m = model;
+        return "classified=" + CLASSIFIED.get() + " dropped=" + DROPPED.get()
+                + " categories=" + (m != null ? m.categoryCount() : 0)
+                + " queued=" + (POOL.getQueue().size() + UPDATES.size());
+    }
+
+    static int urgency(String normalized) {
+        BitSet found = new BitSet(URGENT.keywordCount());
+        URGENT.scan(normalized, (keyword, end) -> found.set(keyword));
+        int score = 0;
+        for (int k = found.nextSetBit(0); k >= 0; k = found.nextSetBit(k + 1)) score += URGENT_WEIGHT[k];
+        return score;
+    }
+
+    /** Word stems of a raw text: folded words cut to 5 letters, 2 letters minimum. */
+    static List<String> stems(String text) {
+        return stemsOfNormalized(DuplicateDetector.normalize(text));
+    }
+
+    private static List<String> stemsOfNormalized(String normalized) {
+        List<String> stems = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= normalized.length(); i++) {
+            if (i == normalized.length() || normalized.charAt(i) == ' ') {
+                if (i - start >= 2) stems.add(normalized.substring(start, Math.min(i, start + 5)));
+                start = i + 1;
+            }
+        }
+        return stems;
+    }
+
+    // ---- Training ----
+
+    private static void train() {
+        try {
+            model = DbExecutor.supply(ComplaintClassifier::loadModel).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            e.printStackTrace(); // keep the current model (keywords only if none yet)
+        }
+    }
+
+    private static Model loadModel(Connection conn) throws SQLException {
+        List<String> texts = new ArrayList<>();
+        List<Integer> categories = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(TRAINING_SQL)) {
+            ps.setInt(1, TRAIN_LIMIT);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    categories.add(rs.getInt("ComplaintCategoryID"));
+                    texts.add(rs.getString("Title") + " " + rs.getString("Description"));
+                }
+            }
+        }
+
+        // Category names are hints themselves ("Fatura" -> the Fatura category)
+        Map<String, Integer> hints = new HashMap<>();
+        for (ReferenceData.Item item : ReferenceData.require(ReferenceData.Kind.COMPLAINT_CATEGORIES).items()) {
+            hints.put(item.name(), item.id());
+        }
+        hints = normalizeKeywords(hints);
+        hints.putAll(normalizeKeywords(parseWeights(System.getProperty("rtf.classify.categoryKeywords", ""))));
+        return new Model(texts, categories, hints);
+    }
+
+    // ---- Writer ----
+
+    private static void writeLoop() {
+        List<Update> batch = new ArrayList<>(WRITE_BATCH);
+        while (true) {
+            try {
+                batch.add(UPDATES.take());
+                Thread.sleep(WRITE_LINGER_MS);
+                UPDATES.drainTo(batch, WRITE_BATCH - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                e.printStackTrace(); // best effort: these suggestions are lost
+            }
+            batch.clear();
+        }
+    }
+
+    private static void write(List<Update> batch) throws Exception {
+        ReferenceData.Table priorities = ReferenceData.require(ReferenceData.Kind.COMPLAINT_PRIORITIES);
+        int defaultRank = priorities.byId(ReferenceData.defaultPriorityId()).rank();
+        ReferenceData.Item high = null, top = null;
+        for (ReferenceData.Item item : priorities.items()) {
+            if (item.rank() > defaultRank && (high == null || item.rank() < high.rank())) high = item;
+            if (top == null || item.rank() > top.rank()) top = item;
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        List<ReferenceData.Item> raiseTo = new ArrayList<>();
+        for (Update u : batch) {
+            ReferenceData.Item to = u.urgency >= CRITICAL_SCORE ? top
+                    : u.urgency >= HIGH_SCORE ? high : null;
+            if (to != null && to.rank() > defaultRank) {
+                ids.add(u.complaintId);
+                raiseTo.add(to);
+            }
+        }
+
+        boolean[] raised = DbExecutor.supply(conn -> write(conn, batch, ids, raiseTo)).get();
+
+        // Like an escalation by hand: the caches and the other screens follow
+        for (int i = 0; i < raised.length; i++) {
+            if (!raised[i]) continue;
+            int id = ids.get(i);
+            ReferenceData.Item to = raiseTo.get(i);
+            ComplaintSearch.complaintPriorityChanged(id, to.id());
+            CriticalComplaints.priorityChanged(id, to.id());
+            SlaEscalator.priorityChanged(id, to.id());
+            ComplaintEvents.publish(new ComplaintEvents.PriorityChanged(id, to.id(), to.name()));
+        }
+    }
+
+    /** @return per entry of `ids`, whether its priority was raised (and its action row written) */
+    private static boolean[] write(Connection conn, List<Update> batch, List<Integer> ids,
+            List<ReferenceData.Item> raiseTo) throws SQLException {
+        boolean[] raised = new boolean[ids.size()];
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement ps = conn.prepareStatement(FILL_CATEGORY_SQL)) {
+                boolean any = false;
+                for (Update u : batch) {
+                    if (u.categoryId == null) continue;
+                    ps.setInt(1, u.categoryId);
+                    ps.setInt(2, u.complaintId);
+                    ps.addBatch();
+                    any = true;
+                }
+                if (any) ps.executeBatch();
+            }
+
+            if (!ids.isEmpty()) {
+                // The update counts tell which complaints were raised: 0 = closed or already higher
+                int[] counts;
+                try (PreparedStatement ps = conn.prepareStatement(RAISE_PRIORITY_SQL)) {
+                    for (int i = 0; i < ids.size(); i++) {
+                        ps.setInt(1, raiseTo.get(i).id());
+                        ps.setInt(2, ids.get(i));
+                        ps.setInt(3, raiseTo.get(i).rank());
+                        ps.addBatch();
+                    }
+                    counts = ps.executeBatch();
+                }
+
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_ACTION_SQL)) {
+                    boolean any = false;
+                    for (int i = 0; i < ids.size(); i++) {
+                        if (counts[i] <= 0 && counts[i] != Statement.SUCCESS_NO_INFO) continue;
+                        raised[i] = true;
+                        ps.setString(1, ChangeFeed.ESCALATE_ACTION);
+                        ps.setInt(2, ids.get(i));
+                        ps.addBatch();
+                        any = true;
+                    }
+                    if (any) ps.executeBatch();
+                }
+            }
+
+            conn.commit();
+            return raised;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // ---- Helpers ----
+
+    /** "word:3,other word:1" -> map; malformed entries are skipped. */
+    static Map<String, Integer> parseWeights(String spec) {
+        Map<String, Integer> map = new HashMap<>();
+        for (String part : spec.split(",")) {
+            int colon = part.lastIndexOf(':');
+            if (colon <= 0) continue;
+            try {
+                map.put(part.substring(0, colon).trim(), Integer.parseInt(part.substring(colon + 1).trim()));
+            } catch (NumberFormatException ignored) {
+                // skip
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Re-keys keyword -> value by DuplicateDetector.normalize(keyword), the
+     * form KeywordAutomaton stores and reports ("Acil-Durum" -> "acil durum").
+     * Keywords that normalize to "" are dropped; keywords that normalize
+     * alike keep the larger value.
+     */
+    static Map<String, Integer> normalizeKeywords(Map<String, Integer> keywords) {
+        Map<String, Integer> map = new HashMap<>();
+        for (Map.Entry<String, Integer> e : keywords.entrySet()) {
+            String k = DuplicateDetector.normalize(e.getKey());
+            if (!k.isEmpty()) map.merge(k, e.getValue(), Math::max);
+        }
+        return map;
+    }
+
+    private static java.util.concurrent.ThreadFactory daemon(String name) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
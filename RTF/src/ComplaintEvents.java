@@ -0,0 +1,387 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ComplaintEvents
+ *
+ * In-process event bus for complaint and call changes, so open screens
+ * apply what another screen just wrote instead of re-running their queries.
+ *
+ *  - Writers publish after their transaction commits, from any thread;
+ *    publish() only enqueues and never blocks.
+ *  - Delivery is on the EDT and coalesced: everything published before the
+ *    EDT gets to it arrives in one eventsPublished() call per subscriber,
+ *    in publish order, filtered to the event types it asked for.
+ *  - A subscription bound to a window ends when the window is disposed.
+ *    Subscriptions without a window (in-memory caches) are served first,
+ *    so a screen reacting to an event reads caches that already have it.
+ *
+ * ChangeFeed publishes the changes other workstations (and the other
+ * application) make as remote events (isRemote()). A change this process
+ * published itself in the last few thousand events is not repeated.
+ */
+public final class ComplaintEvents {
+
+    /** Base type of all events. */
+    public abstract static class Event {
+        private boolean remote;
+
+        Event() {
+        }
+
+        /** True if another workstation made the change (see ChangeFeed). */
+        public boolean isRemote() {
+            return remote;
+        }
+
+        void markRemote() {
+            remote = true;
+        }
+
+        /** Identifies the change, to recognise a remote copy of a local event. */
+        abstract String key();
+    }
+
+    /** A complaint was inserted. */
+    public static final class ComplaintCreated extends Event {
+        private final int complaintId;
+        private final Integer customerId;
+        private final Integer assignedStaffId;
+        private final String title;
+
+        public ComplaintCreated(int complaintId, Integer customerId, Integer assignedStaffId, String title) {
+            this.complaintId = complaintId;
+            this.customerId = customerId;
+            this.assignedStaffId = assignedStaffId;
+            this.title = title;
+        }
+
+        public int complaintId() {
+            return complaintId;
+        }
+
+        /** May be null (anonymous caller). */
+        public Integer customerId() {
+            return customerId;
+        }
+
+        /** May be null (waiting in the queue). */
+        public Integer assignedStaffId() {
+            return assignedStaffId;
+        }
+
+        public String title() {
+            return title;
+        }
+
+        String key() {
+            return "created:" + complaintId;
+        }
+    }
+
+    /** A complaint was closed (IsActive = 0). */
+    public static final class ComplaintClosed extends Event {
+        private final int complaintId;
+        private final Integer assignedStaffId;
+        private final String statusName;
+
+        public ComplaintClosed(int complaintId, Integer assignedStaffId, String statusName) {
+            this.complaintId = complaintId;
+            this.assignedStaffId = assignedStaffId;
+            this.statusName = statusName;
+        }
+
+        public int complaintId() {
+            return complaintId;
+        }
+
+        /** May be null. */
+        public Integer assignedStaffId() {
+            return assignedStaffId;
+        }
+
+        /** The status it was closed with, or null if closing left the status as it was. */
+        public String statusName() {
+            return statusName;
+        }
+
+        String key() {
+            return "closed:" + complaintId;
+        }
+    }
+
+    /** A complaint moved to another ComplaintStatus. */
+    public static final class StatusChanged extends Event {
+        private final int complaintId;
+        private final int statusId;
+        private final String statusName;
+
+        public StatusChanged(int complaintId, int statusId, String statusName) {
+            this.complaintId = complaintId;
+            this.statusId = statusId;
+            this.statusName = statusName;
+        }
+
+        public int complaintId() {
+            return complaintId;
+        }
+
+        public int statusId() {
+            return statusId;
+        }
+
+        public String statusName() {
+            return statusName;
+        }
+
+        String key() {
+            return "status:" + complaintId + ":" + statusId;
+        }
+    }
+
+    /** A complaint moved to another ComplaintPriority (e.g. escalated). */
+    public static final class PriorityChanged extends Event {
+        private final int complaintId;
+        private final int priorityId;
+        private final String priorityName;
+
+        public PriorityChanged(int complaintId, int priorityId, String priorityName) {
+            this.complaintId = complaintId;
+            this.priorityId = priorityId;
+            this.priorityName = priorityName;
+        }
+
+        public int complaintId() {
+            return complaintId;
+        }
+
+        public int priorityId() {
+            return priorityId;
+        }
+
+        public String priorityName() {
+            return priorityName;
+        }
+
+        String key() {
+            return "priority:" + complaintId + ":" + priorityId;
+        }
+    }
+
+    /** A complaint moved to another staff member (e.g. claimed from the queue). */
+    public static final class ComplaintAssigned extends Event {
+        private final int complaintId;
+        private final Integer previousStaffId;
+        private final int staffId;
+
+        public ComplaintAssigned(int complaintId, Integer previousStaffId, int staffId) {
+            this.complaintId = complaintId;
+            this.previousStaffId = previousStaffId;
+            this.staffId = staffId;
+        }
+
+        public int complaintId() {
+            return complaintId;
+        }
+
+        /** May be null (it was unassigned, or not known: ChangeFeed only sees the new assignee). */
+        public Integer previousStaffId() {
+            return previousStaffId;
+        }
+
+        public int staffId() {
+            return staffId;
+        }
+
+        String key() {
+            return "assigned:" + complaintId + ":" + staffId;
+        }
+    }
+
+    /** A customer rated a closed complaint. */
+    public static final class SurveySubmitted extends Event {
+        private final int complaintId;
+        private final int rating;
+
+        public SurveySubmitted(int complaintId, int rating) {
+            this.complaintId = complaintId;
+            this.rating = rating;
+        }
+
+        public int complaintId() {
+            return complaintId;
+        }
+
+        public int rating() {
+            return rating;
+        }
+
+        String key() {
+            return "survey:" + complaintId;
+        }
+    }
+
+    /** A call was written (with its complaint, if one was opened). */
+    public static final class CallLogged extends Event {
+        private final int callId;
+        private final int staffId;
+        private final Integer customerId;
+        private final Integer complaintId;
+
+        public CallLogged(int callId, int staffId, Integer customerId, Integer complaintId) {
+            this.callId = callId;
+            this.staffId = staffId;
+            this.customerId = customerId;
+            this.complaintId = complaintId;
+        }
+
+        public int callId() {
+            return callId;
+        }
+
+        public int staffId() {
+            return staffId;
+        }
+
+        /** May be null (anonymous caller). */
+        public Integer customerId() {
+            return customerId;
+        }
+
+        /** May be null (no complaint opened). */
+        public Integer complaintId() {
+            return complaintId;
+        }
+
+        String key() {
+            return "call:" + callId;
+        }
+    }
+
+    /** Called on the EDT. */
+    public interface Listener {
+        void eventsPublished(List<Event> events);
+    }
+
+    /** Handle to stop receiving events. */
+    public static final class Subscription {
+        private final Listener listener;
+        private final Class<?>[] types;
+
+        private Subscription(Listener listener, Class<?>[] types) {
+            this.listener = listener;
+            this.types = types;
+        }
+
+        public void cancel() {
+            SUBSCRIPTIONS.remove(this);
+        }
+
+        private boolean wants(Event e) {
+            if (types.length == 0) return true;
+            for (Class<?> type : types) {
+                if (type.isInstance(e)) return true;
+            }
+            return false;
+        }
+    }
+
+    private static final int LOCAL_KEYS = 4096;
+
+    private static final Queue<Event> QUEUE = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean DRAIN_SCHEDULED = new AtomicBoolean();
+    private static final List<Subscription> SUBSCRIPTIONS = new CopyOnWriteArrayList<>();
+
+    // Keys of the latest local events, oldest first
+    private static final Map<String, Boolean> LOCAL = new LinkedHashMap<>(LOCAL_KEYS * 2, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > LOCAL_KEYS;
+        }
+    };
+
+    private ComplaintEvents() {
+    }
+
+    /** Queues the event for delivery on the EDT. Any thread; call after commit. */
+    public static void publish(Event event) {
+        if (!event.isRemote()) {
+            synchronized (LOCAL) {
+                LOCAL.put(event.key(), Boolean.TRUE);
+            }
+        }
+        QUEUE.add(event);
+        if (DRAIN_SCHEDULED.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(ComplaintEvents::drain);
+        }
+    }
+
+    /**
+     * Delivers events of the given types (all events if none are given)
+     * until the window is disposed.
+     */
+    @SafeVarargs
+    public static Subscription subscribe(Window owner, Listener listener, Class<? extends Event>... types) {
+        Class<?>[] copy = new Class<?>[types.length];
+        for (int i = 0; i < types.length; i++) copy[i] = types[i]; // the array itself never escapes
+        Subscription s = new Subscription(listener, copy);
+        SUBSCRIPTIONS.add(s);
+        owner.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                s.cancel();
+            }
+        });
+        return s;
+    }
+
+    /** For in-memory caches: delivers for the life of the process, before any window. */
+    @SafeVarargs
+    public static Subscription subscribe(Listener listener, Class<? extends Event>... types) {
+        Class<?>[] copy = new Class<?>[types.length];
+        for (int i = 0; i < types.length; i++) copy[i] = types[i];
+        Subscription s = new Subscription(listener, copy);
+        SUBSCRIPTIONS.add(0, s); // ahead of the windows
+        return s;
+    }
+
+    /** True if this process published the same change recently (ChangeFeed skips it). */
+    static boolean publishedHere(Event event) {
+        synchronized (LOCAL) {
+            return LOCAL.containsKey(event.key());
+        }
+    }
+
+    private static void drain() {
+        // Cleared first: anything published from here on schedules another drain
+        DRAIN_SCHEDULED.set(false);
+        List<Event> batch = new ArrayList<>();
+        for (Event e; (e = QUEUE.poll()) != null; ) {
+            batch.add(e);
+        }
+        if (batch.isEmpty()) return;
+
+        for (Subscription s : SUBSCRIPTIONS) {
+            List<Event> wanted = new ArrayList<>(batch.size());
+            for (Event e : batch) {
+                if (s.wants(e)) wanted.add(e);
+            }
+            if (wanted.isEmpty()) continue;
+            try {
+                s.listener.eventsPublished(wanted);
+            } catch (RuntimeException ex) {
+                ex.printStackTrace(); // one broken screen must not starve the others
+            }
+        }
+    }
+}
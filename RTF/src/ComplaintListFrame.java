@@ -1,8 +1,8 @@
 
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.sql.*;
+import java.util.List;
 
 /**
  * Complaint Queue Screen (Staff view)
@@ -13,6 +13,9 @@ import java.sql.*;
  *  - ComplaintStatus
  *  - ComplaintPriority
  *
+ * "Take next from queue" claims the most urgent complaint nobody is working
+ * on (ComplaintWorkQueue) and assigns it to this staff member.
+ *
  * Opened from StaffDashboard via:
  *   new ComplaintListFrame(staff).setVisible(true);
  */
@@ -27,6 +30,7 @@ public class ComplaintListFrame extends JFrame {
     private JScrollPane scrollComplaints;
     private JScrollPane jScrollPane1;
     private JTable tblComplaints;
+    private ComplaintListModel complaintModel;
     private JTextField txtTitle;
     private JTextField txtStatus;
     private JTextField txtPriority;
@@ -36,6 +40,12 @@ public class ComplaintListFrame extends JFrame {
     private JScrollPane jScrollPane2;
     private JTextArea txtDescription;
     private JButton btnCloseComplaint;
+    private JButton btnClaimNext;
+
+    private Integer detailComplaintId = null; // complaint shown in the detail fields
+
+    // Background DB work for this window (cancelled when the window is disposed)
+    private final DbExecutor.Group tasks = new DbExecutor.Group(this);
 
     public ComplaintListFrame(StaffUser staff) {
         this.staff = staff;
@@ -46,6 +56,13 @@ public class ComplaintListFrame extends JFrame {
         initComponents();
         loadComplaints();
 
+        // Changes saved by this or another screen (or workstation) are applied without reloading the list
+        ComplaintEvents.subscribe(this, this::applyEvents,
+                ComplaintEvents.ComplaintClosed.class,
+                ComplaintEvents.PriorityChanged.class,
+                ComplaintEvents.ComplaintCreated.class,
+                ComplaintEvents.ComplaintAssigned.class);
+
         setLocationRelativeTo(null);
     }
 
@@ -60,62 +77,49 @@ public class ComplaintListFrame extends JFrame {
      *
      * Logic:
      *  - Shows complaints where AssignedStaffID = staff.getStaffId()
-     *  - Filter by IsActive according to combo:
+     *  - Loaded once into a ComplaintStore (newest first); titles are
+     *    fetched for the rows on screen. The filter combo and the column
+     *    headers filter and sort in memory (applyFilter()).
+     */
+    private void loadComplaints() {
+        applyFilter();
+        btnRefresh.setEnabled(false);
+        complaintModel.load(staff.getStaffId());
+    }
+
+    /**
+     * Filter by IsActive according to combo, without a query:
      *      "All"   -> all statuses
      *      "Active"-> IsActive = 1
      *      "Close" -> IsActive = 0
      */
-    private void loadComplaints() {
-        try (Connection conn = DbConfig.getConnection()) {
-
-            String filter = cmbStatusFilter.getSelectedItem().toString();
-
-            StringBuilder sql = new StringBuilder(
-                    "SELECT c.ComplaintID, t.Title, s.Name AS StatusName, " +
-                    "       p.Name AS PriorityName, c.CreatedAt " +
-                    "FROM Complaints c " +
-                    "JOIN ComplaintTexts t ON t.ComplaintID = c.ComplaintID " +
-                    "JOIN ComplaintStatus s ON s.ComplaintStatusID = c.ComplaintStatusID " +
-                    "JOIN ComplaintPriority p ON p.ComplaintPriorityID = c.ComplaintPriorityID " +
-                    "WHERE c.AssignedStaffID = ? "
-            );
-
-            if (filter.equals("Active")) {
-                sql.append("AND c.IsActive = 1 ");
-            } else if (filter.equals("Close")) {
-                sql.append("AND c.IsActive = 0 ");
-            }
-
-            sql.append("ORDER BY c.CreatedAt DESC");
-
-            try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
-                ps.setInt(1, staff.getStaffId());
+    private void applyFilter() {
+        String filter = cmbStatusFilter.getSelectedItem().toString();
+        complaintModel.setActiveFilter(filter.equals("Active") ? Boolean.TRUE
+                : filter.equals("Close") ? Boolean.FALSE : null);
+    }
 
-                try (ResultSet rs = ps.executeQuery()) {
-                    DefaultTableModel model = (DefaultTableModel) tblComplaints.getModel();
-                    model.setRowCount(0);
+    /** Re-reads the list in place: only changed rows repaint, the selection stays. */
+    private void refreshComplaints() {
+        btnRefresh.setEnabled(false);
+        complaintModel.refresh();
+    }
 
-                    while (rs.next()) {
-                        model.addRow(new Object[]{
-                                rs.getInt("ComplaintID"),
-                                rs.getString("Title"),
-                                rs.getString("StatusName"),
-                                rs.getString("PriorityName"),
-                                rs.getTimestamp("CreatedAt")
-                        });
-                    }
-                }
-            }
+    private void onComplaintCountLoaded(int total) {
+        btnRefresh.setEnabled(true);
+        setTitle("Complaint Queue - " + staff.getFullName() + " (" + total + " complaints)");
+    }
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error while loading complaints:\n" + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+    private void onComplaintLoadFailed(Exception e) {
+        btnRefresh.setEnabled(true);
+        JOptionPane.showMessageDialog(this,
+                "Error while loading complaints:\n" + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
     }
 
     /**
-     * Loads detailed info for a selected complaint.
+     * Detail fields of recently viewed complaints, shared by every queue
+     * window. Closes and status or priority changes invalidate an entry.
      *
      * Uses:
      *  - Complaints
@@ -123,9 +127,8 @@ public class ComplaintListFrame extends JFrame {
      *  - ComplaintStatus
      *  - ComplaintPriority
      */
-    private void loadComplaintDetail(int complaintId) {
-        String sql = """
-            SELECT t.Title, t.Description,
+    private static final ComplaintDetailCache DETAILS = new ComplaintDetailCache("""
+            SELECT c.ComplaintID, t.Title, t.Description,
                    s.Name AS StatusName,
                    p.Name AS PriorityName,
                    c.CreatedAt, c.ClosedAt, c.IsActive
@@ -133,42 +136,75 @@ public class ComplaintListFrame extends JFrame {
             JOIN ComplaintTexts t ON c.ComplaintID = t.ComplaintID
             JOIN ComplaintStatus s ON s.ComplaintStatusID = c.ComplaintStatusID
             JOIN ComplaintPriority p ON p.ComplaintPriorityID = c.ComplaintPriorityID
-            WHERE c.ComplaintID = ?
-            """;
-
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, complaintId);
-
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    txtTitle.setText(rs.getString("Title"));
-                    txtDescription.setText(rs.getString("Description"));
-                    txtStatus.setText(rs.getString("StatusName"));
-                    txtPriority.setText(rs.getString("PriorityName"));
-                    txtCreatedAt.setText(String.valueOf(rs.getTimestamp("CreatedAt")));
+            WHERE c.ComplaintID IN (%s)
+            """, rs -> new Object[]{
+                    rs.getString("Title"),
+                    rs.getString("Description"),
+                    rs.getString("StatusName"),
+                    rs.getString("PriorityName"),
+                    rs.getTimestamp("CreatedAt"),
+                    rs.getTimestamp("ClosedAt"),
+                    rs.getBoolean("IsActive")
+            });
+
+    // Rows above and below the selection whose details are read ahead
+    private static final int PREFETCH_ROWS = Integer.getInteger("rtf.detail.prefetch", 5);
 
-                    Timestamp closed = rs.getTimestamp("ClosedAt");
-                    txtClosedAt.setText(closed == null ? "" : closed.toString());
+    /**
+     * Shows the selected complaint and reads ahead the details of the rows
+     * around it, so moving through the list with the arrow keys is served
+     * from DETAILS.
+     */
+    private void onComplaintSelected() {
+        int row = tblComplaints.getSelectedRow();
+        Object id = row >= 0 ? tblComplaints.getValueAt(row, 0) : null;
+        if (id == null) return;
 
-                    boolean isActive = rs.getBoolean("IsActive");
-                    btnCloseComplaint.setEnabled(isActive);
-                }
-            }
+        loadComplaintDetail((int) id);
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error while loading complaint detail:\n" + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
+        List<Integer> around = new java.util.ArrayList<>();
+        int from = Math.max(0, row - PREFETCH_ROWS);
+        int to = Math.min(tblComplaints.getRowCount() - 1, row + PREFETCH_ROWS);
+        for (int r = from; r <= to; r++) {
+            if (r != row) around.add((Integer) tblComplaints.getValueAt(r, 0));
         }
+        DETAILS.prefetch(around);
+    }
+
+    /**
+     * Loads detailed info for a selected complaint (from DETAILS when it
+     * was viewed or read ahead recently).
+     */
+    private void loadComplaintDetail(int complaintId) {
+        // Selecting another row cancels the previous detail load
+        DETAILS.load(tasks, complaintId, d -> {
+            if (d == null) return;
+
+            detailComplaintId = complaintId;
+            txtTitle.setText((String) d[0]);
+            txtDescription.setText((String) d[1]);
+            txtStatus.setText((String) d[2]);
+            txtPriority.setText((String) d[3]);
+            txtCreatedAt.setText(String.valueOf(d[4]));
+
+            Timestamp closed = (Timestamp) d[5];
+            txtClosedAt.setText(closed == null ? "" : closed.toString());
+
+            boolean isActive = (Boolean) d[6];
+            btnCloseComplaint.setEnabled(isActive);
+        }, e -> JOptionPane.showMessageDialog(this,
+                "Error while loading complaint detail:\n" + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE));
     }
 
     /**
-     * Marks a complaint as closed (IsActive=0, ClosedAt = now).
+     * Marks a complaint as closed (IsActive=0, ClosedAt = now) and records a
+     * "Close" action, which is how the other workstations hear about it
+     * (ChangeFeed).
      *
      * Uses:
      *  - Complaints
+     *  - ComplaintActions
      */
     private void closeSelectedComplaint() {
         int row = tblComplaints.getSelectedRow();
@@ -179,7 +215,9 @@ public class ComplaintListFrame extends JFrame {
             return;
         }
 
-        int complaintId = (int) tblComplaints.getValueAt(row, 0);
+        Object id = tblComplaints.getValueAt(row, 0);
+        if (id == null) return; // row not loaded yet
+        int complaintId = (int) id;
 
         int confirm = JOptionPane.showConfirmDialog(
                 this,
@@ -194,27 +232,151 @@ public class ComplaintListFrame extends JFrame {
             UPDATE Complaints
             SET IsActive = 0,
                 ClosedAt = SYSDATETIME()
+            WHERE ComplaintID = ?
+              AND IsActive = 1
+            """;
+
+        // Closing keeps the status; the action row only marks the close
+        String actionSql = """
+            INSERT INTO ComplaintActions
+                (ComplaintID, OldStatusID, NewStatusID, PerformedByID, ActionType, ActionDate)
+            SELECT ComplaintID, ComplaintStatusID, ComplaintStatusID, ?, 'Close', SYSDATETIME()
+            FROM Complaints
             WHERE ComplaintID = ?
             """;
 
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        int staffId = staff.getStaffId();
+        btnCloseComplaint.setEnabled(false);
 
-            ps.setInt(1, complaintId);
-            ps.executeUpdate();
+        DbExecutor.submit(conn -> {
+            int updated;
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setInt(1, complaintId);
+                    updated = ps.executeUpdate();
+                }
+                if (updated > 0) {
+                    try (PreparedStatement ps = conn.prepareStatement(actionSql)) {
+                        ps.setInt(1, staffId);
+                        ps.setInt(2, complaintId);
+                        ps.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
 
+            // The queue only lists complaints assigned to this staff
+            if (updated > 0) {
+                DailyCounters.complaintClosed(staffId);
+                ComplaintSearch.complaintClosed(complaintId);
+                DuplicateDetector.closed(complaintId);
+                SlaEscalator.closed(complaintId);
+                CriticalComplaints.closed(complaintId);
+                ComplaintEvents.publish(new ComplaintEvents.ComplaintClosed(complaintId, staffId, null));
+            }
+            return updated;
+        }, updated -> {
+            if (updated == 0) {
+                // Closed elsewhere first: show what the database has now
+                DETAILS.invalidate(complaintId);
+                if (isDetail(complaintId)) loadComplaintDetail(complaintId);
+                JOptionPane.showMessageDialog(this,
+                        "This complaint was already closed or changed by someone else.",
+                        "Warning", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
             JOptionPane.showMessageDialog(this,
                     "Complaint has been closed.",
                     "Info", JOptionPane.INFORMATION_MESSAGE);
-
-            loadComplaints();
-            loadComplaintDetail(complaintId);
-
-        } catch (Exception e) {
+        }, e -> {
+            btnCloseComplaint.setEnabled(true);
             JOptionPane.showMessageDialog(this,
                     "Error while closing complaint:\n" + e.getMessage(),
                     "Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    /**
+     * Shows closed complaints as closed and escalated ones with their new
+     * priority, in the list and the detail fields. A complaint newly
+     * assigned to this staff, or claimed away from it, refreshes the list.
+     */
+    private void applyEvents(List<ComplaintEvents.Event> events) {
+        boolean reload = false;
+        for (ComplaintEvents.Event e : events) {
+            if (e instanceof ComplaintEvents.ComplaintClosed) {
+                ComplaintEvents.ComplaintClosed closed = (ComplaintEvents.ComplaintClosed) e;
+                complaintModel.closed(closed.complaintId(), closed.statusName());
+                if (isDetail(closed.complaintId())) {
+                    if (closed.statusName() != null) txtStatus.setText(closed.statusName());
+                    txtClosedAt.setText(new Timestamp(System.currentTimeMillis()).toString());
+                    btnCloseComplaint.setEnabled(false);
+                }
+            } else if (e instanceof ComplaintEvents.PriorityChanged) {
+                ComplaintEvents.PriorityChanged changed = (ComplaintEvents.PriorityChanged) e;
+                complaintModel.priorityChanged(changed.complaintId(), changed.priorityId());
+                if (isDetail(changed.complaintId())) txtPriority.setText(changed.priorityName());
+            } else if (e instanceof ComplaintEvents.ComplaintAssigned) {
+                // This screen's own claims refresh the list themselves
+                ComplaintEvents.ComplaintAssigned assigned = (ComplaintEvents.ComplaintAssigned) e;
+                Integer previous = assigned.previousStaffId();
+                reload |= (e.isRemote() && assigned.staffId() == staff.getStaffId())
+                        || (previous != null && previous == staff.getStaffId());
+            } else {
+                Integer assigned = ((ComplaintEvents.ComplaintCreated) e).assignedStaffId();
+                reload |= assigned != null && assigned == staff.getStaffId();
+            }
         }
+        if (reload) refreshComplaints();
+    }
+
+    private boolean isDetail(int complaintId) {
+        return detailComplaintId != null && detailComplaintId == complaintId;
+    }
+
+    /**
+     * Takes the most urgent waiting complaint from the shared queue
+     * (unassigned, or overflow from a busy colleague) and shows it.
+     *
+     * Uses:
+     *  - Complaints
+     *  - ComplaintPriority
+     */
+    private void claimNextComplaint() {
+        int staffId = staff.getStaffId();
+        btnClaimNext.setEnabled(false);
+
+        DbExecutor.submit(conn -> {
+            ComplaintWorkQueue.Claim claim = ComplaintWorkQueue.claimNext(conn, staffId);
+            return new Object[]{claim, ComplaintWorkQueue.waitingCount(conn, staffId)};
+        }, r -> {
+            btnClaimNext.setEnabled(true);
+            ComplaintWorkQueue.Claim claim = (ComplaintWorkQueue.Claim) r[0];
+            if (claim == null) {
+                JOptionPane.showMessageDialog(this,
+                        "No complaints are waiting in the queue.",
+                        "Info", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+
+            refreshComplaints();
+            loadComplaintDetail(claim.complaintId());
+            JOptionPane.showMessageDialog(this,
+                    "Complaint #" + claim.complaintId() + " is now assigned to you.\n" +
+                            r[1] + " complaint(s) still waiting.",
+                    "Info", JOptionPane.INFORMATION_MESSAGE);
+        }, e -> {
+            btnClaimNext.setEnabled(true);
+            JOptionPane.showMessageDialog(this,
+                    "Error while taking a complaint from the queue:\n" + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        });
     }
 
     // ---------- UI initialization (NetBeans form kodunun sadeleştirilmiş hali) ----------
@@ -236,33 +398,34 @@ public class ComplaintListFrame extends JFrame {
         jScrollPane2 = new JScrollPane();
         txtDescription = new JTextArea();
         btnCloseComplaint = new JButton();
+        btnClaimNext = new JButton();
 
         lblFilter.setText("Condition Filter:");
 
         cmbStatusFilter.setModel(new DefaultComboBoxModel<>(new String[] { "All", "Active", "Close" }));
+        cmbStatusFilter.addActionListener(evt -> applyFilter());
 
         btnRefresh.setText("Refresh list");
-        btnRefresh.addActionListener(evt -> loadComplaints());
-
-        tblComplaints.setModel(new DefaultTableModel(
-                new Object [][] {
-                        {null, null, null, null, null},
-                        {null, null, null, null, null},
-                        {null, null, null, null, null},
-                        {null, null, null, null, null}
-                },
+        btnRefresh.addActionListener(evt -> refreshComplaints());
+
+        complaintModel = new ComplaintListModel(
                 new String [] {
                         "ComplaintID", "Title", "Status", "Priority", "CreatedAt"
-                }
-        ));
-        tblComplaints.addMouseListener(new java.awt.event.MouseAdapter() {
-            public void mouseClicked(java.awt.event.MouseEvent evt) {
-                int row = tblComplaints.getSelectedRow();
-                if (row >= 0) {
-                    int complaintId = (int) tblComplaints.getValueAt(row, 0);
-                    loadComplaintDetail(complaintId);
-                }
-            }
+                },
+                tasks,
+                new ComplaintListModel.Listener() {
+                    public void countLoaded(int total) {
+                        onComplaintCountLoaded(total);
+                    }
+
+                    public void loadFailed(Exception e) {
+                        onComplaintLoadFailed(e);
+                    }
+                });
+        tblComplaints.setModel(complaintModel);
+        tblComplaints.setRowSorter(complaintModel.sorter());
+        tblComplaints.getSelectionModel().addListSelectionListener(evt -> {
+            if (!evt.getValueIsAdjusting()) onComplaintSelected();
         });
         jScrollPane1.setViewportView(tblComplaints);
         scrollComplaints.setViewportView(jScrollPane1);
@@ -282,6 +445,9 @@ public class ComplaintListFrame extends JFrame {
         btnCloseComplaint.setText("Close the complaint");
         btnCloseComplaint.addActionListener(evt -> closeSelectedComplaint());
 
+        btnClaimNext.setText("Take next from queue");
+        btnClaimNext.addActionListener(evt -> claimNextComplaint());
+
         // Layout (GroupLayout) – NetBeans formundan alınmış yapı
         GroupLayout layout = new GroupLayout(getContentPane());
         getContentPane().setLayout(layout);
@@ -315,7 +481,9 @@ public class ComplaintListFrame extends JFrame {
                                                 .addComponent(btnRefresh))
                                         .addGroup(layout.createSequentialGroup()
                                                 .addGap(190, 190, 190)
-                                                .addComponent(btnCloseComplaint)))
+                                                .addComponent(btnCloseComplaint)
+                                                .addGap(18, 18, 18)
+                                                .addComponent(btnClaimNext)))
                                 .addContainerGap(GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
 
@@ -343,7 +511,9 @@ public class ComplaintListFrame extends JFrame {
                                                 .addGap(44, 44, 44)
                                                 .addComponent(scrollDescription, GroupLayout.PREFERRED_SIZE, 139, GroupLayout.PREFERRED_SIZE)))
                                 .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED, 45, Short.MAX_VALUE)
-                                .addComponent(btnCloseComplaint)
+                                .addGroup(layout.createParallelGroup(GroupLayout.Alignment.BASELINE)
+                                        .addComponent(btnCloseComplaint)
+                                        .addComponent(btnClaimNext))
                                 .addGap(17, 17, 17))
         );
 
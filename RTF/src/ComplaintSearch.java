@@ -0,0 +1,481 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ComplaintSearch
+ *
+ * Full-text search over complaint titles/descriptions and call notes,
+ * served from a process-wide TextIndex.
+ *
+ *  - Complaint documents: ComplaintTexts.Title + Description; attributes
+ *    status, active flag, priority and assigned staff (for filtering).
+ *  - Call documents: CallDetails.Notes (calls with notes only); attribute
+ *    staff. Calls have no status or priority.
+ *
+ * The index is kept up to date incrementally (-Drtf.search.syncSec, default
+ * 30): complaints from a (ComplaintTexts.LastUpdatedAt, ComplaintID)
+ * high-watermark, calls from a CallID watermark. Each sync re-reads a small
+ * overlap before the watermarks so rows committed out of order are not
+ * missed; already indexed rows are skipped. Status, priority and assignment
+ * changes do not touch LastUpdatedAt, so the attributes are refreshed with
+ * one scan of Complaints every -Drtf.search.attrRefreshMin minutes
+ * (default 10). Closes and escalations on other workstations are applied
+ * when ChangeFeed reports them, and a complaint created elsewhere triggers
+ * a sync.
+ *
+ * The index and watermarks are saved to -Drtf.search.file (default
+ * ~/.rtf/search/complaints.idx) after changes (at most every 5 minutes) and
+ * on exit, so a restart only catches up on what changed meanwhile.
+ *
+ * Tables used:
+ *  - Complaints, ComplaintTexts
+ *  - Calls, CallDetails
+ */
+public final class ComplaintSearch {
+
+    /** Document kinds (ATTR_KIND). */
+    public static final int COMPLAINT = 1;
+    public static final int CALL = 2;
+
+    static final int ATTR_KIND = 0;
+    static final int ATTR_STATUS = 1;
+    static final int ATTR_ACTIVE = 2;
+    static final int ATTR_PRIORITY = 3;
+    static final int ATTR_STAFF = 4;
+
+    /** One search result. */
+    public static final class Result {
+        private final int kind;
+        private final int id;
+        private final float score;
+
+        Result(int kind, int id, float score) {
+            this.kind = kind;
+            this.id = id;
+            this.score = score;
+        }
+
+        public int kind() {
+            return kind;
+        }
+
+        /** ComplaintID or CallID, depending on kind(). */
+        public int id() {
+            return id;
+        }
+
+        public float score() {
+            return score;
+        }
+    }
+
+    /** Result filter; null fields mean "any". */
+    public static final class Criteria {
+        Boolean active;       // complaints only when set
+        Integer statusId;     // complaints only when set
+        Integer priorityId;   // complaints only when set
+        Integer staffId;
+        boolean includeCalls = true;
+
+        public Criteria active(Boolean active) {
+            this.active = active;
+            return this;
+        }
+
+        public Criteria status(Integer statusId) {
+            this.statusId = statusId;
+            return this;
+        }
+
+        public Criteria priority(Integer priorityId) {
+            this.priorityId = priorityId;
+            return this;
+        }
+
+        public Criteria staff(Integer staffId) {
+            this.staffId = staffId;
+            return this;
+        }
+
+        public Criteria includeCalls(boolean includeCalls) {
+            this.includeCalls = includeCalls;
+            return this;
+        }
+    }
+
+    private static final long SYNC_SECONDS = Long.getLong("rtf.search.syncSec", 30);
+    private static final long ATTR_REFRESH_MINUTES = Long.getLong("rtf.search.attrRefreshMin", 10);
+    private static final long SAVE_INTERVAL_MS = 5 * 60_000L;
+    private static final int BATCH = 5000;
+    private static final long OVERLAP_MS = 10_000;
+    private static final int CALL_OVERLAP = 1000;
+    private static final int FILE_MAGIC = 0x52544653; // "RTFS"
+
+    private static final String COMPLAINTS_SQL = """
+        SELECT TOP (?) t.ComplaintID, t.Title, t.Description, t.LastUpdatedAt,
+               c.ComplaintStatusID, c.IsActive, c.ComplaintPriorityID, c.AssignedStaffID
+        FROM ComplaintTexts t
+        JOIN Complaints c ON c.ComplaintID = t.ComplaintID
+        WHERE t.LastUpdatedAt > ? OR (t.LastUpdatedAt = ? AND t.ComplaintID > ?)
+        ORDER BY t.LastUpdatedAt, t.ComplaintID
+        """;
+
+    private static final String CALLS_SQL = """
+        SELECT TOP (?) cd.CallID, cd.Notes, c.StaffID
+        FROM CallDetails cd
+        JOIN Calls c ON c.CallID = cd.CallID
+        WHERE cd.CallID > ? AND cd.Notes IS NOT NULL
+        ORDER BY cd.CallID
+        """;
+
+    private static final String ATTRS_SQL = """
+        SELECT TOP (?) ComplaintID, ComplaintStatusID, IsActive, ComplaintPriorityID, AssignedStaffID
+        FROM Complaints
+        WHERE ComplaintID > ?
+        ORDER BY ComplaintID
+        """;
+
+    private static final Path FILE = Paths.get(System.getProperty("rtf.search.file",
+            System.getProperty("user.home") + "/.rtf/search/complaints.idx"));
+
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "complaint-search");
+                t.setDaemon(true);
+                return t;
+            });
+
+    // Written on the scheduler thread only (start/sync/save run there)
+    private static volatile TextIndex index = new TextIndex();
+    private static volatile boolean ready = false;
+    private static volatile long syncedAt = 0;
+    private static Timestamp complaintMarkTime = new Timestamp(0);
+    private static int complaintMarkId = 0;
+    private static int callMark = 0;
+    private static boolean dirty = false;
+    private static long savedAt = 0;
+    private static boolean started = false;
+
+    private ComplaintSearch() {
+    }
+
+    /** Loads the saved index and starts syncing. Call once at application startup. */
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+
+        SCHEDULER.execute(() -> {
+            load();
+            sync();
+        });
+        if (SYNC_SECONDS > 0) {
+            SCHEDULER.scheduleWithFixedDelay(ComplaintSearch::sync, SYNC_SECONDS, SYNC_SECONDS, TimeUnit.SECONDS);
+        }
+        if (ATTR_REFRESH_MINUTES > 0) {
+            SCHEDULER.scheduleWithFixedDelay(ComplaintSearch::refreshAttributes,
+                    ATTR_REFRESH_MINUTES, ATTR_REFRESH_MINUTES, TimeUnit.MINUTES);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(ComplaintSearch::saveOnExit, "complaint-search-save"));
+
+        // Other workstations (ChangeFeed): attributes at once, new complaints with the next sync.
+        // Status changes are only published as events, so local ones are taken too
+        ComplaintEvents.subscribe(events -> {
+            boolean created = false;
+            for (ComplaintEvents.Event e : events) {
+                if (e instanceof ComplaintEvents.StatusChanged) {
+                    ComplaintEvents.StatusChanged changed = (ComplaintEvents.StatusChanged) e;
+                    complaintStatusChanged(changed.complaintId(), changed.statusId());
+                    continue;
+                }
+                if (!e.isRemote()) continue;
+                if (e instanceof ComplaintEvents.ComplaintClosed) {
+                    complaintClosed(((ComplaintEvents.ComplaintClosed) e).complaintId());
+                } else if (e instanceof ComplaintEvents.PriorityChanged) {
+                    ComplaintEvents.PriorityChanged changed = (ComplaintEvents.PriorityChanged) e;
+                    complaintPriorityChanged(changed.complaintId(), changed.priorityId());
+                } else if (e instanceof ComplaintEvents.ComplaintAssigned) {
+                    ComplaintEvents.ComplaintAssigned assigned = (ComplaintEvents.ComplaintAssigned) e;
+                    complaintAssigned(assigned.complaintId(), assigned.staffId());
+                } else {
+                    created = true;
+                }
+            }
+            if (created) SCHEDULER.execute(ComplaintSearch::sync);
+        }, ComplaintEvents.ComplaintClosed.class, ComplaintEvents.PriorityChanged.class,
+                ComplaintEvents.StatusChanged.class, ComplaintEvents.ComplaintAssigned.class,
+                ComplaintEvents.ComplaintCreated.class);
+    }
+
+    /** Runs a sync now (in the background), e.g. when the search window opens. */
+    public static void syncSoon() {
+        start();
+        SCHEDULER.execute(ComplaintSearch::sync);
+    }
+
+    /** False until the saved index is loaded or the first sync has finished. */
+    public static boolean isReady() {
+        return ready;
+    }
+
+    public static int documentCount() {
+        return index.size();
+    }
+
+    /** Time of the last successful sync (epoch millis), 0 if none yet. */
+    public static long syncedAt() {
+        return syncedAt;
+    }
+
+    /**
+     * Ranked search; all words must match, the last one as a prefix.
+     * Cheap enough to run on every keystroke (in the background).
+     */
+    public static List<Result> search(String query, Criteria criteria, int limit) {
+        TextIndex.Filter filter = (key, attrs, o) -> {
+            int kind = attrs[o + ATTR_KIND];
+            if (kind == CALL) {
+                if (!criteria.includeCalls || criteria.active != null || criteria.statusId != null
+                        || criteria.priorityId != null) return false;
+            } else {
+                if (criteria.active != null && (attrs[o + ATTR_ACTIVE] == 1) != criteria.active) return false;
+                if (criteria.statusId != null && attrs[o + ATTR_STATUS] != criteria.statusId) return false;
+                if (criteria.priorityId != null && attrs[o + ATTR_PRIORITY] != criteria.priorityId) return false;
+            }
+            return criteria.staffId == null || attrs[o + ATTR_STAFF] == criteria.staffId;
+        };
+
+        List<Result> results = new ArrayList<>();
+        for (TextIndex.Hit hit : index.search(query, true, limit, filter)) {
+            int kind = (int) (hit.key >>> 32) == 0 ? COMPLAINT : CALL;
+            results.add(new Result(kind, (int) hit.key, hit.score));
+        }
+        return results;
+    }
+
+    /** Call after a complaint was closed (committed), so filters see it at once. */
+    public static void complaintClosed(int complaintId) {
+        index.setAttr(complaintKey(complaintId), ATTR_ACTIVE, 0);
+    }
+
+    /** Call after a complaint moved to another status (committed). */
+    public static void complaintStatusChanged(int complaintId, int statusId) {
+        index.setAttr(complaintKey(complaintId), ATTR_STATUS, statusId);
+    }
+
+    /** Call after a complaint was (re)assigned (committed), so "only mine" sees it at once. */
+    public static void complaintAssigned(int complaintId, int staffId) {
+        index.setAttr(complaintKey(complaintId), ATTR_STAFF, staffId);
+    }
+
+    /** Call after a complaint's priority was changed (committed). */
+    public static void complaintPriorityChanged(int complaintId, int priorityId) {
+        index.setAttr(complaintKey(complaintId), ATTR_PRIORITY, priorityId);
+    }
+
+    static long complaintKey(int complaintId) {
+        return complaintId;
+    }
+
+    static long callKey(int callId) {
+        return (1L << 32) | callId;
+    }
+
+    // ---- Sync (scheduler thread) ----
+
+    private static void sync() {
+        try (Connection conn = DbConfig.getConnection()) {
+            int changed = syncComplaints(conn) + syncCalls(conn);
+            syncedAt = System.currentTimeMillis();
+            ready = true;
+
+            if (changed > 0) {
+                dirty = true;
+                index.compactIfNeeded();
+            }
+            if (dirty && System.currentTimeMillis() - savedAt > SAVE_INTERVAL_MS) {
+                save();
+            }
+        } catch (Exception e) {
+            e.printStackTrace(); // searches keep using the current index; next sync retries
+        }
+    }
+
+    private static int syncComplaints(Connection conn) throws SQLException {
+        // Start a little before the watermark: rows committed late with an earlier timestamp
+        Timestamp time = new Timestamp(Math.max(0, complaintMarkTime.getTime() - OVERLAP_MS));
+        int id = 0;
+        int changed = 0;
+
+        while (true) {
+            List<TextIndex.Doc> docs = new ArrayList<>(BATCH);
+            try (PreparedStatement ps = conn.prepareStatement(COMPLAINTS_SQL)) {
+                ps.setInt(1, BATCH);
+                ps.setTimestamp(2, time);
+                ps.setTimestamp(3, time);
+                ps.setInt(4, id);
+                ps.setFetchSize(BATCH);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        id = rs.getInt("ComplaintID");
+                        time = rs.getTimestamp("LastUpdatedAt");
+                        String title = rs.getString("Title");
+                        String description = rs.getString("Description");
+                        docs.add(new TextIndex.Doc(complaintKey(id), time.getTime(),
+                                (title != null ? title : "") + "\n" + (description != null ? description : ""),
+                                new int[]{COMPLAINT, rs.getInt("ComplaintStatusID"), rs.getBoolean("IsActive") ? 1 : 0,
+                                        rs.getInt("ComplaintPriorityID"), rs.getInt("AssignedStaffID")}));
+                    }
+                }
+            }
+            if (docs.isEmpty()) break;
+
+            changed += index.putAll(docs); // rows from the overlap come back unchanged
+
+            if (time.after(complaintMarkTime)
+                    || (time.equals(complaintMarkTime) && id > complaintMarkId)) {
+                complaintMarkTime = time;
+                complaintMarkId = id;
+            }
+            if (docs.size() < BATCH) break;
+        }
+        return changed;
+    }
+
+    private static int syncCalls(Connection conn) throws SQLException {
+        int from = Math.max(0, callMark - CALL_OVERLAP);
+        int added = 0;
+
+        while (true) {
+            List<TextIndex.Doc> docs = new ArrayList<>(BATCH);
+            int rows = 0;
+            try (PreparedStatement ps = conn.prepareStatement(CALLS_SQL)) {
+                ps.setInt(1, BATCH);
+                ps.setInt(2, from);
+                ps.setFetchSize(BATCH);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        from = rs.getInt("CallID");
+                        // Call notes are never edited: an indexed call is up to date
+                        if (index.contains(callKey(from))) continue;
+                        docs.add(new TextIndex.Doc(callKey(from), 0, rs.getString("Notes"),
+                                new int[]{CALL, 0, 0, 0, rs.getInt("StaffID")}));
+                    }
+                }
+            }
+
+            if (!docs.isEmpty()) {
+                added += index.putAll(docs);
+            }
+            callMark = Math.max(callMark, from);
+            if (rows < BATCH) break;
+        }
+        return added;
+    }
+
+    /** Re-reads status / active / priority / staff of every indexed complaint. */
+    private static void refreshAttributes() {
+        if (!ready) return;
+        try (Connection conn = DbConfig.getConnection()) {
+            int from = 0;
+            while (true) {
+                int rows = 0;
+                try (PreparedStatement ps = conn.prepareStatement(ATTRS_SQL)) {
+                    ps.setInt(1, BATCH * 4);
+                    ps.setInt(2, from);
+                    ps.setFetchSize(BATCH * 4);
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            rows++;
+                            from = rs.getInt("ComplaintID");
+                            long key = complaintKey(from);
+                            index.setAttr(key, ATTR_STATUS, rs.getInt("ComplaintStatusID"));
+                            index.setAttr(key, ATTR_ACTIVE, rs.getBoolean("IsActive") ? 1 : 0);
+                            index.setAttr(key, ATTR_PRIORITY, rs.getInt("ComplaintPriorityID"));
+                            index.setAttr(key, ATTR_STAFF, rs.getInt("AssignedStaffID"));
+                        }
+                    }
+                }
+                if (rows < BATCH * 4) break;
+            }
+            dirty = true;
+        } catch (Exception e) {
+            e.printStackTrace(); // try again next time
+        }
+    }
+
+    // ---- Persistence (scheduler thread) ----
+
+    private static void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(FILE), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC) throw new IOException("Not a search index file: " + FILE);
+            Timestamp markTime = new Timestamp(in.readLong());
+            int markId = in.readInt();
+            int calls = in.readInt();
+            TextIndex loaded = TextIndex.readFrom(in);
+
+            index = loaded;
+            complaintMarkTime = markTime;
+            complaintMarkId = markId;
+            callMark = calls;
+            savedAt = System.currentTimeMillis();
+            ready = true;
+        } catch (NoSuchFileException e) {
+            // First start: the first sync builds the index
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace(); // unreadable (old format, partial copy): rebuild from scratch
+        }
+    }
+
+    private static void save() {
+        try {
+            Files.createDirectories(FILE.getParent());
+            Path tmp = FILE.resolveSibling(FILE.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeLong(complaintMarkTime.getTime());
+                out.writeInt(complaintMarkId);
+                out.writeInt(callMark);
+                index.writeTo(out);
+            }
+            // Readers never see a half-written file
+            Files.move(tmp, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+            savedAt = System.currentTimeMillis();
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace(); // keep the previous file
+        }
+    }
+
+    private static void saveOnExit() {
+        try {
+            // Let a running sync finish first; everything runs on the scheduler thread
+            SCHEDULER.submit(() -> {
+                if (dirty) save();
+            }).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ComplaintSearchFrame
+ *
+ * Full-text search over complaints and call notes (ComplaintSearch).
+ * Results update while typing; they can be narrowed down by active /
+ * closed, status, priority and "only mine". Selecting a row shows the
+ * full text.
+ *
+ * Tables used (display only; matching runs on the in-memory index):
+ *  - ComplaintTexts (titles, descriptions)
+ *  - CallDetails (notes)
+ *  - ComplaintStatus, ComplaintPriority (via ReferenceData)
+ */
+public class ComplaintSearchFrame extends JFrame {
+
+    private static final int MAX_RESULTS = 100;
+    private static final int TYPING_DELAY_MS = 150;
+
+    private final StaffUser staff;
+
+    private JTextField txtQuery;
+    private JComboBox<String> cmbStatus;
+    private JComboBox<ReferenceData.Item> cmbStatusId;
+    private JComboBox<ReferenceData.Item> cmbPriority;
+    private JCheckBox chkMine;
+    private JLabel lblInfo;
+    private JTable tblResults;
+    private DefaultTableModel resultModel;
+    private JTextArea txtPreview;
+
+    private final Timer typingTimer;
+
+    // Background DB work for this window (cancelled when the window is disposed)
+    private final DbExecutor.Group tasks = new DbExecutor.Group(this);
+
+    public ComplaintSearchFrame(StaffUser staff) {
+        this.staff = staff;
+
+        setTitle("Complaint Search - " + staff.getFullName());
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+
+        typingTimer = new Timer(TYPING_DELAY_MS, e -> runSearch());
+        typingTimer.setRepeats(false);
+
+        initComponents();
+        loadFilters();
+        ComplaintSearch.syncSoon();
+
+        setSize(900, 600);
+        setLocationRelativeTo(null);
+    }
+
+    private void initComponents() {
+        txtQuery = new JTextField(30);
+        txtQuery.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                typingTimer.restart();
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                typingTimer.restart();
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+                typingTimer.restart();
+            }
+        });
+        txtQuery.addActionListener(e -> runSearch());
+
+        cmbStatus = new JComboBox<>(new String[]{"All", "Active", "Close"});
+        cmbStatus.addActionListener(e -> runSearch());
+
+        cmbStatusId = new JComboBox<>();
+        cmbStatusId.addActionListener(e -> runSearch());
+
+        cmbPriority = new JComboBox<>();
+        cmbPriority.addActionListener(e -> runSearch());
+
+        chkMine = new JCheckBox("Only mine");
+        chkMine.addActionListener(e -> runSearch());
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.add(new JLabel("Search:"));
+        filterPanel.add(txtQuery);
+        filterPanel.add(new JLabel("Show:"));
+        filterPanel.add(cmbStatus);
+        filterPanel.add(new JLabel("Status:"));
+        filterPanel.add(cmbStatusId);
+        filterPanel.add(new JLabel("Priority:"));
+        filterPanel.add(cmbPriority);
+        filterPanel.add(chkMine);
+
+        resultModel = new DefaultTableModel(new String[]{"Type", "ID", "Title / Notes", "Score"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        tblResults = new JTable(resultModel);
+        tblResults.getColumnModel().getColumn(0).setMaxWidth(90);
+        tblResults.getColumnModel().getColumn(1).setMaxWidth(80);
+        tblResults.getColumnModel().getColumn(3).setMaxWidth(70);
+        tblResults.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) showSelected();
+        });
+
+        txtPreview = new JTextArea(8, 40);
+        txtPreview.setEditable(false);
+        txtPreview.setLineWrap(true);
+        txtPreview.setWrapStyleWord(true);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                new JScrollPane(tblResults), new JScrollPane(txtPreview));
+        split.setResizeWeight(0.7);
+
+        lblInfo = new JLabel(" ");
+
+        JPanel mainPanel = new JPanel(new BorderLayout(5, 5));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        mainPanel.add(filterPanel, BorderLayout.NORTH);
+        mainPanel.add(split, BorderLayout.CENTER);
+        mainPanel.add(lblInfo, BorderLayout.SOUTH);
+
+        setContentPane(mainPanel);
+    }
+
+    private void loadFilters() {
+        loadFilter(ReferenceData.Kind.COMPLAINT_PRIORITIES, cmbPriority);
+        loadFilter(ReferenceData.Kind.COMPLAINT_STATUSES, cmbStatusId);
+    }
+
+    private void loadFilter(ReferenceData.Kind kind, JComboBox<ReferenceData.Item> combo) {
+        ReferenceData.get(kind).whenComplete((table, ex) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (!isDisplayable()) return; // screen closed meanwhile
+
+                    combo.addItem(new ReferenceData.Item(-1, "Any"));
+                    if (ex != null) {
+                        ex.printStackTrace(); // search still works without this filter
+                        return;
+                    }
+                    for (ReferenceData.Item item : table.items()) {
+                        combo.addItem(item);
+                    }
+                }));
+    }
+
+    /**
+     * Runs the query on the index and loads the display text of the hits.
+     * A newer search cancels the one still running.
+     */
+    private void runSearch() {
+        String query = txtQuery.getText();
+        if (query.trim().isEmpty()) {
+            resultModel.setRowCount(0);
+            txtPreview.setText("");
+            lblInfo.setText(" ");
+            return;
+        }
+
+        String status = String.valueOf(cmbStatus.getSelectedItem());
+        ReferenceData.Item statusItem = (ReferenceData.Item) cmbStatusId.getSelectedItem();
+        ReferenceData.Item priority = (ReferenceData.Item) cmbPriority.getSelectedItem();
+
+        ComplaintSearch.Criteria criteria = new ComplaintSearch.Criteria()
+                .active("Active".equals(status) ? Boolean.TRUE : "Close".equals(status) ? Boolean.FALSE : null)
+                .status(statusItem != null && statusItem.id() > 0 ? statusItem.id() : null)
+                .priority(priority != null && priority.id() > 0 ? priority.id() : null)
+                .staff(chkMine.isSelected() ? staff.getStaffId() : null);
+
+        tasks.submitLatest("search", conn -> {
+            long start = System.nanoTime();
+            List<ComplaintSearch.Result> hits = ComplaintSearch.search(query, criteria, MAX_RESULTS);
+            long searchMicros = (System.nanoTime() - start) / 1000;
+            return new Object[]{hits, loadTexts(conn, hits), searchMicros};
+        }, result -> {
+            @SuppressWarnings("unchecked")
+            List<ComplaintSearch.Result> hits = (List<ComplaintSearch.Result>) result[0];
+            @SuppressWarnings("unchecked")
+            Map<Long, String> texts = (Map<Long, String>) result[1];
+            long searchMicros = (Long) result[2];
+
+            resultModel.setRowCount(0);
+            for (ComplaintSearch.Result hit : hits) {
+                boolean complaint = hit.kind() == ComplaintSearch.COMPLAINT;
+                String text = texts.get(textKey(hit));
+                resultModel.addRow(new Object[]{
+                        complaint ? "Complaint" : "Call",
+                        hit.id(),
+                        text != null ? firstLine(text) : "(deleted)",
+                        String.format("%.2f", hit.score())
+                });
+            }
+            txtPreview.setText("");
+            showInfo(hits.size(), searchMicros);
+        }, e -> {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                    "Error while searching:\n" + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    private void showInfo(int hits, long searchMicros) {
+        if (!ComplaintSearch.isReady()) {
+            lblInfo.setText("Search index is being built, results may be incomplete...");
+            return;
+        }
+        long syncedAt = ComplaintSearch.syncedAt();
+        lblInfo.setText(hits + (hits == MAX_RESULTS ? "+" : "") + " result(s) in "
+                + String.format("%.1f", searchMicros / 1000.0) + " ms  |  "
+                + ComplaintSearch.documentCount() + " documents indexed"
+                + (syncedAt > 0 ? ", updated " + new SimpleDateFormat("HH:mm:ss").format(new Date(syncedAt)) : ""));
+    }
+
+    private void showSelected() {
+        int row = tblResults.getSelectedRow();
+        if (row < 0) return;
+        boolean complaint = "Complaint".equals(resultModel.getValueAt(row, 0));
+        int id = (Integer) resultModel.getValueAt(row, 1);
+
+        tasks.submitLatest("preview", conn -> {
+            ComplaintSearch.Result hit = new ComplaintSearch.Result(
+                    complaint ? ComplaintSearch.COMPLAINT : ComplaintSearch.CALL, id, 0);
+            return loadTexts(conn, List.of(hit)).get(textKey(hit));
+        }, text -> {
+            txtPreview.setText(text != null ? text : "");
+            txtPreview.setCaretPosition(0);
+        }, e -> JOptionPane.showMessageDialog(this,
+                "Error while loading text:\n" + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE));
+    }
+
+    private static long textKey(ComplaintSearch.Result hit) {
+        return hit.kind() == ComplaintSearch.COMPLAINT
+                ? ComplaintSearch.complaintKey(hit.id())
+                : ComplaintSearch.callKey(hit.id());
+    }
+
+    private static String firstLine(String text) {
+        int nl = text.indexOf('\n');
+        String line = nl >= 0 ? text.substring(0, nl) : text;
+        return line.length() > 120 ? line.substring(0, 117) + "..." : line;
+    }
+
+    // ---- Background (DB worker) ----
+
+    /** Title + description / notes of the hits, two IN queries at most. */
+    private static Map<Long, String> loadTexts(Connection conn, List<ComplaintSearch.Result> hits) throws SQLException {
+        List<Integer> complaintIds = new ArrayList<>();
+        List<Integer> callIds = new ArrayList<>();
+        for (ComplaintSearch.Result hit : hits) {
+            (hit.kind() == ComplaintSearch.COMPLAINT ? complaintIds : callIds).add(hit.id());
+        }
+
+        Map<Long, String> texts = new HashMap<>();
+        if (!complaintIds.isEmpty()) {
+            String sql = "SELECT ComplaintID, Title, Description FROM ComplaintTexts WHERE ComplaintID IN ("
+                    + placeholders(complaintIds.size()) + ")";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < complaintIds.size(); i++) ps.setInt(i + 1, complaintIds.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String title = rs.getString("Title");
+                        String description = rs.getString("Description");
+                        texts.put(ComplaintSearch.complaintKey(rs.getInt("ComplaintID")),
+                                (title != null ? title : "(no title)") + "\n\n" + (description != null ? description : ""));
+                    }
+                }
+            }
+        }
+        if (!callIds.isEmpty()) {
+            String sql = "SELECT CallID, Notes FROM CallDetails WHERE CallID IN ("
+                    + placeholders(callIds.size()) + ")";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < callIds.size(); i++) ps.setInt(i + 1, callIds.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        texts.put(ComplaintSearch.callKey(rs.getInt("CallID")), rs.getString("Notes"));
+                    }
+                }
+            }
+        }
+        return texts;
+    }
+
+    private static String placeholders(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) sb.append(i == 0 ? "?" : ", ?");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,287 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * ComplaintWorkQueue
+ *
+ * Shared queue of complaints waiting for an agent. claimNext() assigns the
+ * most urgent waiting complaint to the calling agent in one step:
+ *  - unassigned complaints (AssignedStaffID IS NULL), and
+ *  - overflow: complaints still in the "Open" status of a staff member who
+ *    holds more than -Drtf.queue.overflowLoad open complaints (default 25).
+ *    Only agents below that load take overflow, so a complaint does not
+ *    bounce back and forth.
+ * Highest priority rank first, then oldest first.
+ *
+ * Agents claiming at the same time never wait for each other and never get
+ * the same complaint: the candidate row is locked with skip-locked
+ * semantics, so a row another agent is claiming right now is passed over
+ * instead of waited for.
+ *  - SQL Server: one UPDATE through a TOP (1) CTE read WITH (UPDLOCK,
+ *    READPAST, ROWLOCK).
+ *  - Other databases (a local test database via -Drtf.db.url, e.g. H2 or
+ *    PostgreSQL): SELECT ... FOR UPDATE SKIP LOCKED, then an UPDATE that
+ *    only succeeds if the row is still waiting with the assignee it was
+ *    read with. Both in one transaction.
+ *
+ * A claim is recorded as an "Assign" ComplaintActions row in the same
+ * transaction, so ChangeFeed tells the other workstations, and published
+ * as a ComplaintAssigned event after the commit.
+ *
+ * The loads that decide overflow are read outside the claim (no locks) and
+ * kept for -Drtf.queue.loadRefreshMs (default 5000), so an overloaded
+ * colleague may end up a few complaints below the limit. QueueBenchmark
+ * checks exactly-once claiming under load.
+ *
+ * Tables used:
+ *  - Complaints
+ *  - ComplaintActions ("Assign" rows)
+ *  - ComplaintPriority (rank)
+ *  - ComplaintStatus ("Open", via ReferenceData)
+ */
+public final class ComplaintWorkQueue {
+
+    /** A complaint taken from the queue. */
+    public static final class Claim {
+        private final int complaintId;
+        private final Integer previousStaffId;
+
+        Claim(int complaintId, Integer previousStaffId) {
+            this.complaintId = complaintId;
+            this.previousStaffId = previousStaffId;
+        }
+
+        public int complaintId() {
+            return complaintId;
+        }
+
+        /** The overloaded assignee it was taken from, or null if it was unassigned. */
+        public Integer previousStaffId() {
+            return previousStaffId;
+        }
+    }
+
+    private static final int OVERFLOW_LOAD = Integer.getInteger("rtf.queue.overflowLoad", 25);
+    private static final long LOAD_REFRESH_MS = Long.getLong("rtf.queue.loadRefreshMs", 5000);
+
+    private static final String ORDER = """
+        ORDER BY (SELECT p.Rank FROM ComplaintPriority p
+                  WHERE p.ComplaintPriorityID = Complaints.ComplaintPriorityID) DESC,
+                 CreatedAt, ComplaintID
+        """;
+
+    // Staff at or above the overflow load (the rest can take overflow)
+    private static final String LOADED_STAFF_SQL = """
+        SELECT AssignedStaffID, COUNT(*) AS OpenCount
+        FROM Complaints
+        WHERE IsActive = 1
+          AND AssignedStaffID IS NOT NULL
+        GROUP BY AssignedStaffID
+        HAVING COUNT(*) >= ?
+        """;
+
+    // Status unchanged; CURRENT_TIMESTAMP so the skip-locked databases accept it too
+    private static final String INSERT_ACTION_SQL = """
+        INSERT INTO ComplaintActions
+            (ComplaintID, OldStatusID, NewStatusID, PerformedByID, ActionType, ActionDate)
+        SELECT ComplaintID, ComplaintStatusID, ComplaintStatusID, ?, ?, CURRENT_TIMESTAMP
+        FROM Complaints
+        WHERE ComplaintID = ?
+        """;
+
+    /** Staff at or above OVERFLOW_LOAD and those above it, read at `loadedAt`. */
+    private static final class Loads {
+        final Set<Integer> atLimit;
+        final Set<Integer> overloaded;
+        final long loadedAt;
+
+        Loads(Set<Integer> atLimit, Set<Integer> overloaded, long loadedAt) {
+            this.atLimit = atLimit;
+            this.overloaded = overloaded;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static volatile Loads loads;
+    private static volatile Boolean sqlServer;
+
+    private ComplaintWorkQueue() {
+    }
+
+    /**
+     * Assigns the next waiting complaint to the staff member (DB worker
+     * threads only; commits on the given connection).
+     *
+     * @return the claimed complaint, or null if nothing is waiting
+     */
+    public static Claim claimNext(Connection conn, int staffId) throws SQLException {
+        Claim claim = claimNext(conn, staffId, ReferenceData.openStatusId(), overflowFor(conn, staffId));
+        if (claim != null) {
+            // Committed: move the complaint between the agents' counters and search filters
+            if (claim.previousStaffId() != null) DailyCounters.complaintClosed(claim.previousStaffId());
+            DailyCounters.complaintOpened(staffId);
+            ComplaintSearch.complaintAssigned(claim.complaintId(), staffId);
+            CriticalComplaints.assigned(claim.complaintId(), staffId);
+            ComplaintEvents.publish(new ComplaintEvents.ComplaintAssigned(
+                    claim.complaintId(), claim.previousStaffId(), staffId));
+        }
+        return claim;
+    }
+
+    /** Complaints the staff member could claim right now. */
+    public static int waitingCount(Connection conn, int staffId) throws SQLException {
+        Set<Integer> overflowFrom = overflowFor(conn, staffId);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT COUNT(*) FROM Complaints WHERE " + waiting(overflowFrom.size()))) {
+            setWaiting(ps, 1, ReferenceData.openStatusId(), overflowFrom);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * The claim and its action row, without the in-memory bookkeeping
+     * (QueueBenchmark).
+     *
+     * @param overflowFrom staff whose "Open" complaints may be taken as well
+     */
+    static Claim claimNext(Connection conn, int staffId, int openStatusId, Set<Integer> overflowFrom)
+            throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            Claim claim = isSqlServer(conn)
+                    ? claimSqlServer(conn, staffId, openStatusId, overflowFrom)
+                    : claimSkipLocked(conn, staffId, openStatusId, overflowFrom);
+            if (claim != null) {
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_ACTION_SQL)) {
+                    ps.setInt(1, staffId);
+                    ps.setString(2, ChangeFeed.ASSIGN_ACTION);
+                    ps.setInt(3, claim.complaintId());
+                    ps.executeUpdate();
+                }
+            }
+            conn.commit();
+            return claim;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static Claim claimSqlServer(Connection conn, int staffId, int openStatusId, Set<Integer> overflowFrom)
+            throws SQLException {
+        String sql = "WITH next AS (\n"
+                + "    SELECT TOP (1) ComplaintID, AssignedStaffID\n"
+                + "    FROM Complaints WITH (UPDLOCK, READPAST, ROWLOCK)\n"
+                + "    WHERE " + waiting(overflowFrom.size()) + ORDER
+                + ")\n"
+                + "UPDATE next\n"
+                + "SET AssignedStaffID = ?\n"
+                + "OUTPUT inserted.ComplaintID, deleted.AssignedStaffID";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = setWaiting(ps, 1, openStatusId, overflowFrom);
+            ps.setInt(i, staffId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? readClaim(rs) : null;
+            }
+        }
+    }
+
+    private static Claim claimSkipLocked(Connection conn, int staffId, int openStatusId, Set<Integer> overflowFrom)
+            throws SQLException {
+        String where = waiting(overflowFrom.size());
+        while (true) {
+            Claim candidate;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT ComplaintID, AssignedStaffID FROM Complaints WHERE " + where + ORDER
+                            + "FETCH FIRST 1 ROWS ONLY\nFOR UPDATE SKIP LOCKED")) {
+                setWaiting(ps, 1, openStatusId, overflowFrom);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return null;
+                    candidate = readClaim(rs);
+                }
+            }
+
+            // Some databases hand out a row another agent claimed after this statement
+            // started: only take it if it still has the assignee it was read with
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE Complaints SET AssignedStaffID = ? WHERE ComplaintID = ? "
+                            + "AND COALESCE(AssignedStaffID, 0) = ? AND " + where)) {
+                ps.setInt(1, staffId);
+                ps.setInt(2, candidate.complaintId());
+                ps.setInt(3, candidate.previousStaffId() != null ? candidate.previousStaffId() : 0);
+                setWaiting(ps, 4, openStatusId, overflowFrom);
+                if (ps.executeUpdate() == 1) return candidate;
+            }
+            // Lost the race for this row: try the next one
+        }
+    }
+
+    private static Claim readClaim(ResultSet rs) throws SQLException {
+        int previous = rs.getInt(2);
+        return new Claim(rs.getInt(1), rs.wasNull() ? null : previous);
+    }
+
+    /** Waiting: active and unassigned, or still "Open" with one of `overflowStaff` assignees. */
+    private static String waiting(int overflowStaff) {
+        if (overflowStaff == 0) return "IsActive = 1 AND AssignedStaffID IS NULL\n";
+        return "IsActive = 1\n"
+                + "  AND (AssignedStaffID IS NULL\n"
+                + "       OR (ComplaintStatusID = ? AND AssignedStaffID IN ("
+                + String.join(", ", Collections.nCopies(overflowStaff, "?")) + ")))\n";
+    }
+
+    /** Binds the waiting() parameters from `index` on; returns the next free index. */
+    private static int setWaiting(PreparedStatement ps, int index, int openStatusId, Set<Integer> overflowFrom)
+            throws SQLException {
+        if (overflowFrom.isEmpty()) return index;
+        ps.setInt(index++, openStatusId);
+        for (int id : overflowFrom) ps.setInt(index++, id);
+        return index;
+    }
+
+    /** Overloaded colleagues the staff member may take from; none if they are at the limit themselves. */
+    private static Set<Integer> overflowFor(Connection conn, int staffId) throws SQLException {
+        Loads l = loads;
+        if (l == null || System.currentTimeMillis() - l.loadedAt > LOAD_REFRESH_MS) {
+            l = readLoads(conn);
+            loads = l;
+        }
+        if (l.atLimit.contains(staffId)) return Collections.emptySet();
+        return l.overloaded;
+    }
+
+    private static Loads readLoads(Connection conn) throws SQLException {
+        Set<Integer> atLimit = new HashSet<>();
+        Set<Integer> overloaded = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(LOADED_STAFF_SQL)) {
+            ps.setInt(1, OVERFLOW_LOAD);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("AssignedStaffID");
+                    atLimit.add(id);
+                    if (rs.getInt("OpenCount") > OVERFLOW_LOAD) overloaded.add(id);
+                }
+            }
+        }
+        return new Loads(atLimit, overloaded, System.currentTimeMillis());
+    }
+
+    private static boolean isSqlServer(Connection conn) throws SQLException {
+        Boolean b = sqlServer;
+        if (b == null) {
+            b = conn.getMetaData().getDatabaseProductName().startsWith("Microsoft SQL Server");
+            sqlServer = b;
+        }
+        return b;
+    }
+}
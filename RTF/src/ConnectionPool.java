@@ -0,0 +1,407 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ConnectionPool
+ *
+ * Small bounded JDBC connection pool used behind DbConfig.getConnection().
+ * Callers keep using try-with-resources; close() on the returned connection
+ * gives the physical connection back to the pool instead of closing it.
+ *
+ * Features:
+ *  - min idle / max size
+ *  - acquisition timeout (SQLException when the pool is exhausted)
+ *  - validation on borrow (Connection.isValid) for connections idle a while
+ *  - idle eviction down to min idle
+ *  - leak detection: connections held too long are reported with the
+ *    stack trace of the code that borrowed them
+ *  - runtime statistics (see getStats())
+ */
+public class ConnectionPool {
+
+    // Connections used within this window are handed out without a validation round trip
+    private static final long VALIDATION_SKIP_MS = 500;
+    private static final int VALIDATION_TIMEOUT_SEC = 2;
+    private static final long HOUSEKEEPING_PERIOD_MS = 15_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int minIdle;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long leakThresholdMs;
+
+    private final Semaphore permits;
+    private final Deque<PooledEntry> idle = new ArrayDeque<>(); // guarded by "this"
+    private final Map<Connection, Lease> leased = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile boolean shutdown = false;
+
+    // Statistics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong waitNanosTotal = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password,
+                          int minIdle, int maxSize,
+                          long acquireTimeoutMs, long idleTimeoutMs, long leakThresholdMs) {
+        if (maxSize < 1 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minIdle + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        // First run fills min idle in the background, so class loading never blocks on the DB
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, HOUSEKEEPING_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection. Waits up to acquireTimeoutMs when all
+     * maxSize connections are in use.
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool is shut down.");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + acquireTimeoutMs
+                        + " ms waiting for a database connection (active=" + leased.size()
+                        + ", max=" + maxSize + ").");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+
+        try {
+            PooledEntry entry = takeValidIdle();
+            if (entry == null) {
+                entry = new PooledEntry(openPhysical());
+            }
+
+            long waited = System.nanoTime() - start;
+            borrowCount.incrementAndGet();
+            waitNanosTotal.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+            Lease lease = new Lease(entry, leakThresholdMs > 0 ? new Throwable("Connection borrowed here") : null);
+            Connection proxy = (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    lease);
+            leased.put(proxy, lease);
+            return proxy;
+
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledEntry takeValidIdle() {
+        while (true) {
+            PooledEntry entry;
+            synchronized (this) {
+                entry = idle.pollFirst(); // LIFO: most recently used connection first
+            }
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.lastUsedAt < VALIDATION_SKIP_MS) {
+                return entry;
+            }
+            try {
+                if (entry.raw.isValid(VALIDATION_TIMEOUT_SEC)) {
+                    return entry;
+                }
+            } catch (SQLException ignore) {
+                // treated as invalid below
+            }
+            validationFailures.incrementAndGet();
+            destroy(entry);
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Connection c = DriverManager.getConnection(url, user, password);
+        createdCount.incrementAndGet();
+        return c;
+    }
+
+    private void release(Connection proxy, Lease lease) {
+        leased.remove(proxy);
+        PooledEntry entry = lease.entry;
+        try {
+            if (shutdown || entry.raw.isClosed()) {
+                destroy(entry);
+                return;
+            }
+            // Some screens return early without commit/rollback; never hand a
+            // half-finished transaction to the next borrower.
+            if (!entry.raw.getAutoCommit()) {
+                entry.raw.rollback();
+                entry.raw.setAutoCommit(true);
+            }
+            entry.lastUsedAt = System.currentTimeMillis();
+            synchronized (this) {
+                idle.offerFirst(entry);
+            }
+        } catch (SQLException e) {
+            destroy(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledEntry entry) {
+        destroyedCount.incrementAndGet();
+        try {
+            entry.raw.close();
+        } catch (SQLException ignore) {
+        }
+    }
+
+    /**
+     * Runs periodically: evicts idle connections above minIdle,
+     * reports leaked connections and tops the pool up to minIdle.
+     */
+    private void housekeep() {
+        if (shutdown) return;
+        try {
+            long now = System.currentTimeMillis();
+
+            // 1) Idle eviction
+            synchronized (this) {
+                Iterator<PooledEntry> it = idle.descendingIterator(); // oldest first
+                while (it.hasNext() && idle.size() > minIdle) {
+                    PooledEntry e = it.next();
+                    if (now - e.lastUsedAt > idleTimeoutMs) {
+                        it.remove();
+                        destroy(e);
+                    }
+                }
+            }
+
+            // 2) Leak detection
+            if (leakThresholdMs > 0) {
+                for (Lease lease : leased.values()) {
+                    long heldMs = now - lease.borrowedAt;
+                    if (heldMs > leakThresholdMs && !lease.reported) {
+                        lease.reported = true;
+                        leakCount.incrementAndGet();
+                        System.err.println("Possible connection leak: connection held for "
+                                + heldMs + " ms (threshold " + leakThresholdMs + " ms)");
+                        if (lease.borrowTrace != null) {
+                            lease.borrowTrace.printStackTrace();
+                        }
+                    }
+                }
+            }
+
+            // 3) Fill up to min idle without exceeding max size. A connection is
+            //    opened under a permit, like a borrow, so borrowers opening their
+            //    own at the same time are counted too.
+            while (!permits.hasQueuedThreads() && permits.tryAcquire()) {
+                try {
+                    synchronized (this) {
+                        int inUse = maxSize - permits.availablePermits(); // includes this one
+                        if (idle.size() >= minIdle || idle.size() + inUse > maxSize) {
+                            break;
+                        }
+                    }
+                    PooledEntry fresh = new PooledEntry(openPhysical());
+                    synchronized (this) {
+                        idle.offerLast(fresh);
+                    }
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (SQLException e) {
+            // DB not reachable right now; borrowers will get the real error
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Closes idle connections and rejects further borrows. */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        synchronized (this) {
+            for (PooledEntry e : idle) {
+                destroy(e);
+            }
+            idle.clear();
+        }
+    }
+
+    public Stats getStats() {
+        int idleNow;
+        synchronized (this) {
+            idleNow = idle.size();
+        }
+        long borrows = borrowCount.get();
+        return new Stats(
+                leased.size(),
+                idleNow,
+                maxSize,
+                permits.getQueueLength(),
+                borrows,
+                borrows == 0 ? 0.0 : waitNanosTotal.get() / (double) borrows / 1_000_000.0,
+                maxWaitNanos.get() / 1_000_000.0,
+                timeoutCount.get(),
+                createdCount.get(),
+                destroyedCount.get(),
+                validationFailures.get(),
+                leakCount.get()
+        );
+    }
+
+    // --------------------------------------------------
+    // Internal types
+    // --------------------------------------------------
+
+    private static class PooledEntry {
+        final Connection raw;
+        volatile long lastUsedAt;
+
+        PooledEntry(Connection raw) {
+            this.raw = raw;
+            this.lastUsedAt = System.currentTimeMillis();
+        }
+    }
+
+    /** One borrow of a pooled connection; also the proxy's invocation handler. */
+    private class Lease implements InvocationHandler {
+        final PooledEntry entry;
+        final long borrowedAt = System.currentTimeMillis();
+        final Throwable borrowTrace;
+        volatile boolean reported = false;
+        private boolean closed = false;
+
+        Lease(PooledEntry entry, Throwable borrowTrace) {
+            this.entry = entry;
+            this.borrowTrace = borrowTrace;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            switch (name) {
+                case "close":
+                    synchronized (this) {
+                        if (closed) return null;
+                        closed = true;
+                    }
+                    release((Connection) proxy, this);
+                    return null;
+                case "isClosed":
+                    synchronized (this) {
+                        if (closed) return true;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.raw + "]";
+                default:
+                    synchronized (this) {
+                        if (closed) throw new SQLException("Connection is closed.");
+                    }
+            }
+
+            try {
+                return method.invoke(entry.raw, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /** Point-in-time pool statistics. Times are in milliseconds. */
+    public static class Stats {
+        public final int active;
+        public final int idle;
+        public final int maxSize;
+        public final int waitingThreads;
+        public final long borrowCount;
+        public final double avgWaitMs;
+        public final double maxWaitMs;
+        public final long timeouts;
+        public final long created;
+        public final long destroyed;
+        public final long validationFailures;
+        public final long leaksDetected;
+
+        Stats(int active, int idle, int maxSize, int waitingThreads, long borrowCount,
+              double avgWaitMs, double maxWaitMs, long timeouts, long created,
+              long destroyed, long validationFailures, long leaksDetected) {
+            this.active = active;
+            this.idle = idle;
+            this.maxSize = maxSize;
+            this.waitingThreads = waitingThreads;
+            this.borrowCount = borrowCount;
+            this.avgWaitMs = avgWaitMs;
+            this.maxWaitMs = maxWaitMs;
+            this.timeouts = timeouts;
+            this.created = created;
+            this.destroyed = destroyed;
+            this.validationFailures = validationFailures;
+            this.leaksDetected = leaksDetected;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "active=%d idle=%d max=%d waiting=%d borrows=%d avgWait=%.3fms maxWait=%.3fms "
+                            + "timeouts=%d created=%d destroyed=%d validationFailures=%d leaks=%d",
+                    active, idle, maxSize, waitingThreads, borrowCount, avgWaitMs, maxWaitMs,
+                    timeouts, created, destroyed, validationFailures, leaksDetected);
+        }
+    }
+}
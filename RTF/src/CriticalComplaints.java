@@ -0,0 +1,398 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * CriticalComplaints
+ *
+ * In-process "top critical complaints" for the staff dashboards: every open
+ * complaint whose priority rank is at least -Drtf.critical.minRank (default
+ * 3) sits in an indexed max-heap ordered by rank, then newest first. All
+ * dashboards of the process read the top -Drtf.critical.limit (default 5)
+ * from memory instead of each running the sort query.
+ *
+ *  - Loaded from the database on first use, and again after
+ *    -Drtf.critical.reloadMin minutes (default 10).
+ *  - Escalation, close and claim paths update it after their transaction
+ *    commits (priorityChanged(), closed(), assigned()): O(log n) each.
+ *    Closes and escalations on other workstations arrive as remote
+ *    ComplaintEvents (ChangeFeed).
+ *  - With -Drtf.critical.scope=department every department has its own heap
+ *    (by the assignee's department) and a dashboard shows its staff
+ *    member's department; the default "all" shows the whole call center.
+ *
+ * Reading the top K walks the heap best-first and never touches more than
+ * 2K+1 nodes, however many complaints are critical.
+ *
+ * Tables used:
+ *  - Complaints, ComplaintPriority, ComplaintTexts
+ *  - Staff (DepartmentID)
+ */
+public final class CriticalComplaints {
+
+    /** One critical complaint as the dashboard shows it. */
+    public static final class Entry {
+        private final int complaintId;
+        private final String priorityName;
+        private final int rank;
+        private final String title;
+        private final int departmentId;   // 0 = unassigned or no department
+
+        Entry(int complaintId, String priorityName, int rank, String title, int departmentId) {
+            this.complaintId = complaintId;
+            this.priorityName = priorityName;
+            this.rank = rank;
+            this.title = title;
+            this.departmentId = departmentId;
+        }
+
+        public int complaintId() {
+            return complaintId;
+        }
+
+        public String priorityName() {
+            return priorityName;
+        }
+
+        public int rank() {
+            return rank;
+        }
+
+        /** May be null. */
+        public String title() {
+            return title;
+        }
+    }
+
+    public static final int LIMIT = Integer.getInteger("rtf.critical.limit", 5);
+    private static final int MIN_RANK = Integer.getInteger("rtf.critical.minRank", 3);
+    private static final boolean BY_DEPARTMENT = "department".equalsIgnoreCase(
+            System.getProperty("rtf.critical.scope", "all"));
+    private static final long MAX_AGE_MS = Long.getLong("rtf.critical.reloadMin", 10) * 60_000L;
+
+    private static final String CRITICAL_SQL = """
+        SELECT c.ComplaintID, cp.Name AS PriorityName, cp.Rank, ct.Title, s.DepartmentID
+        FROM Complaints c
+        JOIN ComplaintPriority cp ON c.ComplaintPriorityID = cp.ComplaintPriorityID
+        LEFT JOIN ComplaintTexts ct ON c.ComplaintID = ct.ComplaintID
+        LEFT JOIN Staff s ON c.AssignedStaffID = s.StaffID
+        WHERE c.IsActive = 1
+          AND cp.Rank >= ?
+        """;
+
+    private static final String ONE_CRITICAL_SQL = CRITICAL_SQL + "  AND c.ComplaintID = ?\n";
+
+    private static final String STAFF_DEPARTMENTS_SQL = """
+        SELECT StaffID, DepartmentID
+        FROM Staff
+        WHERE DepartmentID IS NOT NULL
+        """;
+
+    /**
+     * Indexed binary max-heap of complaint IDs. A node's key is
+     * rank << 32 | ComplaintID, so larger means higher rank, then newer.
+     */
+    static final class TopHeap {
+        private long[] keys = new long[16];
+        private int size;
+        private final LongIntHashMap position = new LongIntHashMap(16); // ComplaintID -> index
+
+        int size() {
+            return size;
+        }
+
+        /** Adds the complaint or moves it to its new rank. */
+        void put(int complaintId, int rank) {
+            long key = ((long) rank << 32) | (complaintId & 0xFFFFFFFFL);
+            int at = position.get(complaintId, -1);
+            if (at < 0) {
+                if (size == keys.length) keys = Arrays.copyOf(keys, size * 2);
+                at = size++;
+            } else if (keys[at] == key) {
+                return;
+            }
+            keys[at] = key;
+            position.put(complaintId, at, -1);
+            siftDown(siftUp(at));
+        }
+
+        void remove(int complaintId) {
+            int at = position.remove(complaintId, -1);
+            if (at < 0) return;
+            size--;
+            if (at == size) return;
+            keys[at] = keys[size];
+            position.put((int) keys[at], at, -1);
+            siftDown(siftUp(at));
+        }
+
+        /** The k largest, largest first. */
+        int[] top(int k) {
+            int n = Math.min(k, size);
+            int[] result = new int[n];
+            if (n == 0) return result;
+            // The next largest is always a child of one already taken
+            int[] frontier = new int[n + 1];
+            int f = 0;
+            frontier[f++] = 0;
+            for (int r = 0; r < n; r++) {
+                int best = 0;
+                for (int i = 1; i < f; i++) {
+                    if (keys[frontier[i]] > keys[frontier[best]]) best = i;
+                }
+                int at = frontier[best];
+                frontier[best] = frontier[--f];
+                result[r] = (int) keys[at];
+                int child = 2 * at + 1;
+                if (child < size) frontier[f++] = child;
+                if (child + 1 < size) frontier[f++] = child + 1;
+            }
+            return result;
+        }
+
+        private int siftUp(int at) {
+            long key = keys[at];
+            while (at > 0) {
+                int parent = (at - 1) >>> 1;
+                if (keys[parent] >= key) break;
+                move(parent, at);
+                at = parent;
+            }
+            keys[at] = key;
+            position.put((int) key, at, -1);
+            return at;
+        }
+
+        private void siftDown(int at) {
+            long key = keys[at];
+            while (true) {
+                int child = 2 * at + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] > keys[child]) child++;
+                if (keys[child] <= key) break;
+                move(child, at);
+                at = child;
+            }
+            keys[at] = key;
+            position.put((int) key, at, -1);
+        }
+
+        private void move(int from, int to) {
+            keys[to] = keys[from];
+            position.put((int) keys[to], to, -1);
+        }
+    }
+
+    /** Everything loaded at one point in time, plus the events since. */
+    static final class State {
+        private final Map<Integer, ReferenceData.Item> priorities = new HashMap<>();
+        private final Map<Integer, Integer> departmentOf = new HashMap<>(); // StaffID -> DepartmentID
+        private final Map<Integer, Entry> entries = new HashMap<>();
+        private final TopHeap all = new TopHeap();
+        private final Map<Integer, TopHeap> byDepartment = new HashMap<>();
+        private final long loadedAt = System.currentTimeMillis();
+
+        int size() {
+            return entries.size();
+        }
+
+        void put(Entry e) {
+            remove(e.complaintId);
+            entries.put(e.complaintId, e);
+            all.put(e.complaintId, e.rank);
+            if (BY_DEPARTMENT && e.departmentId != 0) {
+                byDepartment.computeIfAbsent(e.departmentId, d -> new TopHeap()).put(e.complaintId, e.rank);
+            }
+        }
+
+        void remove(int complaintId) {
+            Entry old = entries.remove(complaintId);
+            if (old == null) return;
+            all.remove(complaintId);
+            TopHeap department = byDepartment.get(old.departmentId);
+            if (department != null) department.remove(complaintId);
+        }
+
+        /** @return true if the complaint became critical but is not known here (needs its row) */
+        boolean setPriority(int complaintId, int priorityId) {
+            ReferenceData.Item p = priorities.get(priorityId);
+            Entry old = entries.get(complaintId);
+            if (p == null || p.rank() < MIN_RANK) {
+                remove(complaintId);
+                return false;
+            }
+            if (old == null) return true;
+            put(new Entry(complaintId, p.name(), p.rank(), old.title, old.departmentId));
+            return false;
+        }
+
+        void setStaff(int complaintId, int staffId) {
+            Entry old = entries.get(complaintId);
+            if (old == null) return;
+            int department = departmentOf.getOrDefault(staffId, 0);
+            if (department != old.departmentId) {
+                put(new Entry(complaintId, old.priorityName, old.rank, old.title, department));
+            }
+        }
+
+        List<Entry> top(int staffId, int k) {
+            TopHeap heap = all;
+            if (BY_DEPARTMENT) {
+                Integer department = departmentOf.get(staffId);
+                if (department != null) heap = byDepartment.getOrDefault(department, new TopHeap());
+            }
+            List<Entry> result = new ArrayList<>(k);
+            for (int id : heap.top(k)) result.add(entries.get(id));
+            return result;
+        }
+    }
+
+    private static final Object LOCK = new Object();
+    private static State state;                          // null until the first load
+    private static CompletableFuture<State> loading;     // single flight
+    private static List<Consumer<State>> replay;         // events while loading
+
+    static {
+        // Other workstations (ChangeFeed); this one calls the update methods directly
+        ComplaintEvents.subscribe(events -> {
+            for (ComplaintEvents.Event e : events) {
+                if (!e.isRemote()) continue;
+                if (e instanceof ComplaintEvents.ComplaintClosed) {
+                    closed(((ComplaintEvents.ComplaintClosed) e).complaintId());
+                } else if (e instanceof ComplaintEvents.ComplaintAssigned) {
+                    ComplaintEvents.ComplaintAssigned assigned = (ComplaintEvents.ComplaintAssigned) e;
+                    assigned(assigned.complaintId(), assigned.staffId());
+                } else {
+                    ComplaintEvents.PriorityChanged changed = (ComplaintEvents.PriorityChanged) e;
+                    priorityChanged(changed.complaintId(), changed.priorityId());
+                }
+            }
+        }, ComplaintEvents.ComplaintClosed.class, ComplaintEvents.PriorityChanged.class,
+                ComplaintEvents.ComplaintAssigned.class);
+    }
+
+    private CriticalComplaints() {
+    }
+
+    // ---- Reads ----
+
+    /** Top critical complaints for the staff member's dashboard; from memory once loaded. */
+    public static CompletableFuture<List<Entry>> top(int staffId) {
+        CompletableFuture<State> loaded;
+        synchronized (LOCK) {
+            if (state != null && System.currentTimeMillis() - state.loadedAt < MAX_AGE_MS) {
+                return CompletableFuture.completedFuture(state.top(staffId, LIMIT));
+            }
+            loaded = reload();
+        }
+        return loaded.thenApply(s -> {
+            synchronized (LOCK) {
+                return s.top(staffId, LIMIT);
+            }
+        });
+    }
+
+    // ---- Updates (call after the transaction has committed) ----
+
+    public static void priorityChanged(int complaintId, int priorityId) {
+        apply(s -> {
+            if (s.setPriority(complaintId, priorityId)) fetch(complaintId);
+        });
+    }
+
+    public static void closed(int complaintId) {
+        apply(s -> s.remove(complaintId));
+    }
+
+    /** A complaint was (re)assigned, e.g. claimed from the queue. */
+    public static void assigned(int complaintId, int staffId) {
+        apply(s -> s.setStaff(complaintId, staffId));
+    }
+
+    /** Applies an event now (if loaded) and again to a load that is still running. */
+    private static void apply(Consumer<State> event) {
+        synchronized (LOCK) {
+            if (state != null) event.accept(state);
+            if (replay != null) replay.add(event);
+        }
+    }
+
+    /** Reads one complaint that just became critical. */
+    private static void fetch(int complaintId) {
+        DbExecutor.supply(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(ONE_CRITICAL_SQL)) {
+                ps.setInt(1, MIN_RANK);
+                ps.setInt(2, complaintId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? readEntry(rs) : null;
+                }
+            }
+        }).whenComplete((entry, ex) -> {
+            if (ex != null) {
+                ex.printStackTrace(); // the next reload has it
+            } else if (entry != null) {
+                apply(s -> s.put(entry));
+            }
+        });
+    }
+
+    // ---- Loading ----
+
+    private static CompletableFuture<State> reload() {
+        synchronized (LOCK) {
+            if (loading != null) return loading;
+            CompletableFuture<State> result = new CompletableFuture<>();
+            loading = result;
+            replay = new ArrayList<>();
+            DbExecutor.supply(CriticalComplaints::load).whenComplete((fresh, ex) -> {
+                synchronized (LOCK) {
+                    if (ex == null) {
+                        for (Consumer<State> event : replay) event.accept(fresh);
+                        state = fresh;
+                    }
+                    replay = null;
+                    loading = null;
+                }
+                if (ex != null) result.completeExceptionally(ex);
+                else result.complete(fresh);
+            });
+            return result;
+        }
+    }
+
+    /** Reads all critical complaints (DB worker threads; also used by DashboardBenchmark). */
+    static State load(Connection conn) throws SQLException {
+        State s = new State();
+        for (ReferenceData.Item p : ReferenceData.require(ReferenceData.Kind.COMPLAINT_PRIORITIES).items()) {
+            s.priorities.put(p.id(), p);
+        }
+        try (PreparedStatement ps = conn.prepareStatement(STAFF_DEPARTMENTS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                s.departmentOf.put(rs.getInt("StaffID"), rs.getInt("DepartmentID"));
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(CRITICAL_SQL)) {
+            ps.setInt(1, MIN_RANK);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    s.put(readEntry(rs));
+                }
+            }
+        }
+        return s;
+    }
+
+    private static Entry readEntry(ResultSet rs) throws SQLException {
+        return new Entry(rs.getInt("ComplaintID"), rs.getString("PriorityName"), rs.getInt("Rank"),
+                rs.getString("Title"), rs.getInt("DepartmentID")); // 0 if NULL
+    }
+}
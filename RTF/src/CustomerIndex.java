@@ -0,0 +1,473 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * CustomerIndex
+ *
+ * In-memory trigram index over customer names, e-mail, phone digits and
+ * city, used by CustomerSearch. Tolerates typos: "mehmte yilmz" still finds
+ * "Mehmet Yılmaz".
+ *
+ *  - Every customer gets a slot (in insertion order) and its searchable
+ *    text, folded (TextIndex.fold: "Şükrü" -> "sukru", "İZMİR" -> "izmir")
+ *    and stored as bytes in one shared array.
+ *  - Every word contributes its trigrams, with a leading and trailing
+ *    blank, so " me" marks a word starting with "me". Trigrams are numbered
+ *    over a 38-symbol alphabet (blank, a-z, 0-9, other); each has a
+ *    posting list of slots as varint gaps.
+ *  - A query counts, per slot, how many of its trigrams the slot has,
+ *    reading the rarest lists first and skipping very common ones once
+ *    enough are read. The MAX_CANDIDATES best-counted slots are then
+ *    scored word by word: exact word, prefix (the user is still typing),
+ *    contained, or within 1-2 edits (transpositions count as one).
+ *
+ * Only the e-mail's local part is indexed; domains such as gmail.com are
+ * shared by most customers and would only add noise.
+ *
+ * Thread-safe: queries share a read lock, add() takes the write lock.
+ */
+final class CustomerIndex {
+
+    static final int MAX_CANDIDATES = 200;
+
+    // Field order in the stored text, and how much a match in each counts
+    private static final int NAME = 0, EMAIL = 1, PHONE = 2, CITY = 3;
+    private static final float[] FIELD_WEIGHT = {1.0f, 0.8f, 1.0f, 0.6f};
+
+    private static final int ALPHABET = 38;
+    private static final int GRAMS = ALPHABET * ALPHABET * ALPHABET;
+    private static final byte BLANK = ' ';
+    private static final byte FIELD_END = '|';
+    private static final int MAX_WORD = 40;
+    private static final int MIN_GRAMS_READ = 3;
+
+    /** One search result. */
+    static final class Hit {
+        final int customerId;
+        final float score;
+
+        Hit(int customerId, float score) {
+            this.customerId = customerId;
+            this.score = score;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Documents, by slot
+    private int size = 0;
+    private int[] ids = new int[1024];
+    private int[] textStart = new int[1025]; // text of slot s: [textStart[s], textStart[s + 1])
+    private byte[] text = new byte[64 * 1024];
+    private final LongIntHashMap slotOf = new LongIntHashMap(1024);
+
+    // Postings, by trigram
+    private final byte[][] postings = new byte[GRAMS][];
+    private final int[] postingBytes = new int[GRAMS];
+    private final int[] postingCount = new int[GRAMS];
+    private final int[] lastSlot = new int[GRAMS];
+    private long postingCapacity = 0;
+
+    /** Per-query accumulators, reused between queries. */
+    private static final class Scratch {
+        short[] counts = new short[0];
+        int[] touched = new int[1024];
+        int[] row0 = new int[MAX_WORD + 1];
+        int[] row1 = new int[MAX_WORD + 1];
+        int[] row2 = new int[MAX_WORD + 1];
+    }
+
+    // Not ThreadLocal: queries run on virtual threads, which would allocate them every time
+    private final ConcurrentLinkedQueue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    // ---- Updates ----
+
+    /** Indexes a customer; returns false if it is already indexed. */
+    boolean add(int customerId, String firstName, String lastName, String email, String phone, String city) {
+        byte[] doc = document(firstName, lastName, email, phone, city);
+        int[] grams = documentGrams(doc);
+
+        lock.writeLock().lock();
+        try {
+            if (slotOf.containsKey(customerId)) return false;
+
+            int slot = size++;
+            if (slot == ids.length) {
+                ids = Arrays.copyOf(ids, slot * 2);
+                textStart = Arrays.copyOf(textStart, slot * 2 + 1);
+            }
+            int start = textStart[slot];
+            if (start + doc.length > text.length) {
+                text = Arrays.copyOf(text, Math.max(text.length * 2, start + doc.length));
+            }
+            System.arraycopy(doc, 0, text, start, doc.length);
+            textStart[slot + 1] = start + doc.length;
+            ids[slot] = customerId;
+            slotOf.put(customerId, slot, -1);
+
+            for (int gram : grams) append(gram, slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void append(int gram, int slot) {
+        byte[] data = postings[gram];
+        int pos = postingBytes[gram];
+        if (data == null || data.length - pos < 5) {
+            int capacity = data == null ? 8 : data.length + (data.length >> 1) + 8;
+            postingCapacity += capacity - (data == null ? 0 : data.length);
+            data = postings[gram] = data == null ? new byte[capacity] : Arrays.copyOf(data, capacity);
+        }
+        int gap = postingCount[gram] == 0 ? slot + 1 : slot - lastSlot[gram];
+        postingBytes[gram] = putVarint(data, pos, gap);
+        postingCount[gram]++;
+        lastSlot[gram] = slot;
+    }
+
+    // ---- Queries ----
+
+    /**
+     * Best matches for the query, best first. Words of letters are matched
+     * with typo tolerance; the digits of the query are matched as one run
+     * (so "0(532) 41" finds phone numbers containing 53241).
+     */
+    List<Hit> search(String query, int limit) {
+        List<byte[]> words = new ArrayList<>();
+        byte[] digits = queryWords(query, words);
+        if (digits != null && digits.length >= 3) words.add(digits);
+        if (words.isEmpty()) return new ArrayList<>();
+
+        int[] grams = queryGrams(words, digits);
+        if (grams.length == 0) return new ArrayList<>();
+
+        Scratch scratch = scratchPool.poll();
+        if (scratch == null) scratch = new Scratch();
+        lock.readLock().lock();
+        try {
+            return rank(scratch, words, digits, grams, limit);
+        } finally {
+            lock.readLock().unlock();
+            scratchPool.offer(scratch);
+        }
+    }
+
+    private List<Hit> rank(Scratch s, List<byte[]> words, byte[] digits, int[] grams, int limit) {
+        if (s.counts.length < size) s.counts = new short[Math.max(size, s.counts.length * 2)];
+        short[] counts = s.counts;
+
+        // Rarest lists first; very common ones are skipped once a few are read
+        Integer[] order = new Integer[grams.length];
+        for (int i = 0; i < grams.length; i++) order[i] = grams[i];
+        Arrays.sort(order, (a, b) -> Integer.compare(postingCount[a], postingCount[b]));
+        int common = Math.max(1000, size / 8);
+
+        int touched = 0;
+        int read = 0;
+        for (int gram : order) {
+            int n = postingCount[gram];
+            if (n == 0) continue;
+            if (read >= MIN_GRAMS_READ && n > common) break;
+            read++;
+
+            byte[] data = postings[gram];
+            int[] cursor = {0};
+            int slot = -1;
+            for (int i = 0; i < n; i++) {
+                slot += getVarint(data, cursor);
+                if (counts[slot]++ == 0) {
+                    if (touched == s.touched.length) s.touched = Arrays.copyOf(s.touched, touched * 2);
+                    s.touched[touched++] = slot;
+                }
+            }
+        }
+
+        // The MAX_CANDIDATES slots with the most trigrams in common
+        int[] histogram = new int[read + 1];
+        for (int i = 0; i < touched; i++) histogram[counts[s.touched[i]]]++;
+        int threshold = read;
+        int above = histogram[read];
+        while (threshold > 1 && above < MAX_CANDIDATES) above += histogram[--threshold];
+
+        int[] candidates = new int[Math.min(touched, MAX_CANDIDATES)];
+        int found = 0;
+        for (int pass = 0; pass < 2 && found < candidates.length; pass++) {
+            for (int i = 0; i < touched && found < candidates.length; i++) {
+                int slot = s.touched[i];
+                int c = counts[slot];
+                if (pass == 0 ? c > threshold : c == threshold) candidates[found++] = slot;
+            }
+        }
+        for (int i = 0; i < touched; i++) counts[s.touched[i]] = 0;
+
+        // Exact scoring of the candidates
+        List<Hit> hits = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            float score = score(s, candidates[i], words, digits);
+            if (score > 0) hits.add(new Hit(ids[candidates[i]], score));
+        }
+        hits.sort((a, b) -> a.score != b.score ? Float.compare(b.score, a.score)
+                : Integer.compare(a.customerId, b.customerId));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    /** Average over the query words of their best match in the customer's text, 0..1. */
+    private float score(Scratch s, int slot, List<byte[]> words, byte[] digits) {
+        int start = textStart[slot], end = textStart[slot + 1];
+        float total = 0;
+        for (byte[] q : words) {
+            float best = 0;
+            int field = NAME;
+            int w = start;
+            for (int i = start; i < end; i++) { // the text ends with FIELD_END
+                byte b = text[i];
+                if (b != BLANK && b != FIELD_END) continue;
+                if (i > w) {
+                    float sim = q == digits ? (contains(text, w, i, q) ? 1f : 0f) : similarity(s, q, w, i);
+                    best = Math.max(best, sim * FIELD_WEIGHT[field]);
+                }
+                if (b == FIELD_END) field++;
+                w = i + 1;
+            }
+            total += best;
+        }
+        return total / words.size();
+    }
+
+    /** How well the doc word text[from, to) matches the query word q (0 = not at all). */
+    private float similarity(Scratch s, byte[] q, int from, int to) {
+        int len = to - from;
+        if (len >= q.length && startsWith(text, from, q)) return len == q.length ? 1f : 0.9f;
+        if (q.length >= 3 && contains(text, from, to, q)) return 0.7f;
+
+        int allowed = q.length <= 3 ? 0 : q.length <= 6 ? 1 : 2;
+        if (allowed == 0 || len < q.length - allowed) return 0f;
+
+        // Whole word, or its start while the rest is still being typed
+        int d = Integer.MAX_VALUE;
+        if (len <= q.length + allowed) d = distance(s, q, from, len);
+        if (len > q.length) d = Math.min(d, distance(s, q, from, q.length));
+        return d <= allowed ? 0.85f - 0.15f * d : 0f;
+    }
+
+    /** Edit distance with adjacent transpositions (optimal string alignment). */
+    private int distance(Scratch s, byte[] q, int from, int len) {
+        int n = Math.min(q.length, MAX_WORD);
+        int[] prev2 = s.row0, prev = s.row1, cur = s.row2;
+        for (int j = 0; j <= n; j++) prev[j] = j;
+        for (int i = 1; i <= len; i++) {
+            cur[0] = i;
+            byte a = text[from + i - 1];
+            for (int j = 1; j <= n; j++) {
+                int cost = a == q[j - 1] ? 0 : 1;
+                int v = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a == q[j - 2] && text[from + i - 2] == q[j - 1]) {
+                    v = Math.min(v, prev2[j - 2] + 1);
+                }
+                cur[j] = v;
+            }
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[n];
+    }
+
+    // ---- Stats ----
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Approximate heap used by the index, in bytes. */
+    long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) text.length
+                    + 4L * ids.length + 4L * textStart.length
+                    + 12L * slotOf.capacity()
+                    + postingCapacity
+                    + (long) GRAMS * (8 + 4 + 4 + 4); // posting refs, sizes, counts, last slots
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---- Text ----
+
+    /** Folded, blank-separated words of each field, each field ended by FIELD_END. */
+    private static byte[] document(String firstName, String lastName, String email, String phone, String city) {
+        String localPart = email;
+        if (email != null && email.indexOf('@') >= 0) localPart = email.substring(0, email.indexOf('@'));
+        long national = CallerIdIndex.normalize(phone);
+
+        String[] fields = new String[4];
+        fields[NAME] = (firstName == null ? "" : firstName) + " " + (lastName == null ? "" : lastName);
+        fields[EMAIL] = localPart;
+        fields[PHONE] = national > 0 ? String.valueOf(national) : phone;
+        fields[CITY] = city;
+        byte[] out = new byte[64];
+        int pos = 0;
+        for (String field : fields) {
+            out = ensure(out, pos, field);
+            pos = appendFolded(field, out, pos);
+            out[pos++] = FIELD_END;
+        }
+        return Arrays.copyOf(out, pos);
+    }
+
+    private static byte[] ensure(byte[] out, int pos, String field) {
+        int needed = pos + (field == null ? 0 : field.length()) + 2;
+        return needed <= out.length ? out : Arrays.copyOf(out, Math.max(needed, out.length * 2));
+    }
+
+    /** Appends the folded words of s, blank-separated; returns the new position. */
+    private static int appendFolded(String s, byte[] out, int pos) {
+        if (s == null) return pos;
+        int wordLength = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = TextIndex.fold(s.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                if (wordLength == MAX_WORD) continue;
+                if (wordLength == 0 && pos > 0 && out[pos - 1] != FIELD_END) out[pos++] = BLANK;
+                out[pos++] = c < 128 ? (byte) c : (byte) '?';
+                wordLength++;
+            } else {
+                wordLength = 0;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Splits the folded query into words of two or more characters (added
+     * to `words`) and returns its digits as one run, without leading zeros
+     * (trunk prefix), or null if it has none.
+     */
+    private static byte[] queryWords(String query, List<byte[]> words) {
+        byte[] folded = new byte[query.length() + 1];
+        int n = appendFolded(query, folded, 0);
+
+        StringBuilder digits = new StringBuilder();
+        int w = 0;
+        for (int i = 0; i <= n; i++) {
+            if (i < n && folded[i] != BLANK) continue;
+            boolean allDigits = i > w;
+            for (int j = w; j < i; j++) allDigits &= folded[j] >= '0' && folded[j] <= '9';
+            if (allDigits) {
+                for (int j = w; j < i; j++) {
+                    if (digits.length() > 0 || folded[j] != '0') digits.append((char) folded[j]);
+                }
+            } else if (i - w >= 2) {
+                words.add(Arrays.copyOfRange(folded, w, i));
+            }
+            w = i + 1;
+        }
+        return digits.length() == 0 ? null : digits.toString().getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+    }
+
+    /** Trigrams of the query: words with a leading blank (not trailing: still typing), digits bare. */
+    private static int[] queryGrams(List<byte[]> words, byte[] digits) {
+        int[] grams = new int[64];
+        int n = 0;
+        for (byte[] word : words) {
+            boolean padded = word != digits;
+            int len = word.length + (padded ? 1 : 0);
+            for (int i = 0; i + 2 < len; i++) {
+                if (n == grams.length) grams = Arrays.copyOf(grams, n * 2);
+                grams[n++] = padded
+                        ? gram(i == 0 ? BLANK : word[i - 1], word[i], word[i + 1])
+                        : gram(word[i], word[i + 1], word[i + 2]);
+            }
+        }
+        return distinct(grams, n);
+    }
+
+    /** Distinct trigrams of every word in the document, with blanks on both sides. */
+    private static int[] documentGrams(byte[] doc) {
+        int[] grams = new int[doc.length + 16];
+        int n = 0;
+        int w = 0;
+        for (int i = 0; i <= doc.length; i++) {
+            byte b = i < doc.length ? doc[i] : FIELD_END;
+            if (b != BLANK && b != FIELD_END) continue;
+            // Word doc[w, i) padded with a blank on both sides
+            for (int p = w - 1; i > w && p + 2 <= i; p++) {
+                byte c0 = p < w ? BLANK : doc[p];
+                byte c1 = p + 1 < i ? doc[p + 1] : BLANK;
+                byte c2 = p + 2 < i ? doc[p + 2] : BLANK;
+                if (n == grams.length) grams = Arrays.copyOf(grams, n * 2);
+                grams[n++] = gram(c0, c1, c2);
+            }
+            w = i + 1;
+        }
+        return distinct(grams, n);
+    }
+
+    private static int[] distinct(int[] grams, int n) {
+        Arrays.sort(grams, 0, n);
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (m == 0 || grams[m - 1] != grams[i]) grams[m++] = grams[i];
+        }
+        return Arrays.copyOf(grams, m);
+    }
+
+    private static int gram(byte a, byte b, byte c) {
+        return (symbol(a) * ALPHABET + symbol(b)) * ALPHABET + symbol(c);
+    }
+
+    private static int symbol(byte b) {
+        if (b == BLANK) return 0;
+        if (b >= 'a' && b <= 'z') return 1 + b - 'a';
+        if (b >= '0' && b <= '9') return 27 + b - '0';
+        return 37;
+    }
+
+    private static boolean startsWith(byte[] text, int from, byte[] q) {
+        for (int i = 0; i < q.length; i++) {
+            if (text[from + i] != q[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean contains(byte[] text, int from, int to, byte[] q) {
+        for (int i = from; i + q.length <= to; i++) {
+            if (startsWith(text, i, q)) return true;
+        }
+        return false;
+    }
+
+    private static int putVarint(byte[] buf, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int getVarint(byte[] buf, int[] cursor) {
+        int pos = cursor[0];
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf[pos++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        cursor[0] = pos;
+        return value;
+    }
+}
@@ -0,0 +1,181 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomerSearch
+ *
+ * Typo-tolerant customer search by name, e-mail, phone digits and city,
+ * served from a process-wide CustomerIndex (trigrams, Turkish-folded).
+ *
+ * The index is loaded in bulk at startup (preload()). Customers created
+ * on this workstation are added at once (added()); customers created
+ * elsewhere (e.g. signing up in the customer application) are picked up
+ * from a CustomerID watermark every -Drtf.customers.syncSec seconds
+ * (default 60) and whenever the search window opens. Each sync re-reads
+ * the last -Drtf.customers.overlapIds IDs below the watermark (default
+ * 200): a customer whose insert commits after a higher ID was read would
+ * otherwise be skipped for good. Rows already indexed are ignored. Edits
+ * to existing customers are picked up on the next start.
+ *
+ * Tables used:
+ *  - Customers, CustomerContactInfo, Address
+ */
+public final class CustomerSearch {
+
+    /** One search result. */
+    public static final class Result {
+        private final int customerId;
+        private final float score;
+
+        Result(int customerId, float score) {
+            this.customerId = customerId;
+            this.score = score;
+        }
+
+        public int customerId() {
+            return customerId;
+        }
+
+        /** 0..1; 1 = every word matched exactly. */
+        public float score() {
+            return score;
+        }
+    }
+
+    private static final long SYNC_SECONDS = Long.getLong("rtf.customers.syncSec", 60);
+    private static final int OVERLAP_IDS = Integer.getInteger("rtf.customers.overlapIds", 200);
+    private static final int BATCH = 10_000;
+
+    // A customer with several contact or address rows comes back more than
+    // once; CustomerIndex keeps the first
+    private static final String CUSTOMERS_SQL = """
+        SELECT TOP (?) c.CustomerID, c.FirstName, c.LastName, ci.Email, ci.PhoneNumber, a.City
+        FROM Customers c
+        LEFT JOIN CustomerContactInfo ci ON ci.CustomerID = c.CustomerID
+        LEFT JOIN Address a ON a.CustomerID = c.CustomerID
+        WHERE c.CustomerID > ?
+        ORDER BY c.CustomerID
+        """;
+
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "customer-search");
+                t.setDaemon(true);
+                return t;
+            });
+
+    private static final CustomerIndex index = new CustomerIndex();
+
+    // Written on the scheduler thread only
+    private static int lastCustomerId = 0;      // highest CustomerID indexed
+    private static int lastReadId = 0;          // highest CustomerID of the last batch
+    private static volatile boolean ready = false;
+    private static volatile long loadMs = -1;   // bulk load time, -1 until it has finished
+    private static boolean started = false;
+
+    private CustomerSearch() {
+    }
+
+    /** Starts the bulk load and the periodic catch-up. Call once at application startup. */
+    public static synchronized void preload() {
+        if (started) return;
+        started = true;
+
+        SCHEDULER.execute(() -> {
+            long start = System.nanoTime();
+            sync();
+            loadMs = (System.nanoTime() - start) / 1_000_000;
+            ready = true;
+        });
+        if (SYNC_SECONDS > 0) {
+            SCHEDULER.scheduleWithFixedDelay(CustomerSearch::sync, SYNC_SECONDS, SYNC_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Catches up now (in the background), e.g. when the search window opens. */
+    public static void syncSoon() {
+        preload();
+        SCHEDULER.execute(CustomerSearch::sync);
+    }
+
+    /** False until the bulk load has finished; until then results may be incomplete. */
+    public static boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Records a customer created on this workstation (after commit), so it
+     * can be found at once.
+     */
+    public static void added(int customerId, String firstName, String lastName,
+                             String email, String phone, String city) {
+        index.add(customerId, firstName, lastName, email, phone, city);
+    }
+
+    /**
+     * Best matches, best first. Cheap enough to run on every keystroke
+     * (in the background).
+     */
+    public static List<Result> search(String query, int limit) {
+        List<Result> results = new ArrayList<>();
+        for (CustomerIndex.Hit hit : index.search(query, limit)) {
+            results.add(new Result(hit.customerId, hit.score));
+        }
+        return results;
+    }
+
+    public static int customerCount() {
+        return index.size();
+    }
+
+    /** Approximate memory used by the index, in bytes. */
+    public static long memoryBytes() {
+        return index.memoryBytes();
+    }
+
+    public static String getStats() {
+        long ms = loadMs;
+        return String.format("%d customers indexed, %.1f MB, %s", index.size(), index.memoryBytes() / 1048576.0,
+                ms < 0 ? "loading" : "loaded in " + ms + " ms");
+    }
+
+    // ---- Scheduler thread ----
+
+    private static void sync() {
+        try (Connection conn = DbConfig.getConnection()) {
+            int from = Math.max(0, lastCustomerId - OVERLAP_IDS);
+            while (readBatch(conn, from) == BATCH) {
+                from = lastReadId;
+            }
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace(); // next sync retries from the same watermark
+        }
+    }
+
+    private static int readBatch(Connection conn, int from) throws SQLException {
+        int read = 0;
+        try (PreparedStatement ps = conn.prepareStatement(CUSTOMERS_SQL)) {
+            ps.setFetchSize(BATCH);
+            ps.setInt(1, BATCH);
+            ps.setInt(2, from);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int customerId = rs.getInt("CustomerID");
+                    index.add(customerId, rs.getString("FirstName"), rs.getString("LastName"),
+                            rs.getString("Email"), rs.getString("PhoneNumber"), rs.getString("City"));
+                    lastReadId = customerId;
+                    lastCustomerId = Math.max(lastCustomerId, customerId);
+                    read++;
+                }
+            }
+        }
+        return read;
+    }
+}
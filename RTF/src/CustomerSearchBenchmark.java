@@ -0,0 +1,186 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * CustomerSearchBenchmark
+ *
+ * Customer search over 1M synthetic customers (Turkish first names,
+ * surnames and cities, e-mail and phone): index build time and memory,
+ * then query latency and how often the best hit matches the query.
+ *
+ * No database needed:
+ *   java -Xmx2g -cp build/classes CustomerSearchBenchmark [customers] [queries]
+ *
+ * Query kinds, in equal parts: full name typed correctly without Turkish
+ * letters, full name with one typo (swap, drop or replace), first name +
+ * surname prefix (still typing), surname + city, and 6 digits from the
+ * middle of the phone number. The target is under 5 ms per query.
+ *
+ * Synthetic names repeat a lot (hundreds of customers per full name), so
+ * accuracy is whether the best hit matches what was typed (same name, same
+ * surname and city, ...), not whether it is the customer the query was
+ * made from. For phone digits it is a phone containing them.
+ */
+public class CustomerSearchBenchmark {
+
+    private static final String[] FIRST = {
+            "Mehmet", "Mustafa", "Ahmet", "Ali", "Hüseyin", "Hasan", "İbrahim", "İsmail", "Osman", "Yusuf",
+            "Murat", "Ömer", "Ramazan", "Halil", "Süleyman", "Abdullah", "Mahmut", "Recep", "Salih", "Fatih",
+            "Kadir", "Emre", "Hakan", "Adem", "Kemal", "Yaşar", "Bekir", "Musa", "Metin", "Serkan",
+            "Fatma", "Ayşe", "Emine", "Hatice", "Zeynep", "Elif", "Meryem", "Şerife", "Zehra", "Sultan",
+            "Hanife", "Merve", "Havva", "Zeliha", "Esra", "Fadime", "Özlem", "Hacer", "Melek", "Yasemin",
+            "Hülya", "Çiğdem", "Gülsüm", "Büşra", "Derya", "Tuğba", "Gökhan", "Burak", "Oğuz", "Cansu"};
+    private static final String[] LAST = {
+            "Yılmaz", "Kaya", "Demir", "Şahin", "Çelik", "Yıldız", "Yıldırım", "Öztürk", "Aydın", "Özdemir",
+            "Arslan", "Doğan", "Kılıç", "Aslan", "Çetin", "Kara", "Koç", "Kurt", "Özkan", "Şimşek",
+            "Polat", "Özcan", "Korkmaz", "Çakır", "Erdoğan", "Yavuz", "Can", "Acar", "Şen", "Aktaş",
+            "Güler", "Yalçın", "Güneş", "Bozkurt", "Bulut", "Keskin", "Ünal", "Turan", "Gül", "Özer",
+            "Işık", "Kaplan", "Avcı", "Sarı", "Tekin", "Taş", "Köse", "Yüksel", "Ateş", "Aksoy",
+            "Karaca", "Uçar", "Tunç", "Eren", "Sönmez", "Altun", "Duman", "Güven", "Akın", "Karakaya"};
+    private static final String[] CITY = {
+            "İstanbul", "Ankara", "İzmir", "Bursa", "Antalya", "Konya", "Adana", "Şanlıurfa", "Gaziantep",
+            "Kocaeli", "Mersin", "Diyarbakır", "Hatay", "Manisa", "Kayseri", "Samsun", "Balıkesir",
+            "Kahramanmaraş", "Van", "Aydın", "Denizli", "Sakarya", "Tekirdağ", "Muğla", "Eskişehir",
+            "Mardin", "Malatya", "Trabzon", "Erzurum", "Ordu", "Afyonkarahisar", "Sivas", "Tokat",
+            "Zonguldak", "Elazığ", "Çorum", "Kütahya", "Isparta", "Çanakkale", "Edirne"};
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        SplittableRandom random = new SplittableRandom(42);
+        String[][] customers = new String[count][];
+        for (int i = 0; i < count; i++) {
+            String first = FIRST[random.nextInt(FIRST.length)];
+            String last = LAST[random.nextInt(LAST.length)];
+            // Some customers have two first names, as is common
+            if (random.nextInt(5) == 0) first += " " + FIRST[random.nextInt(FIRST.length)];
+            long phone = 5_000_000_000L + random.nextLong(1_000_000_000L);
+            String email = ascii(first.split(" ")[0] + "." + last).toLowerCase()
+                    + (random.nextBoolean() ? String.valueOf(random.nextInt(100)) : "") + "@example.com";
+            customers[i] = new String[]{first, last, email, CallerIdIndex.format(phone),
+                    CITY[random.nextInt(CITY.length)]};
+        }
+
+        long start = System.nanoTime();
+        CustomerIndex index = new CustomerIndex();
+        for (int i = 0; i < count; i++) {
+            String[] c = customers[i];
+            index.add(i + 1, c[0], c[1], c[2], c[3], c[4]);
+        }
+        System.out.printf("Indexed %d customers in %d ms, about %.1f MB%n",
+                index.size(), (System.nanoTime() - start) / 1_000_000, index.memoryBytes() / 1048576.0);
+
+        String[] probes = new String[queries];
+        int[] expected = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            int id = random.nextInt(count);
+            String[] c = customers[id];
+            String first = c[0].split(" ")[0];
+            expected[i] = id + 1;
+            switch (i % 5) {
+                case 0:
+                    probes[i] = ascii(c[0] + " " + c[1]).toLowerCase();
+                    break;
+                case 1:
+                    probes[i] = first + " " + typo(ascii(c[1]).toLowerCase(), random);
+                    break;
+                case 2:
+                    probes[i] = first + " " + c[1].substring(0, Math.min(3, c[1].length()));
+                    break;
+                case 3:
+                    probes[i] = c[1] + " " + c[4];
+                    break;
+                default:
+                    String digits = c[3].replaceAll("\\D", "");
+                    probes[i] = digits.substring(4, 10);
+                    break;
+            }
+        }
+
+        for (int round = 0; round <= ROUNDS; round++) {
+            long[] times = new long[queries];
+            int[] found = new int[5];
+            for (int i = 0; i < queries; i++) {
+                long t = System.nanoTime();
+                List<CustomerIndex.Hit> hits = index.search(probes[i], 20);
+                times[i] = System.nanoTime() - t;
+                if (!hits.isEmpty() && matches(i % 5, customers[hits.get(0).customerId - 1], customers[expected[i] - 1], probes[i])) {
+                    found[i % 5]++;
+                }
+            }
+            if (round == 0) continue; // warm-up
+
+            Arrays.sort(times);
+            long sum = 0;
+            for (long t : times) sum += t;
+            System.out.printf("round %d: avg %.2f ms  p50 %.2f ms  p95 %.2f ms  p99 %.2f ms%n",
+                    round, sum / 1e6 / queries, times[queries / 2] / 1e6,
+                    times[(int) (queries * 0.95)] / 1e6, times[(int) (queries * 0.99)] / 1e6);
+            if (round == ROUNDS) {
+                System.out.printf("best hit matches: name %d%%, typo %d%%, prefix %d%%, "
+                                + "surname+city %d%%, phone %d%% (of %d each)%n",
+                        pct(found[0], queries), pct(found[1], queries), pct(found[2], queries),
+                        pct(found[3], queries), pct(found[4], queries), queries / 5);
+            }
+        }
+        System.out.println("e.g. \"" + probes[1] + "\" -> " + describe(index.search(probes[1], 3), customers));
+    }
+
+    /** Whether the best hit `got` matches the `wanted` customer on what the query kind typed. */
+    private static boolean matches(int kind, String[] got, String[] wanted, String probe) {
+        String gotFirst = got[0].split(" ")[0], wantedFirst = wanted[0].split(" ")[0];
+        switch (kind) {
+            case 0: // a second first name only has to match when it was typed
+                return (got[0].equals(wanted[0]) || wanted[0].equals(wantedFirst) && gotFirst.equals(wantedFirst))
+                        && got[1].equals(wanted[1]);
+            case 1:
+                return gotFirst.equals(wantedFirst) && got[1].equals(wanted[1]);
+            case 2:
+                return gotFirst.equals(wantedFirst) && got[1].startsWith(wanted[1].substring(0, Math.min(3, wanted[1].length())));
+            case 3:
+                return got[1].equals(wanted[1]) && got[4].equals(wanted[4]);
+            default:
+                return got[3].replaceAll("\\D", "").contains(probe);
+        }
+    }
+
+    private static int pct(int found, int queries) {
+        return Math.round(found * 100f / (queries / 5f));
+    }
+
+    private static String describe(List<CustomerIndex.Hit> hits, String[][] customers) {
+        StringBuilder sb = new StringBuilder();
+        for (CustomerIndex.Hit hit : hits) {
+            String[] c = customers[hit.customerId - 1];
+            sb.append(String.format("%s %s (%.2f); ", c[0], c[1], hit.score));
+        }
+        return sb.toString();
+    }
+
+    private static String typo(String word, SplittableRandom random) {
+        if (word.length() < 4) return word;
+        int i = 1 + random.nextInt(word.length() - 2);
+        switch (random.nextInt(3)) {
+            case 0: // swap two neighbours
+                return word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2);
+            case 1: // drop one
+                return word.substring(0, i) + word.substring(i + 1);
+            default: // replace one
+                return word.substring(0, i) + (char) ('a' + random.nextInt(26)) + word.substring(i + 1);
+        }
+    }
+
+    private static String ascii(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            char f = TextIndex.fold(c);
+            sb.append(Character.isUpperCase(c) && f == Character.toLowerCase(f) && f != c ? Character.toUpperCase(f) : f);
+        }
+        return sb.toString();
+    }
+}
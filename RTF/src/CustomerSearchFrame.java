@@ -0,0 +1,199 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CustomerSearchFrame
+ *
+ * Finds customers by any part of their name, e-mail, phone number or city
+ * (CustomerSearch); spelling mistakes and Turkish letters typed without
+ * marks still match. Results update while typing. Double-clicking a
+ * customer opens their timeline.
+ *
+ * Tables used (display only; matching runs on the in-memory index):
+ *  - Customers, CustomerContactInfo, Address
+ */
+public class CustomerSearchFrame extends JFrame {
+
+    private static final int MAX_RESULTS = 20;
+    private static final int TYPING_DELAY_MS = 150;
+
+    private JTextField txtQuery;
+    private JLabel lblInfo;
+    private JTable tblResults;
+    private DefaultTableModel resultModel;
+
+    private final Timer typingTimer;
+
+    // Background DB work for this window (cancelled when the window is disposed)
+    private final DbExecutor.Group tasks = new DbExecutor.Group(this);
+
+    public CustomerSearchFrame(StaffUser staff) {
+        setTitle("Customer Search - " + staff.getFullName());
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+
+        typingTimer = new Timer(TYPING_DELAY_MS, e -> runSearch());
+        typingTimer.setRepeats(false);
+
+        initComponents();
+        CustomerSearch.syncSoon();
+
+        setSize(900, 500);
+        setLocationRelativeTo(null);
+    }
+
+    private void initComponents() {
+        txtQuery = new JTextField(40);
+        txtQuery.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                typingTimer.restart();
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                typingTimer.restart();
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+                typingTimer.restart();
+            }
+        });
+        txtQuery.addActionListener(e -> runSearch());
+
+        JPanel queryPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        queryPanel.add(new JLabel("Name, phone, e-mail or city:"));
+        queryPanel.add(txtQuery);
+
+        resultModel = new DefaultTableModel(new String[]{"ID", "Name", "Phone", "E-mail", "City", "Score"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        tblResults = new JTable(resultModel);
+        tblResults.getColumnModel().getColumn(0).setMaxWidth(80);
+        tblResults.getColumnModel().getColumn(5).setMaxWidth(70);
+        tblResults.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) openSelected();
+            }
+        });
+
+        lblInfo = new JLabel(" ");
+
+        JPanel mainPanel = new JPanel(new BorderLayout(5, 5));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        mainPanel.add(queryPanel, BorderLayout.NORTH);
+        mainPanel.add(new JScrollPane(tblResults), BorderLayout.CENTER);
+        mainPanel.add(lblInfo, BorderLayout.SOUTH);
+
+        setContentPane(mainPanel);
+    }
+
+    /**
+     * Runs the query on the index and loads the display rows of the hits.
+     * A newer search cancels the one still running.
+     */
+    private void runSearch() {
+        String query = txtQuery.getText();
+        if (query.trim().isEmpty()) {
+            resultModel.setRowCount(0);
+            lblInfo.setText(" ");
+            return;
+        }
+
+        tasks.submitLatest("search", conn -> {
+            long start = System.nanoTime();
+            List<CustomerSearch.Result> hits = CustomerSearch.search(query, MAX_RESULTS);
+            long searchMicros = (System.nanoTime() - start) / 1000;
+            return new Object[]{hits, loadCustomers(conn, hits), searchMicros};
+        }, result -> {
+            @SuppressWarnings("unchecked")
+            List<CustomerSearch.Result> hits = (List<CustomerSearch.Result>) result[0];
+            @SuppressWarnings("unchecked")
+            Map<Integer, String[]> customers = (Map<Integer, String[]>) result[1];
+            long searchMicros = (Long) result[2];
+
+            resultModel.setRowCount(0);
+            for (CustomerSearch.Result hit : hits) {
+                String[] c = customers.get(hit.customerId());
+                if (c == null) continue; // deleted meanwhile
+                resultModel.addRow(new Object[]{
+                        hit.customerId(), c[0], c[1], c[2], c[3],
+                        String.format("%.2f", hit.score())
+                });
+            }
+            showInfo(hits.size(), searchMicros);
+        }, e -> {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                    "Error while searching:\n" + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    private void showInfo(int hits, long searchMicros) {
+        if (!CustomerSearch.isReady()) {
+            lblInfo.setText("Customer index is being built, results may be incomplete...");
+            return;
+        }
+        lblInfo.setText(hits + " result(s) in " + String.format("%.1f", searchMicros / 1000.0) + " ms  |  "
+                + CustomerSearch.getStats());
+    }
+
+    private void openSelected() {
+        int row = tblResults.getSelectedRow();
+        if (row < 0) return;
+        int customerId = (Integer) resultModel.getValueAt(row, 0);
+        new CustomerTimelineFrame(customerId, resultModel.getValueAt(row, 1) + " (ID: " + customerId + ")",
+                CustomerTimeline.View.STAFF).setVisible(true);
+    }
+
+    // ---- Background (DB worker) ----
+
+    /** {name, phone, e-mail, city} of the hits, in one IN query. */
+    private static Map<Integer, String[]> loadCustomers(Connection conn, List<CustomerSearch.Result> hits)
+            throws SQLException {
+        Map<Integer, String[]> customers = new HashMap<>();
+        if (hits.isEmpty()) return customers;
+
+        String sql = """
+            SELECT c.CustomerID, c.FirstName, c.LastName, ci.PhoneNumber, ci.Email, a.City
+            FROM Customers c
+            LEFT JOIN CustomerContactInfo ci ON ci.CustomerID = c.CustomerID
+            LEFT JOIN Address a ON a.CustomerID = c.CustomerID
+            WHERE c.CustomerID IN (%s)
+            """.formatted(placeholders(hits.size()));
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < hits.size(); i++) ps.setInt(i + 1, hits.get(i).customerId());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    customers.putIfAbsent(rs.getInt("CustomerID"), new String[]{
+                            rs.getString("FirstName") + " " + rs.getString("LastName"),
+                            rs.getString("PhoneNumber"),
+                            rs.getString("Email"),
+                            rs.getString("City")
+                    });
+                }
+            }
+        }
+        return customers;
+    }
+
+    private static String placeholders(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) sb.append(i == 0 ? "?" : ", ?");
+        return sb.toString();
+    }
+}
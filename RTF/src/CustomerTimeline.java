@@ -0,0 +1,317 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * CustomerTimeline
+ *
+ * One customer's whole history (calls, complaints, complaint actions and
+ * satisfaction surveys) as a single feed, newest first, read page by page.
+ *
+ *  - Each source is read in time order through its own keyset cursor:
+ *    TOP (n) rows older than the last one read, so every read is a short
+ *    range read no matter how long the history is.
+ *  - The sources are merged with a heap holding the head of each source
+ *    (a k-way merge); a source is read again when its buffer is down to
+ *    its last entry.
+ *  - Memory is one buffer of -Drtf.timeline.fetch rows (default 50) per
+ *    source, and open() reads the first buffers in parallel, so the first
+ *    page costs the same for one month or ten years of history.
+ *
+ * Rows with the same time and key (e.g. two actions on one complaint in
+ * the same instant) are counted at the cursor, so a page boundary never
+ * drops or repeats one.
+ *
+ * Surveys are found through their complaint (SatisfactionSurvey.ComplaintID).
+ *
+ * The CUSTOMER view (customer app) leaves out what is internal to the call
+ * center: call notes are not read, and of the complaint actions only
+ * closing and the survey are shown (no escalations or assignments). The
+ * STAFF view shows everything.
+ *
+ * Not thread-safe: read one page at a time (e.g. one DB task in flight).
+ *
+ * Tables used:
+ *  - Calls, CallDetails (call topic and result names via ReferenceData)
+ *  - Complaints, ComplaintTexts
+ *  - ComplaintActions (status names via ReferenceData)
+ *  - SatisfactionSurvey
+ */
+public final class CustomerTimeline {
+
+    private static final int FETCH = Integer.getInteger("rtf.timeline.fetch", 50);
+
+    /** Who the timeline is shown to. */
+    public enum View {
+        /** Staff app: everything, including call notes and internal actions. */
+        STAFF,
+        /** Customer app: no call notes, only customer-visible actions. */
+        CUSTOMER
+    }
+
+    // Action types a customer may see (ComplaintListFrame, SatisfactionSurveyFrame)
+    private static final String CUSTOMER_ACTIONS = "a.ActionType IN ('" + ChangeFeed.CLOSE_ACTION + "', 'Survey')";
+
+    /** Where an entry comes from; each is one keyset-read query per view. */
+    public enum Source {
+        CALL("Call", "cd.StartTime", "k.CallID", "k.CustomerID",
+                "k.CallTopicID, k.CallResultID, cd.DurationSec", ", cd.Notes", """
+            FROM Calls k
+            JOIN CallDetails cd ON cd.CallID = k.CallID
+            """, null),
+        COMPLAINT("Complaint", "c.CreatedAt", "c.ComplaintID", "c.CustomerID",
+                "t.Title", "", """
+            FROM Complaints c
+            JOIN ComplaintTexts t ON t.ComplaintID = c.ComplaintID
+            """, null),
+        ACTION("Action", "a.ActionDate", "a.ComplaintID", "c.CustomerID",
+                "a.ActionType, a.OldStatusID, a.NewStatusID", "", """
+            FROM ComplaintActions a
+            JOIN Complaints c ON c.ComplaintID = a.ComplaintID
+            """, CUSTOMER_ACTIONS),
+        SURVEY("Survey", "s.CreatedAt", "s.ComplaintID", "c.CustomerID",
+                "s.Rating", "", """
+            FROM SatisfactionSurvey s
+            JOIN Complaints c ON c.ComplaintID = s.ComplaintID
+            """, null);
+
+        private final String title;
+        private final String[] firstSql = new String[View.values().length];
+        private final String[] nextSql = new String[View.values().length];
+
+        /**
+         * @param staffColumns   further columns read in the STAFF view only
+         * @param customerFilter condition rows must meet in the CUSTOMER view, or null
+         */
+        Source(String title, String at, String key, String customer,
+               String columns, String staffColumns, String from, String customerFilter) {
+            this.title = title;
+            String order = "ORDER BY " + at + " DESC, " + key + " DESC";
+            for (View view : View.values()) {
+                boolean staff = view == View.STAFF;
+                String select = "SELECT TOP (?) " + at + " AS At, " + key + " AS RowKey, "
+                        + columns + (staff ? staffColumns : "") + "\n" + from;
+                String where = "WHERE " + customer + " = ?"
+                        + (staff || customerFilter == null ? "" : " AND " + customerFilter);
+                firstSql[view.ordinal()] = select + where + " AND " + at + " IS NOT NULL\n" + order;
+                nextSql[view.ordinal()] = select + where + " AND (" + at + " < ? OR ("
+                        + at + " = ? AND " + key + " <= ?))\n" + order;
+            }
+        }
+
+        public String title() {
+            return title;
+        }
+    }
+
+    /** One line of the timeline. Immutable. */
+    public static final class Entry {
+        private final Source source;
+        private final Timestamp at;
+        private final int key;
+        private final String text;
+
+        Entry(Source source, Timestamp at, int key, String text) {
+            this.source = source;
+            this.at = at;
+            this.key = key;
+            this.text = text;
+        }
+
+        public Source source() {
+            return source;
+        }
+
+        public Timestamp at() {
+            return at;
+        }
+
+        /** CallID for calls, ComplaintID otherwise. */
+        public int key() {
+            return key;
+        }
+
+        public String text() {
+            return text;
+        }
+    }
+
+    /** Newest first; ties in a fixed order so pages are stable. */
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator
+            .comparing(Entry::at, Comparator.reverseOrder())
+            .thenComparing(Entry::source)
+            .thenComparing(Entry::key, Comparator.reverseOrder());
+
+    /** Read position and buffer of one source. */
+    private static final class Cursor {
+        final Source source;
+        final View view;
+        final ArrayDeque<Entry> buffer = new ArrayDeque<>();
+        Timestamp lastAt;   // null until the first read
+        int lastKey;
+        int atLast;         // rows read so far with exactly (lastAt, lastKey)
+        boolean exhausted;
+
+        Cursor(Source source, View view) {
+            this.source = source;
+            this.view = view;
+        }
+    }
+
+    private final int customerId;
+    private final List<Cursor> cursors = new ArrayList<>();
+    private final PriorityQueue<Cursor> heads =
+            new PriorityQueue<>((a, b) -> NEWEST_FIRST.compare(a.buffer.peekFirst(), b.buffer.peekFirst()));
+
+    private CustomerTimeline(int customerId, View view) {
+        this.customerId = customerId;
+        for (Source source : Source.values()) {
+            cursors.add(new Cursor(source, view));
+        }
+    }
+
+    /**
+     * Reads the first buffer of every source in parallel (one pooled
+     * connection each) and completes on a DB worker.
+     */
+    public static CompletableFuture<CustomerTimeline> open(int customerId, View view) {
+        CustomerTimeline timeline = new CustomerTimeline(customerId, view);
+        List<CompletableFuture<List<Entry>>> firsts = new ArrayList<>();
+        for (Cursor cursor : timeline.cursors) {
+            firsts.add(DbExecutor.supply(conn -> readChunk(conn, customerId, cursor)));
+        }
+        return CompletableFuture.allOf(firsts.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            for (int i = 0; i < firsts.size(); i++) {
+                Cursor cursor = timeline.cursors.get(i);
+                accept(cursor, firsts.get(i).join());
+                if (!cursor.buffer.isEmpty()) timeline.heads.add(cursor);
+            }
+            return timeline;
+        });
+    }
+
+    public int customerId() {
+        return customerId;
+    }
+
+    /** False once every source has been read to the end. */
+    public boolean hasMore() {
+        return !heads.isEmpty();
+    }
+
+    /**
+     * Runs in the background. Returns up to `count` further entries, newest
+     * first; an empty list means the history is complete.
+     *
+     * A source's next chunk is read before its last buffered entry is taken,
+     * so a failed read leaves that source in the merge. The entries taken
+     * before the failure are returned; the exception is thrown when nothing
+     * was taken, and the read is retried by the next call.
+     */
+    public List<Entry> next(Connection conn, int count) throws SQLException {
+        List<Entry> page = new ArrayList<>(count);
+        while (page.size() < count && !heads.isEmpty()) {
+            Cursor cursor = heads.peek();
+            if (cursor.buffer.size() == 1 && !cursor.exhausted) {
+                // Appending keeps the head entry, so the heap order holds
+                try {
+                    accept(cursor, readChunk(conn, customerId, cursor));
+                } catch (SQLException e) {
+                    if (page.isEmpty()) throw e;
+                    return page;
+                }
+            }
+            heads.poll();
+            page.add(cursor.buffer.pollFirst());
+            if (!cursor.buffer.isEmpty()) heads.add(cursor);
+        }
+        return page;
+    }
+
+    /** Buffers a chunk read for the cursor and moves the cursor past it. */
+    private static void accept(Cursor cursor, List<Entry> chunk) {
+        if (chunk.size() < FETCH) cursor.exhausted = true;
+        for (Entry e : chunk) {
+            if (cursor.lastAt != null && e.at.equals(cursor.lastAt) && e.key == cursor.lastKey) {
+                cursor.atLast++;
+            } else {
+                cursor.lastAt = e.at;
+                cursor.lastKey = e.key;
+                cursor.atLast = 1;
+            }
+            cursor.buffer.addLast(e);
+        }
+    }
+
+    /**
+     * Reads the next FETCH rows of the cursor's source. The rows at exactly
+     * the cursor position that were already read are fetched again and
+     * skipped.
+     */
+    private static List<Entry> readChunk(Connection conn, int customerId, Cursor cursor) throws SQLException {
+        Source source = cursor.source;
+        int skip = cursor.lastAt == null ? 0 : cursor.atLast;
+        List<Entry> chunk = new ArrayList<>(FETCH);
+
+        int v = cursor.view.ordinal();
+        try (PreparedStatement ps = conn.prepareStatement(skip == 0 ? source.firstSql[v] : source.nextSql[v])) {
+            ps.setInt(1, FETCH + skip);
+            ps.setInt(2, customerId);
+            if (skip > 0) {
+                ps.setTimestamp(3, cursor.lastAt);
+                ps.setTimestamp(4, cursor.lastAt);
+                ps.setInt(5, cursor.lastKey);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (skip > 0) {
+                        skip--;
+                        continue;
+                    }
+                    Timestamp at = rs.getTimestamp("At");
+                    int key = rs.getInt("RowKey");
+                    chunk.add(new Entry(source, at, key, describe(source, cursor.view, key, rs)));
+                }
+            }
+        }
+        return chunk;
+    }
+
+    private static String describe(Source source, View view, int key, ResultSet rs) throws SQLException {
+        switch (source) {
+            case CALL: {
+                String text = name(ReferenceData.Kind.CALL_TOPICS, rs.getInt("CallTopicID"))
+                        + " / " + name(ReferenceData.Kind.CALL_RESULTS, rs.getInt("CallResultID"))
+                        + " (" + rs.getInt("DurationSec") + " s)";
+                if (view != View.STAFF) return text;
+                String notes = rs.getString("Notes");
+                return notes == null || notes.isBlank() ? text : text + " - " + notes.trim();
+            }
+            case COMPLAINT:
+                return "#" + key + " opened: " + rs.getString("Title");
+            case ACTION: {
+                int oldStatus = rs.getInt("OldStatusID");
+                int newStatus = rs.getInt("NewStatusID");
+                String text = "#" + key + " " + rs.getString("ActionType");
+                return oldStatus == newStatus ? text
+                        : text + ": " + name(ReferenceData.Kind.COMPLAINT_STATUSES, oldStatus)
+                        + " -> " + name(ReferenceData.Kind.COMPLAINT_STATUSES, newStatus);
+            }
+            default:
+                return "#" + key + " rated " + rs.getInt("Rating") + "/5";
+        }
+    }
+
+    private static String name(ReferenceData.Kind kind, int id) throws SQLException {
+        ReferenceData.Item item = ReferenceData.require(kind).byId(id);
+        return item != null ? item.name() : "?";
+    }
+}
@@ -0,0 +1,166 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Customer Timeline Screen
+ *
+ * One customer's calls, complaints, complaint actions and surveys in one
+ * list, newest first (CustomerTimeline). The first page shows as soon as
+ * the newest rows of each source are read; older pages are read when the
+ * list is scrolled near its end.
+ *
+ * Opened from CustomerDashboard (customer app, CUSTOMER view) and the call
+ * and customer search screens (staff, STAFF view):
+ *   new CustomerTimelineFrame(customerId, title, CustomerTimeline.View.CUSTOMER).setVisible(true);
+ *
+ * Tables used: see CustomerTimeline.
+ */
+public class CustomerTimelineFrame extends JFrame {
+
+    private static final int PAGE = 100;
+    private static final DateTimeFormatter WHEN = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final int customerId;
+    private final CustomerTimeline.View view;
+
+    private final TimelineModel model = new TimelineModel();
+    private JTable tblTimeline;
+    private JScrollPane scrollTimeline;
+    private JLabel lblStatus;
+
+    private CustomerTimeline timeline;   // null until opened
+    private boolean loading = false;
+
+    // Background DB work for this window (cancelled when the window is disposed)
+    private final DbExecutor.Group tasks = new DbExecutor.Group(this);
+
+    public CustomerTimelineFrame(int customerId, String title, CustomerTimeline.View view) {
+        this.customerId = customerId;
+        this.view = view;
+
+        setTitle("Timeline - " + title);
+        setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        setSize(800, 500);
+
+        initComponents();
+        openTimeline();
+
+        setLocationRelativeTo(null);
+    }
+
+    private void initComponents() {
+        tblTimeline = new JTable(model);
+        tblTimeline.setFillsViewportHeight(true);
+        tblTimeline.getColumnModel().getColumn(0).setPreferredWidth(130);
+        tblTimeline.getColumnModel().getColumn(1).setPreferredWidth(80);
+        tblTimeline.getColumnModel().getColumn(2).setPreferredWidth(590);
+
+        scrollTimeline = new JScrollPane(tblTimeline);
+        // Older entries are read when the end of the list comes into view
+        scrollTimeline.getVerticalScrollBar().addAdjustmentListener(e -> {
+            if (!e.getValueIsAdjusting()) loadMoreIfNearEnd();
+        });
+
+        lblStatus = new JLabel("Loading...");
+        lblStatus.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+
+        JPanel mainPanel = new JPanel(new BorderLayout());
+        mainPanel.add(scrollTimeline, BorderLayout.CENTER);
+        mainPanel.add(lblStatus, BorderLayout.SOUTH);
+        setContentPane(mainPanel);
+    }
+
+    /** Reads the newest rows of every source in parallel, then shows the first page. */
+    private void openTimeline() {
+        loading = true;
+        CustomerTimeline.open(customerId, view).whenComplete((t, e) -> SwingUtilities.invokeLater(() -> {
+            if (!isDisplayable()) return; // screen closed meanwhile
+            loading = false;
+
+            if (e != null) {
+                e.printStackTrace();
+                lblStatus.setText("Could not load the timeline.");
+                JOptionPane.showMessageDialog(this,
+                        "Error while loading the timeline:\n" + e.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            timeline = t;
+            loadNextPage();
+        }));
+    }
+
+    private void loadMoreIfNearEnd() {
+        JScrollBar bar = scrollTimeline.getVerticalScrollBar();
+        if (bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - bar.getVisibleAmount()) {
+            loadNextPage();
+        }
+    }
+
+    private void loadNextPage() {
+        if (loading || timeline == null || !timeline.hasMore()) return;
+        loading = true;
+        lblStatus.setText(model.getRowCount() + " entries, loading more...");
+
+        CustomerTimeline t = timeline;
+        tasks.submit(conn -> t.next(conn, PAGE), page -> {
+            loading = false;
+            model.append(page);
+            lblStatus.setText(model.getRowCount() + " entries"
+                    + (t.hasMore() ? " (scroll down for older ones)" : " (complete history)"));
+            // A short page may not fill the view yet, so no scroll event would follow
+            SwingUtilities.invokeLater(this::loadMoreIfNearEnd);
+        }, e -> {
+            loading = false;
+            e.printStackTrace();
+            lblStatus.setText(model.getRowCount() + " entries (error while loading more)");
+        });
+    }
+
+    /** The entries read so far. */
+    private static final class TimelineModel extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+
+        private static final String[] COLUMNS = {"When", "Type", "Details"};
+        private final List<CustomerTimeline.Entry> entries = new ArrayList<>();
+
+        void append(List<CustomerTimeline.Entry> page) {
+            if (page.isEmpty()) return;
+            int first = entries.size();
+            entries.addAll(page);
+            fireTableRowsInserted(first, entries.size() - 1);
+        }
+
+        @Override
+        public int getRowCount() {
+            return entries.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            CustomerTimeline.Entry e = entries.get(row);
+            switch (column) {
+                case 0:
+                    return e.at().toLocalDateTime().format(WHEN);
+                case 1:
+                    return e.source().title();
+                default:
+                    return e.text();
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DailyCounters
+ *
+ * In-process per-staff activity counters for the dashboard: today's call
+ * count and open (active, assigned) complaint count. Dashboards read them
+ * from memory instead of aggregating rows on every open.
+ *
+ *  - A staff member's counters are loaded from the database on first use.
+ *  - The call screen and the complaint close path bump them after their
+ *    transaction commits.
+ *  - Changes made on other workstations arrive as remote ComplaintEvents
+ *    (ChangeFeed). A background job still reconciles all loaded counters
+ *    with the database (-Drtf.counters.reconcileMin, default 5) for what
+ *    the feed cannot see, and resets the call counts at midnight.
+ *
+ * Counters live in 16 lock stripes keyed by StaffID, so concurrent updates
+ * for different staff rarely contend.
+ *
+ * "Today" is always the half-open range [00:00 today, 00:00 tomorrow), which
+ * lets the server seek on CallDetails.StartTime instead of converting every
+ * row with CONVERT(date, ...).
+ *
+ * Tables used:
+ *  - Calls, CallDetails
+ *  - Complaints
+ */
+public final class DailyCounters {
+
+    private static final int STRIPES = 16;
+    private static final long RECONCILE_MINUTES = Long.getLong("rtf.counters.reconcileMin", 5);
+
+    private static final int TODAY_CALLS = 0;
+    private static final int OPEN_COMPLAINTS = 1;
+
+    private static final String TODAY_CALLS_SQL = """
+        SELECT COUNT(*) AS Cnt
+        FROM Calls c
+        JOIN CallDetails cd ON c.CallID = cd.CallID
+        WHERE c.StaffID = ?
+          AND cd.StartTime >= ? AND cd.StartTime < ?
+        """;
+
+    private static final String OPEN_COMPLAINTS_SQL = """
+        SELECT COUNT(*) AS Cnt
+        FROM Complaints
+        WHERE IsActive = 1
+          AND AssignedStaffID = ?
+        """;
+
+    private static final String ALL_TODAY_CALLS_SQL = """
+        SELECT c.StaffID, COUNT(*) AS Cnt
+        FROM Calls c
+        JOIN CallDetails cd ON c.CallID = cd.CallID
+        WHERE cd.StartTime >= ? AND cd.StartTime < ?
+        GROUP BY c.StaffID
+        """;
+
+    private static final String ALL_OPEN_COMPLAINTS_SQL = """
+        SELECT AssignedStaffID, COUNT(*) AS Cnt
+        FROM Complaints
+        WHERE IsActive = 1 AND AssignedStaffID IS NOT NULL
+        GROUP BY AssignedStaffID
+        """;
+
+    /** One lock stripe: StaffID -> {todayCalls, openComplaints}. */
+    private static final class Stripe {
+        final Map<Integer, int[]> counts = new HashMap<>();
+    }
+
+    private static final Stripe[] STRIPE_TABLE = new Stripe[STRIPES];
+    private static volatile LocalDate day = LocalDate.now();
+
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "daily-counters");
+                t.setDaemon(true);
+                return t;
+            });
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            STRIPE_TABLE[i] = new Stripe();
+        }
+        if (RECONCILE_MINUTES > 0) {
+            SCHEDULER.scheduleWithFixedDelay(DailyCounters::reconcileAll,
+                    RECONCILE_MINUTES, RECONCILE_MINUTES, TimeUnit.MINUTES);
+        }
+        scheduleMidnight();
+
+        // Other workstations (ChangeFeed); local writers call the update methods directly
+        ComplaintEvents.subscribe(events -> {
+            for (ComplaintEvents.Event e : events) {
+                if (!e.isRemote()) continue;
+                if (e instanceof ComplaintEvents.CallLogged) {
+                    callLogged(((ComplaintEvents.CallLogged) e).staffId(), false);
+                } else if (e instanceof ComplaintEvents.ComplaintCreated) {
+                    Integer staffId = ((ComplaintEvents.ComplaintCreated) e).assignedStaffId();
+                    if (staffId != null) complaintOpened(staffId);
+                } else if (e instanceof ComplaintEvents.ComplaintAssigned) {
+                    ComplaintEvents.ComplaintAssigned assigned = (ComplaintEvents.ComplaintAssigned) e;
+                    if (assigned.previousStaffId() != null) complaintClosed(assigned.previousStaffId());
+                    complaintOpened(assigned.staffId());
+                } else {
+                    Integer staffId = ((ComplaintEvents.ComplaintClosed) e).assignedStaffId();
+                    if (staffId != null) complaintClosed(staffId);
+                }
+            }
+        }, ComplaintEvents.CallLogged.class, ComplaintEvents.ComplaintCreated.class,
+                ComplaintEvents.ComplaintAssigned.class, ComplaintEvents.ComplaintClosed.class);
+    }
+
+    private DailyCounters() {
+    }
+
+    private static Stripe stripe(int staffId) {
+        return STRIPE_TABLE[(staffId * 0x9E3779B9 >>> 28) & (STRIPES - 1)];
+    }
+
+    /** Start of today and start of tomorrow, for "x >= ? AND x < ?". */
+    public static Timestamp[] todayRange() {
+        LocalDate today = LocalDate.now();
+        return new Timestamp[]{
+                Timestamp.valueOf(today.atStartOfDay()),
+                Timestamp.valueOf(today.plusDays(1).atStartOfDay())
+        };
+    }
+
+    // ---- Reads ----
+
+    public static CompletableFuture<Integer> todayCalls(int staffId) {
+        return counts(staffId).thenApply(c -> c[TODAY_CALLS]);
+    }
+
+    public static CompletableFuture<Integer> openComplaints(int staffId) {
+        return counts(staffId).thenApply(c -> c[OPEN_COMPLAINTS]);
+    }
+
+    /** Snapshot {todayCalls, openComplaints}; from memory once loaded. */
+    private static CompletableFuture<int[]> counts(int staffId) {
+        rollOverIfNeeded();
+        Stripe s = stripe(staffId);
+        synchronized (s) {
+            int[] c = s.counts.get(staffId);
+            if (c != null) return CompletableFuture.completedFuture(c.clone());
+        }
+        return reload(staffId);
+    }
+
+    /** Re-reads one staff member's counters from the database. */
+    public static CompletableFuture<int[]> reload(int staffId) {
+        return DbExecutor.supply(conn -> {
+            int[] fresh = {queryTodayCalls(conn, staffId), queryOpenComplaints(conn, staffId)};
+            Stripe s = stripe(staffId);
+            synchronized (s) {
+                s.counts.put(staffId, fresh.clone());
+            }
+            return fresh;
+        });
+    }
+
+    // ---- Updates (call after the transaction has committed) ----
+
+    public static void callLogged(int staffId, boolean complaintOpened) {
+        add(staffId, TODAY_CALLS, 1);
+        if (complaintOpened) add(staffId, OPEN_COMPLAINTS, 1);
+    }
+
+    public static void complaintClosed(int assignedStaffId) {
+        add(assignedStaffId, OPEN_COMPLAINTS, -1);
+    }
+
+    /** A complaint was assigned to the staff member (e.g. claimed from the queue). */
+    public static void complaintOpened(int assignedStaffId) {
+        add(assignedStaffId, OPEN_COMPLAINTS, 1);
+    }
+
+    private static void add(int staffId, int counter, int delta) {
+        rollOverIfNeeded();
+        Stripe s = stripe(staffId);
+        synchronized (s) {
+            int[] c = s.counts.get(staffId);
+            // Not loaded yet: the first read comes from the database anyway
+            if (c != null) c[counter] = Math.max(0, c[counter] + delta);
+        }
+    }
+
+    // ---- Reconcile / rollover ----
+
+    private static void rollOverIfNeeded() {
+        LocalDate today = LocalDate.now();
+        if (today.equals(day)) return;
+        synchronized (DailyCounters.class) {
+            if (today.equals(day)) return;
+            for (Stripe s : STRIPE_TABLE) {
+                synchronized (s) {
+                    for (int[] c : s.counts.values()) c[TODAY_CALLS] = 0;
+                }
+            }
+            day = today;
+        }
+    }
+
+    private static void scheduleMidnight() {
+        LocalDateTime now = LocalDateTime.now();
+        long delayMs = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis();
+        SCHEDULER.schedule(() -> {
+            rollOverIfNeeded();
+            scheduleMidnight();
+        }, delayMs + 1000, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replaces all loaded counters with database values. Updates committed
+     * while the queries run may be off by one until the next reconcile.
+     */
+    static void reconcileAll() {
+        List<Integer> loaded = new ArrayList<>();
+        for (Stripe s : STRIPE_TABLE) {
+            synchronized (s) {
+                loaded.addAll(s.counts.keySet());
+            }
+        }
+        if (loaded.isEmpty()) return;
+
+        rollOverIfNeeded();
+        Timestamp[] range = todayRange();
+
+        try (Connection conn = DbConfig.getConnection()) {
+            Map<Integer, Integer> calls = groupCounts(conn, ALL_TODAY_CALLS_SQL, range);
+            Map<Integer, Integer> open = groupCounts(conn, ALL_OPEN_COMPLAINTS_SQL);
+
+            for (int staffId : loaded) {
+                Stripe s = stripe(staffId);
+                synchronized (s) {
+                    int[] c = s.counts.get(staffId);
+                    if (c == null) continue;
+                    c[TODAY_CALLS] = calls.getOrDefault(staffId, 0);
+                    c[OPEN_COMPLAINTS] = open.getOrDefault(staffId, 0);
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace(); // keep the in-memory values; try again next time
+        }
+    }
+
+    // ---- Queries ----
+
+    static int queryTodayCalls(Connection conn, int staffId) throws SQLException {
+        Timestamp[] range = todayRange();
+        try (PreparedStatement ps = conn.prepareStatement(TODAY_CALLS_SQL)) {
+            ps.setInt(1, staffId);
+            ps.setTimestamp(2, range[0]);
+            ps.setTimestamp(3, range[1]);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt("Cnt") : 0;
+            }
+        }
+    }
+
+    static int queryOpenComplaints(Connection conn, int staffId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(OPEN_COMPLAINTS_SQL)) {
+            ps.setInt(1, staffId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt("Cnt") : 0;
+            }
+        }
+    }
+
+    private static Map<Integer, Integer> groupCounts(Connection conn, String sql, Timestamp... params)
+            throws SQLException {
+        Map<Integer, Integer> result = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setTimestamp(i + 1, params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.put(rs.getInt(1), rs.getInt("Cnt"));
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,93 @@
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * DashboardBenchmark
+ *
+ * Measures staff dashboard open latency with the real dashboard queries
+ * (StaffDashboardService, DailyCounters, CriticalComplaints): the four
+ * parts one after another vs. fanned out in parallel, both on pooled
+ * connections. This is the cold path; once loaded, three of the four parts
+ * are served from memory ("warm": what a dashboard open costs then).
+ * Prints avg/p50/p95 against the budget (-Drtf.dashboard.budgetMs).
+ *
+ * Run against a development database with a realistic amount of data:
+ *   java -cp build/classes:mssql-jdbc.jar -Drtf.db.url=... DashboardBenchmark <staffId> [iterations]
+ */
+public class DashboardBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: DashboardBenchmark <staffId> [iterations]");
+            return;
+        }
+        int staffId = Integer.parseInt(args[0]);
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        // Warm up JIT, pool and the server's plan cache
+        for (int i = 0; i < 10; i++) {
+            serial(staffId);
+            parallel(staffId);
+        }
+
+        long[] serial = new long[iterations];
+        long[] parallel = new long[iterations];
+        long[] warm = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            serial[i] = serial(staffId);
+            parallel[i] = parallel(staffId);
+            warm[i] = warm(staffId);
+        }
+
+        System.out.println("Dashboard open over " + iterations + " runs (budget "
+                + StaffDashboardService.BUDGET_MS + " ms):");
+        print("serial  ", serial);
+        print("parallel", parallel);
+        print("warm    ", warm);
+        System.out.println("Pool: " + DbConfig.getPoolStats());
+    }
+
+    private static long serial(int staffId) throws Exception {
+        long start = System.nanoTime();
+        try (Connection conn = DbConfig.getConnection()) {
+            StaffDashboardService.queryStaffInfo(conn, staffId);
+            DailyCounters.queryTodayCalls(conn, staffId);
+            DailyCounters.queryOpenComplaints(conn, staffId);
+            CriticalComplaints.load(conn);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long parallel(int staffId) {
+        long start = System.nanoTime();
+        CompletableFuture.allOf(
+                DbExecutor.supply(conn -> StaffDashboardService.queryStaffInfo(conn, staffId)),
+                DbExecutor.supply(conn -> DailyCounters.queryTodayCalls(conn, staffId)),
+                DbExecutor.supply(conn -> DailyCounters.queryOpenComplaints(conn, staffId)),
+                DbExecutor.supply(CriticalComplaints::load)
+        ).join();
+        return System.nanoTime() - start;
+    }
+
+    private static long warm(int staffId) {
+        long start = System.nanoTime();
+        CompletableFuture.allOf(
+                DbExecutor.supply(conn -> StaffDashboardService.queryStaffInfo(conn, staffId)),
+                DailyCounters.todayCalls(staffId),
+                DailyCounters.openComplaints(staffId),
+                CriticalComplaints.top(staffId)
+        ).join();
+        return System.nanoTime() - start;
+    }
+
+    private static void print(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double avg = Arrays.stream(sorted).average().orElse(0) / 1_000_000.0;
+        double p50 = sorted[sorted.length / 2] / 1_000_000.0;
+        double p95 = sorted[(int) (sorted.length * 0.95)] / 1_000_000.0;
+        System.out.printf("  %s avg=%.3f ms  p50=%.3f ms  p95=%.3f ms%s%n", label, avg, p50, p95,
+                p95 > StaffDashboardService.BUDGET_MS ? "  OVER BUDGET" : "");
+    }
+}
@@ -0,0 +1,107 @@
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * FeedBenchmark
+ *
+ * Measures what ChangeFeed costs and how quickly it delivers.
+ *
+ *   java -cp build/classes:mssql-jdbc.jar -Drtf.db.url=... FeedBenchmark query [iterations]
+ *
+ * Times the delta query at the current watermarks (nothing new: what every
+ * workstation pays on each poll), with the full overlap window of action
+ * rows. Prints avg/p50/p95.
+ *
+ *   java -cp ... FeedBenchmark watch [seconds]
+ *
+ * Runs the feed and prints every remote event as it arrives, with the feed's
+ * stats at the end. Close or escalate complaints from another workstation
+ * (or the customer application) meanwhile; an event should arrive within
+ * -Drtf.feed.minMs while changes keep coming, and within -Drtf.feed.maxMs
+ * after a quiet period.
+ */
+public class FeedBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "";
+        if (mode.equals("query")) {
+            query(args.length > 1 ? Integer.parseInt(args[1]) : 200);
+        } else if (mode.equals("watch")) {
+            watch(args.length > 1 ? Integer.parseInt(args[1]) : 60);
+        } else {
+            System.out.println("Usage: FeedBenchmark query [iterations] | watch [seconds]");
+        }
+    }
+
+    private static void query(int iterations) throws Exception {
+        long overlapMs = Long.getLong("rtf.feed.overlapSec", 30) * 1000;
+        long[] times = new long[iterations];
+        int rows = 0;
+        try (Connection conn = DbConfig.getConnection()) {
+            long[] marks = ChangeFeed.readWatermarks(conn);
+            int lastComplaint = (int) marks[0], lastCall = (int) marks[1];
+            Timestamp actionsFrom = new Timestamp(marks[2] - overlapMs);
+            List<Integer> noGaps = List.of();
+
+            for (int i = 0; i < 20; i++) { // warm up JIT and the server's plan cache
+                ChangeFeed.readDelta(conn, lastComplaint, noGaps, lastCall, noGaps, actionsFrom);
+            }
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                rows = ChangeFeed.readDelta(conn, lastComplaint, noGaps, lastCall, noGaps, actionsFrom).size();
+                times[i] = System.nanoTime() - start;
+            }
+        }
+
+        Arrays.sort(times);
+        long sum = 0;
+        for (long t : times) sum += t;
+        System.out.printf("delta query over %d runs (%d rows in the overlap window): "
+                        + "avg %.2f ms  p50 %.2f ms  p95 %.2f ms%n",
+                iterations, rows, sum / 1e6 / iterations,
+                times[iterations / 2] / 1e6, times[(int) (iterations * 0.95)] / 1e6);
+    }
+
+    private static void watch(int seconds) throws Exception {
+        long start = System.currentTimeMillis();
+        List<String> log = new ArrayList<>();
+        ComplaintEvents.subscribe(events -> {
+            for (ComplaintEvents.Event e : events) {
+                if (!e.isRemote()) continue;
+                String line = String.format("%7.1f s  %s", (System.currentTimeMillis() - start) / 1000.0, describe(e));
+                log.add(line);
+                System.out.println(line);
+            }
+        });
+        ChangeFeed.start();
+        System.out.println("Watching for " + seconds + " s ...");
+        Thread.sleep(seconds * 1000L);
+        System.out.println(log.size() + " remote events; " + ChangeFeed.getStats());
+    }
+
+    private static String describe(ComplaintEvents.Event e) {
+        if (e instanceof ComplaintEvents.ComplaintCreated) {
+            ComplaintEvents.ComplaintCreated c = (ComplaintEvents.ComplaintCreated) e;
+            return "created  #" + c.complaintId() + " staff " + c.assignedStaffId() + " \"" + c.title() + "\"";
+        } else if (e instanceof ComplaintEvents.ComplaintClosed) {
+            ComplaintEvents.ComplaintClosed c = (ComplaintEvents.ComplaintClosed) e;
+            return "closed   #" + c.complaintId() + " staff " + c.assignedStaffId() + " " + c.statusName();
+        } else if (e instanceof ComplaintEvents.StatusChanged) {
+            ComplaintEvents.StatusChanged c = (ComplaintEvents.StatusChanged) e;
+            return "status   #" + c.complaintId() + " " + c.statusName();
+        } else if (e instanceof ComplaintEvents.PriorityChanged) {
+            ComplaintEvents.PriorityChanged c = (ComplaintEvents.PriorityChanged) e;
+            return "priority #" + c.complaintId() + " " + c.priorityName();
+        } else if (e instanceof ComplaintEvents.ComplaintAssigned) {
+            ComplaintEvents.ComplaintAssigned c = (ComplaintEvents.ComplaintAssigned) e;
+            return "assigned #" + c.complaintId() + " staff " + c.staffId();
+        } else if (e instanceof ComplaintEvents.CallLogged) {
+            ComplaintEvents.CallLogged c = (ComplaintEvents.CallLogged) e;
+            return "call     #" + c.callId() + " staff " + c.staffId();
+        }
+        return e.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,158 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * KeywordAutomaton
+ *
+ * Aho-Corasick automaton that finds every occurrence of a set of keywords
+ * in one pass over the text, however many keywords there are. Used by
+ * ComplaintClassifier for urgent wording, category hints and complaint
+ * call topics.
+ *
+ * Keywords and text are compared after DuplicateDetector.normalize() (lower
+ * case, Turkish marks removed, single spaces), so "ACİL" matches "acil". A
+ * keyword only matches at the start of a word but may end inside one, so it
+ * works as a word stem: "yaralan" matches "yaralandı" and "yaralanma".
+ *
+ * The automaton is a full transition table (goto + failure links resolved
+ * at build time) over the characters that occur in the keywords; any other
+ * character goes back to the root. Immutable and thread-safe once built.
+ */
+final class KeywordAutomaton {
+
+    /** Receives each match: the keyword's index and the text offset just after it. */
+    interface MatchVisitor {
+        void match(int keyword, int end);
+    }
+
+    private final String[] keywords;
+    private final int[] classOf;        // char -> alphabet class, 0 = not in any keyword
+    private final int classes;
+    private final int[] next;           // state * classes + class -> state
+    private final int[] outStart;       // state -> range in outKeywords
+    private final int[] outKeywords;
+
+    /** @param keywords normalized or not; empty ones are ignored */
+    KeywordAutomaton(List<String> keywords) {
+        List<String> normalized = new ArrayList<>();
+        for (String k : keywords) {
+            String n = DuplicateDetector.normalize(k);
+            if (!n.isEmpty()) normalized.add(n);
+        }
+        this.keywords = normalized.toArray(new String[0]);
+
+        // Alphabet: the distinct characters of the keywords
+        char max = 0;
+        for (String k : this.keywords) {
+            for (int i = 0; i < k.length(); i++) max = (char) Math.max(max, k.charAt(i));
+        }
+        classOf = new int[max + 1];
+        int c = 1;
+        for (String k : this.keywords) {
+            for (int i = 0; i < k.length(); i++) {
+                if (classOf[k.charAt(i)] == 0) classOf[k.charAt(i)] = c++;
+            }
+        }
+        classes = c;
+
+        // Trie (-1 = no edge yet)
+        int capacity = 1;
+        for (String k : this.keywords) capacity += k.length();
+        int[] trie = new int[capacity * classes];
+        Arrays.fill(trie, -1);
+        List<List<Integer>> own = new ArrayList<>();
+        own.add(new ArrayList<>());
+        int states = 1;
+        for (int k = 0; k < this.keywords.length; k++) {
+            String keyword = this.keywords[k];
+            int s = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int edge = s * classes + classOf[keyword.charAt(i)];
+                if (trie[edge] < 0) {
+                    trie[edge] = states++;
+                    own.add(new ArrayList<>());
+                }
+                s = trie[edge];
+            }
+            own.get(s).add(k);
+        }
+
+        // Failure links, breadth first; missing edges become the failure state's edge
+        int[] fail = new int[states];
+        List<List<Integer>> out = new ArrayList<>(own);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int a = 0; a < classes; a++) {
+            int t = trie[a];
+            if (t > 0) {
+                fail[t] = 0;
+                queue.add(t);
+            } else {
+                trie[a] = 0;
+            }
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            List<Integer> merged = new ArrayList<>(own.get(s));
+            merged.addAll(out.get(fail[s]));
+            out.set(s, merged);
+            for (int a = 0; a < classes; a++) {
+                int t = trie[s * classes + a];
+                if (t >= 0) {
+                    fail[t] = trie[fail[s] * classes + a];
+                    queue.add(t);
+                } else {
+                    trie[s * classes + a] = trie[fail[s] * classes + a];
+                }
+            }
+        }
+        next = Arrays.copyOf(trie, states * classes);
+
+        outStart = new int[states + 1];
+        int total = 0;
+        for (int s = 0; s < states; s++) {
+            outStart[s] = total;
+            total += out.get(s).size();
+        }
+        outStart[states] = total;
+        outKeywords = new int[total];
+        for (int s = 0, i = 0; s < states; s++) {
+            for (int k : out.get(s)) outKeywords[i++] = k;
+        }
+    }
+
+    int keywordCount() {
+        return keywords.length;
+    }
+
+    String keyword(int index) {
+        return keywords[index];
+    }
+
+    /**
+     * Reports every keyword starting at a word start; `text` must already be
+     * DuplicateDetector.normalize()d.
+     */
+    void scan(String text, MatchVisitor visitor) {
+        int s = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            int a = ch < classOf.length ? classOf[ch] : 0;
+            s = next[s * classes + a];
+            for (int o = outStart[s]; o < outStart[s + 1]; o++) {
+                int k = outKeywords[o];
+                int start = i + 1 - keywords[k].length();
+                if (start == 0 || text.charAt(start - 1) == ' ') visitor.match(k, i + 1);
+            }
+        }
+    }
+
+    /** True if any keyword occurs in the (raw) text. */
+    boolean matchesAny(String text) {
+        boolean[] found = new boolean[1];
+        scan(DuplicateDetector.normalize(text), (keyword, end) -> found[0] = true);
+        return found[0];
+    }
+}
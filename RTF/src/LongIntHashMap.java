@@ -0,0 +1,167 @@
+import java.util.Arrays;
+
+/**
+ * LongIntHashMap
+ *
+ * Open-addressing hash map from primitive long keys to primitive int values
+ * (linear probing, Fibonacci hashing, no boxing). Used for indexes that hold
+ * one entry per customer, where a HashMap<Long, Integer> would cost several
+ * objects per entry.
+ *
+ * Key 0 is reserved as the empty-slot marker. Not thread-safe; callers
+ * guard it (see CallerIdIndex).
+ */
+public final class LongIntHashMap {
+
+    /** Called for every entry by forEach. */
+    public interface EntryVisitor {
+        void accept(long key, int value);
+    }
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int shift;      // 64 - log2(capacity)
+    private int resizeAt;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /** Value for the key, or missingValue if absent. */
+    public int get(long key, int missingValue) {
+        // Locals, so a reader racing a rehash sees one consistent array
+        // (CallerIdIndex re-validates such reads under its lock)
+        long[] k = keys;
+        int[] v = values;
+        int mask = k.length - 1;
+        int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(k.length)));
+        while (true) {
+            long current = k[i];
+            if (current == key) return i < v.length ? v[i] : missingValue;
+            if (current == 0) return missingValue;
+            i = (i + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return findSlot(key) >= 0;
+    }
+
+    /** Inserts or replaces; returns the previous value or missingValue. */
+    public int put(long key, int value, int missingValue) {
+        return insert(key, value, true, missingValue);
+    }
+
+    /** Inserts only if the key is absent; returns the existing value or missingValue. */
+    public int putIfAbsent(long key, int value, int missingValue) {
+        return insert(key, value, false, missingValue);
+    }
+
+    private int insert(long key, int value, boolean replace, int missingValue) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                int previous = values[i];
+                if (replace) values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return missingValue;
+    }
+
+    /**
+     * Removes the key; returns its value or missingValue. Later entries of
+     * the probe run move back into the gap, so no tombstones are left.
+     * Not for maps that are read without the caller's lock.
+     */
+    public int remove(long key, int missingValue) {
+        int i = findSlot(key);
+        if (i < 0) return missingValue;
+        int previous = values[i];
+        int mask = keys.length - 1;
+        int gap = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            // The entry at j may fill the gap if the gap lies between its home slot and j
+            if (((j - slot(keys[j])) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        size--;
+        return previous;
+    }
+
+    private int findSlot(long key) {
+        if (key == 0) return -1;
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key == 0) continue;
+            int i = slot(key);
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = oldValues[j];
+        }
+    }
+
+    public void forEach(EntryVisitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) visitor.accept(keys[i], values[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        size = 0;
+    }
+}
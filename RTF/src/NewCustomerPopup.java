@@ -249,24 +249,14 @@ public class NewCustomerPopup extends JDialog {
             return false;
         }
 
-        // Check username uniqueness in CustomerUsers
-        if (!isUsernameAvailable(username)) {
-            JOptionPane.showMessageDialog(this,
-                    "This username is already in use. Please choose another one.",
-                    "Validation Error",
-                    JOptionPane.WARNING_MESSAGE);
-            return false;
-        }
-
+        // Username uniqueness is checked in the background, in the save transaction
         return true;
     }
 
-    private boolean isUsernameAvailable(String username) {
+    private static boolean isUsernameAvailable(Connection conn, String username) throws SQLException {
         String sql = "SELECT COUNT(*) AS Cnt FROM CustomerUsers WHERE Username = ?";
 
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, username);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -274,10 +264,6 @@ public class NewCustomerPopup extends JDialog {
                     return cnt == 0;
                 }
             }
-        } catch (SQLException ex) {
-            // Eğer hata olursa, username'i kullanılabilir kabul etmek riskli; burada false döndürmek daha güvenli.
-            ex.printStackTrace();
-            return false;
         }
         return false;
     }
@@ -286,7 +272,8 @@ public class NewCustomerPopup extends JDialog {
     // Save logic (DB inserts)
     // --------------------------------------------------
     /**
-     * Transaction:
+     * Transaction (runs in the background via DbExecutor):
+     *  0) Check username is free in CustomerUsers
      *  1) INSERT INTO Customers
      *  2) INSERT INTO CustomerContactInfo
      *  3) INSERT INTO Address
@@ -316,103 +303,132 @@ public class NewCustomerPopup extends JDialog {
             else if (genderStr.contains("(M)")) gender = 'M';
             else gender = 'O';
         }
+        char genderCode = gender;
+
+        btnSave.setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+        DbExecutor.submit(conn -> {
+            // null → username already taken
+            if (!isUsernameAvailable(conn, username)) {
+                return null;
+            }
+            int customerId = insertCustomer(conn, firstName, lastName, genderCode, email, phone,
+                    country, city, address, postal, username, password);
+            CallerIdIndex.put(phone, customerId);
+            CustomerSearch.added(customerId, firstName, lastName, email, phone, city);
+            return customerId;
+        }, customerId -> {
+            btnSave.setEnabled(true);
+            setCursor(Cursor.getDefaultCursor());
+
+            if (customerId == null) {
+                JOptionPane.showMessageDialog(this,
+                        "This username is already in use. Please choose another one.",
+                        "Validation Error",
+                        JOptionPane.WARNING_MESSAGE);
+                return;
+            }
 
-        Connection conn = null;
-        PreparedStatement psCustomer = null;
-        PreparedStatement psContact  = null;
-        PreparedStatement psAddress  = null;
-        PreparedStatement psUser     = null;
-        ResultSet generatedKeys = null;
+            createdCustomerId = customerId;
+            createdCustomerName = firstName + " " + lastName;
+            createdUsername = username;
+
+            JOptionPane.showMessageDialog(this,
+                    "Customer created successfully.\n" +
+                    "CustomerID: " + customerId + "\nUsername: " + username,
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
+
+            dispose();
+        }, ex -> {
+            btnSave.setEnabled(true);
+            setCursor(Cursor.getDefaultCursor());
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                    "Error while creating customer:\n" + ex.getMessage(),
+                    "DB Error",
+                    JOptionPane.ERROR_MESSAGE);
+        });
+    }
 
+    private static int insertCustomer(Connection conn,
+                                      String firstName, String lastName, char gender,
+                                      String email, String phone,
+                                      String country, String city, String address, String postal,
+                                      String username, String password) throws SQLException {
+        conn.setAutoCommit(false);
         try {
-            conn = DbConfig.getConnection();
-            conn.setAutoCommit(false);
+            int customerId;
 
             // 1) Customers
             String sqlCustomer = """
                 INSERT INTO Customers (FirstName, LastName, Gender, CreatedAt)
                 VALUES (?, ?, ?, SYSDATETIME())
                 """;
-            psCustomer = conn.prepareStatement(sqlCustomer, Statement.RETURN_GENERATED_KEYS);
-            psCustomer.setString(1, firstName);
-            psCustomer.setString(2, lastName);
-            psCustomer.setString(3, String.valueOf(gender));
-            psCustomer.executeUpdate();
-
-            generatedKeys = psCustomer.getGeneratedKeys();
-            if (!generatedKeys.next()) {
-                throw new SQLException("Could not obtain generated CustomerID.");
+            try (PreparedStatement psCustomer = conn.prepareStatement(sqlCustomer, Statement.RETURN_GENERATED_KEYS)) {
+                psCustomer.setString(1, firstName);
+                psCustomer.setString(2, lastName);
+                psCustomer.setString(3, String.valueOf(gender));
+                psCustomer.executeUpdate();
+
+                try (ResultSet generatedKeys = psCustomer.getGeneratedKeys()) {
+                    if (!generatedKeys.next()) {
+                        throw new SQLException("Could not obtain generated CustomerID.");
+                    }
+                    customerId = generatedKeys.getInt(1);
+                }
             }
-            int customerId = generatedKeys.getInt(1);
 
             // 2) CustomerContactInfo
             String sqlContact = """
                 INSERT INTO CustomerContactInfo (CustomerID, Email, PhoneNumber)
                 VALUES (?, ?, ?)
                 """;
-            psContact = conn.prepareStatement(sqlContact);
-            psContact.setInt(1, customerId);
-            psContact.setString(2, email);
-            psContact.setString(3, phone);
-            psContact.executeUpdate();
+            try (PreparedStatement psContact = conn.prepareStatement(sqlContact)) {
+                psContact.setInt(1, customerId);
+                psContact.setString(2, email);
+                psContact.setString(3, phone);
+                psContact.executeUpdate();
+            }
 
             // 3) Address
             String sqlAddress = """
                 INSERT INTO Address (CustomerID, City, Country, AddressLine, PostalCode)
                 VALUES (?, ?, ?, ?, ?)
                 """;
-            psAddress = conn.prepareStatement(sqlAddress);
-            psAddress.setInt(1, customerId);
-            psAddress.setString(2, city.isEmpty() ? null : city);
-            psAddress.setString(3, country.isEmpty() ? null : country);
-            psAddress.setString(4, address.isEmpty() ? null : address);
-            psAddress.setString(5, postal.isEmpty() ? null : postal);
-            psAddress.executeUpdate();
+            try (PreparedStatement psAddress = conn.prepareStatement(sqlAddress)) {
+                psAddress.setInt(1, customerId);
+                psAddress.setString(2, city.isEmpty() ? null : city);
+                psAddress.setString(3, country.isEmpty() ? null : country);
+                psAddress.setString(4, address.isEmpty() ? null : address);
+                psAddress.setString(5, postal.isEmpty() ? null : postal);
+                psAddress.executeUpdate();
+            }
 
             // 4) CustomerUsers (username + password)
             String sqlUser = """
                 INSERT INTO CustomerUsers (CustomerID, Username, PasswordHash, Email)
                 VALUES (?, ?, ?, ?)
                 """;
-            psUser = conn.prepareStatement(sqlUser);
-            psUser.setInt(1, customerId);
-            psUser.setString(2, username);
-            // Şimdilik basit: PasswordHash kolonuna düz metin yazıyoruz.
-            // İstersen daha sonra SHA-256 vs. ekleyebilirsin.
-            psUser.setString(3, password);
-            psUser.setString(4, email);
-            psUser.executeUpdate();
+            try (PreparedStatement psUser = conn.prepareStatement(sqlUser)) {
+                psUser.setInt(1, customerId);
+                psUser.setString(2, username);
+                // Şimdilik basit: PasswordHash kolonuna düz metin yazıyoruz.
+                // İstersen daha sonra SHA-256 vs. ekleyebilirsin.
+                psUser.setString(3, password);
+                psUser.setString(4, email);
+                psUser.executeUpdate();
+            }
 
             conn.commit();
+            return customerId;
 
-            createdCustomerId = customerId;
-            createdCustomerName = firstName + " " + lastName;
-            createdUsername = username;
-
-            JOptionPane.showMessageDialog(this,
-                    "Customer created successfully.\n" +
-                    "CustomerID: " + customerId + "\nUsername: " + username,
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-
-            dispose();
-
-        } catch (SQLException ex) {
-            if (conn != null) {
-                try { conn.rollback(); } catch (SQLException ignore) {}
-            }
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Error while creating customer:\n" + ex.getMessage(),
-                    "DB Error",
-                    JOptionPane.ERROR_MESSAGE);
+        } catch (SQLException | RuntimeException ex) {
+            try { conn.rollback(); } catch (SQLException ignore) {}
+            throw ex;
         } finally {
-            try { if (generatedKeys != null) generatedKeys.close(); } catch (Exception ignore) {}
-            try { if (psUser != null) psUser.close(); } catch (Exception ignore) {}
-            try { if (psAddress != null) psAddress.close(); } catch (Exception ignore) {}
-            try { if (psContact != null) psContact.close(); } catch (Exception ignore) {}
-            try { if (psCustomer != null) psCustomer.close(); } catch (Exception ignore) {}
-            try { if (conn != null) conn.close(); } catch (Exception ignore) {}
+            conn.setAutoCommit(true);
         }
     }
 
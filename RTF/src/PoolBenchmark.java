@@ -0,0 +1,130 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * PoolBenchmark
+ *
+ * Measures login-to-dashboard latency (StaffLoginService.authenticate +
+ * the four StaffDashboardFrame queries, each on its own connection as the
+ * screens do) with direct DriverManager connections vs. the pool.
+ *
+ * Run against a local embedded database, e.g. H2:
+ *   java -cp build/classes:h2.jar -Drtf.db.url=jdbc:h2:mem:rtf;DB_CLOSE_DELAY=-1
+ *        -Drtf.db.user=sa -Drtf.db.password= PoolBenchmark 500 --setup
+ *
+ * --setup creates a minimal schema with one staff member and some calls.
+ */
+public class PoolBenchmark {
+
+    private interface ConnectionSource {
+        Connection open() throws SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        boolean setup = Arrays.asList(args).contains("--setup");
+
+        if (setup) {
+            createSchema();
+        }
+
+        // Warm up JIT and the pool
+        runLoginToDashboard(DbConfig::getConnection, 20);
+        runLoginToDashboard(DbConfig::openDirectConnection, 20);
+
+        long[] direct = runLoginToDashboard(DbConfig::openDirectConnection, iterations);
+        long[] pooled = runLoginToDashboard(DbConfig::getConnection, iterations);
+
+        System.out.println("Login-to-dashboard latency over " + iterations + " runs:");
+        print("direct (before)", direct);
+        print("pooled (after) ", pooled);
+        System.out.println("Pool: " + DbConfig.getPoolStats());
+    }
+
+    private static long[] runLoginToDashboard(ConnectionSource source, int iterations) throws SQLException {
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+
+            int staffId = queryInt(source, """
+                SELECT s.StaffID
+                FROM StaffLogins sl
+                JOIN Staff s ON sl.StaffID = s.StaffID
+                WHERE sl.Username = ? AND sl.PasswordHash = ?
+                """, "bench", "bench");
+
+            queryInt(source, """
+                SELECT COUNT(*)
+                FROM Staff s
+                LEFT JOIN Departments d ON s.DepartmentID = d.DepartmentID
+                LEFT JOIN StaffContactInfo sci ON s.StaffID = sci.StaffID
+                WHERE s.StaffID = ?
+                """, staffId);
+            queryInt(source, """
+                SELECT COUNT(*)
+                FROM Calls c
+                JOIN CallDetails cd ON c.CallID = cd.CallID
+                WHERE c.StaffID = ?
+                """, staffId);
+            queryInt(source, "SELECT COUNT(*) FROM Complaints WHERE IsActive = 1 AND AssignedStaffID = ?", staffId);
+            queryInt(source, "SELECT COUNT(*) FROM Complaints WHERE IsActive = 1 AND ComplaintPriorityID >= ?", 3);
+
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    private static int queryInt(ConnectionSource source, String sql, Object... params) throws SQLException {
+        try (Connection conn = source.open();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }
+    }
+
+    private static void print(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double avg = Arrays.stream(sorted).average().orElse(0) / 1_000_000.0;
+        double p50 = sorted[sorted.length / 2] / 1_000_000.0;
+        double p95 = sorted[(int) (sorted.length * 0.95)] / 1_000_000.0;
+        System.out.printf("  %s avg=%.3f ms  p50=%.3f ms  p95=%.3f ms%n", label, avg, p50, p95);
+    }
+
+    private static void createSchema() throws SQLException {
+        String[] ddl = {
+                "CREATE TABLE Departments (DepartmentID INT PRIMARY KEY, Name VARCHAR(100))",
+                "CREATE TABLE Staff (StaffID INT PRIMARY KEY, FirstName VARCHAR(50), LastName VARCHAR(50), "
+                        + "Role VARCHAR(50), DepartmentID INT)",
+                "CREATE TABLE StaffContactInfo (StaffID INT, Email VARCHAR(100), PhoneNumber VARCHAR(30))",
+                "CREATE TABLE StaffLogins (StaffID INT, Username VARCHAR(50), PasswordHash VARCHAR(100))",
+                "CREATE TABLE Calls (CallID INT PRIMARY KEY, StaffID INT)",
+                "CREATE TABLE CallDetails (CallID INT, StartTime TIMESTAMP)",
+                "CREATE TABLE Complaints (ComplaintID INT PRIMARY KEY, AssignedStaffID INT, "
+                        + "ComplaintPriorityID INT, IsActive INT)",
+                "INSERT INTO Departments VALUES (1, 'Call Center')",
+                "INSERT INTO Staff VALUES (1, 'Bench', 'Agent', 'Agent', 1)",
+                "INSERT INTO StaffContactInfo VALUES (1, 'bench@example.com', '0(555) 000 00 00')",
+                "INSERT INTO StaffLogins VALUES (1, 'bench', 'bench')"
+        };
+        try (Connection conn = DbConfig.openDirectConnection();
+             Statement st = conn.createStatement()) {
+            for (String sql : ddl) {
+                st.executeUpdate(sql);
+            }
+            for (int i = 1; i <= 1000; i++) {
+                st.executeUpdate("INSERT INTO Calls VALUES (" + i + ", 1)");
+                st.executeUpdate("INSERT INTO CallDetails VALUES (" + i + ", CURRENT_TIMESTAMP)");
+                st.executeUpdate("INSERT INTO Complaints VALUES (" + i + ", 1, " + (i % 4 + 1) + ", " + (i % 2) + ")");
+            }
+        }
+    }
+}
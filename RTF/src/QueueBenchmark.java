@@ -0,0 +1,193 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * QueueBenchmark
+ *
+ * Stress test of ComplaintWorkQueue: agents on their own connections claim
+ * from one queue until it is empty, for a growing number of agents. Checks
+ * that every waiting complaint was claimed exactly once and reports claims
+ * per second and claim latency.
+ *
+ * Run against a local embedded database, e.g. H2:
+ *   java -cp build/classes:h2.jar -Drtf.db.url=jdbc:h2:mem:rtf;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000
+ *        -Drtf.db.user=sa -Drtf.db.password= QueueBenchmark 20000 1,2,4,8,16,32 --setup
+ *
+ * --setup creates a minimal schema. Every fifth complaint is overflow (an
+ * "Open" complaint of an overloaded agent), every tenth is closed and must
+ * never be claimed; the rest are unassigned.
+ */
+public class QueueBenchmark {
+
+    private static final int OPEN_STATUS_ID = 1;
+    private static final int OVERLOADED_STAFF_ID = 9999;
+
+    public static void main(String[] args) throws Exception {
+        int complaints = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int[] agentCounts = args.length > 1
+                ? Arrays.stream(args[1].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[]{1, 2, 4, 8, 16, 32, 64};
+        boolean setup = Arrays.asList(args).contains("--setup");
+
+        if (setup) {
+            createSchema(complaints);
+        }
+
+        System.out.printf("%,d complaints (%,d waiting), on %s%n", complaints, waiting(complaints),
+                productName());
+        for (int agents : agentCounts) {
+            reset(complaints);
+            run(complaints, agents);
+        }
+    }
+
+    private static void run(int complaints, int agents) throws Exception {
+        AtomicIntegerArray claimCount = new AtomicIntegerArray(complaints + 1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long[][] latencies = new long[agents][];
+        int[] counts = new int[agents];
+        Set<Integer> overflowFrom = Set.of(OVERLOADED_STAFF_ID);
+
+        CountDownLatch ready = new CountDownLatch(agents);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int a = 0; a < agents; a++) {
+            int agent = a;
+            int staffId = a + 1;
+            Thread t = new Thread(() -> {
+                long[] nanos = new long[complaints];
+                int n = 0;
+                try (Connection conn = DbConfig.openDirectConnection()) {
+                    ready.countDown();
+                    start.await();
+                    while (true) {
+                        long t0 = System.nanoTime();
+                        ComplaintWorkQueue.Claim claim =
+                                ComplaintWorkQueue.claimNext(conn, staffId, OPEN_STATUS_ID, overflowFrom);
+                        if (claim == null) break;
+                        if (n == nanos.length) nanos = Arrays.copyOf(nanos, n * 2); // only with double claims
+                        nanos[n++] = System.nanoTime() - t0;
+                        claimCount.incrementAndGet(claim.complaintId());
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    ready.countDown();
+                }
+                latencies[agent] = Arrays.copyOf(nanos, n);
+                counts[agent] = n;
+            }, "agent-" + staffId);
+            threads.add(t);
+            t.start();
+        }
+
+        ready.await();
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread t : threads) t.join();
+        double seconds = (System.nanoTime() - t0) / 1e9;
+
+        if (failure.get() != null) {
+            System.out.printf("%3d agents: FAILED%n", agents);
+            failure.get().printStackTrace();
+            return;
+        }
+
+        // Exactly once: each waiting complaint claimed once, nothing else claimed
+        int missing = 0, duplicates = 0, wrong = 0;
+        for (int id = 1; id <= complaints; id++) {
+            int c = claimCount.get(id);
+            if (isClosed(id)) {
+                if (c > 0) wrong++;
+            } else if (c == 0) {
+                missing++;
+            } else if (c > 1) {
+                duplicates++;
+            }
+        }
+        int total = Arrays.stream(counts).sum();
+        int min = Arrays.stream(counts).min().orElse(0);
+        int max = Arrays.stream(counts).max().orElse(0);
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%3d agents: %,7.0f claims/s  p50=%6.2f ms  p99=%6.2f ms  per agent %d..%d  "
+                        + "%s (missing %d, double %d, closed %d)%n",
+                agents, total / seconds,
+                all.length == 0 ? 0 : all[all.length / 2] / 1e6,
+                all.length == 0 ? 0 : all[all.length * 99 / 100] / 1e6,
+                min, max,
+                missing == 0 && duplicates == 0 && wrong == 0 ? "exactly once" : "NOT EXACTLY ONCE",
+                missing, duplicates, wrong);
+    }
+
+    private static boolean isClosed(int id) {
+        return id % 10 == 0;
+    }
+
+    private static int waiting(int complaints) {
+        return complaints - complaints / 10;
+    }
+
+    private static String productName() throws SQLException {
+        try (Connection conn = DbConfig.openDirectConnection()) {
+            return conn.getMetaData().getDatabaseProductName();
+        }
+    }
+
+    /** Puts every complaint back to its starting state and drops the claims' action rows. */
+    private static void reset(int complaints) throws SQLException {
+        try (Connection conn = DbConfig.openDirectConnection();
+             Statement st = conn.createStatement()) {
+            st.executeUpdate("UPDATE Complaints SET AssignedStaffID = CASE WHEN MOD(ComplaintID, 5) = 0 THEN "
+                    + OVERLOADED_STAFF_ID + " ELSE NULL END");
+            st.executeUpdate("DELETE FROM ComplaintActions WHERE ActionType = '" + ChangeFeed.ASSIGN_ACTION + "'");
+        }
+    }
+
+    private static void createSchema(int complaints) throws SQLException {
+        String[] ddl = {
+                "CREATE TABLE ComplaintPriority (ComplaintPriorityID INT PRIMARY KEY, Name VARCHAR(50), Rank INT)",
+                "CREATE TABLE Complaints (ComplaintID INT PRIMARY KEY, AssignedStaffID INT, "
+                        + "ComplaintStatusID INT, ComplaintPriorityID INT, IsActive INT, CreatedAt TIMESTAMP)",
+                "CREATE INDEX IX_Complaints_Queue ON Complaints (IsActive, AssignedStaffID)",
+                "CREATE TABLE ComplaintActions (ActionID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                        + "ComplaintID INT, OldStatusID INT, NewStatusID INT, PerformedByID INT, "
+                        + "ActionType VARCHAR(20), ActionDate TIMESTAMP)",
+                "INSERT INTO ComplaintPriority VALUES (1, 'Low', 1)",
+                "INSERT INTO ComplaintPriority VALUES (2, 'Mid', 2)",
+                "INSERT INTO ComplaintPriority VALUES (3, 'High', 3)",
+                "INSERT INTO ComplaintPriority VALUES (4, 'Critical', 4)"
+        };
+        try (Connection conn = DbConfig.openDirectConnection()) {
+            try (Statement st = conn.createStatement()) {
+                for (String sql : ddl) {
+                    st.executeUpdate(sql);
+                }
+            }
+            long firstCreated = System.currentTimeMillis() - complaints; // one per millisecond, oldest first
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO Complaints VALUES (?, NULL, ?, ?, ?, ?)")) {
+                for (int id = 1; id <= complaints; id++) {
+                    ps.setInt(1, id);
+                    ps.setInt(2, OPEN_STATUS_ID);
+                    ps.setInt(3, id % 4 + 1);
+                    ps.setInt(4, isClosed(id) ? 0 : 1);
+                    ps.setTimestamp(5, new Timestamp(firstCreated + id));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+}
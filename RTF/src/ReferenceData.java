@@ -0,0 +1,298 @@
+import javax.swing.*;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * ReferenceData
+ *
+ * Process-wide cache of the small lookup tables. They are loaded once, in
+ * parallel, at startup and then served from memory: combo box models and
+ * name -> ID resolution no longer hit the database.
+ *
+ * Tables used:
+ *  - CallTypes, CallTopics, CallResults
+ *  - ComplaintCategory, ComplaintPriority, ComplaintStatus, ComplaintSources
+ *
+ * A table is reloaded in the background once it is older than the TTL
+ * (-Drtf.refdata.ttlMs, default 10 minutes); until the reload finishes the
+ * previous snapshot keeps being served. invalidate() forces a reload, e.g.
+ * after an admin edits a lookup table.
+ */
+public final class ReferenceData {
+
+    public enum Kind {
+        CALL_TYPES("SELECT CallTypeID, Name FROM CallTypes"),
+        CALL_TOPICS("SELECT CallTopicID, Name FROM CallTopics"),
+        CALL_RESULTS("SELECT CallResultID, Name FROM CallResults"),
+        COMPLAINT_CATEGORIES("SELECT ComplaintCategoryID, Name FROM ComplaintCategory"),
+        COMPLAINT_PRIORITIES("SELECT ComplaintPriorityID, Name, Rank FROM ComplaintPriority"),
+        COMPLAINT_STATUSES("SELECT ComplaintStatusID, Name FROM ComplaintStatus"),
+        COMPLAINT_SOURCES("SELECT ComplaintSourceID, Name FROM ComplaintSources");
+
+        private final String sql;
+
+        Kind(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    private static final long TTL_MS = Long.getLong("rtf.refdata.ttlMs", 10 * 60_000L);
+
+    private static final Map<Kind, Entry> ENTRIES = new EnumMap<>(Kind.class);
+
+    private ReferenceData() {
+    }
+
+    /** One lookup row (ID + display name), usable directly as a combo box item. */
+    public static final class Item {
+        private final int id;
+        private final String name;
+        private final int rank;
+
+        public Item(int id, String name) {
+            this(id, name, 0);
+        }
+
+        private Item(int id, String name, int rank) {
+            this.id = id;
+            this.name = name;
+            this.rank = rank;
+        }
+
+        public int id() {
+            return id;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /** ComplaintPriority.Rank; 0 for tables without a rank. */
+        public int rank() {
+            return rank;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /** Immutable snapshot of one lookup table. */
+    public static final class Table {
+        private final List<Item> items;           // ordered by name
+        private final Map<String, Item> byName;   // case-insensitive
+        private final Map<Integer, Item> byId;
+
+        private Table(List<Item> rows) {
+            List<Item> sorted = new ArrayList<>(rows);
+            sorted.sort((a, b) -> String.CASE_INSENSITIVE_ORDER.compare(
+                    String.valueOf(a.name), String.valueOf(b.name)));
+            Map<String, Item> names = new HashMap<>();
+            Map<Integer, Item> ids = new HashMap<>();
+            for (Item item : sorted) {
+                if (item.name != null) names.putIfAbsent(key(item.name), item);
+                ids.put(item.id, item);
+            }
+            this.items = Collections.unmodifiableList(sorted);
+            this.byName = names;
+            this.byId = ids;
+        }
+
+        public List<Item> items() {
+            return items;
+        }
+
+        public Item byId(int id) {
+            return byId.get(id);
+        }
+
+        /** ID of the first name that exists in the table, or null. */
+        public Integer idOf(String... names) {
+            for (String name : names) {
+                Item item = byName.get(key(name));
+                if (item != null) return item.id;
+            }
+            return null;
+        }
+
+        /** Row with the lowest rank (or lowest ID), or null if the table is empty. */
+        public Item first() {
+            Item best = null;
+            for (Item item : items) {
+                if (best == null || item.rank < best.rank
+                        || (item.rank == best.rank && item.id < best.id)) {
+                    best = item;
+                }
+            }
+            return best;
+        }
+
+        /** A fresh model per combo box; the items themselves are shared. */
+        public DefaultComboBoxModel<Item> toComboModel() {
+            return new DefaultComboBoxModel<>(items.toArray(new Item[0]));
+        }
+
+        private static String key(String name) {
+            return name.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final class Entry {
+        CompletableFuture<Table> current;   // last successful (or first pending) load
+        CompletableFuture<Table> reloading; // background refresh in flight
+        long loadedAt;
+    }
+
+    /** Starts loading all tables in parallel. Call once at application startup. */
+    public static void preload() {
+        for (Kind kind : Kind.values()) {
+            get(kind);
+        }
+    }
+
+    /**
+     * Returns the table, loading it on first use. Completes immediately when
+     * a snapshot is cached (even if a TTL refresh is running in the background).
+     */
+    public static CompletableFuture<Table> get(Kind kind) {
+        synchronized (ENTRIES) {
+            Entry entry = ENTRIES.computeIfAbsent(kind, k -> new Entry());
+
+            if (entry.current == null || entry.current.isCompletedExceptionally()) {
+                entry.current = load(kind, entry);
+                return entry.current;
+            }
+
+            boolean expired = entry.current.isDone()
+                    && System.currentTimeMillis() - entry.loadedAt > TTL_MS;
+            if (expired && entry.reloading == null) {
+                CompletableFuture<Table> refresh = load(kind, entry);
+                entry.reloading = refresh;
+                refresh.whenComplete((table, ex) -> {
+                    synchronized (ENTRIES) {
+                        if (entry.reloading == refresh) entry.reloading = null;
+                        if (ex == null) entry.current = refresh;
+                        else ex.printStackTrace(); // keep serving the old snapshot
+                    }
+                });
+            }
+            return entry.current;
+        }
+    }
+
+    /**
+     * Blocking variant for code that already runs on a DB worker thread
+     * (never call it on the EDT).
+     */
+    public static Table require(Kind kind) throws SQLException {
+        try {
+            return get(kind).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while loading " + kind, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            throw new SQLException("Could not load " + kind + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    /** Drops the cached snapshot; the next get() reloads it. */
+    public static void invalidate(Kind kind) {
+        synchronized (ENTRIES) {
+            ENTRIES.remove(kind);
+        }
+    }
+
+    public static void invalidateAll() {
+        synchronized (ENTRIES) {
+            ENTRIES.clear();
+        }
+    }
+
+    private static CompletableFuture<Table> load(Kind kind, Entry entry) {
+        return DbExecutor.supply(conn -> {
+            List<Item> rows = new ArrayList<>();
+            boolean ranked = kind == Kind.COMPLAINT_PRIORITIES;
+            try (PreparedStatement ps = conn.prepareStatement(kind.sql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Item(rs.getInt(1), rs.getString(2), ranked ? rs.getInt(3) : 0));
+                }
+            }
+            Table table = new Table(rows);
+            synchronized (ENTRIES) {
+                entry.loadedAt = System.currentTimeMillis();
+            }
+            return table;
+        });
+    }
+
+    // ---- Well-known rows, resolved by name (DB worker threads only) ----
+
+    /** ComplaintStatus "Open", falling back to ID 1 (the ID the screens used to hard-code). */
+    public static int openStatusId() throws SQLException {
+        return idOrFixed(Kind.COMPLAINT_STATUSES, 1, "Open");
+    }
+
+    /** ComplaintStatus "Closed", falling back to ID 3 (the ID the screens used to hard-code). */
+    public static int closedStatusId() throws SQLException {
+        return idOrFixed(Kind.COMPLAINT_STATUSES, 3, "Closed", "Close");
+    }
+
+    /** ComplaintStatus "Survey Completed", falling back to the first status. */
+    public static int surveyCompletedStatusId() throws SQLException {
+        return idOrFirst(Kind.COMPLAINT_STATUSES, "Survey Completed");
+    }
+
+    /** Default ComplaintPriority ("Mid"/"Medium"), falling back to the lowest rank. */
+    public static int defaultPriorityId() throws SQLException {
+        return idOrFirst(Kind.COMPLAINT_PRIORITIES, "Mid", "Medium", "Normal");
+    }
+
+    /**
+     * ComplaintSources "Call Center" (complaints opened from a phone call),
+     * falling back to ID 2 (the ID the call screen used to hard-code).
+     */
+    public static int callCenterSourceId() throws SQLException {
+        return idOrFixed(Kind.COMPLAINT_SOURCES, 2, "Call Center");
+    }
+
+    /** ComplaintSources row for complaints the customer files in the app. */
+    public static int customerAppSourceId() throws SQLException {
+        return idOrFirst(Kind.COMPLAINT_SOURCES, "Web", "Online", "Mobile App", "Customer App");
+    }
+
+    private static int idOrFixed(Kind kind, int fixedId, String... names) throws SQLException {
+        Table table = require(kind);
+        Integer id = table.idOf(names);
+        if (id != null) return id;
+        if (table.byId(fixedId) == null) {
+            throw new SQLException("No row named '" + names[0] + "' and no row with ID " + fixedId
+                    + " in " + kind + ": check the lookup table.");
+        }
+        return fixedId;
+    }
+
+    private static int idOrFirst(Kind kind, String... names) throws SQLException {
+        Table table = require(kind);
+        Integer id = table.idOf(names);
+        if (id != null) return id;
+        Item first = table.first();
+        if (first == null) {
+            throw new SQLException(kind + " is empty.");
+        }
+        return first.id;
+    }
+}
@@ -0,0 +1,273 @@
+import javax.swing.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ScreenPop
+ *
+ * Customer context for the call screen, loaded as soon as the caller is
+ * known: contact info, address, open complaints, the last calls and the
+ * latest satisfaction ratings.
+ *
+ *  - Each part is its own query on its own pooled connection
+ *    (DbExecutor.supply), so they run in parallel and the total is about
+ *    the slowest part rather than the sum.
+ *  - Each part is handed to the Listener on the EDT as it arrives.
+ *  - One instance per call screen. Parts are kept for
+ *    -Drtf.screenpop.ttlSec (default 60), so finding the same caller again
+ *    during the call does not re-read them. A failed part is read again
+ *    on the next load().
+ *
+ * Sizes: -Drtf.screenpop.calls (default 5), -Drtf.screenpop.ratings (default 3).
+ *
+ * Tables used:
+ *  - CustomerContactInfo, Address
+ *  - Complaints, ComplaintTexts (status and priority names via ReferenceData)
+ *  - Calls, CallDetails (topic and result names via ReferenceData)
+ *  - SatisfactionSurvey
+ */
+public final class ScreenPop {
+
+    private static final long TTL_MS = Long.getLong("rtf.screenpop.ttlSec", 60) * 1000;
+    private static final int CALLS = Integer.getInteger("rtf.screenpop.calls", 5);
+    private static final int RATINGS = Integer.getInteger("rtf.screenpop.ratings", 3);
+
+    private static final DateTimeFormatter WHEN = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    /** The parts of the context, each read by one query. */
+    public enum Part {
+        CONTACT("Contact"),
+        ADDRESS("Address"),
+        OPEN_COMPLAINTS("Open Complaints"),
+        RECENT_CALLS("Recent Calls"),
+        RATINGS("Satisfaction");
+
+        private final String title;
+
+        Part(String title) {
+            this.title = title;
+        }
+
+        public String title() {
+            return title;
+        }
+    }
+
+    /** Called on the EDT, once per part. */
+    public interface Listener {
+        void partLoaded(int customerId, Part part, List<String> lines);
+
+        void partFailed(int customerId, Part part, Exception e);
+    }
+
+    private static final class Entry {
+        final long loadedAt = System.currentTimeMillis();
+        final Map<Part, CompletableFuture<List<String>>> parts;
+
+        Entry(Map<Part, CompletableFuture<List<String>>> parts) {
+            this.parts = parts;
+        }
+    }
+
+    private final Map<Integer, Entry> cache = new HashMap<>(); // EDT only
+
+    /**
+     * Starts (or reuses) the reads for the customer. Must be called on the
+     * EDT; parts already loaded are delivered right away.
+     */
+    public void load(int customerId, Listener listener) {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(e -> now - e.loadedAt > TTL_MS);
+
+        Entry entry = cache.get(customerId);
+        if (entry == null) {
+            entry = new Entry(fetch(customerId));
+            cache.put(customerId, entry);
+        }
+
+        for (Map.Entry<Part, CompletableFuture<List<String>>> p : entry.parts.entrySet()) {
+            Part part = p.getKey();
+            CompletableFuture<List<String>> future = p.getValue();
+            if (future.isCompletedExceptionally()) {
+                future = DbExecutor.supply(conn -> read(conn, part, customerId));
+                p.setValue(future);
+            }
+            future.whenComplete((lines, e) -> SwingUtilities.invokeLater(() -> {
+                if (e == null) {
+                    listener.partLoaded(customerId, part, lines);
+                } else {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    listener.partFailed(customerId, part,
+                            cause instanceof Exception ? (Exception) cause : new Exception(cause));
+                }
+            }));
+        }
+    }
+
+    /** Forgets the customer's parts, e.g. after a change made during the call. */
+    public void invalidate(int customerId) {
+        cache.remove(customerId);
+    }
+
+    // ---- Background (DB workers) ----
+
+    /** Starts every part of the customer's context in parallel. */
+    static Map<Part, CompletableFuture<List<String>>> fetch(int customerId) {
+        Map<Part, CompletableFuture<List<String>>> parts = new EnumMap<>(Part.class);
+        for (Part part : Part.values()) {
+            parts.put(part, DbExecutor.supply(conn -> read(conn, part, customerId)));
+        }
+        return parts;
+    }
+
+    /** Reads one part, as display lines (empty if there is nothing to show). */
+    static List<String> read(Connection conn, Part part, int customerId) throws SQLException {
+        switch (part) {
+            case CONTACT:
+                return readContact(conn, customerId);
+            case ADDRESS:
+                return readAddress(conn, customerId);
+            case OPEN_COMPLAINTS:
+                return readOpenComplaints(conn, customerId);
+            case RECENT_CALLS:
+                return readRecentCalls(conn, customerId);
+            default:
+                return readRatings(conn, customerId);
+        }
+    }
+
+    private static List<String> readContact(Connection conn, int customerId) throws SQLException {
+        String sql = "SELECT PhoneNumber, Email FROM CustomerContactInfo WHERE CustomerID = ?";
+        List<String> lines = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, customerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String phone = rs.getString("PhoneNumber");
+                    String email = rs.getString("Email");
+                    if (phone != null) lines.add("Phone: " + phone);
+                    if (email != null) lines.add("Email: " + email);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static List<String> readAddress(Connection conn, int customerId) throws SQLException {
+        String sql = "SELECT AddressLine, PostalCode, City, Country FROM Address WHERE CustomerID = ?";
+        List<String> lines = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, customerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    StringBuilder line = new StringBuilder();
+                    for (String column : new String[]{"AddressLine", "PostalCode", "City", "Country"}) {
+                        String value = rs.getString(column);
+                        if (value == null || value.isBlank()) continue;
+                        if (line.length() > 0) line.append(", ");
+                        line.append(value.trim());
+                    }
+                    if (line.length() > 0) lines.add(line.toString());
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static List<String> readOpenComplaints(Connection conn, int customerId) throws SQLException {
+        String sql = """
+            SELECT c.ComplaintID, t.Title, c.ComplaintStatusID, c.ComplaintPriorityID, c.CreatedAt
+            FROM Complaints c
+            JOIN ComplaintTexts t ON t.ComplaintID = c.ComplaintID
+            WHERE c.CustomerID = ? AND c.IsActive = 1
+            ORDER BY c.CreatedAt DESC
+            """;
+        ReferenceData.Table statuses = ReferenceData.require(ReferenceData.Kind.COMPLAINT_STATUSES);
+        ReferenceData.Table priorities = ReferenceData.require(ReferenceData.Kind.COMPLAINT_PRIORITIES);
+
+        List<String> lines = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, customerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lines.add("#" + rs.getInt("ComplaintID") + " " + rs.getString("Title")
+                            + " (" + name(statuses, rs.getInt("ComplaintStatusID"))
+                            + ", " + name(priorities, rs.getInt("ComplaintPriorityID"))
+                            + ", " + when(rs.getTimestamp("CreatedAt")) + ")");
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static List<String> readRecentCalls(Connection conn, int customerId) throws SQLException {
+        String sql = """
+            SELECT TOP (?) cd.StartTime, cd.DurationSec, k.CallTopicID, k.CallResultID, cd.Notes
+            FROM Calls k
+            JOIN CallDetails cd ON cd.CallID = k.CallID
+            WHERE k.CustomerID = ?
+            ORDER BY cd.StartTime DESC
+            """;
+        ReferenceData.Table topics = ReferenceData.require(ReferenceData.Kind.CALL_TOPICS);
+        ReferenceData.Table results = ReferenceData.require(ReferenceData.Kind.CALL_RESULTS);
+
+        List<String> lines = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, CALLS);
+            ps.setInt(2, customerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String line = when(rs.getTimestamp("StartTime"))
+                            + " " + name(topics, rs.getInt("CallTopicID"))
+                            + " / " + name(results, rs.getInt("CallResultID"))
+                            + " (" + rs.getInt("DurationSec") + " s)";
+                    String notes = rs.getString("Notes");
+                    if (notes != null && !notes.isBlank()) line += " - " + notes.trim();
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static List<String> readRatings(Connection conn, int customerId) throws SQLException {
+        String sql = """
+            SELECT TOP (?) s.Rating, s.CreatedAt, s.ComplaintID
+            FROM SatisfactionSurvey s
+            JOIN Complaints c ON c.ComplaintID = s.ComplaintID
+            WHERE c.CustomerID = ?
+            ORDER BY s.CreatedAt DESC
+            """;
+        List<String> lines = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, RATINGS);
+            ps.setInt(2, customerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lines.add(rs.getInt("Rating") + "/5 on " + when(rs.getTimestamp("CreatedAt"))
+                            + " (complaint #" + rs.getInt("ComplaintID") + ")");
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static String name(ReferenceData.Table table, int id) {
+        ReferenceData.Item item = table.byId(id);
+        return item != null ? item.name() : "?";
+    }
+
+    private static String when(Timestamp ts) {
+        return ts == null ? "?" : ts.toLocalDateTime().format(WHEN);
+    }
+}
@@ -0,0 +1,81 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ScreenPopBenchmark
+ *
+ * Time from "caller known" to full customer context in the call screen:
+ * the parallel ScreenPop fan-out vs. the same five queries one after the
+ * other on one connection.
+ *
+ *   java -cp build/classes:mssql-jdbc.jar -Drtf.db.url=... ScreenPopBenchmark [customers]
+ *
+ * Uses the first [customers] (default 200) customers that have a phone
+ * number, after a warm-up pass that fills the connection pool. Prints
+ * avg/p50/p95 of the first part arriving and of all parts arrived (the
+ * target is under 100 ms on a warm pool).
+ */
+public class ScreenPopBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        List<Integer> customers = new ArrayList<>();
+        try (Connection conn = DbConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT TOP (?) CustomerID FROM CustomerContactInfo ORDER BY CustomerID")) {
+            ps.setInt(1, count);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) customers.add(rs.getInt(1));
+            }
+        }
+        if (customers.isEmpty()) {
+            System.out.println("No customers with contact info.");
+            return;
+        }
+        ReferenceData.preload();
+
+        for (int id : customers) { // warm up JIT, pool and the server's plan cache
+            CompletableFuture.allOf(ScreenPop.fetch(id).values().toArray(new CompletableFuture<?>[0])).join();
+        }
+
+        int n = customers.size();
+        long[] first = new long[n];
+        long[] all = new long[n];
+        long[] sequential = new long[n];
+        for (int i = 0; i < n; i++) {
+            int id = customers.get(i);
+
+            long start = System.nanoTime();
+            CompletableFuture<?>[] parts = ScreenPop.fetch(id).values().toArray(new CompletableFuture<?>[0]);
+            CompletableFuture.anyOf(parts).join();
+            first[i] = System.nanoTime() - start;
+            CompletableFuture.allOf(parts).join();
+            all[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            try (Connection conn = DbConfig.getConnection()) {
+                for (ScreenPop.Part part : ScreenPop.Part.values()) ScreenPop.read(conn, part, id);
+            }
+            sequential[i] = System.nanoTime() - start;
+        }
+
+        print("parallel, first part", first);
+        print("parallel, all parts ", all);
+        print("sequential          ", sequential);
+    }
+
+    private static void print(String label, long[] times) {
+        Arrays.sort(times);
+        long sum = 0;
+        for (long t : times) sum += t;
+        System.out.printf("%s over %d customers: avg %.2f ms  p50 %.2f ms  p95 %.2f ms%n",
+                label, times.length, sum / 1e6 / times.length,
+                times[times.length / 2] / 1e6, times[(int) (times.length * 0.95)] / 1e6);
+    }
+}
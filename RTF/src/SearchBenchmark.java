@@ -0,0 +1,167 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * SearchBenchmark
+ *
+ * Builds the complaint search index (TextIndex) over synthetic complaints
+ * and measures query latency (no database needed):
+ *
+ *   java -Xmx4g -cp build/classes SearchBenchmark [documents] [queries]
+ *
+ * Words follow a Zipf distribution over a generated vocabulary, so a few
+ * words are in most documents and most words are rare, like real complaint
+ * texts. Reports build time, heap used, p50/p95/p99 per query type, and the
+ * time to save and reload the index file.
+ */
+public class SearchBenchmark {
+
+    private static final int VOCABULARY = 60_000;
+    private static final int WORDS_PER_DOC = 40;
+    private static final String[] SYLLABLES = {
+            "ka", "ar", "ta", "fa", "tu", "ra", "ge", "ci", "ke", "me", "sı", "lo",
+            "ba", "şi", "de", "ne", "ço", "gü", "ya", "in", "ol", "ma", "se", "pa"
+    };
+
+    public static void main(String[] args) throws Exception {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        String[] words = vocabulary();
+        double[] cumulative = zipf(VOCABULARY, 1.0);
+        SplittableRandom random = new SplittableRandom(42);
+
+        System.out.printf("%,d documents, %d words each, vocabulary %,d%n", documents, WORDS_PER_DOC, VOCABULARY);
+
+        TextIndex index = new TextIndex();
+        long t0 = System.nanoTime();
+        List<TextIndex.Doc> batch = new ArrayList<>(5000);
+        int[] attrs = new int[TextIndex.ATTRS];
+        StringBuilder text = new StringBuilder();
+        for (int d = 1; d <= documents; d++) {
+            text.setLength(0);
+            for (int w = 0; w < WORDS_PER_DOC; w++) {
+                if (w > 0) text.append(' ');
+                text.append(words[sample(cumulative, random)]);
+            }
+            attrs[ComplaintSearch.ATTR_KIND] = ComplaintSearch.COMPLAINT;
+            attrs[ComplaintSearch.ATTR_ACTIVE] = random.nextInt(4) == 0 ? 1 : 0;
+            attrs[ComplaintSearch.ATTR_PRIORITY] = 1 + random.nextInt(3);
+            attrs[ComplaintSearch.ATTR_STAFF] = 1 + random.nextInt(200);
+            batch.add(new TextIndex.Doc(d, 1, text.toString(), attrs));
+            if (batch.size() == 5000) {
+                index.putAll(batch);
+                batch.clear();
+            }
+        }
+        index.putAll(batch);
+        long buildMs = (System.nanoTime() - t0) / 1_000_000;
+
+        System.gc();
+        Runtime rt = Runtime.getRuntime();
+        System.out.printf("build: %,d ms, %,d terms, heap used ~%,d MB%n",
+                buildMs, index.termCount(), (rt.totalMemory() - rt.freeMemory()) >> 20);
+
+        // Query words are drawn from the same distribution as the texts
+        TextIndex.Filter activeHigh = (key, a, offset) ->
+                a[offset + ComplaintSearch.ATTR_ACTIVE] == 1 && a[offset + ComplaintSearch.ATTR_PRIORITY] == 3;
+
+        measure("1 word", queries, index, () -> words[sample(cumulative, random)], false, null);
+        measure("1 frequent word", queries, index, () -> words[random.nextInt(20)], false, null);
+        measure("2 words (AND)", queries, index,
+                () -> words[sample(cumulative, random)] + " " + words[sample(cumulative, random)], false, null);
+        measure("2 words + filter", queries, index,
+                () -> words[sample(cumulative, random)] + " " + words[sample(cumulative, random)], false, activeHigh);
+        measure("prefix (3 chars)", queries, index,
+                () -> words[sample(cumulative, random)].substring(0, 3), true, null);
+        measure("word + prefix", queries, index,
+                () -> words[sample(cumulative, random)] + " " + words[sample(cumulative, random)].substring(0, 3),
+                true, null);
+
+        Path file = Files.createTempFile("search-benchmark", ".idx");
+        try {
+            t0 = System.nanoTime();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+                index.writeTo(out);
+            }
+            long saveMs = (System.nanoTime() - t0) / 1_000_000;
+
+            index = null;
+            System.gc();
+            t0 = System.nanoTime();
+            TextIndex loaded;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                loaded = TextIndex.readFrom(in);
+            }
+            long loadMs = (System.nanoTime() - t0) / 1_000_000;
+
+            System.out.printf("file: %,d MB, save %,d ms, load %,d ms (%,d documents)%n",
+                    Files.size(file) >> 20, saveMs, loadMs, loaded.size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void measure(String name, int queries, TextIndex index, Supplier<String> query,
+                                boolean prefix, TextIndex.Filter filter) {
+        // Warm-up
+        for (int i = 0; i < queries / 4; i++) {
+            index.search(query.get(), prefix, 50, filter);
+        }
+
+        long[] nanos = new long[queries];
+        long hits = 0;
+        for (int i = 0; i < queries; i++) {
+            String q = query.get();
+            long t = System.nanoTime();
+            hits += index.search(q, prefix, 50, filter).size();
+            nanos[i] = System.nanoTime() - t;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("  %-18s p50=%6.2f ms  p95=%6.2f ms  p99=%6.2f ms  max=%6.2f ms  (avg %.1f hits)%n",
+                name, nanos[queries / 2] / 1e6, nanos[queries * 95 / 100] / 1e6,
+                nanos[queries * 99 / 100] / 1e6, nanos[queries - 1] / 1e6, (double) hits / queries);
+    }
+
+    /** Distinct pseudo-words of 1-4 syllables; some with Turkish letters. */
+    private static String[] vocabulary() {
+        String[] words = new String[VOCABULARY];
+        int n = SYLLABLES.length;
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder sb = new StringBuilder();
+            int v = i;
+            do {
+                sb.append(SYLLABLES[v % n]);
+                v /= n;
+            } while (v > 0);
+            if (sb.length() < 4) sb.append("lar");
+            words[i] = sb.toString();
+        }
+        return words;
+    }
+
+    private static double[] zipf(int n, double s) {
+        double[] c = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, s);
+            c[i] = sum;
+        }
+        for (int i = 0; i < n; i++) c[i] /= sum;
+        return c;
+    }
+
+    private static int sample(double[] cumulative, SplittableRandom random) {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return i >= 0 ? i : Math.min(-i - 1, cumulative.length - 1);
+    }
+}
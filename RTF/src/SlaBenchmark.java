@@ -0,0 +1,115 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * SlaBenchmark
+ *
+ * Measures the TimingWheel behind SlaEscalator with a simulated clock (no
+ * database needed):
+ *
+ *   java -cp build/classes SlaBenchmark [timers] [days]
+ *
+ * Schedules the timers with deadlines spread over the given number of days
+ * (the rebuild SlaEscalator does on every reload), reports the time and the
+ * heap it takes, reschedules and cancels some of them, then advances the
+ * clock one tick at a time past the last deadline. Checks that every timer
+ * that was not cancelled fired exactly once, never early and at most one
+ * tick late.
+ */
+public class SlaBenchmark {
+
+    private static final long TICK_MS = 1000;
+
+    public static void main(String[] args) {
+        int timers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        SplittableRandom random = new SplittableRandom(15);
+        long start = 1_700_000_000_000L;
+        long horizon = days * 86_400_000L;
+
+        int[] keys = new int[timers];
+        long[] deadlines = new long[timers];
+        for (int i = 0; i < timers; i++) {
+            keys[i] = i + 1;
+            // Some already overdue, as after a reload
+            deadlines[i] = start - 3_600_000L + (long) (random.nextDouble() * (horizon + 3_600_000L));
+        }
+
+        long heapBefore = usedHeap();
+        long t0 = System.nanoTime();
+        TimingWheel wheel = new TimingWheel(TICK_MS, start, timers);
+        for (int i = 0; i < timers; i++) {
+            wheel.schedule(keys[i], deadlines[i], i);
+        }
+        double buildMs = (System.nanoTime() - t0) / 1e6;
+        long heap = usedHeap() - heapBefore;
+        System.out.printf("%,d timers over %d days: built in %,.0f ms (%,.0f timers/s), heap %,d KB (%.0f bytes/timer)%n",
+                timers, days, buildMs, timers / (buildMs / 1000), heap / 1024, (double) heap / timers);
+
+        // Escalations move a timer; closed complaints cancel it
+        int moves = timers / 5;
+        t0 = System.nanoTime();
+        for (int n = 0; n < moves; n++) {
+            int i = random.nextInt(timers);
+            deadlines[i] = start + (long) (random.nextDouble() * horizon);
+            wheel.schedule(keys[i], deadlines[i], i);
+        }
+        double moveMs = (System.nanoTime() - t0) / 1e6;
+
+        boolean[] cancelled = new boolean[timers];
+        int cancels = timers / 10;
+        t0 = System.nanoTime();
+        for (int n = 0; n < cancels; n++) {
+            int i = random.nextInt(timers);
+            if (wheel.cancel(keys[i])) cancelled[i] = true;
+        }
+        double cancelMs = (System.nanoTime() - t0) / 1e6;
+        System.out.printf("reschedule: %,.0f/s   cancel: %,.0f/s   %,d timers left%n",
+                moves / (moveMs / 1000), cancels / (cancelMs / 1000), wheel.size());
+
+        // Run the clock
+        int[] fired = new int[timers];
+        long[] firedAt = new long[timers];
+        long end = start + horizon + TICK_MS;
+        long[] now = {start};
+        t0 = System.nanoTime();
+        for (; now[0] <= end; now[0] += TICK_MS) {
+            wheel.advance(now[0], (key, value) -> {
+                fired[(int) value]++;
+                firedAt[(int) value] = now[0];
+            });
+        }
+        double runMs = (System.nanoTime() - t0) / 1e6;
+        long ticks = (end - start) / TICK_MS + 1;
+
+        int missing = 0, twice = 0, early = 0, late = 0, wrongCancel = 0;
+        long overdueStart = Math.floorDiv(start, TICK_MS) * TICK_MS;
+        for (int i = 0; i < timers; i++) {
+            if (cancelled[i]) {
+                if (fired[i] > 0) wrongCancel++;
+                continue;
+            }
+            if (fired[i] == 0) {
+                missing++;
+            } else if (fired[i] > 1) {
+                twice++;
+            }
+            // Overdue timers fire on the first tick
+            long due = Math.max(Math.floorDiv(deadlines[i], TICK_MS) * TICK_MS, overdueStart);
+            if (firedAt[i] < due) early++;
+            if (firedAt[i] > due + TICK_MS) late++;
+        }
+        System.out.printf("%,d ticks in %,.0f ms (%,.0f ns/tick), %,d left: %s "
+                        + "(missing %d, twice %d, early %d, late %d, cancelled but fired %d)%n",
+                ticks, runMs, runMs * 1e6 / ticks, wheel.size(),
+                missing + twice + early + late + wrongCancel == 0 ? "all on time" : "WRONG",
+                missing, twice, early, late, wrongCancel);
+        Arrays.fill(fired, 0); // keep the arrays reachable until here
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,465 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SlaEscalator
+ *
+ * Raises the priority of open complaints that miss their SLA. Every open
+ * complaint has one timer in a TimingWheel (one-second ticks): the time it
+ * reached its current priority plus the SLA of its category and priority.
+ * When the timer fires the complaint moves one rank up and gets the SLA of
+ * the new priority; at the highest rank it stays. Escalations are written
+ * in batches, each with a ComplaintActions row (ActionType "Escalate").
+ *
+ * SLA per priority, lowest rank first: 72 h, 24 h, 8 h, then 2 h for the
+ * remaining ranks below the highest. -Drtf.sla.minutes overrides them, per
+ * priority or per category and priority:
+ *   -Drtf.sla.minutes=2:480,5/2:120    (priority 2: 8 h; category 5 at priority 2: 2 h)
+ *
+ * The wheel is built from the database at start() and again every
+ * -Drtf.sla.reloadMin minutes (default 15), which picks up complaints
+ * opened, closed or re-prioritised elsewhere; opened() and closed() keep it
+ * current in between for this workstation. The escalation UPDATE only
+ * applies if the priority is still the one the timer was set for, so
+ * several workstations running the escalator never escalate a complaint
+ * twice. -Drtf.sla.enabled=false turns it off.
+ *
+ * Escalations are published as PriorityChanged events; complaints opened,
+ * closed or escalated on other workstations arrive the same way (ChangeFeed)
+ * and keep the wheel current between reloads.
+ *
+ * All wheel access happens on the escalator thread.
+ *
+ * Tables used:
+ *  - Complaints, ComplaintTexts (CreatedAt)
+ *  - ComplaintActions (last escalation; escalation rows)
+ *  - ComplaintPriority (via ReferenceData)
+ */
+public final class SlaEscalator {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("rtf.sla.enabled", "true"));
+    private static final long RELOAD_MINUTES = Long.getLong("rtf.sla.reloadMin", 15);
+    private static final int MAX_PER_TICK = Integer.getInteger("rtf.sla.maxPerTick", 5000);
+    private static final Integer PERFORMED_BY = Integer.getInteger("rtf.sla.staffId"); // null = no staff
+    private static final long TICK_MS = 1000;
+    private static final long RETRY_MS = 60_000;
+    private static final int BATCH = 500;
+    private static final long[] DEFAULT_HOURS = {72, 24, 8, 2};
+
+    static final String ESCALATE_ACTION = "Escalate";
+
+    private static final String LOAD_SQL = """
+        SELECT c.ComplaintID, c.ComplaintCategoryID, c.ComplaintPriorityID,
+               t.CreatedAt, e.EscalatedAt
+        FROM Complaints c
+        LEFT JOIN ComplaintTexts t ON t.ComplaintID = c.ComplaintID
+        LEFT JOIN (SELECT ComplaintID, MAX(ActionDate) AS EscalatedAt
+                   FROM ComplaintActions
+                   WHERE ActionType = '""" + ESCALATE_ACTION + """
+        '
+                   GROUP BY ComplaintID) e ON e.ComplaintID = c.ComplaintID
+        WHERE c.IsActive = 1
+        """;
+
+    // Only if nobody changed the priority (or closed the complaint) since the timer was set
+    private static final String ESCALATE_SQL = """
+        UPDATE Complaints
+        SET ComplaintPriorityID = ?
+        WHERE ComplaintID = ?
+          AND IsActive = 1
+          AND ComplaintPriorityID = ?
+        """;
+
+    private static final String INSERT_ACTION_SQL = """
+        INSERT INTO ComplaintActions
+            (ComplaintID, OldStatusID, NewStatusID, PerformedByID, ActionType, ActionDate)
+        SELECT ComplaintID, ComplaintStatusID, ComplaintStatusID, ?, ?, SYSDATETIME()
+        FROM Complaints
+        WHERE ComplaintID = ?
+        """;
+
+    /** SLA durations and the escalation ladder, from ComplaintPriority ranks. */
+    static final class Policy {
+        final int defaultPriorityId;
+        private final Map<Integer, Integer> nextPriority = new HashMap<>();
+        private final Map<Integer, Long> priorityMs = new HashMap<>();
+        private final Map<Long, Long> categoryPriorityMs = new HashMap<>();
+        private final Map<Integer, String> names = new HashMap<>();
+
+        Policy(List<ReferenceData.Item> priorities, int defaultPriorityId, String overrides) {
+            this.defaultPriorityId = defaultPriorityId;
+
+            List<ReferenceData.Item> byRank = new ArrayList<>(priorities);
+            byRank.sort((a, b) -> Integer.compare(a.rank(), b.rank()));
+            int step = 0;
+            for (int i = 0; i < byRank.size(); i++) {
+                ReferenceData.Item item = byRank.get(i);
+                names.put(item.id(), item.name());
+                if (i > 0 && item.rank() > byRank.get(i - 1).rank()) step++;
+                // The next priority is the first one of a strictly higher rank
+                for (int j = i + 1; j < byRank.size(); j++) {
+                    if (byRank.get(j).rank() > item.rank()) {
+                        nextPriority.put(item.id(), byRank.get(j).id());
+                        break;
+                    }
+                }
+                long hours = DEFAULT_HOURS[Math.min(step, DEFAULT_HOURS.length - 1)];
+                priorityMs.put(item.id(), hours * 3_600_000L);
+            }
+
+            for (String part : overrides.split(",")) {
+                int colon = part.indexOf(':');
+                if (colon <= 0) continue;
+                try {
+                    long ms = Long.parseLong(part.substring(colon + 1).trim()) * 60_000L;
+                    String key = part.substring(0, colon).trim();
+                    int slash = key.indexOf('/');
+                    if (slash < 0) {
+                        priorityMs.put(Integer.parseInt(key), ms);
+                    } else {
+                        categoryPriorityMs.put(pack(Integer.parseInt(key.substring(0, slash).trim()),
+                                Integer.parseInt(key.substring(slash + 1).trim())), ms);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // skip malformed entries
+                }
+            }
+        }
+
+        /** Priority one rank up, or null at the highest rank. */
+        Integer next(int priorityId) {
+            return nextPriority.get(priorityId);
+        }
+
+        String name(int priorityId) {
+            return names.get(priorityId);
+        }
+
+        /** Time allowed at this priority, or -1 if it does not escalate further. */
+        long slaMs(int categoryId, int priorityId) {
+            if (!nextPriority.containsKey(priorityId)) return -1;
+            Long ms = categoryPriorityMs.get(pack(categoryId, priorityId));
+            if (ms == null) ms = priorityMs.get(priorityId);
+            return ms != null ? ms : -1;
+        }
+    }
+
+    /** Open complaints read from the database, with their deadlines. */
+    private static final class Snapshot {
+        final Policy policy;
+        int size;
+        int[] ids = new int[1024];
+        long[] deadlines = new long[1024];
+        long[] values = new long[1024];
+
+        Snapshot(Policy policy) {
+            this.policy = policy;
+        }
+
+        void add(int id, long deadline, long value) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                deadlines = Arrays.copyOf(deadlines, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            ids[size] = id;
+            deadlines[size] = deadline;
+            values[size] = value;
+            size++;
+        }
+    }
+
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "sla-escalator");
+                t.setDaemon(true);
+                return t;
+            });
+
+    // Escalator thread only
+    private static TimingWheel wheel;
+    private static Policy policy;
+    private static boolean reloading;
+    private static final List<Runnable> replay = new ArrayList<>(); // changes made while a reload runs
+
+    private static volatile boolean started;
+    private static volatile int timerCount;
+    private static final AtomicLong ESCALATED = new AtomicLong();
+
+    private SlaEscalator() {
+    }
+
+    /** Loads the open complaints and starts the clock. Call once at application startup. */
+    public static synchronized void start() {
+        if (started || !ENABLED) return;
+        started = true;
+        SCHEDULER.execute(SlaEscalator::reload);
+        SCHEDULER.scheduleWithFixedDelay(SlaEscalator::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        if (RELOAD_MINUTES > 0) {
+            SCHEDULER.scheduleWithFixedDelay(SlaEscalator::reload,
+                    RELOAD_MINUTES, RELOAD_MINUTES, TimeUnit.MINUTES);
+        }
+
+        // Other workstations (ChangeFeed); this one calls the hooks directly
+        ComplaintEvents.subscribe(events -> {
+            for (ComplaintEvents.Event e : events) {
+                if (!e.isRemote()) continue;
+                if (e instanceof ComplaintEvents.ComplaintCreated) {
+                    opened(((ComplaintEvents.ComplaintCreated) e).complaintId(), null);
+                } else if (e instanceof ComplaintEvents.ComplaintClosed) {
+                    closed(((ComplaintEvents.ComplaintClosed) e).complaintId());
+                } else {
+                    ComplaintEvents.PriorityChanged changed = (ComplaintEvents.PriorityChanged) e;
+                    priorityChanged(changed.complaintId(), changed.priorityId());
+                }
+            }
+        }, ComplaintEvents.ComplaintCreated.class, ComplaintEvents.ComplaintClosed.class,
+                ComplaintEvents.PriorityChanged.class);
+    }
+
+    /** Call after a complaint was committed with the default priority (e.g. from a call). */
+    public static void opened(int complaintId, Integer categoryId) {
+        if (!started) return;
+        long now = System.currentTimeMillis();
+        int category = categoryId != null ? categoryId : 0;
+        SCHEDULER.execute(() -> change(() -> schedule(complaintId, category, policy.defaultPriorityId, now)));
+    }
+
+    /** Call after a complaint was closed (committed). */
+    public static void closed(int complaintId) {
+        if (!started) return;
+        SCHEDULER.execute(() -> change(() -> wheel.cancel(complaintId)));
+    }
+
+    /**
+     * Restarts the SLA of a complaint escalated outside the escalator (another
+     * workstation, or ComplaintClassifier for urgent wording).
+     */
+    public static void priorityChanged(int complaintId, int priorityId) {
+        if (!started) return;
+        long now = System.currentTimeMillis();
+        SCHEDULER.execute(() -> change(() -> {
+            long value = wheel.value(complaintId, -1);
+            if (value != -1) schedule(complaintId, categoryOf(value), priorityId, now);
+        }));
+    }
+
+    /** For diagnostics: timers, escalations so far. */
+    public static String getStats() {
+        return "timers=" + timerCount + " escalated=" + ESCALATED.get();
+    }
+
+    // ---- Escalator thread ----
+
+    /** Applies a change now (if loaded) and again after a running reload installs its snapshot. */
+    private static void change(Runnable op) {
+        if (wheel != null) op.run();
+        if (reloading) replay.add(op);
+    }
+
+    private static void schedule(int complaintId, int categoryId, int priorityId, long since) {
+        long sla = policy.slaMs(categoryId, priorityId);
+        if (sla < 0) {
+            wheel.cancel(complaintId); // highest rank: nothing to escalate to
+        } else {
+            wheel.schedule(complaintId, since + sla, pack(categoryId, priorityId));
+        }
+    }
+
+    private static void reload() {
+        if (reloading) return;
+        reloading = true;
+        replay.clear();
+        DbExecutor.supply(SlaEscalator::load).whenComplete((snapshot, ex) ->
+                SCHEDULER.execute(() -> {
+                    if (ex != null) {
+                        ex.printStackTrace(); // keep the current timers
+                    } else {
+                        install(snapshot);
+                    }
+                    replay.clear();
+                    reloading = false;
+                }));
+    }
+
+    private static void install(Snapshot s) {
+        TimingWheel w = new TimingWheel(TICK_MS, System.currentTimeMillis(), s.size + s.size / 4);
+        for (int i = 0; i < s.size; i++) {
+            w.schedule(s.ids[i], s.deadlines[i], s.values[i]);
+        }
+        wheel = w;
+        policy = s.policy;
+        for (Runnable op : replay) op.run();
+        timerCount = wheel.size();
+    }
+
+    private static void tick() {
+        if (wheel == null) return;
+        try {
+            long now = System.currentTimeMillis();
+            Snapshot due = new Snapshot(policy);
+            wheel.advance(now, (id, value) -> due.add(id, now, value));
+
+            // A backlog (e.g. after downtime) is spread over the following ticks
+            for (int i = MAX_PER_TICK; i < due.size; i++) {
+                wheel.schedule(due.ids[i], now, due.values[i]);
+            }
+            int n = Math.min(due.size, MAX_PER_TICK);
+            for (int from = 0; from < n; from += BATCH) {
+                escalate(due, from, Math.min(n, from + BATCH), now);
+            }
+            timerCount = wheel.size();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void escalate(Snapshot due, int from, int to, long now) {
+        int n = to - from;
+        int[] ids = new int[n];
+        int[] categories = new int[n];
+        int[] oldPriorities = new int[n];
+        int[] newPriorities = new int[n];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int priority = priorityOf(due.values[i]);
+            Integer next = policy.next(priority);
+            if (next == null) continue;
+            ids[count] = due.ids[i];
+            categories[count] = categoryOf(due.values[i]);
+            oldPriorities[count] = priority;
+            newPriorities[count] = next;
+            count++;
+        }
+        if (count == 0) return;
+        int batchSize = count;
+
+        boolean[] escalated;
+        try {
+            escalated = DbExecutor.supply(conn -> write(conn, batchSize, ids, oldPriorities, newPriorities)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            e.printStackTrace();
+            // Try again later with the same priorities
+            for (int i = 0; i < batchSize; i++) {
+                long value = pack(categories[i], oldPriorities[i]);
+                int id = ids[i];
+                change(() -> wheel.schedule(id, now + RETRY_MS, value));
+            }
+            return;
+        }
+
+        for (int i = 0; i < batchSize; i++) {
+            // Not escalated: closed or re-prioritised elsewhere; the next reload has the new state
+            if (!escalated[i]) continue;
+            int id = ids[i], category = categories[i], priority = newPriorities[i];
+            change(() -> schedule(id, category, priority, now));
+            ComplaintSearch.complaintPriorityChanged(id, priority);
+            CriticalComplaints.priorityChanged(id, priority);
+            ComplaintEvents.publish(new ComplaintEvents.PriorityChanged(id, priority, policy.name(priority)));
+            ESCALATED.incrementAndGet();
+        }
+    }
+
+    // ---- Database ----
+
+    private static Snapshot load(Connection conn) throws SQLException {
+        Policy p = new Policy(ReferenceData.require(ReferenceData.Kind.COMPLAINT_PRIORITIES).items(),
+                ReferenceData.defaultPriorityId(), System.getProperty("rtf.sla.minutes", ""));
+        Snapshot s = new Snapshot(p);
+        long now = System.currentTimeMillis();
+
+        try (PreparedStatement ps = conn.prepareStatement(LOAD_SQL)) {
+            ps.setFetchSize(10_000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("ComplaintID");
+                    int category = rs.getInt("ComplaintCategoryID"); // 0 if NULL
+                    int priority = rs.getInt("ComplaintPriorityID");
+                    long sla = p.slaMs(category, priority);
+                    if (sla < 0) continue;
+
+                    // The clock for the current priority started at the last escalation
+                    Timestamp escalatedAt = rs.getTimestamp("EscalatedAt");
+                    Timestamp createdAt = rs.getTimestamp("CreatedAt");
+                    long since = escalatedAt != null ? escalatedAt.getTime()
+                            : createdAt != null ? createdAt.getTime() : now;
+                    s.add(id, since + sla, pack(category, priority));
+                }
+            }
+        }
+        return s;
+    }
+
+    /** @return per complaint, whether it was escalated (and its action row written) */
+    private static boolean[] write(Connection conn, int n, int[] ids, int[] oldPriorities, int[] newPriorities)
+            throws SQLException {
+        boolean[] escalated = new boolean[n];
+        conn.setAutoCommit(false);
+        try {
+            int[] counts;
+            try (PreparedStatement ps = conn.prepareStatement(ESCALATE_SQL)) {
+                for (int i = 0; i < n; i++) {
+                    ps.setInt(1, newPriorities[i]);
+                    ps.setInt(2, ids[i]);
+                    ps.setInt(3, oldPriorities[i]);
+                    ps.addBatch();
+                }
+                counts = ps.executeBatch();
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_ACTION_SQL)) {
+                boolean any = false;
+                for (int i = 0; i < n; i++) {
+                    if (counts[i] <= 0 && counts[i] != Statement.SUCCESS_NO_INFO) continue;
+                    escalated[i] = true;
+                    if (PERFORMED_BY != null) ps.setInt(1, PERFORMED_BY);
+                    else ps.setNull(1, Types.INTEGER);
+                    ps.setString(2, ESCALATE_ACTION);
+                    ps.setInt(3, ids[i]);
+                    ps.addBatch();
+                    any = true;
+                }
+                if (any) ps.executeBatch();
+            }
+
+            conn.commit();
+            return escalated;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // ---- Timer values: category in the high half, priority in the low half ----
+
+    static long pack(int categoryId, int priorityId) {
+        return ((long) categoryId << 32) | (priorityId & 0xFFFFFFFFL);
+    }
+
+    static int categoryOf(long value) {
+        return (int) (value >>> 32);
+    }
+
+    static int priorityOf(long value) {
+        return (int) value;
+    }
+}
@@ -1,7 +1,7 @@
 import javax.swing.*;
 import java.awt.*;
-import java.sql.*;
-import java.util.ArrayList;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.List;
 
 public class StaffDashboardFrame extends JFrame {
@@ -21,8 +21,13 @@ public class StaffDashboardFrame extends JFrame {
     private JList<String> listCriticalComplaints;
     private DefaultListModel<String> criticalListModel;
 
+    private JButton btnComplaintQueue;
     private JButton btnCallManagement;
     private JButton btnCustomerSearch;
+    private JButton btnComplaintSearch;
+
+    // Loads and refreshes the dashboard parts in the background
+    private final StaffDashboardService dashboard;
 
     public StaffDashboardFrame(StaffUser staff) {
         this.staff = staff;
@@ -31,10 +36,48 @@ public class StaffDashboardFrame extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         initComponents();
-        loadStaffInfo();          // Staff + StaffContactInfo + Departments
-        loadTodayCallCount();     // Calls (+ CallDetails)
-        loadOpenComplaintCount(); // Complaints (IsActive = 1)
-        loadCriticalComplaints(); // Complaints + ComplaintPriority (+ ComplaintTexts)
+
+        // Staff info, today's calls, open complaints, critical complaints:
+        // fetched in parallel, each label filled as its part arrives
+        dashboard = new StaffDashboardService(staff.getStaffId(), new StaffDashboardService.Listener() {
+            public void staffInfoLoaded(String[] info) {
+                showStaffInfo(info);
+            }
+
+            public void todayCallsLoaded(int count) {
+                lblTodayCalls.setText("Today's call count: " + count);
+            }
+
+            public void openComplaintsLoaded(int count) {
+                lblOpenComplaints.setText("Open complaint count: " + count);
+            }
+
+            public void criticalComplaintsLoaded(List<String> items) {
+                showCriticalComplaints(items);
+            }
+
+            public void partFailed(StaffDashboardService.Part part, Exception e) {
+                showPartError(part, e);
+            }
+        });
+        dashboard.loadAll();
+        dashboard.startAutoRefresh();
+
+        // Calls and complaints saved by other screens (and priorities raised by the classifier,
+        // the SLA escalator or the desk): counters and critical list, from memory
+        ComplaintEvents.subscribe(this, events -> dashboard.refreshFromMemory(),
+                ComplaintEvents.CallLogged.class,
+                ComplaintEvents.ComplaintCreated.class,
+                ComplaintEvents.ComplaintAssigned.class,
+                ComplaintEvents.PriorityChanged.class,
+                ComplaintEvents.ComplaintClosed.class);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                dashboard.stop();
+            }
+        });
 
         pack();
         setLocationRelativeTo(null);
@@ -58,8 +101,8 @@ public class StaffDashboardFrame extends JFrame {
         infoPanel.add(lblPhone);
 
         // Middle: summary counters
-        lblTodayCalls = new JLabel("Today's call count: 0");
-        lblOpenComplaints = new JLabel("Open complaint count: 0");
+        lblTodayCalls = new JLabel("Today's call count: (loading...)");
+        lblOpenComplaints = new JLabel("Open complaint count: (loading...)");
 
         JPanel statsPanel = new JPanel(new GridLayout(2, 1, 2, 2));
         statsPanel.setBorder(BorderFactory.createTitledBorder("Summary"));
@@ -68,6 +111,7 @@ public class StaffDashboardFrame extends JFrame {
 
         // Critical complaints list
         criticalListModel = new DefaultListModel<>();
+        criticalListModel.addElement("Loading...");
         listCriticalComplaints = new JList<>(criticalListModel);
 
         JScrollPane scrollCritical = new JScrollPane(listCriticalComplaints);
@@ -75,25 +119,38 @@ public class StaffDashboardFrame extends JFrame {
                 BorderFactory.createTitledBorder("Critical complaints (high priority, open)")
         );
 
-        // Buttons (Complaint Queue button removed)
+        // Buttons
+        btnComplaintQueue = new JButton("Complaint Queue");
         btnCallManagement = new JButton("Call Management");
         btnCustomerSearch = new JButton("Customer Search");
+        btnComplaintSearch = new JButton("Complaint Search");
+
+        btnComplaintQueue.addActionListener(e -> {
+            ComplaintListFrame clf = new ComplaintListFrame(staff);
+            clf.setVisible(true);
+        });
 
         btnCallManagement.addActionListener(e -> {
             CallProcessingFrame cpf = new CallProcessingFrame(staff);
             cpf.setVisible(true);
         });
 
-        btnCustomerSearch.addActionListener(e ->
-                JOptionPane.showMessageDialog(this,
-                        "Customer Search screen will be implemented later.\n" +
-                                "(Will use: Customers, CustomerContactInfo, Address, Calls, Complaints, etc.)")
-        );
+        btnCustomerSearch.addActionListener(e -> {
+            CustomerSearchFrame csf = new CustomerSearchFrame(staff);
+            csf.setVisible(true);
+        });
+
+        btnComplaintSearch.addActionListener(e -> {
+            ComplaintSearchFrame csf = new ComplaintSearchFrame(staff);
+            csf.setVisible(true);
+        });
 
-        JPanel buttonPanel = new JPanel(new GridLayout(2, 1, 5, 5));
+        JPanel buttonPanel = new JPanel(new GridLayout(4, 1, 5, 5));
         buttonPanel.setBorder(BorderFactory.createTitledBorder("Actions"));
+        buttonPanel.add(btnComplaintQueue);
         buttonPanel.add(btnCallManagement);
         buttonPanel.add(btnCustomerSearch);
+        buttonPanel.add(btnComplaintSearch);
 
         // Main layout
         JPanel topPanel = new JPanel(new BorderLayout());
@@ -112,175 +169,57 @@ public class StaffDashboardFrame extends JFrame {
         setContentPane(mainPanel);
     }
 
-    /**
-     * Tables used:
-     *  - Staff
-     *  - StaffContactInfo
-     *  - Departments
-     */
-    private void loadStaffInfo() {
-        String sql = """
-            SELECT s.FirstName, s.LastName, s.Role,
-                   d.Name AS DepartmentName,
-                   sci.Email, sci.PhoneNumber
-            FROM Staff s
-            LEFT JOIN Departments d ON s.DepartmentID = d.DepartmentID
-            LEFT JOIN StaffContactInfo sci ON s.StaffID = sci.StaffID
-            WHERE s.StaffID = ?
-            """;
-
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, staff.getStaffId());
-
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    String dept = rs.getString("DepartmentName");
-                    String email = rs.getString("Email");
-                    String phone = rs.getString("PhoneNumber");
-
-                    if (dept != null) {
-                        lblDepartment.setText("Department: " + dept);
-                    } else {
-                        lblDepartment.setText("Department: (not defined)");
-                    }
-
-                    lblEmail.setText("Email: " + (email != null ? email : "-"));
-                    lblPhone.setText("Phone: " + (phone != null ? phone : "-"));
-                } else {
-                    lblDepartment.setText("Department: (not found)");
-                    lblEmail.setText("Email: -");
-                    lblPhone.setText("Phone: -");
-                }
-            }
+    private void showStaffInfo(String[] info) {
+        if (info != null) {
+            String dept = info[0];
+            String email = info[1];
+            String phone = info[2];
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Error while loading staff info:\n" + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-
-    /**
-     * Tables used:
-     *  - Calls
-     *  - CallDetails
-     *
-     * Logic: today's calls for this staff (based on CallDetails.StartTime date)
-     */
-    private void loadTodayCallCount() {
-        String sql = """
-            SELECT COUNT(*) AS Cnt
-            FROM Calls c
-            JOIN CallDetails cd ON c.CallID = cd.CallID
-            WHERE c.StaffID = ?
-              AND CONVERT(date, cd.StartTime) = CONVERT(date, GETDATE())
-            """;
-
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, staff.getStaffId());
-
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    int count = rs.getInt("Cnt");
-                    lblTodayCalls.setText("Today's call count: " + count);
-                }
+            if (dept != null) {
+                lblDepartment.setText("Department: " + dept);
+            } else {
+                lblDepartment.setText("Department: (not defined)");
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            lblTodayCalls.setText("Today's call count: (error)");
-        }
-    }
 
-    /**
-     * Tables used:
-     *  - Complaints
-     *
-     * Logic: number of active complaints assigned to this staff.
-     * If you want all open complaints, remove the AssignedStaffID filter.
-     */
-    private void loadOpenComplaintCount() {
-        String sql = """
-            SELECT COUNT(*) AS Cnt
-            FROM Complaints
-            WHERE IsActive = 1
-              AND AssignedStaffID = ?
-            """;
-
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, staff.getStaffId());
-
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    int count = rs.getInt("Cnt");
-                    lblOpenComplaints.setText("Open complaint count: " + count);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            lblOpenComplaints.setText("Open complaint count: (error)");
+            lblEmail.setText("Email: " + (email != null ? email : "-"));
+            lblPhone.setText("Phone: " + (phone != null ? phone : "-"));
+        } else {
+            lblDepartment.setText("Department: (not found)");
+            lblEmail.setText("Email: -");
+            lblPhone.setText("Phone: -");
         }
     }
 
-    /**
-     * Tables used:
-     *  - Complaints
-     *  - ComplaintPriority
-     *  - ComplaintTexts (for title)
-     *
-     * Logic: list top 5 active complaints with high priority (Rank >= 3).
-     */
-    private void loadCriticalComplaints() {
+    private void showCriticalComplaints(List<String> items) {
         criticalListModel.clear();
-
-        String sql = """
-            SELECT TOP 5 c.ComplaintID,
-                         cp.Name AS PriorityName,
-                         cp.Rank,
-                         ct.Title
-            FROM Complaints c
-            JOIN ComplaintPriority cp ON c.ComplaintPriorityID = cp.ComplaintPriorityID
-            LEFT JOIN ComplaintTexts ct ON c.ComplaintID = ct.ComplaintID
-            WHERE c.IsActive = 1
-              AND cp.Rank >= 3   -- assumption: 3 and above is critical
-            ORDER BY cp.Rank DESC, c.ComplaintID DESC
-            """;
-
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            List<String> items = new ArrayList<>();
-
-            while (rs.next()) {
-                int id = rs.getInt("ComplaintID");
-                String priority = rs.getString("PriorityName");
-                String title = rs.getString("Title");
-                int rank = rs.getInt("Rank");
-
-                String text = "#" + id + " [" + priority + " / Rank " + rank + "] - "
-                        + (title != null ? title : "(no title)");
-
-                items.add(text);
-            }
-
-            if (items.isEmpty()) {
-                criticalListModel.addElement("There are no open critical complaints.");
-            } else {
-                for (String s : items) {
-                    criticalListModel.addElement(s);
-                }
+        if (items.isEmpty()) {
+            criticalListModel.addElement("There are no open critical complaints.");
+        } else {
+            for (String s : items) {
+                criticalListModel.addElement(s);
             }
+        }
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-            criticalListModel.addElement("Error while loading critical complaints: " + e.getMessage());
+    private void showPartError(StaffDashboardService.Part part, Exception e) {
+        e.printStackTrace();
+        switch (part) {
+            case STAFF_INFO:
+                lblDepartment.setText("Department: (error)");
+                JOptionPane.showMessageDialog(this,
+                        "Error while loading staff info:\n" + e.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                break;
+            case TODAY_CALLS:
+                lblTodayCalls.setText("Today's call count: (error)");
+                break;
+            case OPEN_COMPLAINTS:
+                lblOpenComplaints.setText("Open complaint count: (error)");
+                break;
+            default:
+                criticalListModel.clear();
+                criticalListModel.addElement("Error while loading critical complaints: " + e.getMessage());
+                break;
         }
     }
 }
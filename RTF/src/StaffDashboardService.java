@@ -0,0 +1,262 @@
+import javax.swing.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * StaffDashboardService
+ *
+ * Loads the staff dashboard snapshot: staff info, today's call count, open
+ * complaint count and the top critical complaints. The four parts are
+ * fetched in parallel (one pooled connection each) and handed to the
+ * listener on the EDT as each one arrives, so fast parts do not wait for
+ * the slowest. The two counts come from DailyCounters and the critical
+ * complaints from CriticalComplaints (memory once loaded).
+ *
+ * Periodic refresh (-Drtf.dashboard.refreshSec, default 30, 0 = off)
+ * re-reads the counters and the critical complaints from memory and runs
+ * one cheap probe of the staff member's own row, reloading the staff info
+ * only if it moved. The critical complaints need no probe: local changes
+ * update them directly and changes made elsewhere arrive through
+ * ChangeFeed.
+ *
+ * Dashboard open time is measured and compared with the latency budget
+ * (-Drtf.dashboard.budgetMs, default 300); overruns are logged.
+ *
+ * Tables used:
+ *  - Staff, StaffContactInfo, Departments
+ *  - (Calls, CallDetails via DailyCounters)
+ *  - (Complaints, ComplaintPriority, ComplaintTexts via CriticalComplaints)
+ */
+public final class StaffDashboardService {
+
+    public enum Part { STAFF_INFO, TODAY_CALLS, OPEN_COMPLAINTS, CRITICAL_COMPLAINTS }
+
+    /** All callbacks run on the EDT. */
+    public interface Listener {
+        /** info = {DepartmentName, Email, PhoneNumber}, or null if the staff row is missing. */
+        void staffInfoLoaded(String[] info);
+
+        void todayCallsLoaded(int count);
+
+        void openComplaintsLoaded(int count);
+
+        void criticalComplaintsLoaded(List<String> items);
+
+        void partFailed(Part part, Exception e);
+    }
+
+    public static final int REFRESH_SECONDS = Integer.getInteger("rtf.dashboard.refreshSec", 30);
+    public static final long BUDGET_MS = Long.getLong("rtf.dashboard.budgetMs", 300);
+
+    private static final String STAFF_INFO_SQL = """
+        SELECT s.FirstName, s.LastName, s.Role,
+               d.Name AS DepartmentName,
+               sci.Email, sci.PhoneNumber
+        FROM Staff s
+        LEFT JOIN Departments d ON s.DepartmentID = d.DepartmentID
+        LEFT JOIN StaffContactInfo sci ON s.StaffID = sci.StaffID
+        WHERE s.StaffID = ?
+        """;
+
+    // Moves when the staff info changes. The other parts are kept in memory
+    // (DailyCounters, CriticalComplaints) and need no probe.
+    private static final String CHANGE_PROBE_SQL = """
+        SELECT
+            (SELECT CHECKSUM_AGG(CHECKSUM(s.FirstName, s.LastName, s.Role,
+                                          d.Name, sci.Email, sci.PhoneNumber))
+             FROM Staff s
+             LEFT JOIN Departments d ON s.DepartmentID = d.DepartmentID
+             LEFT JOIN StaffContactInfo sci ON s.StaffID = sci.StaffID
+             WHERE s.StaffID = ?) AS StaffMark
+        """;
+
+    private final int staffId;
+    private final Listener listener;
+
+    private Timer refreshTimer;
+    private volatile boolean stopped = false;
+    private boolean refreshing = false;    // EDT only
+    private Map<Part, Long> marks = null;  // EDT only; null until the first probe
+
+    public StaffDashboardService(int staffId, Listener listener) {
+        this.staffId = staffId;
+        this.listener = listener;
+    }
+
+    /** Loads all parts in parallel and records the open latency. Call on the EDT. */
+    public void loadAll() {
+        long start = System.nanoTime();
+        Map<Part, Long> partMs = new EnumMap<>(Part.class);
+
+        List<CompletableFuture<?>> all = new ArrayList<>();
+        for (Part part : Part.values()) {
+            all.add(load(part, ms -> partMs.put(part, ms), start));
+        }
+
+        CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, ex) -> SwingUtilities.invokeLater(() -> {
+                    long totalMs = (System.nanoTime() - start) / 1_000_000;
+                    if (totalMs > BUDGET_MS) {
+                        System.err.println("[over budget] Dashboard open: " + totalMs + " ms " + partMs
+                                + " (budget " + BUDGET_MS + " ms)");
+                    }
+                }));
+
+        // Baseline for change detection
+        probe(changed -> { });
+    }
+
+    /** Starts the periodic refresh. The timer stops when stop() is called. */
+    public void startAutoRefresh() {
+        if (REFRESH_SECONDS <= 0 || refreshTimer != null) return;
+        refreshTimer = new Timer(REFRESH_SECONDS * 1000, e -> refreshChanged());
+        refreshTimer.start();
+    }
+
+    /** Stops refreshing and drops any result still in flight. */
+    public void stop() {
+        stopped = true;
+        if (refreshTimer != null) refreshTimer.stop();
+    }
+
+    /**
+     * Re-reads the parts kept in memory, then runs the change probe and
+     * reloads the staff info if it moved.
+     */
+    public void refreshChanged() {
+        if (refreshing || stopped) return;
+        refreshing = true;
+        refreshFromMemory();
+        probe(changed -> {
+            for (Part part : changed) load(part, ms -> { }, System.nanoTime());
+        });
+    }
+
+    /**
+     * Re-reads the parts kept in memory (the counters and the critical
+     * complaints), e.g. after a ComplaintEvents notification. No database
+     * round trip once they are loaded.
+     */
+    public void refreshFromMemory() {
+        if (stopped) return;
+        load(Part.TODAY_CALLS, ms -> { }, System.nanoTime());
+        load(Part.OPEN_COMPLAINTS, ms -> { }, System.nanoTime());
+        load(Part.CRITICAL_COMPLAINTS, ms -> { }, System.nanoTime());
+    }
+
+    private void probe(Consumer<Set<Part>> onChanged) {
+        DbExecutor.supply(conn -> readMarks(conn, staffId)).whenComplete((now, ex) ->
+                SwingUtilities.invokeLater(() -> {
+                    refreshing = false;
+                    if (stopped) return;
+                    if (ex != null) {
+                        ex.printStackTrace(); // refresh is best effort; try again next tick
+                        return;
+                    }
+
+                    Set<Part> changed = EnumSet.noneOf(Part.class);
+                    if (marks != null) {
+                        for (Map.Entry<Part, Long> e : now.entrySet()) {
+                            if (!e.getValue().equals(marks.get(e.getKey()))) changed.add(e.getKey());
+                        }
+                    }
+                    marks = now;
+                    onChanged.accept(changed);
+                }));
+    }
+
+    private CompletableFuture<?> load(Part part, Consumer<Long> timing, long start) {
+        CompletableFuture<?> future;
+        switch (part) {
+            case STAFF_INFO:
+                future = deliver(part, DbExecutor.supply(conn -> queryStaffInfo(conn, staffId)),
+                        listener::staffInfoLoaded, timing, start);
+                break;
+            case TODAY_CALLS:
+                future = deliver(part, DailyCounters.todayCalls(staffId),
+                        listener::todayCallsLoaded, timing, start);
+                break;
+            case OPEN_COMPLAINTS:
+                future = deliver(part, DailyCounters.openComplaints(staffId),
+                        listener::openComplaintsLoaded, timing, start);
+                break;
+            default:
+                future = deliver(part, CriticalComplaints.top(staffId)
+                                .thenApply(StaffDashboardService::formatCriticalComplaints),
+                        listener::criticalComplaintsLoaded, timing, start);
+                break;
+        }
+        return future;
+    }
+
+    private <T> CompletableFuture<T> deliver(Part part, CompletableFuture<T> future,
+                                             Consumer<T> onLoaded, Consumer<Long> timing, long start) {
+        return future.whenComplete((value, ex) -> {
+            long ms = (System.nanoTime() - start) / 1_000_000;
+            SwingUtilities.invokeLater(() -> {
+                timing.accept(ms);
+                if (stopped) return;
+                if (ex != null) {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null
+                            ? ex.getCause() : ex;
+                    listener.partFailed(part, cause instanceof Exception
+                            ? (Exception) cause : new RuntimeException(cause));
+                } else {
+                    onLoaded.accept(value);
+                }
+            });
+        });
+    }
+
+    // ---- Queries (DB worker threads; also used by DashboardBenchmark) ----
+
+    static String[] queryStaffInfo(Connection conn, int staffId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(STAFF_INFO_SQL)) {
+            ps.setInt(1, staffId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new String[]{
+                        rs.getString("DepartmentName"),
+                        rs.getString("Email"),
+                        rs.getString("PhoneNumber")
+                };
+            }
+        }
+    }
+
+    static List<String> formatCriticalComplaints(List<CriticalComplaints.Entry> entries) {
+        List<String> items = new ArrayList<>(entries.size());
+        for (CriticalComplaints.Entry e : entries) {
+            items.add("#" + e.complaintId() + " [" + e.priorityName() + " / Rank " + e.rank() + "] - "
+                    + (e.title() != null ? e.title() : "(no title)"));
+        }
+        return items;
+    }
+
+    private static Map<Part, Long> readMarks(Connection conn, int staffId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(CHANGE_PROBE_SQL)) {
+            ps.setInt(1, staffId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next(); // scalar subqueries: always exactly one row
+                Map<Part, Long> m = new EnumMap<>(Part.class);
+                m.put(Part.STAFF_INFO, rs.getLong("StaffMark"));
+                return m;
+            }
+        }
+    }
+}
@@ -71,32 +71,52 @@ public class StaffLoginFrame extends JFrame {
         return;
     }
 
-    StaffUser staff = loginService.authenticate(username, password);
-
-    if (staff != null) {
-        lblStatus.setForeground(new Color(0, 128, 0));
-        lblStatus.setText("Hoş geldin, " + staff.getFullName());
-
-        JOptionPane.showMessageDialog(this,
-                "Login başarılı!\nStaffID: " + staff.getStaffId() +
-                "\nAd: " + staff.getFullName() +
-                "\nRol: " + staff.getRole());
-
-        // 🔹 Buradan sonra Staff Dashboard ekranını açıyoruz
-        StaffDashboardFrame dashboard = new StaffDashboardFrame(staff);
-        dashboard.setVisible(true);
-
-        // Login penceresini kapat
-        this.dispose();
-
-    } else {
+    btnLogin.setEnabled(false);
+    lblStatus.setForeground(Color.GRAY);
+    lblStatus.setText("Giriş kontrol ediliyor...");
+
+    DbExecutor.submit(conn -> loginService.authenticate(conn, username, password), staff -> {
+        btnLogin.setEnabled(true);
+
+        if (staff != null) {
+            lblStatus.setForeground(new Color(0, 128, 0));
+            lblStatus.setText("Hoş geldin, " + staff.getFullName());
+
+            JOptionPane.showMessageDialog(this,
+                    "Login başarılı!\nStaffID: " + staff.getStaffId() +
+                    "\nAd: " + staff.getFullName() +
+                    "\nRol: " + staff.getRole());
+
+            // 🔹 Buradan sonra Staff Dashboard ekranını açıyoruz
+            StaffDashboardFrame dashboard = new StaffDashboardFrame(staff);
+            dashboard.setVisible(true);
+
+            // Login penceresini kapat
+            this.dispose();
+
+        } else {
+            lblStatus.setForeground(Color.RED);
+            lblStatus.setText("Hatalı kullanıcı adı veya şifre.");
+        }
+    }, e -> {
+        e.printStackTrace();
+        btnLogin.setEnabled(true);
         lblStatus.setForeground(Color.RED);
-        lblStatus.setText("Hatalı kullanıcı adı veya şifre.");
-    }
+        lblStatus.setText("Veritabanı hatası: " + e.getMessage());
+    });
 }
 
 
     public static void main(String[] args) {
+        ReferenceData.preload(); // lookup tables load while the user types
+        CallerIdIndex.preload();
+        CustomerSearch.preload(); // customer search index (names, e-mail, phone, city)
+        DuplicateDetector.preload();
+        ComplaintClassifier.preload(); // trains the category model from past complaints
+        CallLogWriter.start();  // replays calls a crash left in the local journal
+        ComplaintSearch.start(); // loads the saved search index, then catches up
+        SlaEscalator.start();    // SLA timers of the open complaints
+        ChangeFeed.start();      // changes made on the other workstations
         SwingUtilities.invokeLater(() -> new StaffLoginFrame().setVisible(true));
     }
 }
@@ -11,6 +11,19 @@ public class StaffLoginService {
      * Başarılıysa StaffUser döner, değilse null.
      */
     public StaffUser authenticate(String username, String passwordPlain) {
+        try (Connection conn = DbConfig.getConnection()) {
+            return authenticate(conn, username, passwordPlain);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Aynı kontrol, verilen bağlantı üzerinde (DbExecutor ile arka planda
+     * çalıştırmak için). Hata durumunda SQLException fırlatır.
+     */
+    public StaffUser authenticate(Connection conn, String username, String passwordPlain) throws SQLException {
 
         String sql = """
             SELECT s.StaffID, s.FirstName, s.LastName, s.Role
@@ -20,8 +33,7 @@ public class StaffLoginService {
               AND sl.PasswordHash = ?
         """;
 
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, username);
             ps.setString(2, passwordPlain);  // şimdilik hash yok, düz şifre
@@ -38,10 +50,6 @@ public class StaffLoginService {
                     return null;
                 }
             }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return null;
         }
     }
 }
@@ -0,0 +1,715 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * TextIndex
+ *
+ * In-memory inverted index with BM25 ranking, used by ComplaintSearch.
+ *
+ *  - Documents are identified by a long key (never 0) and carry ATTRS int
+ *    attributes for filtering, plus a version (e.g. LastUpdatedAt) so an
+ *    unchanged document is not re-indexed.
+ *  - Postings per term are (document gap, term frequency) pairs as varints
+ *    in one byte[]: documents get increasing ordinals, so the lists stay
+ *    sorted and small (1-2 bytes per posting).
+ *  - Replacing a document gives it a new ordinal and marks the old one
+ *    deleted; compact() drops deleted ordinals once they add up.
+ *  - Terms live in a sorted map, so prefix queries are a range scan.
+ *
+ * Queries match all words (AND); a word ending in '*', and the last word
+ * while the user is still typing, match as prefixes.
+ *
+ * Text is folded before indexing and querying: Turkish dotted and dotless
+ * i (I, ı, İ, i) all become 'i' and ş ğ ç ö ü â î û lose their marks, so
+ * "sikayet" finds "Şikayet" and "ISTANBUL" finds "İstanbul". Folding is per
+ * character; String.toLowerCase would turn 'İ' into two chars.
+ *
+ * Thread-safe: queries share a read lock, updates take the write lock.
+ */
+final class TextIndex {
+
+    static final int ATTRS = 5;
+
+    /** Decides from a document's key and attributes whether it may appear in results. */
+    interface Filter {
+        boolean accept(long key, int[] attrs, int offset);
+    }
+
+    static final class Hit {
+        final long key;
+        final float score;
+
+        Hit(long key, float score) {
+            this.key = key;
+            this.score = score;
+        }
+    }
+
+    /** A document to (re)index. */
+    static final class Doc {
+        final long key;
+        final long version;
+        final String text;
+        final int[] attrs;
+
+        Doc(long key, long version, String text, int[] attrs) {
+            this.key = key;
+            this.version = version;
+            this.text = text;
+            this.attrs = attrs.clone();
+        }
+    }
+
+    private static final int MIN_TOKEN = 2;
+    private static final int MAX_TOKEN = 40;
+    private static final int MIN_PREFIX = 2;
+    private static final int MAX_EXPANSIONS = 64;
+    private static final int MAX_WORDS = 32;
+    private static final int SKIP_INTERVAL = 64;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final int FORMAT = 1;
+
+    /**
+     * Varint-encoded (gap, tf) pairs of one term, plus a skip entry (ordinal
+     * before the block, byte offset) every SKIP_INTERVAL postings so a short
+     * candidate list can be intersected without decoding the whole list.
+     */
+    private static final class Postings {
+        byte[] data = new byte[8];
+        int bytes;
+        int count;
+        int lastOrdinal = -1;
+        int[] skips = new int[0];
+        int skipCount;
+
+        void add(int ordinal, int tf) {
+            if (count > 0 && count % SKIP_INTERVAL == 0) {
+                if (skips.length < 2 * (skipCount + 1)) skips = Arrays.copyOf(skips, Math.max(8, skips.length * 2));
+                skips[2 * skipCount] = lastOrdinal;
+                skips[2 * skipCount + 1] = bytes;
+                skipCount++;
+            }
+            if (data.length - bytes < 10) data = Arrays.copyOf(data, Math.max(16, data.length * 2));
+            // tf is almost always 1: flag it in the low bit of the gap instead of a second varint
+            bytes = putVarint(data, bytes, (ordinal - lastOrdinal) << 1 | (tf > 1 ? 1 : 0));
+            if (tf > 1) bytes = putVarint(data, bytes, tf);
+            lastOrdinal = ordinal;
+            count++;
+        }
+
+        /** Skip entries are not stored in the file; rebuilt after loading. */
+        void rebuildSkips() {
+            skips = new int[2 * Math.max(1, count / SKIP_INTERVAL)];
+            skipCount = 0;
+            int[] cursor = new int[1];
+            int ordinal = -1;
+            for (int i = 0; i < count; i++) {
+                if (i > 0 && i % SKIP_INTERVAL == 0) {
+                    skips[2 * skipCount] = ordinal;
+                    skips[2 * skipCount + 1] = cursor[0];
+                    skipCount++;
+                }
+                int v = getVarint(data, cursor);
+                ordinal += v >>> 1;
+                if ((v & 1) != 0) getVarint(data, cursor);
+            }
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private LongIntHashMap ordinalOf = new LongIntHashMap(1024);
+
+    // Per ordinal
+    private long[] keys = new long[1024];
+    private long[] versions = new long[1024];
+    private int[] lengths = new int[1024];
+    private int[] attrs = new int[1024 * ATTRS];
+    private BitSet deleted = new BitSet();
+
+    private int ordinals = 0;     // ordinals handed out
+    private int live = 0;
+    private long liveLength = 0;
+
+    /** Per-query accumulators (score and matched-word count per ordinal), reused between queries. */
+    private static final class Scratch {
+        float[] scores = new float[0];
+        byte[] matched = new byte[0];
+    }
+
+    // Not ThreadLocal: queries run on virtual threads, which would allocate them every time
+    private final ConcurrentLinkedQueue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    /** Min-heap of the best `limit` (key, score) pairs, without a Hit per candidate. */
+    private static final class TopK {
+        final long[] keys;
+        final float[] scores;
+        int size;
+
+        TopK(int limit) {
+            keys = new long[Math.max(1, limit)];
+            scores = new float[Math.max(1, limit)];
+        }
+
+        void offer(long key, float score) {
+            if (size < keys.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (scores[parent] <= score) break;
+                    keys[i] = keys[parent];
+                    scores[i] = scores[parent];
+                    i = parent;
+                }
+                keys[i] = key;
+                scores[i] = score;
+            } else if (score > scores[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) break;
+                    if (child + 1 < size && scores[child + 1] < scores[child]) child++;
+                    if (scores[child] >= score) break;
+                    keys[i] = keys[child];
+                    scores[i] = scores[child];
+                    i = child;
+                }
+                keys[i] = key;
+                scores[i] = score;
+            }
+        }
+
+        List<Hit> toList() {
+            List<Hit> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) result.add(new Hit(keys[i], scores[i]));
+            result.sort((a, b) -> Float.compare(b.score, a.score));
+            return result;
+        }
+    }
+
+    // ---- Updates ----
+
+    /**
+     * Adds or replaces documents; one with an unchanged version only gets its
+     * attributes updated.
+     *
+     * @return how many documents were (re-)indexed
+     */
+    int putAll(List<Doc> docs) {
+        lock.writeLock().lock();
+        try {
+            int indexed = 0;
+            for (Doc d : docs) {
+                int old = ordinalOf.get(d.key, -1);
+                if (old >= 0 && versions[old] == d.version) {
+                    System.arraycopy(d.attrs, 0, attrs, old * ATTRS, ATTRS);
+                    continue;
+                }
+                if (old >= 0) delete(old);
+                add(d);
+                indexed++;
+            }
+            return indexed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Changes one attribute of a document, if it is indexed. */
+    void setAttr(long key, int attr, int value) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalOf.get(key, -1);
+            if (ordinal >= 0) attrs[ordinal * ATTRS + attr] = value;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean contains(long key) {
+        lock.readLock().lock();
+        try {
+            return ordinalOf.get(key, -1) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Doc d) {
+        int ordinal = ordinals++;
+        if (ordinal == keys.length) grow();
+
+        Map<String, int[]> tf = new HashMap<>();
+        int length = tokenize(d.text, token -> tf.computeIfAbsent(token, t -> new int[1])[0]++);
+
+        for (Map.Entry<String, int[]> e : tf.entrySet()) {
+            terms.computeIfAbsent(e.getKey(), t -> new Postings()).add(ordinal, e.getValue()[0]);
+        }
+
+        keys[ordinal] = d.key;
+        versions[ordinal] = d.version;
+        lengths[ordinal] = length;
+        System.arraycopy(d.attrs, 0, attrs, ordinal * ATTRS, ATTRS);
+        ordinalOf.put(d.key, ordinal, -1);
+        live++;
+        liveLength += length;
+    }
+
+    private void delete(int ordinal) {
+        deleted.set(ordinal);
+        live--;
+        liveLength -= lengths[ordinal];
+    }
+
+    private void grow() {
+        int n = keys.length * 2;
+        keys = Arrays.copyOf(keys, n);
+        versions = Arrays.copyOf(versions, n);
+        lengths = Arrays.copyOf(lengths, n);
+        attrs = Arrays.copyOf(attrs, n * ATTRS);
+    }
+
+    /** Rewrites all postings without deleted documents if they make up more than 20%. */
+    void compactIfNeeded() {
+        lock.writeLock().lock();
+        try {
+            if (deleted.cardinality() > ordinals / 5) compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compact() {
+        int[] remap = new int[ordinals];
+        int next = 0;
+        for (int i = 0; i < ordinals; i++) {
+            remap[i] = deleted.get(i) ? -1 : next++;
+        }
+
+        for (Map.Entry<String, Postings> e : new ArrayList<>(terms.entrySet())) {
+            Postings old = e.getValue();
+            Postings fresh = new Postings();
+            int pos = 0, ordinal = -1;
+            int[] cursor = new int[1];
+            while (pos < old.bytes) {
+                cursor[0] = pos;
+                int v = getVarint(old.data, cursor);
+                ordinal += v >>> 1;
+                int tf = (v & 1) != 0 ? getVarint(old.data, cursor) : 1;
+                pos = cursor[0];
+                if (remap[ordinal] >= 0) fresh.add(remap[ordinal], tf);
+            }
+            if (fresh.count == 0) terms.remove(e.getKey());
+            else {
+                fresh.data = Arrays.copyOf(fresh.data, fresh.bytes);
+                e.setValue(fresh);
+            }
+        }
+
+        LongIntHashMap map = new LongIntHashMap(Math.max(1024, next));
+        for (int i = 0; i < ordinals; i++) {
+            int to = remap[i];
+            if (to < 0) continue;
+            keys[to] = keys[i];
+            versions[to] = versions[i];
+            lengths[to] = lengths[i];
+            System.arraycopy(attrs, i * ATTRS, attrs, to * ATTRS, ATTRS);
+            map.put(keys[to], to, -1);
+        }
+        ordinalOf = map;
+        ordinals = next;
+        deleted = new BitSet();
+    }
+
+    // ---- Queries ----
+
+    /**
+     * Best `limit` documents containing every word of the query, best first.
+     *
+     * @param prefixLast match the last word as a prefix (search as you type)
+     */
+    List<Hit> search(String query, boolean prefixLast, int limit, Filter filter) {
+        List<String> words = new ArrayList<>();
+        List<Boolean> prefix = new ArrayList<>();
+        String trimmed = query.trim();
+        for (String raw : trimmed.split("\\s+")) {
+            boolean star = raw.endsWith("*");
+            List<String> tokens = new ArrayList<>();
+            tokenize(raw, tokens::add);
+            for (int i = 0; i < tokens.size(); i++) {
+                words.add(tokens.get(i));
+                prefix.add(i == tokens.size() - 1 && star);
+            }
+        }
+        if (words.isEmpty()) return List.of();
+        if (words.size() > MAX_WORDS) {
+            words = words.subList(0, MAX_WORDS);
+            prefix = prefix.subList(0, MAX_WORDS);
+        }
+        if (prefixLast && !query.endsWith(" ")) prefix.set(prefix.size() - 1, true);
+
+        Scratch scratch = scratchPool.poll();
+        if (scratch == null) scratch = new Scratch();
+
+        lock.readLock().lock();
+        try {
+            // One group of postings per word; a prefix expands to several terms
+            List<List<Postings>> groups = new ArrayList<>();
+            List<Integer> groupSizes = new ArrayList<>();
+            for (int w = 0; w < words.size(); w++) {
+                List<Postings> group = expand(words.get(w), prefix.get(w));
+                if (group.isEmpty()) return List.of(); // AND: a word with no match means no result
+                int total = 0;
+                for (Postings p : group) total += p.count;
+                groups.add(group);
+                groupSizes.add(total);
+            }
+
+            // Rarest word first: later words only touch documents that are still candidates
+            Integer[] order = new Integer[groups.size()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparing(groupSizes::get));
+
+            if (scratch.scores.length < ordinals) {
+                scratch.scores = new float[keys.length];
+                scratch.matched = new byte[keys.length];
+            }
+            float[] scores = scratch.scores;
+            byte[] matched = scratch.matched;
+
+            float avgLength = live == 0 ? 1 : (float) liveLength / live;
+            float normBase = K1 * (1 - B);
+            float normScale = K1 * B / avgLength;
+            int[] touched = new int[64];
+            int touchedCount = 0;
+            TopK top = new TopK(limit);
+            int last = order.length - 1;
+
+            for (int g = 0; g < order.length; g++) {
+                List<Postings> group = groups.get(order[g]);
+                // The last word, if a single term, scores straight into the top-K
+                boolean direct = g == last && group.size() == 1;
+
+                for (Postings p : group) {
+                    float idf = (float) Math.log(1 + (live - p.count + 0.5) / (p.count + 0.5));
+                    float weight = idf * (K1 + 1);
+                    byte[] data = p.data;
+
+                    if (g > 0 && (long) touchedCount * SKIP_INTERVAL < p.count) {
+                        // Few candidates left: look each one up through the skip entries
+                        int blk = 0, ordinal = -1, pos = 0, tf = 0;
+                        for (int i = 0; i < touchedCount; i++) {
+                            int target = touched[i];
+                            int m = matched[target];
+                            if (m != g && m != g + 1) continue;
+                            while (blk < p.skipCount && p.skips[2 * blk] < target) {
+                                if (p.skips[2 * blk] > ordinal) {
+                                    ordinal = p.skips[2 * blk];
+                                    pos = p.skips[2 * blk + 1];
+                                }
+                                blk++;
+                            }
+                            while (ordinal < target && pos < p.bytes) {
+                                int v = 0, shift = 0;
+                                byte x;
+                                do {
+                                    x = data[pos++];
+                                    v |= (x & 0x7F) << shift;
+                                    shift += 7;
+                                } while (x < 0);
+                                ordinal += v >>> 1;
+                                tf = 1;
+                                if ((v & 1) != 0) {
+                                    tf = 0;
+                                    shift = 0;
+                                    do {
+                                        x = data[pos++];
+                                        tf |= (x & 0x7F) << shift;
+                                        shift += 7;
+                                    } while (x < 0);
+                                }
+                            }
+                            if (ordinal != target) continue;
+                            float score = scores[target] + weight * tf / (tf + normBase + normScale * lengths[target]);
+                            if (direct) {
+                                if (filter == null || filter.accept(keys[target], attrs, target * ATTRS)) {
+                                    top.offer(keys[target], score);
+                                }
+                            } else {
+                                matched[target] = (byte) (g + 1);
+                                scores[target] = score;
+                            }
+                        }
+                        continue;
+                    }
+
+                    int ordinal = -1;
+                    int pos = 0;
+                    int end = p.bytes;
+                    while (pos < end) {
+                        int v = 0, shift = 0;
+                        byte x;
+                        do {
+                            x = data[pos++];
+                            v |= (x & 0x7F) << shift;
+                            shift += 7;
+                        } while (x < 0);
+                        ordinal += v >>> 1;
+                        int tf = 1;
+                        if ((v & 1) != 0) {
+                            tf = 0;
+                            shift = 0;
+                            do {
+                                x = data[pos++];
+                                tf |= (x & 0x7F) << shift;
+                                shift += 7;
+                            } while (x < 0);
+                        }
+
+                        int m = matched[ordinal];
+                        if (m != g && m != g + 1) continue;  // missed an earlier word
+                        if (g == 0 && m == 0 && deleted.get(ordinal)) continue;
+                        float score = scores[ordinal] + weight * tf / (tf + normBase + normScale * lengths[ordinal]);
+                        if (direct) {
+                            if (filter == null || filter.accept(keys[ordinal], attrs, ordinal * ATTRS)) {
+                                top.offer(keys[ordinal], score);
+                            }
+                            continue;
+                        }
+                        if (g == 0 && m == 0) {
+                            if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                            touched[touchedCount++] = ordinal;
+                        }
+                        matched[ordinal] = (byte) (g + 1);
+                        scores[ordinal] = score;
+                    }
+                }
+                // Several expansions of a prefix add candidates out of order
+                if (g == 0 && group.size() > 1 && last > 0) Arrays.sort(touched, 0, touchedCount);
+            }
+
+            if (groups.get(order[last]).size() > 1) {
+                int needed = order.length;
+                for (int i = 0; i < touchedCount; i++) {
+                    int ordinal = touched[i];
+                    if (matched[ordinal] == needed
+                            && (filter == null || filter.accept(keys[ordinal], attrs, ordinal * ATTRS))) {
+                        top.offer(keys[ordinal], scores[ordinal]);
+                    }
+                }
+            }
+            if (touchedCount > ordinals / 8) {
+                Arrays.fill(scores, 0, ordinals, 0);
+                Arrays.fill(matched, 0, ordinals, (byte) 0);
+            } else {
+                for (int i = 0; i < touchedCount; i++) {
+                    scores[touched[i]] = 0;
+                    matched[touched[i]] = 0;
+                }
+            }
+            return top.toList();
+        } finally {
+            lock.readLock().unlock();
+            scratchPool.offer(scratch); // all touched entries were reset above
+        }
+    }
+
+    private List<Postings> expand(String word, boolean prefix) {
+        if (!prefix || word.length() < MIN_PREFIX) {
+            Postings p = terms.get(word);
+            return p == null ? List.of() : List.of(p);
+        }
+        NavigableMap<String, Postings> range = terms.subMap(word, true, word + Character.MAX_VALUE, false);
+        List<Postings> all = new ArrayList<>(range.values());
+        if (all.size() > MAX_EXPANSIONS) {
+            // Keep the most frequent completions
+            all.sort((a, b) -> Integer.compare(b.count, a.count));
+            all = all.subList(0, MAX_EXPANSIONS);
+        }
+        return all;
+    }
+
+    // ---- Text folding / tokenizing ----
+
+    interface TokenSink {
+        void accept(String token);
+    }
+
+    /** Splits folded text into words; returns the number of words. */
+    static int tokenize(String text, TokenSink sink) {
+        if (text == null) return 0;
+        int count = 0;
+        StringBuilder token = new StringBuilder();
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? fold(text.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (token.length() < MAX_TOKEN) token.append(c);
+            } else if (token.length() > 0) {
+                if (token.length() >= MIN_TOKEN) {
+                    sink.accept(token.toString());
+                    count++;
+                }
+                token.setLength(0);
+            }
+        }
+        return count;
+    }
+
+    static char fold(char c) {
+        switch (c) {
+            case 'I': case 'ı': case 'İ': case 'Î': case 'î':
+                return 'i';
+            case 'Ş': case 'ş':
+                return 's';
+            case 'Ğ': case 'ğ':
+                return 'g';
+            case 'Ç': case 'ç':
+                return 'c';
+            case 'Ö': case 'ö':
+                return 'o';
+            case 'Ü': case 'ü': case 'Û': case 'û':
+                return 'u';
+            case 'Â': case 'â':
+                return 'a';
+            default:
+                return Character.toLowerCase(c);
+        }
+    }
+
+    // ---- Persistence ----
+
+    /**
+     * Writes the index (compacted) to the stream. Only the compaction
+     * excludes searches; the writing itself runs under the read lock.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!deleted.isEmpty()) compact();
+            lock.readLock().lock(); // downgrade: no update can slip in between
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            out.writeInt(FORMAT);
+            out.writeInt(ordinals);
+            for (int i = 0; i < ordinals; i++) {
+                out.writeLong(keys[i]);
+                out.writeLong(versions[i]);
+                out.writeInt(lengths[i]);
+                for (int a = 0; a < ATTRS; a++) out.writeInt(attrs[i * ATTRS + a]);
+            }
+
+            out.writeInt(terms.size());
+            for (Map.Entry<String, Postings> e : terms.entrySet()) {
+                Postings p = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeInt(p.count);
+                out.writeInt(p.lastOrdinal);
+                out.writeInt(p.bytes);
+                out.write(p.data, 0, p.bytes);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static TextIndex readFrom(DataInputStream in) throws IOException {
+        int format = in.readInt();
+        if (format != FORMAT) throw new IOException("Unsupported index format " + format);
+
+        TextIndex index = new TextIndex();
+        int n = in.readInt();
+        int capacity = Math.max(1024, Integer.highestOneBit(Math.max(1, n)) << 1);
+        index.keys = new long[capacity];
+        index.versions = new long[capacity];
+        index.lengths = new int[capacity];
+        index.attrs = new int[capacity * ATTRS];
+        index.ordinalOf = new LongIntHashMap(Math.max(1024, n));
+
+        for (int i = 0; i < n; i++) {
+            index.keys[i] = in.readLong();
+            index.versions[i] = in.readLong();
+            index.lengths[i] = in.readInt();
+            for (int a = 0; a < ATTRS; a++) index.attrs[i * ATTRS + a] = in.readInt();
+            index.ordinalOf.put(index.keys[i], i, -1);
+            index.liveLength += index.lengths[i];
+        }
+        index.ordinals = n;
+        index.live = n;
+
+        int termCount = in.readInt();
+        for (int t = 0; t < termCount; t++) {
+            String term = in.readUTF();
+            Postings p = new Postings();
+            p.count = in.readInt();
+            p.lastOrdinal = in.readInt();
+            p.bytes = in.readInt();
+            p.data = new byte[p.bytes];
+            in.readFully(p.data);
+            p.rebuildSkips();
+            index.terms.put(term, p);
+        }
+        return index;
+    }
+
+    // ---- Varints ----
+
+    private static int putVarint(byte[] buf, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+
+    /** Reads a varint at cursor[0] and advances it. */
+    private static int getVarint(byte[] buf, int[] cursor) {
+        int pos = cursor[0];
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf[pos++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        cursor[0] = pos;
+        return value;
+    }
+}
@@ -0,0 +1,226 @@
+import java.util.Arrays;
+
+/**
+ * TimingWheel
+ *
+ * Hierarchical timing wheel for a large number of timers keyed by an int
+ * (e.g. a ComplaintID): schedule, reschedule and cancel are O(1), and
+ * advancing the clock costs O(1) per tick plus O(1) per timer that fires
+ * or moves down a level. Used by SlaEscalator for one SLA deadline per open
+ * complaint.
+ *
+ * LEVELS wheels of 64 slots; level L holds timers due in less than 64^(L+1)
+ * ticks. When the lowest wheel wraps, the current slot of the next level is
+ * cascaded into the levels below (as in the classic Unix kernel timers).
+ * Five levels of one-second ticks cover about 34 years.
+ *
+ * Timers live in primitive arrays (doubly linked lists with one sentinel
+ * node per slot) and carry one long value for the caller, so a timer costs
+ * about 50 bytes including its entry in the key index. Not thread-safe;
+ * SlaEscalator uses it from a single thread.
+ */
+final class TimingWheel {
+
+    /** Receives each timer that is due, after it was removed. */
+    interface ExpiryVisitor {
+        void expired(int key, long value);
+    }
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    private static final int SENTINELS = LEVELS * SLOTS;
+    private static final long SPAN = 1L << (BITS * LEVELS); // ticks covered by all levels
+
+    private final long tickMs;
+    private long currentTick;             // next tick to process
+
+    // Nodes 0..SENTINELS-1 are the slot list heads; timers follow
+    private int[] next;
+    private int[] prev;
+    private int[] keys;
+    private long[] deadlines;             // in ticks
+    private long[] values;
+    private int used = SENTINELS;
+    private int free = -1;                // free timer nodes, chained through next[]
+    private int size;
+
+    private final LongIntHashMap nodeOf;  // key -> node
+
+    /**
+     * @param tickMs         resolution; timers fire up to one tick late
+     * @param nowMs          current time
+     * @param expectedTimers initial capacity
+     */
+    TimingWheel(long tickMs, long nowMs, int expectedTimers) {
+        this.tickMs = tickMs;
+        this.currentTick = Math.floorDiv(nowMs, tickMs);
+        int capacity = SENTINELS + Math.max(16, expectedTimers);
+        next = new int[capacity];
+        prev = new int[capacity];
+        keys = new int[capacity];
+        deadlines = new long[capacity];
+        values = new long[capacity];
+        for (int s = 0; s < SENTINELS; s++) {
+            next[s] = s;
+            prev[s] = s;
+        }
+        nodeOf = new LongIntHashMap(Math.max(16, expectedTimers));
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int key) {
+        return nodeOf.containsKey(key);
+    }
+
+    /**
+     * Sets the timer of `key` (replacing any previous one). A deadline in
+     * the past fires on the next advance().
+     *
+     * @param key not 0
+     */
+    void schedule(int key, long deadlineMs, long value) {
+        int node = nodeOf.get(key, -1);
+        if (node >= 0) {
+            unlink(node);
+        } else {
+            node = allocate();
+            keys[node] = key;
+            nodeOf.put(key, node, -1);
+            size++;
+        }
+        deadlines[node] = Math.max(Math.floorDiv(deadlineMs, tickMs), currentTick);
+        values[node] = value;
+        link(node);
+    }
+
+    /** @return false if `key` had no timer */
+    boolean cancel(int key) {
+        int node = nodeOf.get(key, -1);
+        if (node < 0) return false;
+        unlink(node);
+        release(node);
+        return true;
+    }
+
+    /** Value of the timer of `key`, or `missingValue`. */
+    long value(int key, long missingValue) {
+        int node = nodeOf.get(key, -1);
+        return node < 0 ? missingValue : values[node];
+    }
+
+    /** Deadline of the timer of `key` (rounded to the tick), or -1. */
+    long deadlineMs(int key) {
+        int node = nodeOf.get(key, -1);
+        return node < 0 ? -1 : deadlines[node] * tickMs;
+    }
+
+    /**
+     * Moves the clock to `nowMs`, removing and reporting every timer due by
+     * then. The visitor may schedule new timers; ones due right away fire
+     * on the next call.
+     */
+    void advance(long nowMs, ExpiryVisitor visitor) {
+        long target = Math.floorDiv(nowMs, tickMs);
+        while (currentTick <= target) {
+            int index = (int) (currentTick & MASK);
+            if (index == 0) {
+                for (int level = 1; level < LEVELS; level++) {
+                    int slot = (int) ((currentTick >>> (BITS * level)) & MASK);
+                    cascade(level * SLOTS + slot);
+                    if (slot != 0) break;
+                }
+            }
+
+            // Detach the whole slot first: the visitor may schedule into the wheel
+            int head = index;
+            int node = next[head];
+            next[head] = head;
+            prev[head] = head;
+            currentTick++;
+            while (node != head) {
+                int following = next[node];
+                int key = keys[node];
+                long value = values[node];
+                nodeOf.remove(key, -1);
+                releaseDetached(node);
+                visitor.expired(key, value);
+                node = following;
+            }
+        }
+    }
+
+    // ---- Internals ----
+
+    /** Re-files the timers of one slot relative to the current tick. */
+    private void cascade(int head) {
+        int node = next[head];
+        next[head] = head;
+        prev[head] = head;
+        while (node != head) {
+            int following = next[node];
+            link(node);
+            node = following;
+        }
+    }
+
+    private void link(int node) {
+        long deadline = deadlines[node];
+        long delta = deadline - currentTick;
+        int head;
+        if (delta < SLOTS) {
+            head = (int) (deadline & MASK);
+        } else {
+            // Beyond the top level: file it at the far end, it is re-filed when reached
+            long at = delta < SPAN ? deadline : currentTick + SPAN - 1;
+            int level = 1;
+            while (level < LEVELS - 1 && (at - currentTick) >= 1L << (BITS * (level + 1))) level++;
+            head = level * SLOTS + (int) ((at >>> (BITS * level)) & MASK);
+        }
+        int last = prev[head];
+        next[last] = node;
+        prev[node] = last;
+        next[node] = head;
+        prev[head] = node;
+    }
+
+    private void unlink(int node) {
+        next[prev[node]] = next[node];
+        prev[next[node]] = prev[node];
+    }
+
+    private int allocate() {
+        if (free >= 0) {
+            int node = free;
+            free = next[node];
+            return node;
+        }
+        if (used == next.length) grow();
+        return used++;
+    }
+
+    private void release(int node) {
+        nodeOf.remove(keys[node], -1);
+        releaseDetached(node);
+    }
+
+    /** Frees a node that is already out of its list and the key index. */
+    private void releaseDetached(int node) {
+        next[node] = free;
+        free = node;
+        size--;
+    }
+
+    private void grow() {
+        int capacity = next.length + (next.length >> 1);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        deadlines = Arrays.copyOf(deadlines, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+}
@@ -0,0 +1,153 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * AssignmentBenchmark
+ *
+ * Simulates complaint assignment with the ComplaintAssigner strategies
+ * against the old random pick, on a synthetic roster (no database needed):
+ *
+ *   java -cp build/classes AssignmentBenchmark [staff] [steps]
+ *
+ * Balance: every step a batch of complaints arrives (uniform categories) and
+ * each staff member closes one of their open complaints with a probability
+ * proportional to their weight; load runs at ~95% of total capacity. Open
+ * complaints per staff member are sampled after a warm-up and reported as
+ * average max / standard deviation / share of staff with nothing open.
+ *
+ * Cost: assign + close pairs per strategy, single-threaded and with 4
+ * threads sharing the roster. The old strategy additionally paid a database
+ * round trip and a Staff sort per submission, which is not simulated here.
+ */
+public class AssignmentBenchmark {
+
+    private static final int DEPARTMENTS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int staff = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        String[] names = {"random", "least-loaded", "weighted-round-robin", "department"};
+
+        System.out.printf("%d staff, %d departments, %d steps%n", staff, DEPARTMENTS, steps);
+        System.out.println("Balance (open complaints per staff member):");
+        for (String name : names) {
+            balance(name, ComplaintAssigner.strategyFromName(name), staff, steps);
+        }
+
+        System.out.println("Cost (assign + close):");
+        for (String name : names) {
+            cost(name, ComplaintAssigner.strategyFromName(name), staff, 5_000_000, 1);
+            cost(name, ComplaintAssigner.strategyFromName(name), staff, 5_000_000, 4);
+        }
+    }
+
+    /** Staff member i is in department i % 10; every 10th one per department counts double (e.g. seniors). */
+    private static ComplaintAssigner.Roster roster(int staff) {
+        int[] ids = new int[staff];
+        int[] departments = new int[staff];
+        int[] weights = new int[staff];
+        for (int i = 0; i < staff; i++) {
+            ids[i] = 1000 + i;
+            departments[i] = 1 + i % DEPARTMENTS;
+            weights[i] = weight(i);
+        }
+        Map<Integer, Integer> categoryDepartments = new HashMap<>();
+        for (int c = 1; c <= DEPARTMENTS; c++) {
+            categoryDepartments.put(c, c);
+        }
+        return new ComplaintAssigner.Roster(ids, departments, weights, new int[staff], categoryDepartments);
+    }
+
+    private static int weight(int i) {
+        return (i / DEPARTMENTS) % 10 == 0 ? 2 : 1;
+    }
+
+    private static void balance(String name, ComplaintAssigner.Strategy strategy, int staff, int steps) {
+        ComplaintAssigner.Roster r = roster(staff);
+        SplittableRandom random = new SplittableRandom(7);
+
+        double closeChance = 0.2;
+        double capacity = 0;
+        for (int i = 0; i < staff; i++) capacity += closeChance * weight(i);
+        double arrivalsPerStep = capacity * 0.95;
+
+        double maxSum = 0, stdSum = 0, emptySum = 0;
+        int samples = 0;
+
+        for (int step = 0; step < steps; step++) {
+            int arrivals = (int) arrivalsPerStep + (random.nextDouble() < arrivalsPerStep % 1 ? 1 : 0);
+            for (int a = 0; a < arrivals; a++) {
+                int index = strategy.pick(r, 1 + random.nextInt(DEPARTMENTS));
+                r.opened(index);
+            }
+            for (int i = 0; i < staff; i++) {
+                double chance = closeChance * weight(i);
+                if (r.openCount(i) > 0 && random.nextDouble() < chance) r.closed(i);
+            }
+
+            if (step >= steps / 10 && step % 10 == 0) { // after warm-up
+                int max = 0, empty = 0;
+                double sum = 0, sumSq = 0;
+                for (int i = 0; i < staff; i++) {
+                    int open = r.openCount(i);
+                    max = Math.max(max, open);
+                    if (open == 0) empty++;
+                    sum += open;
+                    sumSq += (double) open * open;
+                }
+                double mean = sum / staff;
+                maxSum += max;
+                stdSum += Math.sqrt(Math.max(0, sumSq / staff - mean * mean));
+                emptySum += (double) empty / staff;
+                samples++;
+            }
+        }
+
+        System.out.printf("  %-22s avg max=%6.1f  stddev=%6.2f  no backlog=%5.1f%%%n",
+                name, maxSum / samples, stdSum / samples, 100 * emptySum / samples);
+    }
+
+    private static void cost(String name, ComplaintAssigner.Strategy strategy, int staff,
+                             int operations, int threads) throws InterruptedException {
+        ComplaintAssigner.Roster r = roster(staff);
+        int perThread = operations / threads;
+
+        // Warm-up
+        run(r, strategy, perThread / 10);
+
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                run(r, strategy, perThread);
+            });
+            workers[t].start();
+        }
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) w.join();
+        long elapsed = System.nanoTime() - t0;
+
+        System.out.printf("  %-22s threads=%d  %.1f ns/op  (%.1f M ops/s)%n",
+                name, threads, (double) elapsed / perThread,
+                perThread * (double) threads / elapsed * 1000);
+    }
+
+    private static void run(ComplaintAssigner.Roster r, ComplaintAssigner.Strategy strategy, int n) {
+        SplittableRandom random = new SplittableRandom(System.nanoTime());
+        for (int k = 0; k < n; k++) {
+            int index = strategy.pick(r, 1 + random.nextInt(DEPARTMENTS));
+            r.opened(index);
+            r.closed(index);
+        }
+    }
+}
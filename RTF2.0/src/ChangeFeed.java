@@ -0,0 +1,351 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ChangeFeed
+ *
+ * Lets a workstation see what the other workstations (and the other
+ * application) write without re-running its list queries: one delta query
+ * per interval reads what is new since the previous poll and publishes it
+ * as remote ComplaintEvents, which the in-memory caches and the open
+ * screens apply.
+ *
+ * High-watermarks:
+ *  - Complaints and Calls: the identity column. A transaction that commits
+ *    after a higher ID was already read leaves a gap below the watermark;
+ *    small gaps are re-checked for -Drtf.feed.overlapSec (default 30), then
+ *    given up as rolled back.
+ *  - ComplaintActions: ActionDate. Every poll re-reads the last overlap
+ *    window and skips the rows it has seen.
+ *
+ * New complaints become ComplaintCreated, new calls CallLogged, and action
+ * rows ComplaintClosed ("Close"), PriorityChanged ("Escalate"),
+ * ComplaintAssigned ("Assign", to the current assignee) or StatusChanged
+ * (any other status change). Changes this process published itself are
+ * skipped.
+ *
+ * Polls start every -Drtf.feed.minMs (default 1000); each empty poll waits
+ * half as long again, up to -Drtf.feed.maxMs (default 10000), and a change
+ * brings it back to the minimum. Errors back off exponentially up to
+ * -Drtf.feed.errorMaxMs (default 60000). -Drtf.feed.enabled=false turns it
+ * off.
+ *
+ * Tables used:
+ *  - Complaints, ComplaintTexts, ComplaintActions, Calls
+ *  - ComplaintStatus, ComplaintPriority (names, via ReferenceData)
+ */
+public final class ChangeFeed {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("rtf.feed.enabled", "true"));
+    private static final long MIN_MS = Long.getLong("rtf.feed.minMs", 1000);
+    private static final long MAX_MS = Long.getLong("rtf.feed.maxMs", 10_000);
+    private static final long ERROR_MAX_MS = Long.getLong("rtf.feed.errorMaxMs", 60_000);
+    private static final long OVERLAP_MS = Long.getLong("rtf.feed.overlapSec", 30) * 1000;
+    private static final int MAX_GAP = 32;       // larger jumps are identity cache skips, not commits in flight
+    private static final int MAX_GAPS = 100;
+
+    static final String CLOSE_ACTION = "Close";
+    static final String ESCALATE_ACTION = "Escalate";
+    static final String ASSIGN_ACTION = "Assign";
+
+    private static final String WATERMARKS_SQL = """
+        SELECT (SELECT MAX(ComplaintID) FROM Complaints) AS LastComplaintID,
+               (SELECT MAX(CallID) FROM Calls) AS LastCallID,
+               (SELECT MAX(ActionDate) FROM ComplaintActions) AS LastActionDate
+        """;
+
+    // Src: C = new complaint, A = action row, K = new call
+    private static final String COMPLAINTS_PART = """
+        SELECT 'C' AS Src, c.ComplaintID AS RowID, c.ComplaintID, c.CustomerID,
+               c.AssignedStaffID AS StaffID, t.Title, NULL AS ActionType,
+               NULL AS OldStatusID, NULL AS NewStatusID, c.ComplaintPriorityID AS PriorityID,
+               t.CreatedAt AS At
+        FROM Complaints c
+        LEFT JOIN ComplaintTexts t ON t.ComplaintID = c.ComplaintID
+        WHERE c.ComplaintID > ?
+        """;
+
+    private static final String ACTIONS_PART = """
+        SELECT 'A', a.ComplaintID, a.ComplaintID, c.CustomerID,
+               c.AssignedStaffID, NULL, a.ActionType,
+               a.OldStatusID, a.NewStatusID, c.ComplaintPriorityID,
+               a.ActionDate
+        FROM ComplaintActions a
+        JOIN Complaints c ON c.ComplaintID = a.ComplaintID
+        WHERE a.ActionDate > ?
+        """;
+
+    private static final String CALLS_PART = """
+        SELECT 'K', k.CallID, NULL, k.CustomerID,
+               k.StaffID, NULL, NULL,
+               NULL, NULL, NULL,
+               NULL
+        FROM Calls k
+        WHERE k.CallID > ?
+        """;
+
+    /** One row of the delta query. */
+    static final class Row {
+        char src;
+        int rowId;
+        Integer complaintId, customerId, staffId, oldStatusId, newStatusId, priorityId;
+        String title, actionType;
+        Timestamp at;
+    }
+
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "change-feed");
+                t.setDaemon(true);
+                return t;
+            });
+
+    // Feed thread only
+    private static int lastComplaintId;
+    private static int lastCallId;
+    private static long lastActionAt;                                    // ms, newest ActionDate seen
+    private static final TreeMap<Integer, Long> complaintGaps = new TreeMap<>(); // ID -> first missed at
+    private static final TreeMap<Integer, Long> callGaps = new TreeMap<>();
+    private static final Map<String, Long> seenActions = new HashMap<>(); // row key -> ActionDate ms
+    private static long intervalMs = MIN_MS;
+    private static long errorDelayMs = 0;
+
+    private static volatile boolean started;
+    private static final AtomicLong POLLS = new AtomicLong();
+    private static final AtomicLong PUBLISHED = new AtomicLong();
+
+    private ChangeFeed() {
+    }
+
+    /** Starts polling from the current state of the database. Call once at startup. */
+    public static synchronized void start() {
+        if (started || !ENABLED) return;
+        started = true;
+        SCHEDULER.execute(ChangeFeed::init);
+    }
+
+    /** For diagnostics: polls, events published, current interval. */
+    public static String getStats() {
+        return "polls=" + POLLS.get() + " published=" + PUBLISHED.get() + " intervalMs=" + intervalMs;
+    }
+
+    // ---- Feed thread ----
+
+    private static void init() {
+        try {
+            long[] marks = DbExecutor.supply(ChangeFeed::readWatermarks).get();
+            lastComplaintId = (int) marks[0];
+            lastCallId = (int) marks[1];
+            lastActionAt = marks[2];
+            errorDelayMs = 0;
+            SCHEDULER.schedule(ChangeFeed::poll, intervalMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            e.printStackTrace();
+            SCHEDULER.schedule(ChangeFeed::init, nextErrorDelay(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void poll() {
+        long delay;
+        try {
+            long now = System.currentTimeMillis();
+            expire(complaintGaps, now);
+            expire(callGaps, now);
+
+            int fromComplaint = lastComplaintId, fromCall = lastCallId;
+            List<Integer> gapsC = new ArrayList<>(complaintGaps.keySet());
+            List<Integer> gapsK = new ArrayList<>(callGaps.keySet());
+            Timestamp actionsFrom = new Timestamp(lastActionAt - OVERLAP_MS);
+
+            List<Row> rows = DbExecutor.supply(conn ->
+                    readDelta(conn, fromComplaint, gapsC, fromCall, gapsK, actionsFrom)).get();
+            POLLS.incrementAndGet();
+
+            int published = publish(rows, now);
+            intervalMs = published > 0 ? MIN_MS : Math.min(MAX_MS, intervalMs + intervalMs / 2);
+            errorDelayMs = 0;
+            delay = intervalMs;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            e.printStackTrace();
+            delay = nextErrorDelay();
+        }
+        SCHEDULER.schedule(ChangeFeed::poll, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /** Advances the watermarks and publishes the new changes; returns how many. */
+    private static int publish(List<Row> rows, long now) throws SQLException {
+        List<Row> complaints = new ArrayList<>(), calls = new ArrayList<>(), actions = new ArrayList<>();
+        for (Row r : rows) {
+            (r.src == 'C' ? complaints : r.src == 'K' ? calls : actions).add(r);
+        }
+        complaints.sort((a, b) -> Integer.compare(a.rowId, b.rowId));
+        calls.sort((a, b) -> Integer.compare(a.rowId, b.rowId));
+        actions.sort((a, b) -> a.at.compareTo(b.at));
+
+        List<ComplaintEvents.Event> events = new ArrayList<>();
+        for (Row r : complaints) {
+            if (!advance(r.rowId, true, now)) continue;
+            events.add(new ComplaintEvents.ComplaintCreated(r.rowId, r.customerId, r.staffId, r.title));
+        }
+        for (Row r : calls) {
+            if (!advance(r.rowId, false, now)) continue;
+            events.add(new ComplaintEvents.CallLogged(r.rowId, r.staffId != null ? r.staffId : 0,
+                    r.customerId, null));
+        }
+
+        ReferenceData.Table statuses = null, priorities = null;
+        for (Row r : actions) {
+            long at = r.at.getTime();
+            String key = r.complaintId + "|" + r.actionType + "|" + r.at + "|" + r.newStatusId;
+            if (seenActions.putIfAbsent(key, at) != null) continue;
+            lastActionAt = Math.max(lastActionAt, at);
+
+            if (CLOSE_ACTION.equalsIgnoreCase(r.actionType)) {
+                if (statuses == null) statuses = ReferenceData.require(ReferenceData.Kind.COMPLAINT_STATUSES);
+                events.add(new ComplaintEvents.ComplaintClosed(r.complaintId, r.staffId, name(statuses, r.newStatusId)));
+            } else if (ESCALATE_ACTION.equalsIgnoreCase(r.actionType)) {
+                if (r.priorityId == null) continue;
+                if (priorities == null) priorities = ReferenceData.require(ReferenceData.Kind.COMPLAINT_PRIORITIES);
+                events.add(new ComplaintEvents.PriorityChanged(r.complaintId, r.priorityId, name(priorities, r.priorityId)));
+            } else if (ASSIGN_ACTION.equalsIgnoreCase(r.actionType)) {
+                if (r.staffId == null) continue;
+                events.add(new ComplaintEvents.ComplaintAssigned(r.complaintId, null, r.staffId));
+            } else if (r.newStatusId != null && !r.newStatusId.equals(r.oldStatusId)) {
+                if (statuses == null) statuses = ReferenceData.require(ReferenceData.Kind.COMPLAINT_STATUSES);
+                events.add(new ComplaintEvents.StatusChanged(r.complaintId, r.newStatusId, name(statuses, r.newStatusId)));
+            }
+        }
+        // Rows older than the re-read window cannot come back
+        seenActions.values().removeIf(at -> at <= lastActionAt - OVERLAP_MS);
+
+        int published = 0;
+        for (ComplaintEvents.Event e : events) {
+            if (ComplaintEvents.publishedHere(e)) continue;
+            e.markRemote();
+            ComplaintEvents.publish(e);
+            published++;
+        }
+        PUBLISHED.addAndGet(published);
+        return published;
+    }
+
+    /**
+     * Moves the Complaints or Calls watermark past `id`, remembering the IDs
+     * it skipped; an ID below the watermark fills its gap.
+     *
+     * @return false if the row was already published
+     */
+    private static boolean advance(int id, boolean complaint, long now) {
+        TreeMap<Integer, Long> gaps = complaint ? complaintGaps : callGaps;
+        int last = complaint ? lastComplaintId : lastCallId;
+        if (id <= last) return gaps.remove(id) != null;
+
+        if (id - last - 1 <= MAX_GAP) {
+            for (int missing = last + 1; missing < id; missing++) gaps.put(missing, now);
+        }
+        while (gaps.size() > MAX_GAPS) gaps.pollFirstEntry();
+        if (complaint) lastComplaintId = id;
+        else lastCallId = id;
+        return true;
+    }
+
+    private static void expire(TreeMap<Integer, Long> gaps, long now) {
+        for (Iterator<Long> it = gaps.values().iterator(); it.hasNext(); ) {
+            if (now - it.next() > OVERLAP_MS) it.remove();
+        }
+    }
+
+    private static long nextErrorDelay() {
+        errorDelayMs = errorDelayMs == 0 ? MIN_MS : Math.min(ERROR_MAX_MS, errorDelayMs * 2);
+        // Jitter, so workstations that lost the server together do not come back in step
+        return errorDelayMs / 2 + ThreadLocalRandom.current().nextLong(errorDelayMs / 2 + 1);
+    }
+
+    private static String name(ReferenceData.Table table, Integer id) {
+        ReferenceData.Item item = id != null ? table.byId(id) : null;
+        return item != null ? item.name() : null;
+    }
+
+    // ---- Database ----
+
+    /** {last ComplaintID, last CallID, last ActionDate ms}; 0 for empty tables. */
+    static long[] readWatermarks(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(WATERMARKS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next(); // scalar subqueries: always exactly one row
+            Timestamp lastAction = rs.getTimestamp("LastActionDate");
+            return new long[]{
+                    rs.getLong("LastComplaintID"),
+                    rs.getLong("LastCallID"),
+                    lastAction != null ? lastAction.getTime() : 0
+            };
+        }
+    }
+
+    /** The delta query: everything past the watermarks (and in the open gaps), in one round trip. */
+    static List<Row> readDelta(Connection conn, int fromComplaint, List<Integer> complaintGaps,
+                                       int fromCall, List<Integer> callGaps, Timestamp actionsFrom)
+            throws SQLException {
+        String sql = COMPLAINTS_PART + orIn("c.ComplaintID", complaintGaps.size())
+                + "UNION ALL\n" + ACTIONS_PART
+                + "UNION ALL\n" + CALLS_PART + orIn("k.CallID", callGaps.size());
+
+        List<Row> rows = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            ps.setInt(i++, fromComplaint);
+            for (int id : complaintGaps) ps.setInt(i++, id);
+            ps.setTimestamp(i++, actionsFrom);
+            ps.setInt(i++, fromCall);
+            for (int id : callGaps) ps.setInt(i++, id);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Row r = new Row();
+                    r.src = rs.getString("Src").charAt(0);
+                    r.rowId = rs.getInt("RowID");
+                    r.complaintId = nullableInt(rs, "ComplaintID");
+                    r.customerId = nullableInt(rs, "CustomerID");
+                    r.staffId = nullableInt(rs, "StaffID");
+                    r.title = rs.getString("Title");
+                    r.actionType = rs.getString("ActionType");
+                    r.oldStatusId = nullableInt(rs, "OldStatusID");
+                    r.newStatusId = nullableInt(rs, "NewStatusID");
+                    r.priorityId = nullableInt(rs, "PriorityID");
+                    r.at = rs.getTimestamp("At");
+                    if (r.src == 'A' && (r.at == null || r.complaintId == null)) continue;
+                    rows.add(r);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static String orIn(String column, int count) {
+        if (count == 0) return "";
+        return "   OR " + column + " IN (" + String.join(", ", Collections.nCopies(count, "?")) + ")\n";
+    }
+
+    private static Integer nullableInt(ResultSet rs, String column) throws SQLException {
+        int v = rs.getInt(column);
+        return rs.wasNull() ? null : v;
+    }
+}
@@ -0,0 +1,414 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ComplaintAssigner
+ *
+ * Picks the staff member a new customer complaint is assigned to, from an
+ * in-memory roster instead of "SELECT TOP 1 ... ORDER BY NEWID()" (a sort
+ * of the Staff table per submission that ignores workload).
+ *
+ * The roster keeps every staff member's open complaint count in LoadTrees
+ * (lock-free, O(log n) per change, minimum at the root):
+ *  - assign() counts the new complaint at once; release() undoes it if
+ *    the insert rolls back.
+ *  - complaintClosed() is called after a close commits.
+ *  - Complaints opened or closed by other workstations (e.g. the call
+ *    center app) arrive from ChangeFeed.
+ *  - The roster is rebuilt from the database every -Drtf.assign.reloadMin
+ *    minutes (default 5), which picks up new staff and corrects any drift.
+ *
+ * Strategies (-Drtf.assign.strategy, default "department"):
+ *  - least-loaded          fewest open complaints
+ *  - weighted-round-robin  stride scheduling by role weight
+ *                          (-Drtf.assign.roleWeights=Senior:2,Manager:1; default 1)
+ *  - department            least loaded within the department that matches the
+ *                          complaint category by name, or as configured with
+ *                          -Drtf.assign.categoryDepartments=categoryId:departmentId,...;
+ *                          least loaded overall when there is no match
+ *  - random                the old behaviour, for comparison
+ *
+ * Tables used:
+ *  - Staff, Departments
+ *  - Complaints (open counts)
+ *  - ComplaintCategory (via ReferenceData)
+ */
+public final class ComplaintAssigner {
+
+    /** Chooses a roster index for a complaint of the given category, or -1. */
+    public interface Strategy {
+        int pick(Roster roster, int categoryId);
+    }
+
+    public static final Strategy RANDOM = (roster, categoryId) ->
+            roster.size() == 0 ? -1 : ThreadLocalRandom.current().nextInt(roster.size());
+
+    public static final Strategy LEAST_LOADED = (roster, categoryId) -> roster.load.minIndex();
+
+    public static final Strategy WEIGHTED_ROUND_ROBIN = (roster, categoryId) -> roster.nextInTurn();
+
+    public static final Strategy DEPARTMENT = (roster, categoryId) -> {
+        int index = roster.leastLoadedInDepartment(roster.departmentFor(categoryId));
+        return index >= 0 ? index : roster.load.minIndex();
+    };
+
+    /**
+     * Staff snapshot with live open-complaint counts. Built from the
+     * database, or directly (AssignmentBenchmark).
+     */
+    public static final class Roster {
+        // Stride scheduling: a staff member with weight w moves STRIDE_BASE / w per turn
+        private static final int STRIDE_BASE = 5040; // divisible by 1..10
+        private static final int REBASE_AT = 1 << 30;
+
+        private final int[] staffIds;
+        private final int[] departments;      // 0 = none
+        private final int[] strides;
+        private final Map<Integer, Integer> indexOf = new HashMap<>();
+        private final Map<Integer, Integer> categoryDepartments;
+
+        final LoadTree load;
+        private final LoadTree turns;
+
+        private final Map<Integer, LoadTree> departmentLoad = new HashMap<>();
+        private final Map<Integer, int[]> departmentMembers = new HashMap<>();
+        private final int[] departmentSlot;   // roster index -> position in its department tree
+
+        /**
+         * @param weights    1..10, higher takes more complaints (weighted-round-robin)
+         * @param openCounts open complaints per staff member right now
+         */
+        Roster(int[] staffIds, int[] departments, int[] weights, int[] openCounts,
+               Map<Integer, Integer> categoryDepartments) {
+            int n = staffIds.length;
+            this.staffIds = staffIds.clone();
+            this.departments = departments.clone();
+            this.strides = new int[n];
+            this.departmentSlot = new int[n];
+            this.categoryDepartments = new HashMap<>(categoryDepartments);
+
+            Map<Integer, List<Integer>> members = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                indexOf.put(staffIds[i], i);
+                strides[i] = STRIDE_BASE / Math.max(1, Math.min(10, weights[i]));
+                if (departments[i] != 0) {
+                    List<Integer> list = members.computeIfAbsent(departments[i], d -> new ArrayList<>());
+                    departmentSlot[i] = list.size();
+                    list.add(i);
+                }
+            }
+
+            this.load = new LoadTree(openCounts);
+            this.turns = new LoadTree(new int[n]);
+
+            for (Map.Entry<Integer, List<Integer>> e : members.entrySet()) {
+                List<Integer> list = e.getValue();
+                int[] indexes = new int[list.size()];
+                int[] counts = new int[list.size()];
+                for (int k = 0; k < indexes.length; k++) {
+                    indexes[k] = list.get(k);
+                    counts[k] = openCounts[indexes[k]];
+                }
+                departmentMembers.put(e.getKey(), indexes);
+                departmentLoad.put(e.getKey(), new LoadTree(counts));
+            }
+        }
+
+        public int size() {
+            return staffIds.length;
+        }
+
+        public int staffId(int index) {
+            return staffIds[index];
+        }
+
+        public int openCount(int index) {
+            return load.key(index);
+        }
+
+        /** Roster index of a staff member, or -1. */
+        public int indexOf(int staffId) {
+            Integer index = indexOf.get(staffId);
+            return index != null ? index : -1;
+        }
+
+        int departmentFor(int categoryId) {
+            return categoryDepartments.getOrDefault(categoryId, 0);
+        }
+
+        void opened(int index) {
+            change(index, 1);
+        }
+
+        void closed(int index) {
+            change(index, -1);
+        }
+
+        private void change(int index, int delta) {
+            load.add(index, delta);
+            LoadTree dept = departmentLoad.get(departments[index]);
+            if (dept != null) dept.add(departmentSlot[index], delta);
+        }
+
+        int leastLoadedInDepartment(int department) {
+            LoadTree dept = departmentLoad.get(department);
+            if (dept == null) return -1;
+            int slot = dept.minIndex();
+            return slot < 0 ? -1 : departmentMembers.get(department)[slot];
+        }
+
+        // Pick and advance under one lock: two submits must not take the same turn
+        synchronized int nextInTurn() {
+            int index = turns.minIndex();
+            if (index < 0) return -1;
+            if (turns.add(index, strides[index]) >= REBASE_AT) rebaseTurns();
+            return index;
+        }
+
+        // Rare (after ~200k assignments); keeps the pass values inside an int
+        private synchronized void rebaseTurns() {
+            int min = turns.minKey();
+            if (min < REBASE_AT / 2) return;
+            for (int i = 0; i < size(); i++) {
+                turns.add(i, -min);
+            }
+        }
+    }
+
+    private static final long RELOAD_MINUTES = Long.getLong("rtf.assign.reloadMin", 5);
+
+    private static final String STAFF_SQL = """
+        SELECT s.StaffID, s.DepartmentID, s.Role, COUNT(c.ComplaintID) AS OpenCount
+        FROM Staff s
+        LEFT JOIN Complaints c ON c.AssignedStaffID = s.StaffID AND c.IsActive = 1
+        GROUP BY s.StaffID, s.DepartmentID, s.Role
+        ORDER BY s.StaffID
+        """;
+
+    private static final String DEPARTMENTS_SQL = "SELECT DepartmentID, Name FROM Departments";
+
+    private static volatile Strategy strategy = strategyFromName(System.getProperty("rtf.assign.strategy", "department"));
+    private static volatile CompletableFuture<Roster> roster;
+
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "complaint-assigner");
+                t.setDaemon(true);
+                return t;
+            });
+
+    static {
+        if (RELOAD_MINUTES > 0) {
+            SCHEDULER.scheduleWithFixedDelay(ComplaintAssigner::reload,
+                    RELOAD_MINUTES, RELOAD_MINUTES, TimeUnit.MINUTES);
+        }
+        // Complaints assigned or closed on other workstations (ChangeFeed)
+        ComplaintEvents.subscribe(events -> {
+            for (ComplaintEvents.Event e : events) {
+                if (!e.isRemote()) continue;
+                if (e instanceof ComplaintEvents.ComplaintCreated) {
+                    Integer staffId = ((ComplaintEvents.ComplaintCreated) e).assignedStaffId();
+                    if (staffId != null) count(staffId, true);
+                } else if (e instanceof ComplaintEvents.ComplaintAssigned) {
+                    // The previous assignee is not in the feed; the periodic reload corrects it
+                    ComplaintEvents.ComplaintAssigned assigned = (ComplaintEvents.ComplaintAssigned) e;
+                    if (assigned.previousStaffId() != null) count(assigned.previousStaffId(), false);
+                    count(assigned.staffId(), true);
+                } else {
+                    Integer staffId = ((ComplaintEvents.ComplaintClosed) e).assignedStaffId();
+                    if (staffId != null) count(staffId, false);
+                }
+            }
+        }, ComplaintEvents.ComplaintCreated.class, ComplaintEvents.ComplaintAssigned.class,
+                ComplaintEvents.ComplaintClosed.class);
+    }
+
+    private ComplaintAssigner() {
+    }
+
+    /** Starts loading the roster. Call once at application startup. */
+    public static void preload() {
+        current();
+    }
+
+    public static void setStrategy(Strategy s) {
+        strategy = s;
+    }
+
+    static Strategy strategyFromName(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "random":
+                return RANDOM;
+            case "least-loaded":
+                return LEAST_LOADED;
+            case "weighted-round-robin":
+                return WEIGHTED_ROUND_ROBIN;
+            default:
+                return DEPARTMENT;
+        }
+    }
+
+    /**
+     * Picks a staff member and counts the complaint for them. Blocks until
+     * the roster is loaded; call on a DB worker thread, never on the EDT.
+     *
+     * @return StaffID, or null if there is no staff
+     */
+    public static Integer assign(int categoryId) throws SQLException {
+        Roster r = require();
+        int index = strategy.pick(r, categoryId);
+        if (index < 0) return null;
+        r.opened(index);
+        return r.staffId(index);
+    }
+
+    /** Undoes assign() when the complaint was not saved after all. */
+    public static void release(int staffId) {
+        complaintClosed(staffId);
+    }
+
+    /** Call after a complaint assigned to staffId was closed (committed). */
+    public static void complaintClosed(int staffId) {
+        count(staffId, false);
+    }
+
+    private static void count(int staffId, boolean opened) {
+        CompletableFuture<Roster> f = roster;
+        if (f == null || !f.isDone() || f.isCompletedExceptionally()) return; // next load counts it
+        Roster r = f.join();
+        int index = r.indexOf(staffId);
+        if (index < 0) return;
+        if (opened) r.opened(index);
+        else r.closed(index);
+    }
+
+    /** Rebuilds the roster from the database; the old one serves until it is ready. */
+    public static void reload() {
+        CompletableFuture<Roster> next = DbExecutor.supply(ComplaintAssigner::load);
+        next.whenComplete((r, ex) -> {
+            if (ex != null) {
+                ex.printStackTrace(); // keep the current roster
+            } else {
+                roster = next;
+            }
+        });
+    }
+
+    private static synchronized CompletableFuture<Roster> current() {
+        if (roster == null || roster.isCompletedExceptionally()) {
+            roster = DbExecutor.supply(ComplaintAssigner::load);
+        }
+        return roster;
+    }
+
+    private static Roster require() throws SQLException {
+        try {
+            return current().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while loading the staff roster", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            throw new SQLException("Could not load the staff roster: " + cause.getMessage(), cause);
+        }
+    }
+
+    // ---- Loading (DB worker) ----
+
+    private static Roster load(Connection conn) throws SQLException {
+        List<int[]> rows = new ArrayList<>();
+        List<String> roles = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(STAFF_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rows.add(new int[]{rs.getInt("StaffID"), rs.getInt("DepartmentID"), rs.getInt("OpenCount")});
+                roles.add(rs.getString("Role"));
+            }
+        }
+
+        Map<Integer, String> departmentNames = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(DEPARTMENTS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                departmentNames.put(rs.getInt("DepartmentID"), rs.getString("Name"));
+            }
+        }
+
+        Map<String, Integer> roleWeights = parseRoleWeights(System.getProperty("rtf.assign.roleWeights", ""));
+
+        int n = rows.size();
+        int[] staffIds = new int[n];
+        int[] departments = new int[n];
+        int[] weights = new int[n];
+        int[] openCounts = new int[n];
+        for (int i = 0; i < n; i++) {
+            int[] row = rows.get(i);
+            staffIds[i] = row[0];
+            departments[i] = row[1];  // getInt: NULL -> 0
+            openCounts[i] = row[2];
+            String role = roles.get(i);
+            weights[i] = role == null ? 1 : roleWeights.getOrDefault(role.trim().toLowerCase(Locale.ROOT), 1);
+        }
+
+        Map<Integer, Integer> categoryDepartments = matchCategories(
+                ReferenceData.require(ReferenceData.Kind.COMPLAINT_CATEGORIES), departmentNames);
+
+        return new Roster(staffIds, departments, weights, openCounts, categoryDepartments);
+    }
+
+    /** Category -> department by name ("Billing" ~ "Billing Department"), then explicit overrides. */
+    private static Map<Integer, Integer> matchCategories(ReferenceData.Table categories,
+                                                         Map<Integer, String> departmentNames) {
+        Map<Integer, Integer> result = new HashMap<>();
+        for (ReferenceData.Item category : categories.items()) {
+            String c = category.name().trim().toLowerCase(Locale.ROOT);
+            if (c.isEmpty()) continue;
+            for (Map.Entry<Integer, String> d : departmentNames.entrySet()) {
+                String name = d.getValue() == null ? "" : d.getValue().trim().toLowerCase(Locale.ROOT);
+                if (!name.isEmpty() && (name.contains(c) || c.contains(name))) {
+                    result.put(category.id(), d.getKey());
+                    break;
+                }
+            }
+        }
+
+        for (String pair : System.getProperty("rtf.assign.categoryDepartments", "").split(",")) {
+            String[] parts = pair.split(":");
+            if (parts.length != 2) continue;
+            try {
+                result.put(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring rtf.assign.categoryDepartments entry: " + pair);
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Integer> parseRoleWeights(String spec) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String pair : spec.split(",")) {
+            String[] parts = pair.split(":");
+            if (parts.length != 2) continue;
+            try {
+                weights.put(parts[0].trim().toLowerCase(Locale.ROOT), Integer.parseInt(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring rtf.assign.roleWeights entry: " + pair);
+            }
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,156 @@
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * ComplaintDetailCache
+ *
+ * Bounded LRU cache of complaint details (the row a list screen shows
+ * below its table), keyed by ComplaintID, so moving through a list does
+ * not run the detail join for every row.
+ *
+ *  - load() answers from the cache, or reads the one complaint.
+ *  - prefetch() reads the details of the rows around the selection in one
+ *    IN (...) query, cancelling a prefetch that has not run yet.
+ *  - Closes and status or priority changes (ComplaintEvents, local or
+ *    remote) invalidate the complaint. Every invalidation gets a version;
+ *    a read that started before it does not put its older copy back.
+ *
+ * Size: -Drtf.detail.cacheSize (default 500). The screen supplies the
+ * query, so each application keeps its own detail columns.
+ *
+ * All methods must be called on the EDT.
+ */
+public final class ComplaintDetailCache {
+
+    private static final int CAPACITY = Integer.getInteger("rtf.detail.cacheSize", 500);
+    private static final int VERSIONS = 4096; // invalidations remembered, far more than reads in flight
+
+    /** Maps the current row of the detail query to the detail. */
+    public interface RowMapper {
+        Object[] map(ResultSet rs) throws SQLException;
+    }
+
+    private final String sql;
+    private final RowMapper mapper;
+
+    private final Map<Integer, Object[]> details = new LinkedHashMap<>(CAPACITY * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[]> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    private DbExecutor.Task<?> prefetching;
+    private long clock = 0;
+    private final Map<Integer, Long> invalidatedAt = new LinkedHashMap<>(VERSIONS * 2, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+            return size() > VERSIONS;
+        }
+    };
+
+    /**
+     * @param sql    detail query selecting ComplaintID, with "%s" where the
+     *               IN list of ? goes, e.g. "... WHERE c.ComplaintID IN (%s)"
+     * @param mapper maps one row to what the screen shows
+     */
+    public ComplaintDetailCache(String sql, RowMapper mapper) {
+        this.sql = sql;
+        this.mapper = mapper;
+        ComplaintEvents.subscribe(this::invalidate,
+                ComplaintEvents.ComplaintClosed.class,
+                ComplaintEvents.StatusChanged.class,
+                ComplaintEvents.PriorityChanged.class);
+    }
+
+    /** The cached detail, or null. */
+    public Object[] get(int complaintId) {
+        return details.get(complaintId);
+    }
+
+    /**
+     * Gives the detail to `onLoaded`: at once if cached, else after reading
+     * it (null if the complaint does not exist). A newer load() from the
+     * same window replaces one still waiting.
+     */
+    public void load(DbExecutor.Group tasks, int complaintId,
+                     Consumer<Object[]> onLoaded, Consumer<? super Exception> onError) {
+        Object[] cached = details.get(complaintId);
+        if (cached != null) {
+            tasks.cancel("detail"); // an older miss must not overwrite this one
+            onLoaded.accept(cached);
+            return;
+        }
+        long version = clock;
+        tasks.submitLatest("detail", conn -> read(conn, List.of(complaintId)), found -> {
+            store(found, version);
+            onLoaded.accept(found.get(complaintId));
+        }, onError);
+    }
+
+    /**
+     * Reads the details of the complaints not cached yet, in one query.
+     * Not tied to a window (no busy cursor): it only fills the cache.
+     */
+    public void prefetch(List<Integer> complaintIds) {
+        List<Integer> missing = new ArrayList<>();
+        for (int id : complaintIds) {
+            if (!details.containsKey(id)) missing.add(id); // containsKey keeps the LRU order
+        }
+        if (missing.isEmpty()) return;
+
+        if (prefetching != null) prefetching.cancel();
+        long version = clock;
+        prefetching = DbExecutor.submit(conn -> read(conn, missing),
+                found -> store(found, version),
+                Throwable::printStackTrace); // only a prefetch: selecting the row reads it again
+    }
+
+    public void invalidate(int complaintId) {
+        details.remove(complaintId);
+        invalidatedAt.put(complaintId, ++clock);
+    }
+
+    private void invalidate(List<ComplaintEvents.Event> events) {
+        for (ComplaintEvents.Event e : events) {
+            if (e instanceof ComplaintEvents.ComplaintClosed) {
+                invalidate(((ComplaintEvents.ComplaintClosed) e).complaintId());
+            } else if (e instanceof ComplaintEvents.StatusChanged) {
+                invalidate(((ComplaintEvents.StatusChanged) e).complaintId());
+            } else {
+                invalidate(((ComplaintEvents.PriorityChanged) e).complaintId());
+            }
+        }
+    }
+
+    /** Caches what a read found, except complaints invalidated since it started. */
+    private void store(Map<Integer, Object[]> found, long version) {
+        for (Map.Entry<Integer, Object[]> e : found.entrySet()) {
+            Long changed = invalidatedAt.get(e.getKey());
+            if (changed == null || changed <= version) details.put(e.getKey(), e.getValue());
+        }
+    }
+
+    // ---- Background (DB worker) ----
+
+    private Map<Integer, Object[]> read(java.sql.Connection conn, List<Integer> ids) throws SQLException {
+        String query = String.format(sql, String.join(", ", Collections.nCopies(ids.size(), "?")));
+        Map<Integer, Object[]> found = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(query)) {
+            for (int i = 0; i < ids.size(); i++) ps.setInt(i + 1, ids.get(i));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    found.put(rs.getInt("ComplaintID"), mapper.map(rs));
+                }
+            }
+        }
+        return found;
+    }
+}
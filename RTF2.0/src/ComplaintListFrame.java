@@ -1,11 +1,8 @@
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
 import java.sql.*;
 /**
  * ComplaintListFrame
@@ -29,7 +26,6 @@ import java.sql.*;
 public class ComplaintListFrame extends JFrame {
 
     private final StaffUser staff;
-    private static final int CLOSED_STATUS_ID = 3;
 
     private final Color PRIMARY_DARK = new Color(62, 39, 35);    
     private final Color ACCENT_COLOR = new Color(191, 54, 12);   
@@ -42,6 +38,8 @@ public class ComplaintListFrame extends JFrame {
     private JButton btnRefresh;
     private JButton btnLogout;
     private JTable tblComplaints;
+    private ComplaintListModel complaintModel;
+    private JLabel lblCount;
 
     private JTextField txtTitle;
     private JTextField txtStatus;
@@ -59,6 +57,9 @@ public class ComplaintListFrame extends JFrame {
     private Integer selectedComplaintId = null;
     private boolean selectedComplaintIsActive = true;
 
+    // Background DB work for this window (cancelled when the window is disposed)
+    private final DbExecutor.Group tasks = new DbExecutor.Group(this);
+
     public ComplaintListFrame(StaffUser staff) {
         this.staff = staff;
         setTitle("Farm Management | Staff Desk - " + staff.getFullName());
@@ -69,6 +70,12 @@ public class ComplaintListFrame extends JFrame {
         initComponents();
         loadComplaints();
 
+        // Closes and status changes saved by this or another screen, applied without reloading
+        ComplaintEvents.subscribe(this, this::applyEvents,
+                ComplaintEvents.ComplaintClosed.class, ComplaintEvents.StatusChanged.class,
+                ComplaintEvents.PriorityChanged.class, ComplaintEvents.ComplaintCreated.class,
+                ComplaintEvents.ComplaintAssigned.class);
+
         pack();
         setLocationRelativeTo(null);
         setSize(1100, 700); 
@@ -86,9 +93,10 @@ public class ComplaintListFrame extends JFrame {
         cmbStatusFilter = new JComboBox<>(new String[]{"All", "Active", "Close"});
         cmbStatusFilter.setBackground(Color.WHITE);
         cmbStatusFilter.setForeground(TEXT_COLOR);
+        cmbStatusFilter.addActionListener(e -> applyFilter());
 
         btnRefresh = createHeaderButton("Refresh List");
-        btnRefresh.addActionListener(e -> loadComplaints());
+        btnRefresh.addActionListener(e -> refreshComplaints());
 
         btnLogout = createHeaderButton("Log out");
         btnLogout.setBackground(new Color(93, 64, 55)); 
@@ -103,6 +111,11 @@ public class ComplaintListFrame extends JFrame {
         leftTop.add(cmbStatusFilter);
         leftTop.add(btnRefresh);
 
+        lblCount = new JLabel();
+        lblCount.setForeground(Color.WHITE);
+        lblCount.setFont(new Font("Arial", Font.PLAIN, 13));
+        leftTop.add(lblCount);
+
         JPanel rightTop = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
         rightTop.setOpaque(false);
         rightTop.add(btnLogout);
@@ -110,26 +123,24 @@ public class ComplaintListFrame extends JFrame {
         topPanel.add(leftTop, BorderLayout.WEST);
         topPanel.add(rightTop, BorderLayout.EAST);
 
-        tblComplaints = new JTable(new DefaultTableModel(
-                new Object[][]{},
-                new String[]{"ID", "Title", "Status", "Priority", "Created At"}
-        ) {
-            @Override
-            public boolean isCellEditable(int row, int column) { return false; }
-        });
+        complaintModel = new ComplaintListModel(
+                new String[]{"ID", "Title", "Status", "Priority", "Created At"},
+                tasks,
+                new ComplaintListModel.Listener() {
+                    @Override
+                    public void countLoaded(int total) { onComplaintCountLoaded(total); }
+
+                    @Override
+                    public void loadFailed(Exception e) { onComplaintLoadFailed(e); }
+                });
+        tblComplaints = new JTable(complaintModel);
+        tblComplaints.setRowSorter(complaintModel.sorter());
 
         styleTable(tblComplaints); 
 
         tblComplaints.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        tblComplaints.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                int row = tblComplaints.getSelectedRow();
-                if (row >= 0) {
-                    int complaintId = (int) tblComplaints.getValueAt(row, 0);
-                    loadComplaintDetail(complaintId);
-                }
-            }
+        tblComplaints.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) onComplaintSelected();
         });
         JScrollPane scrollTable = new JScrollPane(tblComplaints);
         scrollTable.getViewport().setBackground(Color.WHITE);
@@ -322,57 +333,55 @@ public class ComplaintListFrame extends JFrame {
     }
 
 
+    /**
+     * Lists complaints assigned to this staff, newest first. They are loaded
+     * once into a ComplaintStore; titles are fetched for the rows on screen,
+     * and the filter combo and the column headers work in memory.
+     */
     private void loadComplaints() {
-        try (Connection conn = DbConfig.getConnection()) {
-
-            String filter = (String) cmbStatusFilter.getSelectedItem();
-
-            StringBuilder sql = new StringBuilder(
-                    "SELECT c.ComplaintID, t.Title, s.Name AS StatusName, p.Name AS PriorityName, t.CreatedAt AS CreatedAt " +
-                    "FROM Complaints c " +
-                    "JOIN ComplaintTexts t ON t.ComplaintID = c.ComplaintID " +
-                    "JOIN ComplaintStatus s ON s.ComplaintStatusID = c.ComplaintStatusID " +
-                    "JOIN ComplaintPriority p ON p.ComplaintPriorityID = c.ComplaintPriorityID " +
-                    "WHERE c.AssignedStaffID = ? "
-            );
-
-            if ("Active".equals(filter)) sql.append("AND c.IsActive = 1 ");
-            else if ("Close".equals(filter)) sql.append("AND c.IsActive = 0 ");
-
-            sql.append("ORDER BY t.CreatedAt DESC");
-
-            try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
-                ps.setInt(1, staff.getStaffId());
-
-                try (ResultSet rs = ps.executeQuery()) {
-                    DefaultTableModel model = (DefaultTableModel) tblComplaints.getModel();
-                    model.setRowCount(0);
-
-                    while (rs.next()) {
-                        model.addRow(new Object[]{
-                                rs.getInt("ComplaintID"),
-                                rs.getString("Title"),
-                                rs.getString("StatusName"),
-                                rs.getString("PriorityName"),
-                                rs.getTimestamp("CreatedAt")
-                        });
-                    }
-                }
-            }
+        applyFilter();
+        btnRefresh.setEnabled(false);
+        btnRefresh.setText("Loading...");
 
-            selectedComplaintId = null;
-            btnCloseComplaint.setEnabled(false);
+        selectedComplaintId = null;
+        btnCloseComplaint.setEnabled(false);
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error while loading complaints:\n" + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        complaintModel.load(staff.getStaffId());
     }
 
-    private void loadComplaintDetail(int complaintId) {
-        String sql = """
-            SELECT 
+    /** Active, closed or all complaints, without a query. */
+    private void applyFilter() {
+        String filter = (String) cmbStatusFilter.getSelectedItem();
+        complaintModel.setActiveFilter("Active".equals(filter) ? Boolean.TRUE
+                : "Close".equals(filter) ? Boolean.FALSE : null);
+    }
+
+    /** Re-reads the list in place: only changed rows repaint, the selection stays. */
+    private void refreshComplaints() {
+        btnRefresh.setEnabled(false);
+        btnRefresh.setText("Loading...");
+        complaintModel.refresh();
+    }
+
+    private void onComplaintCountLoaded(int total) {
+        btnRefresh.setEnabled(true);
+        btnRefresh.setText("Refresh List");
+        lblCount.setText(total + " complaints");
+    }
+
+    private void onComplaintLoadFailed(Exception e) {
+        btnRefresh.setEnabled(true);
+        btnRefresh.setText("Refresh List");
+        JOptionPane.showMessageDialog(this,
+                "Error while loading complaints:\n" + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    // Detail fields of recently viewed complaints, shared by every list window.
+    // Closes and status or priority changes invalidate an entry.
+    private static final ComplaintDetailCache DETAILS = new ComplaintDetailCache("""
+            SELECT
+                c.ComplaintID,
                 t.Title, t.Description,
                 s.Name AS StatusName,
                 p.Name AS PriorityName,
@@ -386,47 +395,75 @@ public class ComplaintListFrame extends JFrame {
             JOIN ComplaintStatus s ON s.ComplaintStatusID = c.ComplaintStatusID
             JOIN ComplaintPriority p ON p.ComplaintPriorityID = c.ComplaintPriorityID
             LEFT JOIN ComplaintCategory cat ON cat.ComplaintCategoryID = c.ComplaintCategoryID
-            WHERE c.ComplaintID = ?
-            """;
-
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, complaintId);
+            WHERE c.ComplaintID IN (%s)
+            """, rs -> {
+                int custId = rs.getInt("CustomerID");
+                Integer customer = rs.wasNull() ? null : custId;
+                int prodId = rs.getInt("ProductID");
+                Integer product = rs.wasNull() ? null : prodId;
+
+                return new Object[]{
+                        rs.getString("Title"),
+                        rs.getString("Description"),
+                        rs.getString("StatusName"),
+                        rs.getString("PriorityName"),
+                        rs.getTimestamp("CreatedAt"),
+                        rs.getTimestamp("ClosedAt"),
+                        rs.getBoolean("IsActive"),
+                        customer,
+                        product,
+                        rs.getString("CategoryName")
+                };
+            });
+
+    // Rows above and below the selection whose details are read ahead
+    private static final int PREFETCH_ROWS = Integer.getInteger("rtf.detail.prefetch", 5);
+
+    // Shows the selected complaint and reads ahead the rows around it,
+    // so arrow-key navigation is served from DETAILS.
+    private void onComplaintSelected() {
+        int row = tblComplaints.getSelectedRow();
+        Object id = row >= 0 ? tblComplaints.getValueAt(row, 0) : null;
+        if (id == null) return;
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    selectedComplaintId = complaintId;
-                    selectedComplaintIsActive = rs.getBoolean("IsActive");
+        loadComplaintDetail((int) id);
 
-                    txtTitle.setText(rs.getString("Title"));
-                    txtDescription.setText(rs.getString("Description"));
-                    txtStatus.setText(rs.getString("StatusName"));
-                    txtPriority.setText(rs.getString("PriorityName"));
+        java.util.List<Integer> around = new java.util.ArrayList<>();
+        int from = Math.max(0, row - PREFETCH_ROWS);
+        int to = Math.min(tblComplaints.getRowCount() - 1, row + PREFETCH_ROWS);
+        for (int r = from; r <= to; r++) {
+            if (r != row) around.add((Integer) tblComplaints.getValueAt(r, 0));
+        }
+        DETAILS.prefetch(around);
+    }
 
-                    Timestamp created = rs.getTimestamp("CreatedAt");
-                    txtCreatedAt.setText(created == null ? "" : created.toString());
+    private void loadComplaintDetail(int complaintId) {
+        // Selecting another row cancels the previous detail load
+        DETAILS.load(tasks, complaintId, d -> {
+            if (d == null) return;
 
-                    Timestamp closed = rs.getTimestamp("ClosedAt");
-                    txtClosedAt.setText(closed == null ? "" : closed.toString());
+            selectedComplaintId = complaintId;
+            selectedComplaintIsActive = (Boolean) d[6];
 
-                    int custId = rs.getInt("CustomerID");
-                    txtCustomerId.setText(rs.wasNull() ? "" : String.valueOf(custId));
+            txtTitle.setText((String) d[0]);
+            txtDescription.setText((String) d[1]);
+            txtStatus.setText((String) d[2]);
+            txtPriority.setText((String) d[3]);
 
-                    int prodId = rs.getInt("ProductID");
-                    txtProductId.setText(rs.wasNull() ? "" : String.valueOf(prodId));
+            Timestamp created = (Timestamp) d[4];
+            txtCreatedAt.setText(created == null ? "" : created.toString());
 
-                    txtCategory.setText(rs.getString("CategoryName"));
+            Timestamp closed = (Timestamp) d[5];
+            txtClosedAt.setText(closed == null ? "" : closed.toString());
 
-                    btnCloseComplaint.setEnabled(selectedComplaintIsActive);
-                }
-            }
+            txtCustomerId.setText(d[7] == null ? "" : String.valueOf(d[7]));
+            txtProductId.setText(d[8] == null ? "" : String.valueOf(d[8]));
+            txtCategory.setText((String) d[9]);
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error while loading complaint detail:\n" + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+            btnCloseComplaint.setEnabled(selectedComplaintIsActive);
+        }, e -> JOptionPane.showMessageDialog(this,
+                "Error while loading complaint detail:\n" + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE));
     }
 
     private void closeSelectedComplaint() {
@@ -438,7 +475,9 @@ public class ComplaintListFrame extends JFrame {
             return;
         }
 
-        int complaintId = (int) tblComplaints.getValueAt(row, 0);
+        Object id = tblComplaints.getValueAt(row, 0);
+        if (id == null) return; // row not loaded yet
+        int complaintId = (int) id;
 
         int confirm = JOptionPane.showConfirmDialog(
                 this,
@@ -449,7 +488,98 @@ public class ComplaintListFrame extends JFrame {
 
         if (confirm != JOptionPane.YES_OPTION) return;
 
-        String selectOldStatusSql = "SELECT ComplaintStatusID FROM Complaints WHERE ComplaintID = ?";
+        int staffId = staff.getStaffId();
+        btnCloseComplaint.setEnabled(false);
+
+        // Not bound to the window group: closing the screen must not abort the update
+        DbExecutor.submit(conn -> closeComplaint(conn, complaintId, staffId), found -> {
+            if (!found) {
+                JOptionPane.showMessageDialog(this,
+                        "Complaint not found.",
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            JOptionPane.showMessageDialog(this,
+                    "Complaint has been closed.",
+                    "Info", JOptionPane.INFORMATION_MESSAGE);
+        }, e -> {
+            btnCloseComplaint.setEnabled(selectedComplaintIsActive);
+            JOptionPane.showMessageDialog(this,
+                    "Error while closing complaint:\n" + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    /**
+     * Updates the status and priority columns in the list and the detail
+     * fields in place; a complaint newly assigned to this staff, or claimed
+     * away from it, refreshes the list.
+     */
+    private void applyEvents(java.util.List<ComplaintEvents.Event> events) {
+        boolean reload = false;
+        for (ComplaintEvents.Event e : events) {
+            if (e instanceof ComplaintEvents.PriorityChanged) {
+                ComplaintEvents.PriorityChanged changed = (ComplaintEvents.PriorityChanged) e;
+                complaintModel.priorityChanged(changed.complaintId(), changed.priorityId());
+                if (selectedComplaintId != null && selectedComplaintId == changed.complaintId()) {
+                    txtPriority.setText(changed.priorityName());
+                }
+                continue;
+            }
+            if (e instanceof ComplaintEvents.ComplaintCreated) {
+                // A new complaint of mine: the refresh inserts its row
+                Integer assigned = ((ComplaintEvents.ComplaintCreated) e).assignedStaffId();
+                reload |= assigned != null && assigned == staff.getStaffId();
+                continue;
+            }
+            if (e instanceof ComplaintEvents.ComplaintAssigned) {
+                ComplaintEvents.ComplaintAssigned assigned = (ComplaintEvents.ComplaintAssigned) e;
+                Integer previous = assigned.previousStaffId();
+                reload |= assigned.staffId() == staff.getStaffId()
+                        || (previous != null && previous == staff.getStaffId());
+                continue;
+            }
+
+            int complaintId;
+            String statusName;
+            boolean closed = e instanceof ComplaintEvents.ComplaintClosed;
+            if (closed) {
+                complaintId = ((ComplaintEvents.ComplaintClosed) e).complaintId();
+                statusName = ((ComplaintEvents.ComplaintClosed) e).statusName();
+                complaintModel.closed(complaintId, statusName);
+            } else {
+                ComplaintEvents.StatusChanged changed = (ComplaintEvents.StatusChanged) e;
+                complaintId = changed.complaintId();
+                statusName = changed.statusName();
+                complaintModel.statusChanged(complaintId, changed.statusId());
+            }
+
+            if (selectedComplaintId == null || selectedComplaintId != complaintId) continue;
+            if (statusName != null) txtStatus.setText(statusName);
+            if (closed) {
+                selectedComplaintIsActive = false;
+                txtClosedAt.setText(new Timestamp(System.currentTimeMillis()).toString());
+                btnCloseComplaint.setEnabled(false);
+            }
+        }
+        if (reload) refreshComplaints();
+    }
+
+    /**
+     * Runs in the background. Closes the complaint and records a
+     * ComplaintActions row in one transaction. The status is read with an
+     * update lock, so of two concurrent closes only one sees the complaint
+     * still active and lowers the assignee's load.
+     *
+     * @return false if the complaint does not exist
+     */
+    private static boolean closeComplaint(Connection conn, int complaintId, int staffId) throws SQLException {
+        String selectOldStatusSql = """
+            SELECT ComplaintStatusID, AssignedStaffID, IsActive
+            FROM Complaints WITH (UPDLOCK, ROWLOCK)
+            WHERE ComplaintID = ?
+            """;
 
         String updateComplaintSql = """
             UPDATE Complaints
@@ -472,63 +602,65 @@ public class ComplaintListFrame extends JFrame {
                 (?, ?, ?, ?, ?, SYSDATETIME())
             """;
 
-        try (Connection conn = DbConfig.getConnection()) {
-            try {
-                conn.setAutoCommit(false);
-
-                int oldStatusId;
-
-                try (PreparedStatement psSelect = conn.prepareStatement(selectOldStatusSql)) {
-                    psSelect.setInt(1, complaintId);
-                    try (ResultSet rs = psSelect.executeQuery()) {
-                        if (!rs.next()) {
-                            JOptionPane.showMessageDialog(this,
-                                    "Complaint not found.",
-                                    "Error", JOptionPane.ERROR_MESSAGE);
-                            conn.rollback();
-                            return;
-                        }
-                        oldStatusId = rs.getInt("ComplaintStatusID");
-                    }
-                }
+        int closedStatusId = ReferenceData.closedStatusId();
 
-                try (PreparedStatement psUpdateComplaints = conn.prepareStatement(updateComplaintSql)) {
-                    psUpdateComplaints.setInt(1, CLOSED_STATUS_ID);
-                    psUpdateComplaints.setInt(2, complaintId);
-                    psUpdateComplaints.executeUpdate();
-                }
+        conn.setAutoCommit(false);
+        try {
+            int oldStatusId;
+            Integer assignedStaffId;
+            boolean wasActive;
 
-                try (PreparedStatement psUpdateText = conn.prepareStatement(updateTextSql)) {
-                    psUpdateText.setInt(1, complaintId);
-                    psUpdateText.executeUpdate();
+            try (PreparedStatement psSelect = conn.prepareStatement(selectOldStatusSql)) {
+                psSelect.setInt(1, complaintId);
+                try (ResultSet rs = psSelect.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return false;
+                    }
+                    oldStatusId = rs.getInt("ComplaintStatusID");
+                    assignedStaffId = (Integer) rs.getObject("AssignedStaffID");
+                    wasActive = rs.getBoolean("IsActive");
                 }
+            }
 
-                try (PreparedStatement psInsert = conn.prepareStatement(insertActionSql)) {
-                    psInsert.setInt(1, complaintId);
-                    psInsert.setInt(2, oldStatusId);
-                    psInsert.setInt(3, CLOSED_STATUS_ID);
-                    psInsert.setInt(4, staff.getStaffId());
-                    psInsert.setString(5, "Close");
-                    psInsert.executeUpdate();
-                }
+            try (PreparedStatement psUpdateComplaints = conn.prepareStatement(updateComplaintSql)) {
+                psUpdateComplaints.setInt(1, closedStatusId);
+                psUpdateComplaints.setInt(2, complaintId);
+                psUpdateComplaints.executeUpdate();
+            }
 
-                conn.commit();
+            try (PreparedStatement psUpdateText = conn.prepareStatement(updateTextSql)) {
+                psUpdateText.setInt(1, complaintId);
+                psUpdateText.executeUpdate();
+            }
 
-                JOptionPane.showMessageDialog(this,
-                        "Complaint has been closed.",
-                        "Info", JOptionPane.INFORMATION_MESSAGE);
+            try (PreparedStatement psInsert = conn.prepareStatement(insertActionSql)) {
+                psInsert.setInt(1, complaintId);
+                psInsert.setInt(2, oldStatusId);
+                psInsert.setInt(3, closedStatusId);
+                psInsert.setInt(4, staffId);
+                psInsert.setString(5, "Close");
+                psInsert.executeUpdate();
+            }
 
-                loadComplaints();
-                loadComplaintDetail(complaintId);
+            conn.commit();
 
-            } catch (Exception ex) {
-                conn.rollback();
-                throw ex;
+            // Committed: the assignee has one open complaint less
+            if (wasActive && assignedStaffId != null) {
+                ComplaintAssigner.complaintClosed(assignedStaffId);
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error while closing complaint:\n" + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
+            DuplicateDetector.closed(complaintId);
+            String closedName = ReferenceData.require(ReferenceData.Kind.COMPLAINT_STATUSES).byId(closedStatusId).name();
+            ComplaintEvents.publish(wasActive
+                    ? new ComplaintEvents.ComplaintClosed(complaintId, assignedStaffId, closedName)
+                    : new ComplaintEvents.StatusChanged(complaintId, closedStatusId, closedName));
+            return true;
+
+        } catch (SQLException | RuntimeException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(true);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,553 @@
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.AbstractTableModel;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ComplaintListModel
+ *
+ * TableModel for a staff member's complaint list (ID, Title, Status,
+ * Priority, CreatedAt), backed by a ComplaintStore. The database is read
+ * for the first load and for refresh() only; filtering (setActiveFilter)
+ * and sorting (column headers, through the model's Sorter) are served from
+ * memory.
+ *
+ *  - Model rows are store slots. Slots of complaints that left the list
+ *    stay in the model and are hidden by the Sorter, which must be set on
+ *    the table.
+ *  - refresh() diffs the fresh snapshot on the DB worker, merges only the
+ *    rows that differ and fires an event for each run of changed rows, so
+ *    selection and scroll position survive. One refresh runs at a time.
+ *  - Titles are fetched for the rows the table paints, in one IN query
+ *    per batch, and kept.
+ *  - closed(), statusChanged() and priorityChanged() apply saved changes
+ *    without reading anything.
+ *
+ * All public methods must be called on the EDT. Loads run in the owner
+ * window's DbExecutor.Group and are cancelled with it.
+ *
+ * Tables used:
+ *  - ComplaintTexts (Title), and see ComplaintStore
+ */
+public final class ComplaintListModel extends AbstractTableModel {
+
+    public static final int ID = 0, TITLE = 1, STATUS = 2, PRIORITY = 3, CREATED_AT = 4;
+
+    private static final int TITLE_BATCH = 500;
+    private static final int MAX_ROW_EVENTS = 64; // more runs of changed rows: one event over their span
+
+    /** Notified on the EDT. */
+    public interface Listener {
+        /** After a load, a refresh or a filter change; `shown` is the number of rows listed. */
+        void countLoaded(int shown);
+
+        void loadFailed(Exception e);
+    }
+
+    private final String[] columns;
+    private final DbExecutor.Group tasks;
+    private final Listener listener;
+    private final Sorter sorter = new Sorter(this);
+
+    private ComplaintStore store = new ComplaintStore();
+    private int staffId;
+    private int generation = 0;
+    private boolean refreshing = false;
+    private boolean refreshAgain = false;
+
+    private String[] titles = new String[0];
+    private final Set<Integer> titlesWanted = new LinkedHashSet<>(); // ComplaintIDs
+    private final Set<Integer> titlesLoading = new HashSet<>();
+    private boolean titlesScheduled = false;
+
+    public ComplaintListModel(String[] columns, DbExecutor.Group tasks, Listener listener) {
+        this.columns = columns.clone();
+        this.tasks = tasks;
+        this.listener = listener;
+    }
+
+    /** The RowSorter to set on the table: filtering and header sorting. */
+    public Sorter sorter() {
+        return sorter;
+    }
+
+    /** Loads the staff member's complaints, replacing whatever was loaded. */
+    public void load(int staffId) {
+        this.staffId = staffId;
+        int gen = ++generation;
+        store = new ComplaintStore();
+        refreshing = false;
+        refreshAgain = false;
+        titles = new String[0];
+        titlesWanted.clear();
+        titlesLoading.clear();
+        fireTableDataChanged();
+
+        tasks.submit(conn -> ComplaintStore.diff(null, ComplaintStore.read(conn, staffId)), delta -> {
+            if (gen != generation) return;
+            store.apply(delta);
+            fireTableDataChanged();
+            if (listener != null) listener.countLoaded(sorter.getViewRowCount());
+        }, this::failed);
+    }
+
+    /**
+     * Re-reads the list and applies only the differences. A call while a
+     * refresh is running refreshes once more after it.
+     */
+    public void refresh() {
+        if (refreshing) {
+            refreshAgain = true;
+            return;
+        }
+        refreshing = true;
+        int gen = generation;
+        ComplaintStore.Snapshot base = store.applied();
+        tasks.submit(conn -> ComplaintStore.diff(base, ComplaintStore.read(conn, staffId)), delta -> {
+            if (gen != generation) return;
+            refreshing = false;
+            int oldSize = store.size();
+            fireChanged(store.apply(delta), oldSize);
+            if (listener != null) listener.countLoaded(sorter.getViewRowCount());
+            if (refreshAgain) {
+                refreshAgain = false;
+                refresh();
+            }
+        }, e -> {
+            if (gen == generation) {
+                refreshing = false;
+                refreshAgain = false;
+            }
+            failed(e);
+        });
+    }
+
+    /** Inserted slots as one event, changed ones as one event per run. */
+    private void fireChanged(BitSet changed, int oldSize) {
+        if (store.size() > oldSize) fireTableRowsInserted(oldSize, store.size() - 1);
+
+        int runs = 0;
+        for (int i = changed.nextSetBit(0); i >= 0 && i < oldSize; i = changed.nextSetBit(changed.nextClearBit(i))) {
+            runs++;
+        }
+        if (runs > MAX_ROW_EVENTS) {
+            fireTableRowsUpdated(changed.nextSetBit(0), changed.previousSetBit(oldSize - 1));
+            return;
+        }
+        for (int first = changed.nextSetBit(0); first >= 0 && first < oldSize; ) {
+            int end = Math.min(changed.nextClearBit(first), oldSize);
+            fireTableRowsUpdated(first, end - 1);
+            first = changed.nextSetBit(end);
+        }
+    }
+
+    /** Lists active (true), closed (false) or all (null) complaints. */
+    public void setActiveFilter(Boolean active) {
+        sorter.setActiveFilter(active);
+        if (listener != null) listener.countLoaded(sorter.getViewRowCount());
+    }
+
+    /** A complaint was closed; `statusName` is its new status, or null if unchanged. */
+    public void closed(int complaintId, String statusName) {
+        int slot = store.setActive(complaintId, false);
+        if (slot < 0) return;
+        Integer statusId = statusName != null ? store.statusIdOf(statusName) : null;
+        if (statusId != null) store.setStatus(complaintId, statusId);
+        fireTableRowsUpdated(slot, slot);
+    }
+
+    public void statusChanged(int complaintId, int statusId) {
+        int slot = store.setStatus(complaintId, statusId);
+        if (slot >= 0) fireTableRowsUpdated(slot, slot);
+    }
+
+    public void priorityChanged(int complaintId, int priorityId) {
+        int slot = store.setPriority(complaintId, priorityId);
+        if (slot >= 0) fireTableRowsUpdated(slot, slot);
+    }
+
+    ComplaintStore store() {
+        return store;
+    }
+
+    @Override
+    public int getRowCount() {
+        return store.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case ID:
+                return store.id(row);
+            case TITLE:
+                return title(row);
+            case STATUS:
+                return store.statusName(row);
+            case PRIORITY:
+                return store.priorityName(row);
+            default:
+                long created = store.createdAt(row);
+                return created != 0 ? new Timestamp(created) : null;
+        }
+    }
+
+    // ---- Titles ----
+
+    private String title(int slot) {
+        if (slot < titles.length && titles[slot] != null) return titles[slot];
+        if (titlesLoading.contains(store.id(slot))) return null;
+        titlesWanted.add(store.id(slot));
+        if (!titlesScheduled) {
+            titlesScheduled = true;
+            // After this paint has asked for all of its rows
+            SwingUtilities.invokeLater(this::fetchTitles);
+        }
+        return null;
+    }
+
+    private void fetchTitles() {
+        titlesScheduled = false;
+        if (titlesWanted.isEmpty()) return;
+        List<Integer> ids = new ArrayList<>(titlesWanted);
+        titlesWanted.clear();
+        titlesLoading.addAll(ids);
+
+        int gen = generation;
+        for (int from = 0; from < ids.size(); from += TITLE_BATCH) {
+            List<Integer> batch = ids.subList(from, Math.min(ids.size(), from + TITLE_BATCH));
+            String sql = "SELECT ComplaintID, Title FROM ComplaintTexts WHERE ComplaintID IN ("
+                    + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+
+            tasks.submit(conn -> {
+                Map<Integer, String> found = new HashMap<>();
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < batch.size(); i++) ps.setInt(i + 1, batch.get(i));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) found.put(rs.getInt(1), rs.getString(2));
+                    }
+                }
+                return found;
+            }, found -> {
+                if (gen != generation) return;
+                titlesLoading.removeAll(batch);
+                if (titles.length < store.size()) {
+                    titles = Arrays.copyOf(titles, Math.max(store.size(), titles.length * 2));
+                }
+                int first = Integer.MAX_VALUE, last = -1;
+                for (int id : batch) {
+                    int slot = store.slotOf(id);
+                    if (slot < 0) continue;
+                    String title = found.get(id);
+                    titles[slot] = title != null ? title : ""; // no text row: do not ask again
+                    first = Math.min(first, slot);
+                    last = Math.max(last, slot);
+                }
+                if (last >= 0) fireTableChanged(new TableModelEvent(this, first, last, TITLE));
+            }, e -> {
+                if (gen == generation) titlesLoading.removeAll(batch); // asked again on the next paint
+                failed(e);
+            });
+        }
+    }
+
+    private void failed(Exception e) {
+        e.printStackTrace();
+        if (listener != null) listener.loadFailed(e);
+    }
+
+    /**
+     * Filters and sorts the store's slots without boxing: the filter is a
+     * bitmap from the store's indexes, and sorting compares primitive keys
+     * (ID, CreatedAt, status name order, priority rank) with a merge sort.
+     * Unsorted, the list is newest first. Title is not sortable (titles are
+     * only loaded for the rows on screen).
+     *
+     * Only a new filter, a new sort key or a reload sorts the whole list.
+     * Inserted and updated rows are compared with the sort key they were
+     * placed by: rows that stay where they are cause no sorter event (the
+     * table repaints just them), the others are taken out and put back at
+     * the position a binary search finds.
+     */
+    public static final class Sorter extends RowSorter<ComplaintListModel> {
+        private final ComplaintListModel model;
+        private List<SortKey> sortKeys = Collections.emptyList();
+        private Boolean activeFilter = null;
+        private int[] viewToModel = new int[0];
+        private int[] modelToView = new int[0];  // -1 = not shown
+        private long[] keys = new long[0];       // sort key each shown slot was placed by
+
+        private Sorter(ComplaintListModel model) {
+            this.model = model;
+        }
+
+        void setActiveFilter(Boolean active) {
+            activeFilter = active;
+            rebuild();
+        }
+
+        @Override
+        public ComplaintListModel getModel() {
+            return model;
+        }
+
+        @Override
+        public void toggleSortOrder(int column) {
+            if (column == TITLE) return;
+            SortOrder order = SortOrder.ASCENDING;
+            if (!sortKeys.isEmpty() && sortKeys.get(0).getColumn() == column) {
+                order = sortKeys.get(0).getSortOrder() == SortOrder.ASCENDING
+                        ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+            }
+            setSortKeys(List.of(new SortKey(column, order)));
+        }
+
+        @Override
+        public void setSortKeys(List<? extends SortKey> keys) {
+            List<SortKey> next = keys == null || keys.isEmpty()
+                    ? Collections.emptyList()
+                    : List.of(keys.get(0)); // one key: the column clicked last
+            if (next.equals(sortKeys)) return;
+            sortKeys = next;
+            fireSortOrderChanged();
+            rebuild();
+        }
+
+        @Override
+        public List<? extends SortKey> getSortKeys() {
+            return sortKeys;
+        }
+
+        @Override
+        public int convertRowIndexToModel(int index) {
+            if (index < 0 || index >= viewToModel.length) throw new IndexOutOfBoundsException("Invalid index");
+            return viewToModel[index];
+        }
+
+        @Override
+        public int convertRowIndexToView(int index) {
+            if (index < 0 || index >= model.getRowCount()) throw new IndexOutOfBoundsException("Invalid index");
+            return index < modelToView.length ? modelToView[index] : -1;
+        }
+
+        @Override
+        public int getViewRowCount() {
+            return viewToModel.length;
+        }
+
+        @Override
+        public int getModelRowCount() {
+            return model.getRowCount();
+        }
+
+        @Override
+        public void modelStructureChanged() {
+            rebuild();
+        }
+
+        @Override
+        public void allRowsChanged() {
+            rebuild();
+        }
+
+        @Override
+        public void rowsInserted(int firstRow, int endRow) {
+            update(firstRow, endRow);
+        }
+
+        @Override
+        public void rowsDeleted(int firstRow, int endRow) {
+            rebuild(); // not fired by the model: store slots are never removed
+        }
+
+        @Override
+        public void rowsUpdated(int firstRow, int endRow) {
+            update(firstRow, endRow);
+        }
+
+        @Override
+        public void rowsUpdated(int firstRow, int endRow, int column) {
+            if (column == TITLE) return; // neither filtered nor sorted on
+            update(firstRow, endRow);
+        }
+
+        private int column() {
+            return sortKeys.isEmpty() ? CREATED_AT : sortKeys.get(0).getColumn();
+        }
+
+        private boolean ascending() {
+            return !sortKeys.isEmpty() && sortKeys.get(0).getSortOrder() != SortOrder.DESCENDING;
+        }
+
+        /** Filters and sorts every slot again. */
+        private void rebuild() {
+            int[] old = viewToModel;
+            ComplaintStore store = model.store();
+
+            BitSet rows = store.matching(activeFilter, null, null);
+            int[] slots = new int[rows.cardinality()];
+            for (int slot = rows.nextSetBit(0), i = 0; slot >= 0; slot = rows.nextSetBit(slot + 1)) {
+                slots[i++] = slot;
+            }
+
+            int column = column();
+            keys = new long[store.size()];
+            for (int slot : slots) keys[slot] = key(store, slot, column);
+            sort(slots, keys, store, ascending());
+
+            int[] toView = new int[store.size()];
+            Arrays.fill(toView, -1);
+            for (int i = 0; i < slots.length; i++) toView[slots[i]] = i;
+            viewToModel = slots;
+            modelToView = toView;
+            fireRowSorterChanged(old);
+        }
+
+        /**
+         * Re-places the slots firstRow..endRow whose filter match or sort key
+         * changed: they are removed from the view, and the ones still shown
+         * are inserted at their binary-searched positions.
+         */
+        private void update(int firstRow, int endRow) {
+            ComplaintStore store = model.store();
+            int size = store.size();
+            if (modelToView.length < size) {
+                int from = modelToView.length;
+                modelToView = Arrays.copyOf(modelToView, Math.max(size, from * 2));
+                Arrays.fill(modelToView, from, modelToView.length, -1);
+                keys = Arrays.copyOf(keys, modelToView.length);
+            }
+
+            int column = column();
+            boolean ascending = ascending();
+            BitSet out = new BitSet();
+            int removed = 0;
+            int firstChanged = Integer.MAX_VALUE; // view index
+            int[] in = new int[8];
+            int inserts = 0;
+            for (int slot = firstRow; slot <= endRow && slot < size; slot++) {
+                boolean shown = modelToView[slot] >= 0;
+                boolean matches = store.matches(slot, activeFilter);
+                if (!shown && !matches) continue;
+                long key = key(store, slot, column);
+                if (shown && matches && key == keys[slot]) continue; // stays where it is
+
+                if (shown) {
+                    out.set(slot);
+                    removed++;
+                    firstChanged = Math.min(firstChanged, modelToView[slot]);
+                    modelToView[slot] = -1;
+                }
+                if (matches) {
+                    keys[slot] = key;
+                    if (inserts == in.length) in = Arrays.copyOf(in, inserts * 2);
+                    in[inserts++] = slot;
+                }
+            }
+            if (removed == 0 && inserts == 0) return;
+
+            int[] old = viewToModel;
+            int[] kept = old;
+            if (removed > 0) {
+                kept = new int[old.length - removed];
+                for (int i = 0, n = 0; i < old.length; i++) {
+                    if (!out.get(old[i])) kept[n++] = old[i];
+                }
+            }
+
+            in = Arrays.copyOf(in, inserts);
+            sort(in, keys, store, ascending);
+            int[] next = new int[kept.length + inserts];
+            int copied = 0, n = 0;
+            for (int slot : in) {
+                int at = position(kept, slot, store, ascending);
+                firstChanged = Math.min(firstChanged, at + (n - copied));
+                System.arraycopy(kept, copied, next, n, at - copied);
+                n += at - copied;
+                copied = at;
+                next[n++] = slot;
+            }
+            System.arraycopy(kept, copied, next, n, kept.length - copied);
+
+            for (int i = firstChanged; i < next.length; i++) modelToView[next[i]] = i;
+            viewToModel = next;
+            fireRowSorterChanged(old);
+        }
+
+        /** Number of slots in `view` that come before `slot`. */
+        private int position(int[] view, int slot, ComplaintStore store, boolean ascending) {
+            int lo = 0, hi = view.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compare(view[mid], slot, keys, store, ascending) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private static long key(ComplaintStore store, int slot, int column) {
+            switch (column) {
+                case ID:
+                    return store.id(slot);
+                case STATUS:
+                    return store.statusOrder(slot);
+                case PRIORITY:
+                    return store.priorityRank(slot);
+                default:
+                    return store.createdAt(slot);
+            }
+        }
+
+        /** Stable merge sort of slots by key, then ComplaintID (same direction). */
+        private static void sort(int[] slots, long[] keys, ComplaintStore store, boolean ascending) {
+            int[] buffer = new int[slots.length];
+            for (int width = 1; width < slots.length; width *= 2) {
+                for (int lo = 0; lo < slots.length - width; lo += 2 * width) {
+                    int mid = lo + width, hi = Math.min(lo + 2 * width, slots.length);
+                    int i = lo, j = mid, k = lo;
+                    while (i < mid && j < hi) {
+                        buffer[k++] = compare(slots[j], slots[i], keys, store, ascending) < 0 ? slots[j++] : slots[i++];
+                    }
+                    while (i < mid) buffer[k++] = slots[i++];
+                    while (j < hi) buffer[k++] = slots[j++];
+                    System.arraycopy(buffer, lo, slots, lo, hi - lo);
+                }
+            }
+        }
+
+        private static int compare(int a, int b, long[] keys, ComplaintStore store, boolean ascending) {
+            int c = Long.compare(keys[a], keys[b]);
+            if (c == 0) c = Integer.compare(store.id(a), store.id(b));
+            return ascending ? c : -c;
+        }
+    }
+}
@@ -35,6 +35,9 @@ public class ComplaintStaffLoginFrame extends JFrame {
     private final Color COLOR_BTN_GREEN = new Color(56, 142, 60);  
     private final Color COLOR_BORDER = new Color(93, 64, 55);      
 
+    // Background DB work for this window (cancelled when the window is disposed)
+    private final DbExecutor.Group tasks = new DbExecutor.Group(this);
+
     public ComplaintStaffLoginFrame() {
         setTitle("Staff Login");
         setSize(450, 320); 
@@ -203,36 +206,42 @@ public class ComplaintStaffLoginFrame extends JFrame {
             WHERE sl.Username = ? AND sl.PasswordHash = ?
             """;
 
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        btnLogin.setEnabled(false);
 
-            ps.setString(1, username);
-            ps.setString(2, password);
+        tasks.submit(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, username);
+                ps.setString(2, password);
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
                     int staffId = rs.getInt("StaffID");
                     String fullName = rs.getString("FirstName") + " " + rs.getString("LastName");
                     String role = rs.getString("Role");
 
-                    StaffUser staffUser =
-                            new StaffUser(staffId, username, fullName, role);
-
-                    ComplaintListFrame frame = new ComplaintListFrame(staffUser);
-                    frame.setVisible(true);
-                    dispose();
-
-                } else {
-                    JOptionPane.showMessageDialog(
-                            this,
-                            "Invalid staff username or password.",
-                            "Login Failed",
-                            JOptionPane.ERROR_MESSAGE
-                    );
+                    return new StaffUser(staffId, username, fullName, role);
                 }
             }
+        }, staffUser -> {
+            btnLogin.setEnabled(true);
+
+            if (staffUser != null) {
+                ComplaintListFrame frame = new ComplaintListFrame(staffUser);
+                frame.setVisible(true);
+                dispose();
 
-        } catch (Exception ex) {
+            } else {
+                JOptionPane.showMessageDialog(
+                        this,
+                        "Invalid staff username or password.",
+                        "Login Failed",
+                        JOptionPane.ERROR_MESSAGE
+                );
+            }
+        }, ex -> {
+            btnLogin.setEnabled(true);
             ex.printStackTrace();
             JOptionPane.showMessageDialog(
                     this,
@@ -240,7 +249,7 @@ public class ComplaintStaffLoginFrame extends JFrame {
                     "Error",
                     JOptionPane.ERROR_MESSAGE
             );
-        }
+        });
     }
 
     public static void main(String[] args) {
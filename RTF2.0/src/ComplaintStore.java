@@ -0,0 +1,371 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ComplaintStore
+ *
+ * Compact in-memory copy of one staff member's complaint list, so the list
+ * screens filter and sort without going back to the database.
+ *
+ *  - Every complaint is a slot in parallel primitive arrays: ComplaintID,
+ *    CreatedAt (ms), status and priority. Titles are not kept here;
+ *    ComplaintListModel fetches them for the rows on screen.
+ *  - Bitmaps (one bit per slot) index IsActive, every status and every
+ *    priority; a filter is an AND of bitmaps.
+ *  - Slots are never moved or reused. A complaint that leaves the list
+ *    (e.g. reassigned) is cleared from the "live" bitmap.
+ *  - A refresh compares the fresh Snapshot with the one applied last, on
+ *    the DB worker (diff()); apply() then only merges the rows in that
+ *    Delta, plus the complaints changed in memory since (setActive() and
+ *    the like), and reports the slots that changed.
+ *
+ * read() and diff() run on a DB worker; everything else on the EDT.
+ *
+ * Tables used:
+ *  - Complaints (CreatedAt), ComplaintTexts
+ *  - ComplaintStatus, ComplaintPriority (names and ranks, via ReferenceData)
+ */
+public final class ComplaintStore {
+
+    private static final String SQL = """
+        SELECT c.ComplaintID, c.CreatedAt, c.ComplaintStatusID, c.ComplaintPriorityID, c.IsActive
+        FROM Complaints c
+        JOIN ComplaintTexts t ON t.ComplaintID = c.ComplaintID
+        WHERE c.AssignedStaffID = ?
+        """;
+
+    /** The narrow attribute rows of one staff member's complaints, read in the background. */
+    public static final class Snapshot {
+        private int size;
+        private int[] ids = new int[1024];
+        private long[] created = new long[1024];
+        private int[] status = new int[1024];
+        private int[] priority = new int[1024];
+        private final BitSet active = new BitSet();
+        private final Map<Integer, String> statusNames = new HashMap<>();
+        private final Map<Integer, Integer> statusOrder = new HashMap<>();
+        private final Map<Integer, String> priorityNames = new HashMap<>();
+        private final Map<Integer, Integer> priorityRank = new HashMap<>();
+        private LongIntHashMap rowOf; // ComplaintID -> row, built by read()
+
+        public int size() {
+            return size;
+        }
+
+        private void add(int id, long createdAt, int statusId, int priorityId, boolean isActive) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                created = Arrays.copyOf(created, capacity);
+                status = Arrays.copyOf(status, capacity);
+                priority = Arrays.copyOf(priority, capacity);
+            }
+            ids[size] = id;
+            created[size] = createdAt;
+            status[size] = statusId;
+            priority[size] = priorityId;
+            if (isActive) active.set(size);
+            size++;
+        }
+    }
+
+    private int size;
+    private int[] ids = new int[0];
+    private long[] created = new long[0];
+    private int[] status = new int[0];
+    private int[] priority = new int[0];
+
+    private final LongIntHashMap slotOf = new LongIntHashMap(1024);
+    private final BitSet live = new BitSet();
+    private final BitSet active = new BitSet();
+    private final Map<Integer, BitSet> byStatus = new HashMap<>();
+    private final Map<Integer, BitSet> byPriority = new HashMap<>();
+
+    private Map<Integer, String> statusNames = new HashMap<>();
+    private Map<Integer, Integer> statusOrder = new HashMap<>();
+    private Map<Integer, String> priorityNames = new HashMap<>();
+    private Map<Integer, Integer> priorityRank = new HashMap<>();
+
+    private Snapshot applied;                                 // the last snapshot merged
+    private final Set<Integer> touched = new HashSet<>();    // changed in memory since
+
+    // ---- Background (DB worker) ----
+
+    /** Reads the attributes of every complaint assigned to the staff member. */
+    public static Snapshot read(Connection conn, int staffId) throws SQLException {
+        Snapshot s = new Snapshot();
+
+        List<ReferenceData.Item> statuses =
+                new ArrayList<>(ReferenceData.require(ReferenceData.Kind.COMPLAINT_STATUSES).items());
+        statuses.sort((a, b) -> a.name().compareToIgnoreCase(b.name()));
+        for (int i = 0; i < statuses.size(); i++) {
+            s.statusNames.put(statuses.get(i).id(), statuses.get(i).name());
+            s.statusOrder.put(statuses.get(i).id(), i);
+        }
+        for (ReferenceData.Item p : ReferenceData.require(ReferenceData.Kind.COMPLAINT_PRIORITIES).items()) {
+            s.priorityNames.put(p.id(), p.name());
+            s.priorityRank.put(p.id(), p.rank());
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(SQL)) {
+            ps.setFetchSize(1000);
+            ps.setInt(1, staffId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp createdAt = rs.getTimestamp(2);
+                    s.add(rs.getInt(1), createdAt != null ? createdAt.getTime() : 0,
+                            rs.getInt(3), rs.getInt(4), rs.getBoolean(5));
+                }
+            }
+        }
+
+        s.rowOf = new LongIntHashMap(s.size);
+        for (int i = 0; i < s.size; i++) s.rowOf.put(s.ids[i], i, -1);
+        return s;
+    }
+
+    /** The rows of a fresh snapshot that differ from the snapshot a store last applied. */
+    public static final class Delta {
+        private final Snapshot base;    // null for a first load
+        private final Snapshot fresh;
+        private final int[] rows;       // rows of `fresh` that are new or changed
+        private final int[] goneIds;    // complaints of `base` missing from `fresh`
+
+        private Delta(Snapshot base, Snapshot fresh, int[] rows, int[] goneIds) {
+            this.base = base;
+            this.fresh = fresh;
+            this.rows = rows;
+            this.goneIds = goneIds;
+        }
+    }
+
+    /**
+     * Compares two snapshots (on a DB worker, they are never modified).
+     *
+     * @param base the store's applied() snapshot, or null for everything
+     */
+    public static Delta diff(Snapshot base, Snapshot fresh) {
+        if (base == null) {
+            int[] all = new int[fresh.size];
+            for (int i = 0; i < all.length; i++) all[i] = i;
+            return new Delta(null, fresh, all, new int[0]);
+        }
+
+        int[] rows = new int[16];
+        int count = 0;
+        BitSet seen = new BitSet(base.size);
+        for (int i = 0; i < fresh.size; i++) {
+            int j = base.rowOf.get(fresh.ids[i], -1);
+            if (j >= 0) seen.set(j);
+            if (j >= 0 && base.status[j] == fresh.status[i] && base.priority[j] == fresh.priority[i]
+                    && base.active.get(j) == fresh.active.get(i)) continue;
+            if (count == rows.length) rows = Arrays.copyOf(rows, count * 2);
+            rows[count++] = i;
+        }
+
+        int[] gone = new int[base.size - seen.cardinality()];
+        for (int j = seen.nextClearBit(0), n = 0; j < base.size; j = seen.nextClearBit(j + 1)) {
+            gone[n++] = base.ids[j];
+        }
+        return new Delta(base, fresh, Arrays.copyOf(rows, count), gone);
+    }
+
+    // ---- EDT ----
+
+    /** The snapshot to diff() the next one against (null before the first apply). */
+    public Snapshot applied() {
+        return applied;
+    }
+
+    /**
+     * Merges a diff() of applied() and a fresh snapshot: new complaints get
+     * new slots, changed ones are updated, and the ones no longer listed
+     * leave the live bitmap. Complaints changed in memory since the last
+     * apply are set back to what the snapshot has.
+     *
+     * @return the slots that changed; new slots are numbered from the old size()
+     */
+    public BitSet apply(Delta d) {
+        if (d.base != applied) throw new IllegalStateException("Delta of another snapshot");
+        Snapshot s = d.fresh;
+        statusNames = s.statusNames;
+        statusOrder = s.statusOrder;
+        priorityNames = s.priorityNames;
+        priorityRank = s.priorityRank;
+
+        BitSet changed = new BitSet();
+        for (int row : d.rows) merge(s, row, changed);
+        for (int id : touched) {
+            int row = s.rowOf.get(id, -1);
+            if (row >= 0) merge(s, row, changed);
+        }
+        for (int id : d.goneIds) {
+            int slot = slotOf.get(id, -1);
+            if (slot >= 0 && live.get(slot)) {
+                live.clear(slot);
+                changed.set(slot);
+            }
+        }
+        touched.clear();
+        applied = s;
+        return changed;
+    }
+
+    /** Marks the complaint closed; returns its slot, or -1 if it is not in the store. */
+    public int setActive(int complaintId, boolean isActive) {
+        int slot = slotOf.get(complaintId, -1);
+        if (slot >= 0 && setActiveAt(slot, isActive)) touched.add(complaintId);
+        return slot;
+    }
+
+    /** Returns the complaint's slot, or -1 if it is not in the store. */
+    public int setStatus(int complaintId, int statusId) {
+        int slot = slotOf.get(complaintId, -1);
+        if (slot >= 0 && setStatusAt(slot, statusId)) touched.add(complaintId);
+        return slot;
+    }
+
+    /** Returns the complaint's slot, or -1 if it is not in the store. */
+    public int setPriority(int complaintId, int priorityId) {
+        int slot = slotOf.get(complaintId, -1);
+        if (slot >= 0 && setPriorityAt(slot, priorityId)) touched.add(complaintId);
+        return slot;
+    }
+
+    /**
+     * Live slots matching every given condition (null = any).
+     */
+    public BitSet matching(Boolean isActive, Integer statusId, Integer priorityId) {
+        BitSet result = (BitSet) live.clone();
+        if (isActive != null) {
+            if (isActive) result.and(active);
+            else result.andNot(active);
+        }
+        if (statusId != null) result.and(byStatus.getOrDefault(statusId, new BitSet()));
+        if (priorityId != null) result.and(byPriority.getOrDefault(priorityId, new BitSet()));
+        return result;
+    }
+
+    /** Whether a single slot is in matching(isActive, null, null). */
+    public boolean matches(int slot, Boolean isActive) {
+        return live.get(slot) && (isActive == null || active.get(slot) == isActive);
+    }
+
+    /** Number of slots, including complaints no longer on the list. */
+    public int size() {
+        return size;
+    }
+
+    public int slotOf(int complaintId) {
+        return slotOf.get(complaintId, -1);
+    }
+
+    public int id(int slot) {
+        return ids[slot];
+    }
+
+    public long createdAt(int slot) {
+        return created[slot];
+    }
+
+    public int statusId(int slot) {
+        return status[slot];
+    }
+
+    public int priorityId(int slot) {
+        return priority[slot];
+    }
+
+    public String statusName(int slot) {
+        return statusNames.get(status[slot]);
+    }
+
+    public String priorityName(int slot) {
+        return priorityNames.get(priority[slot]);
+    }
+
+    /** Position of the status name in alphabetical order, for sorting. */
+    public int statusOrder(int slot) {
+        return statusOrder.getOrDefault(status[slot], Integer.MAX_VALUE);
+    }
+
+    public int priorityRank(int slot) {
+        return priorityRank.getOrDefault(priority[slot], 0);
+    }
+
+    /** StatusID for a status name, or null. */
+    public Integer statusIdOf(String name) {
+        for (Map.Entry<Integer, String> e : statusNames.entrySet()) {
+            if (e.getValue().equalsIgnoreCase(name)) return e.getKey();
+        }
+        return null;
+    }
+
+    // ---- Internal ----
+
+    private void merge(Snapshot s, int row, BitSet changed) {
+        int slot = slotOf.get(s.ids[row], -1);
+        if (slot < 0) {
+            slot = append(s.ids[row], s.created[row]);
+            changed.set(slot);
+        } else if (!live.get(slot)) {
+            live.set(slot); // back on the list
+            changed.set(slot);
+        }
+        if (setStatusAt(slot, s.status[row]) | setPriorityAt(slot, s.priority[row])
+                | setActiveAt(slot, s.active.get(row))) {
+            changed.set(slot);
+        }
+    }
+
+    private int append(int id, long createdAt) {
+        if (size == ids.length) {
+            int capacity = Math.max(1024, size * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            created = Arrays.copyOf(created, capacity);
+            status = Arrays.copyOf(status, capacity);
+            priority = Arrays.copyOf(priority, capacity);
+        }
+        int slot = size++;
+        ids[slot] = id;
+        created[slot] = createdAt;
+        status[slot] = -1;
+        priority[slot] = -1;
+        slotOf.put(id, slot, -1);
+        live.set(slot);
+        return slot;
+    }
+
+    private boolean setStatusAt(int slot, int statusId) {
+        if (status[slot] == statusId) return false;
+        if (status[slot] != -1) byStatus.get(status[slot]).clear(slot);
+        byStatus.computeIfAbsent(statusId, k -> new BitSet()).set(slot);
+        status[slot] = statusId;
+        return true;
+    }
+
+    private boolean setPriorityAt(int slot, int priorityId) {
+        if (priority[slot] == priorityId) return false;
+        if (priority[slot] != -1) byPriority.get(priority[slot]).clear(slot);
+        byPriority.computeIfAbsent(priorityId, k -> new BitSet()).set(slot);
+        priority[slot] = priorityId;
+        return true;
+    }
+
+    private boolean setActiveAt(int slot, boolean isActive) {
+        if (active.get(slot) == isActive) return false;
+        active.set(slot, isActive);
+        return true;
+    }
+}
@@ -47,6 +47,9 @@ public class CustomerChangePasswordDialog extends JDialog {
     private JButton btnSave;
     private JButton btnCancel;
 
+    // Background DB work for this dialog (cancelled when the dialog is disposed)
+    private final DbExecutor.Group tasks = new DbExecutor.Group(this);
+
     public CustomerChangePasswordDialog(Frame parent, String username) {
         super(parent, "Security Settings", true);
         this.username = username;
@@ -237,24 +240,39 @@ public class CustomerChangePasswordDialog extends JDialog {
             return;
         }
 
-        if (!checkOldPassword(username, oldPass)) {
-            JOptionPane.showMessageDialog(this, "Old password is incorrect.", "Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
+        btnSave.setEnabled(false);
 
-        if (updatePassword(username, newPass)) {
-            JOptionPane.showMessageDialog(this, "Password successfully changed.", "Success", JOptionPane.INFORMATION_MESSAGE);
-            dispose();
-        } else {
-            JOptionPane.showMessageDialog(this, "Password could not be changed.", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        tasks.submit(conn -> {
+            if (!checkOldPassword(conn, username, oldPass)) {
+                return ChangeResult.OLD_PASSWORD_WRONG;
+            }
+            return updatePassword(conn, username, newPass) ? ChangeResult.CHANGED : ChangeResult.NOT_CHANGED;
+        }, result -> {
+            btnSave.setEnabled(true);
+
+            switch (result) {
+                case OLD_PASSWORD_WRONG ->
+                        JOptionPane.showMessageDialog(this, "Old password is incorrect.", "Error", JOptionPane.ERROR_MESSAGE);
+                case CHANGED -> {
+                    JOptionPane.showMessageDialog(this, "Password successfully changed.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    dispose();
+                }
+                case NOT_CHANGED ->
+                        JOptionPane.showMessageDialog(this, "Password could not be changed.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, ex -> {
+            btnSave.setEnabled(true);
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error changing password:\n" + ex.getMessage(), "DB Error", JOptionPane.ERROR_MESSAGE);
+        });
     }
 
-    private boolean checkOldPassword(String username, String oldPass) {
+    private enum ChangeResult { OLD_PASSWORD_WRONG, CHANGED, NOT_CHANGED }
+
+    private static boolean checkOldPassword(Connection conn, String username, String oldPass) throws SQLException {
         String sql = "SELECT PasswordHash FROM CustomerUsers WHERE Username = ?";
 
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, username);
 
@@ -264,29 +282,19 @@ public class CustomerChangePasswordDialog extends JDialog {
                     return current != null && current.equals(oldPass);
                 }
             }
-
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error checking old password:\n" + ex.getMessage(), "DB Error", JOptionPane.ERROR_MESSAGE);
         }
         return false;
     }
 
-    private boolean updatePassword(String username, String newPass) {
+    private static boolean updatePassword(Connection conn, String username, String newPass) throws SQLException {
         String sql = "UPDATE CustomerUsers SET PasswordHash = ? WHERE Username = ?";
 
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, newPass);
             ps.setString(2, username);
 
             return ps.executeUpdate() > 0;
-
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error updating password:\n" + ex.getMessage(), "DB Error", JOptionPane.ERROR_MESSAGE);
-            return false;
         }
     }
-}
\ No newline at end of file
+}
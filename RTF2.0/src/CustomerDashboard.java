@@ -23,6 +23,9 @@ import java.sql.*;
  *  - ComplaintTexts (complaint titles)
  *  - ComplaintStatus (status of complaints)
  *  - ComplaintPriority (priority information)
+ *
+ * "My Timeline" opens CustomerTimelineFrame with the customer's history, in
+ * the customer view (no call notes or internal complaint actions).
  */
 
 
@@ -42,6 +45,7 @@ public class CustomerDashboard extends JFrame {
 
     private JButton btnNewComplaint;
     private JButton btnLogout;
+    private JButton btnTimeline;
 
     private final Color PRIMARY_DARK = new Color(62, 39, 35); 
     private final Color ACCENT_COLOR = new Color(191, 54, 12); 
@@ -52,8 +56,8 @@ public class CustomerDashboard extends JFrame {
     private final Font FONT_NAME_BOLD = new Font("Arial", Font.BOLD, 24); // Bigger & Bold Name
     private final Font FONT_NORMAL = new Font("Arial", Font.PLAIN, 14);
 
-    // Auto refresh timer
-    private Timer autoRefreshTimer;
+    // Background DB work for this window (cancelled when the window is disposed)
+    private final DbExecutor.Group tasks = new DbExecutor.Group(this);
 
     public CustomerDashboard(int customerId) {
         this.customerId = customerId;
@@ -72,17 +76,9 @@ public class CustomerDashboard extends JFrame {
         loadCustomerInfo();
         loadComplaintLists();
 
-        // Auto refresh every 5 seconds
-        autoRefreshTimer = new Timer(5000, e -> loadComplaintLists());
-        autoRefreshTimer.start();
-
-        // Stop timer when window closes
-        addWindowListener(new WindowAdapter() {
-            @Override
-            public void windowClosing(WindowEvent e) {
-                if (autoRefreshTimer != null) autoRefreshTimer.stop();
-            }
-        });
+        // Complaints saved here or by staff elsewhere (ChangeFeed): applied to the lists as they happen
+        ComplaintEvents.subscribe(this, this::applyEvents,
+                ComplaintEvents.ComplaintCreated.class, ComplaintEvents.ComplaintClosed.class);
     }
 
     private void initComponents() {
@@ -98,13 +94,22 @@ public class CustomerDashboard extends JFrame {
         // Logout Button
         btnLogout = createStyledButton("LOG OUT", new Color(180, 180, 180), Color.BLACK);
         btnLogout.addActionListener(e -> {
-            if (autoRefreshTimer != null) autoRefreshTimer.stop();
             new RoleSelectionFrame().setVisible(true);
             dispose();
         });
 
+        // Timeline Button (all calls, complaints and surveys, newest first; no internal notes)
+        btnTimeline = createStyledButton("MY TIMELINE", Color.WHITE, PRIMARY_DARK);
+        btnTimeline.addActionListener(e -> new CustomerTimelineFrame(customerId, lblProfile.getText(),
+                CustomerTimeline.View.CUSTOMER).setVisible(true));
+
+        JPanel headerButtons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        headerButtons.setOpaque(false);
+        headerButtons.add(btnTimeline);
+        headerButtons.add(btnLogout);
+
         headerPanel.add(title, BorderLayout.WEST);
-        headerPanel.add(btnLogout, BorderLayout.EAST);
+        headerPanel.add(headerButtons, BorderLayout.EAST);
 
         JPanel mainContent = new JPanel();
         mainContent.setLayout(new BoxLayout(mainContent, BoxLayout.Y_AXIS));
@@ -181,16 +186,8 @@ public class CustomerDashboard extends JFrame {
         btnNewComplaint.setAlignmentX(Component.CENTER_ALIGNMENT);
         btnNewComplaint.setMaximumSize(new Dimension(320, 55));
 
-        btnNewComplaint.addActionListener(e -> {
-            NewComplaintScreen nc = new NewComplaintScreen(customerId);
-            nc.addWindowListener(new WindowAdapter() {
-                @Override
-                public void windowClosed(WindowEvent e) { loadComplaintLists(); }
-                @Override
-                public void windowClosing(WindowEvent e) { SwingUtilities.invokeLater(() -> loadComplaintLists()); }
-            });
-            nc.setVisible(true);
-        });
+        // The new complaint shows up through ComplaintEvents once it is saved
+        btnNewComplaint.addActionListener(e -> new NewComplaintScreen(customerId).setVisible(true));
 
         mainContent.add(profileCard);
         mainContent.add(listsPanel);
@@ -249,6 +246,36 @@ public class CustomerDashboard extends JFrame {
         } catch (NumberFormatException ex) { return null; }
     }
 
+    /** New complaints go to the top of the open list; closed ones move to the history. */
+    private void applyEvents(java.util.List<ComplaintEvents.Event> events) {
+        for (ComplaintEvents.Event e : events) {
+            if (e instanceof ComplaintEvents.ComplaintCreated) {
+                ComplaintEvents.ComplaintCreated created = (ComplaintEvents.ComplaintCreated) e;
+                if (created.customerId() == null || created.customerId() != customerId) continue;
+                if (indexOf(openModel, created.complaintId()) >= 0) continue;
+                if (indexOf(openModel, null) >= 0) openModel.clear(); // placeholder text
+                openModel.add(0, "#" + created.complaintId() + " - " + created.title());
+            } else {
+                int complaintId = ((ComplaintEvents.ComplaintClosed) e).complaintId();
+                int i = indexOf(openModel, complaintId);
+                if (i < 0) continue; // not this customer's
+                String item = openModel.remove(i);
+                if (openModel.isEmpty()) openModel.addElement("No active complaints.");
+                if (indexOf(closedModel, null) >= 0) closedModel.clear();
+                closedModel.add(0, item);
+            }
+        }
+    }
+
+    /** Index of the list item for the complaint; with null, of the first placeholder item. */
+    private int indexOf(DefaultListModel<String> model, Integer complaintId) {
+        for (int i = 0; i < model.size(); i++) {
+            Integer id = extractComplaintId(model.get(i));
+            if (complaintId == null ? id == null : complaintId.equals(id)) return i;
+        }
+        return -1;
+    }
+
     private void loadCustomerInfo() {
         String sql = """
             SELECT c.FirstName, c.LastName, ci.Email, ci.PhoneNumber,
@@ -259,14 +286,14 @@ public class CustomerDashboard extends JFrame {
             WHERE c.CustomerID = ?
             """;
 
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, customerId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
+        tasks.submit(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, customerId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
                     String fullName = (rs.getString("FirstName") + " " + rs.getString("LastName")).trim();
-                    lblProfile.setText(fullName.isEmpty() ? "Unknown User" : fullName);
 
                     StringBuilder details = new StringBuilder();
                     String phone = rs.getString("PhoneNumber");
@@ -280,23 +307,24 @@ public class CustomerDashboard extends JFrame {
                     if (address != null) details.append("Address: ").append(address);
                     if (city != null) details.append(", ").append(city);
 
-                    txtDetails.setText(details.toString());
-
-                } else {
-                    lblProfile.setText("User Not Found");
-                    txtDetails.setText("-");
+                    return new String[]{fullName, details.toString()};
                 }
             }
-        } catch (Exception ex) {
+        }, info -> {
+            if (info != null) {
+                lblProfile.setText(info[0].isEmpty() ? "Unknown User" : info[0]);
+                txtDetails.setText(info[1]);
+            } else {
+                lblProfile.setText("User Not Found");
+                txtDetails.setText("-");
+            }
+        }, ex -> {
             ex.printStackTrace();
             lblProfile.setText("Error!");
-        }
+        });
     }
 
     private void loadComplaintLists() {
-        openModel.clear();
-        closedModel.clear();
-
         String baseSql = """
             SELECT c.ComplaintID, t.Title, s.Name AS StatusName, p.Name AS PriorityName
             FROM Complaints c
@@ -307,19 +335,23 @@ public class CustomerDashboard extends JFrame {
             ORDER BY t.CreatedAt DESC
             """;
 
-        try (Connection conn = DbConfig.getConnection()) {
+        if (openModel.isEmpty()) {
+            openModel.addElement("Loading...");
+        }
+
+        // Auto refresh: a newer load replaces one that is still running
+        tasks.submitLatest("complaintLists", conn -> {
+            java.util.List<String> open = new java.util.ArrayList<>();
+            java.util.List<String> closed = new java.util.ArrayList<>();
+
             // Open
             try (PreparedStatement ps = conn.prepareStatement(baseSql)) {
                 ps.setInt(1, customerId);
                 ps.setBoolean(2, true);
                 try (ResultSet rs = ps.executeQuery()) {
-                    boolean hasAny = false;
                     while (rs.next()) {
-                        hasAny = true;
-                        openModel.addElement("#" + rs.getInt("ComplaintID") + " - " + rs.getString("Title"));
-
+                        open.add("#" + rs.getInt("ComplaintID") + " - " + rs.getString("Title"));
                     }
-                    if (!hasAny) openModel.addElement("No active complaints.");
                 }
             }
             // Closed
@@ -327,18 +359,27 @@ public class CustomerDashboard extends JFrame {
                 ps.setInt(1, customerId);
                 ps.setBoolean(2, false);
                 try (ResultSet rs = ps.executeQuery()) {
-                    boolean hasAny = false;
                     while (rs.next()) {
-                        hasAny = true;
-                        closedModel.addElement("#" + rs.getInt("ComplaintID") + " - " + rs.getString("Title") );
+                        closed.add("#" + rs.getInt("ComplaintID") + " - " + rs.getString("Title"));
                     }
-                    if (!hasAny) closedModel.addElement("No closed complaints.");
                 }
             }
-        } catch (Exception ex) {
+            return java.util.List.of(open, closed);
+        }, lists -> {
+            openModel.clear();
+            closedModel.clear();
+
+            for (String s : lists.get(0)) openModel.addElement(s);
+            if (lists.get(0).isEmpty()) openModel.addElement("No active complaints.");
+
+            for (String s : lists.get(1)) closedModel.addElement(s);
+            if (lists.get(1).isEmpty()) closedModel.addElement("No closed complaints.");
+        }, ex -> {
             ex.printStackTrace();
+            openModel.clear();
+            closedModel.clear();
             openModel.addElement("Data error.");
-        }
+        });
     }
 
     public static void main(String[] args) {
@@ -399,21 +399,55 @@ public class CustomerSignUpFrame extends JFrame {
             return;
         }
 
-        Connection conn = null;
-        try {
-            conn = DbConfig.getConnection();
-            conn.setAutoCommit(false);
+        btnRegister.setEnabled(false);
 
-            // Username already exists?
-            if (isUsernameExists(conn, username)) {
+        // Not bound to a window group: closing the form must not abort the registration
+        DbExecutor.submit(conn -> insertCustomer(conn, firstName, lastName, gender, email, phone,
+                country, city, addressLine, postalCode, username, password), customerId -> {
+            btnRegister.setEnabled(true);
+
+            if (customerId == null) {
                 JOptionPane.showMessageDialog(this,
                         "This username is already in use. Please choose another one.",
                         "Validation Error",
                         JOptionPane.WARNING_MESSAGE);
-                conn.rollback();
                 return;
             }
 
+            JOptionPane.showMessageDialog(this,
+                    "Registration successful.\nYour CustomerID: " + customerId,
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
+
+            dispose(); // close sign-up window
+        }, ex -> {
+            btnRegister.setEnabled(true);
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                    "Error while creating customer:\n" + ex.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    /**
+     * Runs in the background (DbExecutor).
+     *
+     * @return new CustomerID, or null if the username is already taken
+     */
+    private static Integer insertCustomer(Connection conn,
+                                          String firstName, String lastName, String gender,
+                                          String email, String phone,
+                                          String country, String city, String addressLine, String postalCode,
+                                          String username, String password) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            // Username already exists?
+            if (isUsernameExists(conn, username)) {
+                conn.rollback();
+                return null;
+            }
+
             //Insert into Customers
             int customerId;
 
@@ -489,42 +523,18 @@ public class CustomerSignUpFrame extends JFrame {
             }
 
             conn.commit();
+            return customerId;
 
-            JOptionPane.showMessageDialog(this,
-                    "Registration successful.\nYour CustomerID: " + customerId,
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-
-            dispose(); // close sign-up window
-            
-
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
-            JOptionPane.showMessageDialog(this,
-                    "Error while creating customer:\n" + ex.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
+        } catch (SQLException | RuntimeException ex) {
+            conn.rollback();
+            throw ex;
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
+            conn.setAutoCommit(true);
         }
     }
 
     /*CustomerUsers already exists?*/
-    private boolean isUsernameExists(Connection conn, String username) throws SQLException {
+    private static boolean isUsernameExists(Connection conn, String username) throws SQLException {
         String sql = "SELECT COUNT(*) AS Cnt FROM CustomerUsers WHERE Username = ?";
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, username);
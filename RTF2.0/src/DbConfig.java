@@ -20,13 +20,21 @@ public class DbConfig {
 
     private static final String DB_NAME = "RTF";
 
-    private static final String USER = "rtf_user";
-    private static final String PASSWORD = "Sena123!";
+    private static final String USER = System.getProperty("rtf.db.user", "rtf_user");
+    private static final String PASSWORD = System.getProperty("rtf.db.password", "Sena123!");
 
-    private static final String URL =
+    // -Drtf.db.url=... overrides the server (e.g. a local test database)
+    private static final String URL = System.getProperty("rtf.db.url",
             "jdbc:sqlserver://" + SERVER_NAME + ":1433;"
             + "databaseName=" + DB_NAME + ";"
-            + "encrypt=false;trustServerCertificate=true;";
+            + "encrypt=false;trustServerCertificate=true;");
+
+    // Pool settings (can be overridden with -Drtf.pool.*)
+    private static final int POOL_MIN_IDLE = Integer.getInteger("rtf.pool.minIdle", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("rtf.pool.maxSize", 10);
+    private static final long POOL_ACQUIRE_TIMEOUT_MS = Long.getLong("rtf.pool.acquireTimeoutMs", 10_000L);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("rtf.pool.idleTimeoutMs", 5 * 60_000L);
+    private static final long POOL_LEAK_THRESHOLD_MS = Long.getLong("rtf.pool.leakThresholdMs", 60_000L);
 
     static {
         try {
@@ -38,7 +46,26 @@ public class DbConfig {
         }
     }
 
+    private static final ConnectionPool POOL = new ConnectionPool(
+            URL, USER, PASSWORD,
+            POOL_MIN_IDLE, POOL_MAX_SIZE,
+            POOL_ACQUIRE_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS, POOL_LEAK_THRESHOLD_MS);
+
+    /**
+     * Borrows a pooled connection. Closing it returns it to the pool,
+     * so existing try-with-resources code works unchanged.
+     */
     public static Connection getConnection() throws SQLException {
+        return POOL.getConnection();
+    }
+
+    /** Opens a new physical connection, bypassing the pool. */
+    public static Connection openDirectConnection() throws SQLException {
         return DriverManager.getConnection(URL, USER, PASSWORD);
     }
+
+    /** Current pool statistics (active/idle connections, wait times, leaks). */
+    public static ConnectionPool.Stats getPoolStats() {
+        return POOL.getStats();
+    }
 }
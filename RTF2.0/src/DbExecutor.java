@@ -0,0 +1,250 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * DbExecutor
+ *
+ * Shared background executor for all JDBC work, so no query runs on the
+ * Swing event dispatch thread (EDT).
+ *
+ *  - Each query gets a pooled connection (DbConfig.getConnection()).
+ *  - Results and errors are delivered back on the EDT.
+ *  - Uses virtual threads on JDK 21+, otherwise a bounded platform pool.
+ *  - Tasks can be cancelled; a cancelled task never calls back into the UI.
+ *
+ * Frames normally use a Group, which is bound to the window: all its tasks
+ * are cancelled when the window is disposed, and the window shows a wait
+ * cursor while any of them is running.
+ */
+public final class DbExecutor {
+
+    /** Work to run in the background with a pooled connection. */
+    public interface Query<T> {
+        T run(Connection conn) throws Exception;
+    }
+
+    private static final int PLATFORM_POOL_SIZE = Integer.getInteger("rtf.db.workers", 8);
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private DbExecutor() {
+    }
+
+    private static ExecutorService createExecutor() {
+        // Virtual threads (JDK 21+); looked up reflectively so older runtimes still work
+        try {
+            Method m = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ignore) {
+            // fall back to platform threads
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                PLATFORM_POOL_SIZE, PLATFORM_POOL_SIZE,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "db-worker-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Runs the query in the background. onSuccess / onError are called on
+     * the EDT unless the task was cancelled first.
+     */
+    public static <T> Task<T> submit(Query<T> query,
+                                     Consumer<? super T> onSuccess,
+                                     Consumer<? super Exception> onError) {
+        return submit(query, onSuccess, onError, null);
+    }
+
+    private static <T> Task<T> submit(Query<T> query,
+                                      Consumer<? super T> onSuccess,
+                                      Consumer<? super Exception> onError,
+                                      Runnable onFinished) {
+        Task<T> task = new Task<>(onFinished);
+        task.future = EXECUTOR.submit(() -> {
+            if (task.cancelled) {
+                task.finish();
+                return;
+            }
+            try (Connection conn = DbConfig.getConnection()) {
+                T result = query.run(conn);
+                SwingUtilities.invokeLater(() -> {
+                    if (!task.cancelled && onSuccess != null) onSuccess.accept(result);
+                    task.finish();
+                });
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (!task.cancelled) {
+                        if (onError != null) onError.accept(e);
+                        else e.printStackTrace();
+                    }
+                    task.finish();
+                });
+            }
+        });
+        return task;
+    }
+
+    /**
+     * Runs the query in the background and completes the future on the
+     * worker thread (no EDT hop). For services that combine several
+     * queries, e.g. parallel loads at startup.
+     */
+    public static <T> CompletableFuture<T> supply(Query<T> query) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        EXECUTOR.execute(() -> {
+            try (Connection conn = DbConfig.getConnection()) {
+                future.complete(query.run(conn));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /** Handle for a submitted query. */
+    public static final class Task<T> {
+        private volatile boolean cancelled = false;
+        private volatile boolean done = false;
+        private volatile Future<?> future;
+        private final Runnable onFinished;
+
+        private Task(Runnable onFinished) {
+            this.onFinished = onFinished;
+        }
+
+        /** Stops delivery of the result and interrupts the worker if still running. */
+        public void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) f.cancel(true);
+            finish();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        private void finish() {
+            if (SwingUtilities.isEventDispatchThread()) finishOnEdt();
+            else SwingUtilities.invokeLater(this::finishOnEdt);
+        }
+
+        private void finishOnEdt() {
+            if (done) return;
+            done = true;
+            if (onFinished != null) onFinished.run();
+        }
+    }
+
+    /**
+     * Tasks owned by one window. Must be used from the EDT.
+     */
+    public static final class Group {
+        private final Window window;
+        private final Set<Task<?>> pending = new HashSet<>();
+        private final Map<String, Task<?>> latestByKey = new HashMap<>();
+        private boolean disposed = false;
+
+        public Group(Window window) {
+            this.window = window;
+            window.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent e) {
+                    cancelAll();
+                    disposed = true;
+                }
+            });
+        }
+
+        public <T> Task<T> submit(Query<T> query,
+                                  Consumer<? super T> onSuccess,
+                                  Consumer<? super Exception> onError) {
+            if (disposed) {
+                Task<T> dead = new Task<>(null);
+                dead.cancelled = true;
+                return dead;
+            }
+            Task<?>[] holder = new Task<?>[1];
+            Task<T> task = DbExecutor.submit(query, onSuccess, onError, () -> {
+                pending.remove(holder[0]);
+                updateBusyCursor();
+            });
+            holder[0] = task;
+            pending.add(task);
+            updateBusyCursor();
+            return task;
+        }
+
+        /**
+         * Like submit, but cancels the previous task with the same key
+         * (e.g. a reload started before the filter was changed).
+         */
+        public <T> Task<T> submitLatest(String key,
+                                        Query<T> query,
+                                        Consumer<? super T> onSuccess,
+                                        Consumer<? super Exception> onError) {
+            Task<?> previous = latestByKey.remove(key);
+            if (previous != null) {
+                previous.cancel();
+            }
+            Task<T> task = submit(query, onSuccess, onError);
+            latestByKey.put(key, task);
+            return task;
+        }
+
+        /** Cancels the latest task submitted with the key, if still running. */
+        public void cancel(String key) {
+            Task<?> previous = latestByKey.remove(key);
+            if (previous != null) {
+                previous.cancel();
+            }
+        }
+
+        public boolean isBusy() {
+            return !pending.isEmpty();
+        }
+
+        public void cancelAll() {
+            for (Task<?> t : new HashSet<>(pending)) {
+                t.cancel();
+            }
+            pending.clear();
+            latestByKey.clear();
+            updateBusyCursor();
+        }
+
+        private void updateBusyCursor() {
+            window.setCursor(pending.isEmpty()
+                    ? Cursor.getDefaultCursor()
+                    : Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+    }
+}
@@ -0,0 +1,217 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * DuplicateBenchmark
+ *
+ * Measures DuplicateDetector on a synthetic complaint corpus (no database
+ * needed):
+ *
+ *   java -cp build/classes DuplicateBenchmark [openComplaints] [probes]
+ *
+ * Open complaints are random texts over a Zipf-distributed vocabulary,
+ * spread over customers and products. Resubmissions are edited copies of
+ * an open complaint of the same customer, at three edit levels (dropped,
+ * inserted and swapped words, typos, Turkish letters typed without marks,
+ * changed case). Fresh complaints are unrelated texts of customers and
+ * products that already have open complaints.
+ *
+ * Reports recall (the original is among the matches) per edit level, for
+ * the same customer (compared directly) and for another customer with the
+ * same product (LSH buckets only), the share of fresh complaints flagged
+ * (false positives), and the latency of a check (signature + lookup).
+ */
+public class DuplicateBenchmark {
+
+    private static final int VOCABULARY = 4000;
+    private static final String[] SYLLABLES = {
+            "fa", "tu", "ra", "ka", "rgo", "ci", "ge", "şi", "kâ", "yet", "me", "sa",
+            "ja", "ğı", "in", "ter", "net", "ö", "de", "me", "ü", "rün", "ça", "lış"
+    };
+
+    private final String[] words = new String[VOCABULARY];
+    private final double[] cumulative = new double[VOCABULARY];
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    public static void main(String[] args) {
+        int open = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int probes = args.length > 1 ? Integer.parseInt(args[1]) : 3_000;
+        new DuplicateBenchmark().run(open, probes);
+    }
+
+    private void run(int open, int probes) {
+        buildVocabulary();
+
+        int customers = Math.max(1, open / 4);   // a few open complaints per customer
+        int products = Math.max(1, open / 100);
+
+        String[] titles = new String[open];
+        String[] descriptions = new String[open];
+        int[] customerOf = new int[open];
+        Integer[] productOf = new Integer[open];
+
+        DuplicateDetector.Index index = new DuplicateDetector.Index();
+        long t0 = System.nanoTime();
+        for (int id = 0; id < open; id++) {
+            titles[id] = text(3 + random.nextInt(5));
+            descriptions[id] = text(15 + random.nextInt(50));
+            customerOf[id] = 1 + random.nextInt(customers);   // IDs start at 1, like identity columns
+            productOf[id] = random.nextInt(3) == 0 ? null : 1 + random.nextInt(products);
+            index.add(complaintId(id), customerOf[id], productOf[id], titles[id],
+                    DuplicateDetector.signature(titles[id], descriptions[id]));
+        }
+        long buildMs = (System.nanoTime() - t0) / 1_000_000;
+
+        System.gc();
+        Runtime rt = Runtime.getRuntime();
+        System.out.printf("%,d open complaints, %,d customers, %,d products: index built in %,d ms, heap ~%,d MB%n",
+                open, customers, products, buildMs, (rt.totalMemory() - rt.freeMemory()) >> 20);
+        System.out.printf("signature %d values, LSH %d bands x %d rows%n",
+                DuplicateDetector.HASHES, DuplicateDetector.BANDS, DuplicateDetector.ROWS);
+
+        double threshold = Double.parseDouble(System.getProperty("rtf.dup.threshold", "0.5"));
+        long[] nanos = new long[probes * 4];
+        int n = 0;
+
+        String[] levels = {"light", "medium", "heavy"};
+        double[] editRates = {0.05, 0.15, 0.30};
+        for (int level = 0; level < levels.length; level++) {
+            int found = 0;
+            double similaritySum = 0;
+            for (int p = 0; p < probes; p++) {
+                int original = random.nextInt(open);
+                String title = edit(titles[original], editRates[level]);
+                String description = edit(descriptions[original], editRates[level]);
+
+                long t = System.nanoTime();
+                List<DuplicateDetector.Match> matches = index.find(customerOf[original], productOf[original],
+                        DuplicateDetector.signature(title, description), threshold);
+                nanos[n++] = System.nanoTime() - t;
+
+                for (DuplicateDetector.Match m : matches) {
+                    if (m.complaintId() == complaintId(original)) {
+                        found++;
+                        similaritySum += m.similarity();
+                        break;
+                    }
+                }
+            }
+            System.out.printf("  resubmitted, %-6s edits (%2.0f%% of words): recall %5.1f%%  (avg similarity %.2f)%n",
+                    levels[level], editRates[level] * 100, 100.0 * found / probes,
+                    found == 0 ? 0 : similaritySum / found);
+        }
+
+        // Same text about the same product from someone else: only the product LSH buckets can find it
+        for (int level = 0; level < levels.length; level++) {
+            int tried = 0, found = 0;
+            while (tried < probes) {
+                int original = random.nextInt(open);
+                if (productOf[original] == null) continue;
+                tried++;
+                List<DuplicateDetector.Match> matches = index.find(customers + 1, productOf[original],
+                        DuplicateDetector.signature(edit(titles[original], editRates[level]),
+                                edit(descriptions[original], editRates[level])), threshold);
+                for (DuplicateDetector.Match m : matches) {
+                    if (m.complaintId() == complaintId(original)) {
+                        found++;
+                        break;
+                    }
+                }
+            }
+            System.out.printf("  same product, other customer, %-6s edits: recall %5.1f%%%n",
+                    levels[level], 100.0 * found / probes);
+        }
+
+        int flaggedCustomer = 0, flaggedProduct = 0;
+        for (int p = 0; p < probes; p++) {
+            int other = random.nextInt(open); // a customer and product with open complaints
+            long t = System.nanoTime();
+            List<DuplicateDetector.Match> matches = index.find(customerOf[other], productOf[other],
+                    DuplicateDetector.signature(text(3 + random.nextInt(5)), text(15 + random.nextInt(50))),
+                    threshold);
+            nanos[n++] = System.nanoTime() - t;
+
+            boolean sameCustomer = false;
+            for (DuplicateDetector.Match m : matches) {
+                if (m.customerId() == customerOf[other]) sameCustomer = true;
+            }
+            if (sameCustomer) flaggedCustomer++;
+            else if (!matches.isEmpty()) flaggedProduct++;
+        }
+        System.out.printf("  fresh complaints flagged: %.2f%% (same customer), %.2f%% (same product only)%n",
+                100.0 * flaggedCustomer / probes, 100.0 * flaggedProduct / probes);
+
+        Arrays.sort(nanos, 0, n);
+        System.out.printf("check latency: p50=%.1f us  p99=%.1f us  max=%.1f us%n",
+                nanos[n / 2] / 1e3, nanos[n * 99 / 100] / 1e3, nanos[n - 1] / 1e3);
+    }
+
+    private static int complaintId(int i) {
+        return i + 1;
+    }
+
+    private void buildVocabulary() {
+        double sum = 0;
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder sb = new StringBuilder();
+            int v = i;
+            do {
+                sb.append(SYLLABLES[v % SYLLABLES.length]);
+                v /= SYLLABLES.length;
+            } while (v > 0);
+            if (sb.length() < 4) sb.append("lar");
+            words[i] = sb.toString();
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < VOCABULARY; i++) cumulative[i] /= sum;
+    }
+
+    private String word() {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return words[i >= 0 ? i : Math.min(-i - 1, VOCABULARY - 1)];
+    }
+
+    private String text(int wordCount) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(word());
+        }
+        return sb.toString();
+    }
+
+    /** Edits about `rate` of the words: drop, insert, swap or typo; may also change case and marks. */
+    private String edit(String text, double rate) {
+        List<String> out = new ArrayList<>(Arrays.asList(text.split(" ")));
+        int edits = Math.max(1, (int) Math.round(out.size() * rate));
+        for (int e = 0; e < edits && !out.isEmpty(); e++) {
+            int at = random.nextInt(out.size());
+            switch (random.nextInt(4)) {
+                case 0:
+                    out.remove(at);
+                    break;
+                case 1:
+                    out.add(at, word());
+                    break;
+                case 2:
+                    int with = random.nextInt(out.size());
+                    String w = out.get(at);
+                    out.set(at, out.get(with));
+                    out.set(with, w);
+                    break;
+                default:
+                    char[] c = out.get(at).toCharArray();
+                    c[random.nextInt(c.length)] = (char) ('a' + random.nextInt(26));
+                    out.set(at, new String(c));
+            }
+        }
+        String result = String.join(" ", out);
+        if (random.nextInt(3) == 0) result = result.replace('ş', 's').replace('ğ', 'g').replace('ü', 'u');
+        if (random.nextInt(4) == 0) result = result.toUpperCase(Locale.forLanguageTag("tr"));
+        return result;
+    }
+}
@@ -0,0 +1,489 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * DuplicateDetector
+ *
+ * Finds open complaints that are probably the same problem as a new one,
+ * so a resubmitted complaint can be flagged (customer app) or the call
+ * linked to the existing complaint (call screen) before it is inserted.
+ *
+ * Every open complaint is kept as a MinHash signature of its title and
+ * description (HASHES values over 4-character shingles of the folded text);
+ * the share of equal values estimates the Jaccard similarity of two texts.
+ *  - The customer's own open complaints (a few) are all compared.
+ *  - The product's open complaints (possibly thousands) are found by LSH:
+ *    the signature is cut into BANDS bands of ROWS values and each band,
+ *    with the ProductID, is a bucket key. Texts with similarity s share a
+ *    bucket with probability 1 - (1 - s^ROWS)^BANDS (s = 0.5: 93%,
+ *    s = 0.6: 99%), so only a handful of candidates are compared.
+ * A check stays well under a millisecond and can run inline on submit.
+ * The index is primitive arrays and chains through LongIntHashMaps, about
+ * 1 KB per open complaint.
+ *
+ *  - find() returns candidates of the same customer, or of the same product,
+ *    whose estimated similarity is at least -Drtf.dup.threshold (default 0.5).
+ *  - added() / closed() keep the index current for this workstation, and
+ *    closes elsewhere arrive from ChangeFeed; it is reloaded from the
+ *    database every -Drtf.dup.reloadMin minutes (default 5) for complaints
+ *    opened elsewhere. Changes made while a load runs are replayed onto the
+ *    new index before it replaces the old one.
+ *  - Before the first load has finished find() returns nothing instead of
+ *    holding up the submit.
+ *
+ * Tables used:
+ *  - Complaints (open complaints: customer, product)
+ *  - ComplaintTexts (title, description)
+ */
+public final class DuplicateDetector {
+
+    static final int HASHES = 60;
+    static final int BANDS = 20;
+    static final int ROWS = HASHES / BANDS;
+
+    private static final int SHINGLE = 4;
+
+    // Multiply-shift hash family: h_i(x) = (A[i] * x + B[i]) >>> 32
+    private static final long[] A = new long[HASHES];
+    private static final long[] B = new long[HASHES];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5eed_d0d0L);
+        for (int i = 0; i < HASHES; i++) {
+            A[i] = random.nextLong() | 1;
+            B[i] = random.nextLong();
+        }
+    }
+
+    /** A probable duplicate. */
+    public static final class Match {
+        private final int complaintId;
+        private final int customerId;
+        private final Integer productId;
+        private final String title;
+        private final double similarity;
+
+        Match(int complaintId, int customerId, Integer productId, String title, double similarity) {
+            this.complaintId = complaintId;
+            this.customerId = customerId;
+            this.productId = productId;
+            this.title = title;
+            this.similarity = similarity;
+        }
+
+        public int complaintId() {
+            return complaintId;
+        }
+
+        public int customerId() {
+            return customerId;
+        }
+
+        public Integer productId() {
+            return productId;
+        }
+
+        public String title() {
+            return title;
+        }
+
+        /** Estimated Jaccard similarity of the texts, 0..1. */
+        public double similarity() {
+            return similarity;
+        }
+    }
+
+    /**
+     * Open complaints, their customer lists and product LSH buckets. Built
+     * from the database, or directly (DuplicateBenchmark). Thread-safe.
+     *
+     * Each complaint has an ordinal. Complaints of a customer are a doubly
+     * linked list through customerNext/customerPrev; a bucket is a list of
+     * slots (ordinal * BANDS + band) through slotNext/slotPrev. The heads
+     * are in LongIntHashMaps (-1 = empty list).
+     */
+    static final class Index {
+        private final LongIntHashMap ordinalOf = new LongIntHashMap(1024);    // ComplaintID -> ordinal, -1 = removed
+        private final LongIntHashMap customerHead = new LongIntHashMap(1024); // CustomerID -> first ordinal
+        private final LongIntHashMap bucketHead = new LongIntHashMap(1024);   // bucket key -> first slot
+
+        private int[] complaintIds = new int[256];
+        private int[] customerIds = new int[256];
+        private int[] productIds = new int[256];   // 0 = no product
+        private String[] titles = new String[256];
+        private int[][] signatures = new int[256][];
+        private int[] customerNext = new int[256];
+        private int[] customerPrev = new int[256];
+        private int[] slotNext = new int[256 * BANDS];
+        private int[] slotPrev = new int[256 * BANDS];
+
+        private int ordinals;                      // handed out
+        private int[] free = new int[16];          // ordinals of removed complaints, reused
+        private int freeCount;
+        private int size;
+
+        synchronized void add(int complaintId, int customerId, Integer productId, String title, int[] signature) {
+            remove(complaintId);
+
+            int o;
+            if (freeCount > 0) {
+                o = free[--freeCount];
+            } else {
+                o = ordinals++;
+                if (o == complaintIds.length) grow();
+            }
+            complaintIds[o] = complaintId;
+            customerIds[o] = customerId;
+            productIds[o] = productId != null ? productId : 0;
+            titles[o] = title;
+            signatures[o] = signature;
+            ordinalOf.put(complaintId, o, -1);
+            size++;
+
+            int head = customerHead.get(customerId, -1);
+            customerPrev[o] = -1;
+            customerNext[o] = head;
+            if (head >= 0) customerPrev[head] = o;
+            customerHead.put(customerId, o, -1);
+
+            if (productIds[o] == 0) return;
+            for (int band = 0; band < BANDS; band++) {
+                int slot = o * BANDS + band;
+                long key = bucketKey(productIds[o], band, signature);
+                int first = bucketHead.get(key, -1);
+                slotPrev[slot] = -1;
+                slotNext[slot] = first;
+                if (first >= 0) slotPrev[first] = slot;
+                bucketHead.put(key, slot, -1);
+            }
+        }
+
+        synchronized void remove(int complaintId) {
+            int o = ordinalOf.get(complaintId, -1);
+            if (o < 0) return;
+            ordinalOf.put(complaintId, -1, -1);
+            size--;
+
+            int prev = customerPrev[o], next = customerNext[o];
+            if (prev >= 0) customerNext[prev] = next;
+            else customerHead.put(customerIds[o], next, -1);
+            if (next >= 0) customerPrev[next] = prev;
+
+            if (productIds[o] != 0) {
+                for (int band = 0; band < BANDS; band++) {
+                    int slot = o * BANDS + band;
+                    prev = slotPrev[slot];
+                    next = slotNext[slot];
+                    if (prev >= 0) slotNext[prev] = next;
+                    else bucketHead.put(bucketKey(productIds[o], band, signatures[o]), next, -1);
+                    if (next >= 0) slotPrev[next] = prev;
+                }
+            }
+
+            titles[o] = null;
+            signatures[o] = null;
+            if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+            free[freeCount++] = o;
+        }
+
+        private void grow() {
+            int n = complaintIds.length * 2;
+            complaintIds = Arrays.copyOf(complaintIds, n);
+            customerIds = Arrays.copyOf(customerIds, n);
+            productIds = Arrays.copyOf(productIds, n);
+            titles = Arrays.copyOf(titles, n);
+            signatures = Arrays.copyOf(signatures, n);
+            customerNext = Arrays.copyOf(customerNext, n);
+            customerPrev = Arrays.copyOf(customerPrev, n);
+            slotNext = Arrays.copyOf(slotNext, n * BANDS);
+            slotPrev = Arrays.copyOf(slotPrev, n * BANDS);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /** Open complaints of the customer or the product at least `threshold` similar, most similar first. */
+        synchronized List<Match> find(int customerId, Integer productId, int[] signature, double threshold) {
+            List<Match> matches = new ArrayList<>();
+            Set<Integer> seen = new HashSet<>();
+
+            for (int o = customerHead.get(customerId, -1); o >= 0; o = customerNext[o]) {
+                seen.add(o);
+                consider(o, signature, threshold, matches);
+            }
+            if (productId != null) {
+                for (int band = 0; band < BANDS; band++) {
+                    for (int slot = bucketHead.get(bucketKey(productId, band, signature), -1); slot >= 0; slot = slotNext[slot]) {
+                        int o = slot / BANDS;
+                        if (seen.add(o)) consider(o, signature, threshold, matches);
+                    }
+                }
+            }
+
+            matches.sort((a, b) -> Double.compare(b.similarity, a.similarity));
+            return matches;
+        }
+
+        private void consider(int o, int[] signature, double threshold, List<Match> matches) {
+            double similarity = similarity(signature, signatures[o]);
+            if (similarity >= threshold) {
+                matches.add(new Match(complaintIds[o], customerIds[o],
+                        productIds[o] != 0 ? productIds[o] : null, titles[o], similarity));
+            }
+        }
+    }
+
+    private static final double THRESHOLD = Double.parseDouble(System.getProperty("rtf.dup.threshold", "0.5"));
+    private static final long RELOAD_MINUTES = Long.getLong("rtf.dup.reloadMin", 5);
+
+    private static final String OPEN_COMPLAINTS_SQL = """
+        SELECT c.ComplaintID, c.CustomerID, c.ProductID, t.Title, t.Description
+        FROM Complaints c
+        JOIN ComplaintTexts t ON t.ComplaintID = c.ComplaintID
+        WHERE c.IsActive = 1
+        """;
+
+    private static volatile Index index;                  // null until the first load
+    private static CompletableFuture<Index> loading;     // single flight; guarded by DuplicateDetector.class
+    private static List<Consumer<Index>> replay;         // changes while loading
+
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "duplicate-detector");
+                t.setDaemon(true);
+                return t;
+            });
+
+    static {
+        if (RELOAD_MINUTES > 0) {
+            SCHEDULER.scheduleWithFixedDelay(DuplicateDetector::reload,
+                    RELOAD_MINUTES, RELOAD_MINUTES, TimeUnit.MINUTES);
+        }
+        // Closed on another workstation (ChangeFeed)
+        ComplaintEvents.subscribe(events -> {
+            for (ComplaintEvents.Event e : events) {
+                if (e.isRemote()) closed(((ComplaintEvents.ComplaintClosed) e).complaintId());
+            }
+        }, ComplaintEvents.ComplaintClosed.class);
+    }
+
+    private DuplicateDetector() {
+    }
+
+    /** Starts loading the open complaints. Call once at application startup. */
+    public static void preload() {
+        current();
+    }
+
+    /** False until the open complaints are loaded (find() returns nothing meanwhile). */
+    public static boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * Open complaints of this customer, or of this product, that look like
+     * the same problem. Never blocks on the database.
+     *
+     * @param productId null if the complaint is not about a product
+     */
+    public static List<Match> find(int customerId, Integer productId, String title, String description) {
+        Index ix = index;
+        if (ix == null) {
+            current(); // retry a failed load for the next submit
+            return List.of();
+        }
+        return ix.find(customerId, productId, signature(title, description), THRESHOLD);
+    }
+
+    /** Call after a new complaint was committed. */
+    public static void added(int complaintId, int customerId, Integer productId, String title, String description) {
+        int[] signature = signature(title, description);
+        apply(ix -> ix.add(complaintId, customerId, productId, title, signature));
+    }
+
+    /** Call after a complaint was closed (committed). */
+    public static void closed(int complaintId) {
+        apply(ix -> ix.remove(complaintId));
+    }
+
+    /** Rebuilds the index from the database; the old one serves until it is ready. */
+    public static void reload() {
+        startLoad();
+    }
+
+    /** Applies a change now (if loaded) and again to a load that is still running. */
+    private static synchronized void apply(Consumer<Index> change) {
+        Index ix = index;
+        if (ix != null) change.accept(ix);
+        if (replay != null) replay.add(change);
+    }
+
+    private static synchronized void current() {
+        if (index == null) startLoad();
+    }
+
+    private static synchronized void startLoad() {
+        if (loading != null) return;
+        CompletableFuture<Index> next = DbExecutor.supply(DuplicateDetector::load);
+        loading = next;
+        replay = new ArrayList<>();
+        next.whenComplete((fresh, ex) -> {
+            synchronized (DuplicateDetector.class) {
+                if (ex != null) {
+                    ex.printStackTrace(); // keep the current index
+                } else {
+                    for (Consumer<Index> change : replay) change.accept(fresh);
+                    index = fresh;
+                }
+                replay = null;
+                loading = null;
+            }
+        });
+    }
+
+    // ---- Loading (DB worker) ----
+
+    private static Index load(Connection conn) throws SQLException {
+        Index ix = new Index();
+        try (PreparedStatement ps = conn.prepareStatement(OPEN_COMPLAINTS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int productId = rs.getInt("ProductID");
+                Integer product = rs.wasNull() ? null : productId;
+                String title = rs.getString("Title");
+                String description = rs.getString("Description");
+                ix.add(rs.getInt("ComplaintID"), rs.getInt("CustomerID"), product, title,
+                        signature(title, description));
+            }
+        }
+        return ix;
+    }
+
+    // ---- MinHash ----
+
+    /** MinHash signature of title + description. */
+    static int[] signature(String title, String description) {
+        String text = normalize(withoutReferences(title) + " " + (description != null ? description : ""));
+
+        long[] min = new long[HASHES];
+        Arrays.fill(min, Long.MAX_VALUE);
+        int n = text.length();
+        int last = Math.max(1, n - SHINGLE + 1);
+        for (int start = 0; start < last; start++) {
+            long x = shingleHash(text, start, Math.min(n, start + SHINGLE));
+            for (int i = 0; i < HASHES; i++) {
+                long h = (A[i] * x + B[i]) >>> 32;
+                if (h < min[i]) min[i] = h;
+            }
+        }
+
+        int[] signature = new int[HASHES];
+        for (int i = 0; i < HASHES; i++) signature[i] = (int) min[i];
+        return signature;
+    }
+
+    /**
+     * Title without reference numbers: "Complaint from call #1234" ->
+     * "Complaint from call #". The number says nothing about the problem, and
+     * the call screen checks before the call has its number.
+     */
+    private static String withoutReferences(String title) {
+        if (title == null) return "";
+        StringBuilder sb = new StringBuilder(title.length());
+        for (int i = 0; i < title.length(); i++) {
+            char c = title.charAt(i);
+            sb.append(c);
+            if (c == '#') {
+                while (i + 1 < title.length() && Character.isDigit(title.charAt(i + 1))) i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Share of equal signature values: estimates the Jaccard similarity of the shingle sets. */
+    static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) equal++;
+        }
+        return (double) equal / HASHES;
+    }
+
+    private static long bucketKey(int productId, int band, int[] signature) {
+        long h = (long) productId << 8 | band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            h = mix(h ^ (signature[i] & 0xFFFFFFFFL) * 0x9E3779B97F4A7C15L);
+        }
+        return h != 0 ? h : 1; // 0 is LongIntHashMap's empty marker
+    }
+
+    private static long shingleHash(String text, int from, int to) {
+        long h = 0x2545F4914F6CDD1DL;
+        for (int i = from; i < to; i++) h = mix(h ^ text.charAt(i));
+        return h;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Lower case without Turkish marks (I, ı, İ -> i; ş -> s; ...), letters
+     * and digits only, single spaces: "Faturam  YANLIŞ!" -> "faturam yanlis".
+     */
+    static String normalize(String text) {
+        if (text == null) return "";
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = fold(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    private static char fold(char c) {
+        switch (c) {
+            case 'I': case 'ı': case 'İ': case 'î': case 'Î':
+                return 'i';
+            case 'ş': case 'Ş':
+                return 's';
+            case 'ğ': case 'Ğ':
+                return 'g';
+            case 'ç': case 'Ç':
+                return 'c';
+            case 'ö': case 'Ö':
+                return 'o';
+            case 'ü': case 'Ü': case 'û': case 'Û':
+                return 'u';
+            case 'â': case 'Â':
+                return 'a';
+            default:
+                return Character.toLowerCase(c);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LoadTree
+ *
+ * Lock-free tournament tree over a fixed set of int keys (e.g. open
+ * complaints per staff member). Every inner node holds the smallest
+ * (key, index) pair of its subtree, so the minimum is read from the root in
+ * O(1) and a key change costs O(log n).
+ *
+ * Nodes are longs in an AtomicLongArray, key in the high 32 bits and leaf
+ * index in the low 32 bits, so comparing two nodes compares keys first and
+ * breaks ties by the lower index. A leaf is changed with a CAS loop; each
+ * ancestor is then refreshed twice (read node, read children, CAS). The
+ * second refresh covers a concurrent update that raced with the first, so
+ * the root is correct once all updaters have returned.
+ *
+ * Keys never go below 0. Unused leaves hold Integer.MAX_VALUE.
+ */
+final class LoadTree {
+
+    private static final int EMPTY = Integer.MAX_VALUE;
+
+    private final int count;
+    private final int leaves;             // power of two >= count
+    private final AtomicLongArray nodes;  // 1-based heap layout, leaves at [leaves, 2 * leaves)
+
+    LoadTree(int[] keys) {
+        this.count = keys.length;
+        int n = 1;
+        while (n < Math.max(1, count)) n <<= 1;
+        this.leaves = n;
+        this.nodes = new AtomicLongArray(2 * n);
+
+        for (int i = 0; i < n; i++) {
+            nodes.set(n + i, pack(i < count ? Math.max(0, keys[i]) : EMPTY, i));
+        }
+        for (int node = n - 1; node >= 1; node--) {
+            nodes.set(node, Math.min(nodes.get(2 * node), nodes.get(2 * node + 1)));
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    int key(int index) {
+        return keyOf(nodes.get(leaves + index));
+    }
+
+    /** Index with the smallest key (lowest index on ties), or -1 if empty. */
+    int minIndex() {
+        return count == 0 ? -1 : indexOf(nodes.get(1));
+    }
+
+    int minKey() {
+        return keyOf(nodes.get(1));
+    }
+
+    /** Adds delta to the key at index (clamped at 0). Returns the new key. */
+    int add(int index, int delta) {
+        int leaf = leaves + index;
+        int updated;
+        while (true) {
+            long old = nodes.get(leaf);
+            updated = (int) Math.max(0, Math.min((long) EMPTY - 1, (long) keyOf(old) + delta));
+            if (nodes.compareAndSet(leaf, old, pack(updated, index))) break;
+        }
+        refresh(leaf);
+        return updated;
+    }
+
+    /** Sets the key at index. */
+    void set(int index, int key) {
+        nodes.set(leaves + index, pack(Math.max(0, key), index));
+        refresh(leaves + index);
+    }
+
+    private void refresh(int leaf) {
+        for (int node = leaf >>> 1; node >= 1; node >>>= 1) {
+            for (int pass = 0; pass < 2; pass++) {
+                long old = nodes.get(node);
+                long min = Math.min(nodes.get(2 * node), nodes.get(2 * node + 1));
+                if (old == min) break;
+                nodes.compareAndSet(node, old, min);
+            }
+        }
+    }
+
+    private static long pack(int key, int index) {
+        return ((long) key << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    private static int keyOf(long node) {
+        return (int) (node >>> 32);
+    }
+
+    private static int indexOf(long node) {
+        return (int) node;
+    }
+}
@@ -42,6 +42,9 @@ public class LogIn extends JFrame {
     private final Color COLOR_BTN_GREEN = new Color(56, 142, 60);
     private final Color COLOR_LINK = new Color(21, 101, 192);
 
+    // Background DB work for this window (cancelled when the window is disposed)
+    private final DbExecutor.Group tasks = new DbExecutor.Group(this);
+
     public LogIn() {
         setTitle("Customer Login");
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
@@ -247,39 +250,51 @@ public class LogIn extends JFrame {
                 WHERE cu.Username = ? AND cu.PasswordHash = ?
                 """;
 
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, username);
-            ps.setString(2, password);
+        btnLogin.setEnabled(false);
+
+        tasks.submit(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, username);
+                ps.setString(2, password);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    return new Object[]{
+                            rs.getInt("CustomerID"),
+                            rs.getString("FirstName") + " " + rs.getString("LastName")
+                    };
+                }
+            }
+        }, row -> {
+            btnLogin.setEnabled(true);
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    int customerId = rs.getInt("CustomerID");
-                    String fullName = rs.getString("FirstName") + " " + rs.getString("LastName");
+            if (row != null) {
+                int customerId = (Integer) row[0];
+                String fullName = (String) row[1];
 
-                    JOptionPane.showMessageDialog(
-                            this,
-                            "Login successful.\nWelcome, " + fullName + " (ID: " + customerId + ")",
-                            "Success",
-                            JOptionPane.INFORMATION_MESSAGE
-                    );
+                JOptionPane.showMessageDialog(
+                        this,
+                        "Login successful.\nWelcome, " + fullName + " (ID: " + customerId + ")",
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE
+                );
 
-                    CustomerDashboard dashboard = new CustomerDashboard(customerId);
-                    dashboard.setVisible(true);
-                    dispose();
+                CustomerDashboard dashboard = new CustomerDashboard(customerId);
+                dashboard.setVisible(true);
+                dispose();
 
-                } else {
-                    JOptionPane.showMessageDialog(
-                            this,
-                            "Invalid username or password.",
-                            "Login Failed",
-                            JOptionPane.ERROR_MESSAGE
-                    );
-                }
+            } else {
+                JOptionPane.showMessageDialog(
+                        this,
+                        "Invalid username or password.",
+                        "Login Failed",
+                        JOptionPane.ERROR_MESSAGE
+                );
             }
-
-        } catch (Exception ex) {
+        }, ex -> {
+            btnLogin.setEnabled(true);
             ex.printStackTrace();
             JOptionPane.showMessageDialog(
                     this,
@@ -287,7 +302,7 @@ public class LogIn extends JFrame {
                     "Error",
                     JOptionPane.ERROR_MESSAGE
             );
-        }
+        });
     }
 
     public static void main(String[] args) {
@@ -21,8 +21,14 @@ import java.sql.*;
  *  - ComplaintTexts (complaint title and description)
  *  - ComplaintCategory (complaint categories)
  *  - ComplaintPriority (default complaint priority)
- *  - Products (optional product lookup)
- *  - Staff (random staff assignment)
+ *  - Products (optional product, resolved via ProductCatalog)
+ *  - Staff (assignment via ComplaintAssigner)
+ *  - open complaints (duplicate check via DuplicateDetector)
+ *
+ * While the customer types, ComplaintClassifier suggests a category; it is
+ * preselected until the customer picks one themselves. Products whose code
+ * starts with the digits typed so far are offered under the product code
+ * field, and a complete code shows the product name (ProductCatalog).
  */
 
 
@@ -37,24 +43,25 @@ public class NewComplaintScreen extends JFrame {
 
     private JTextField txtTitle;
     private JTextArea txtDescription;
-    private JComboBox<ComboItem> cmbCategory;
+    private JComboBox<ReferenceData.Item> cmbCategory;
     private JTextField txtProductId;   
+    private JLabel lblCategoryHint;
+    private JLabel lblProductHint;
 
-    private Integer midPriorityId = null;
+    // Product suggestions while the code is typed (ProductCatalog, in memory)
+    private static final int MAX_PRODUCT_SUGGESTIONS = 8;
+    private final JPopupMenu productSuggestions = new JPopupMenu();
 
-    private static final int OPEN_STATUS_ID = 1;
-    private static final int DEFAULT_SOURCE_ID = 1;
+    // Category suggestion: debounced while typing; off once the customer picks a category
+    private final javax.swing.Timer suggestTimer = new javax.swing.Timer(400, e -> suggestCategory());
+    private boolean categoryChosen;
+    private boolean settingCategory;
+    private int suggestSeq;
 
-    private static class ComboItem {
-        final int id;
-        final String text;
-        ComboItem(int id, String text) {
-            this.id = id;
-            this.text = text;
-        }
-        @Override
-        public String toString() { return text; }
-    }
+    private JButton submitButton;
+
+    // Background DB work for this window (cancelled when the window is disposed)
+    private final DbExecutor.Group tasks = new DbExecutor.Group(this);
 
     public NewComplaintScreen(int customerId) {
         this.customerId = customerId;
@@ -120,8 +127,21 @@ public class NewComplaintScreen extends JFrame {
         cmbCategory.setBackground(Color.WHITE);
         cmbCategory.setFont(new Font("Arial", Font.PLAIN, 14));
         ((JComponent) cmbCategory.getRenderer()).setBorder(new EmptyBorder(5,5,5,5));
+        cmbCategory.addActionListener(e -> {
+            if (!settingCategory) {
+                categoryChosen = true;
+                lblCategoryHint.setText(" ");
+            }
+        });
         formPanel.add(cmbCategory, gbc);
 
+        gbc.gridy = row++;
+        gbc.insets = new Insets(-10, 0, 10, 0);
+        lblCategoryHint = new JLabel(" ");
+        lblCategoryHint.setFont(new Font("Arial", Font.ITALIC, 12));
+        lblCategoryHint.setForeground(Color.GRAY);
+        formPanel.add(lblCategoryHint, gbc);
+
         // Product ID
         gbc.gridy = row++;
         gbc.insets = new Insets(0, 0, 10, 0);
@@ -138,8 +158,21 @@ public class NewComplaintScreen extends JFrame {
                 if (txtProductId.getText().length() >= 6) e.consume();
             }
         });
+        txtProductId.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override public void insertUpdate(javax.swing.event.DocumentEvent e) { onProductCodeEdited(); }
+            @Override public void removeUpdate(javax.swing.event.DocumentEvent e) { onProductCodeEdited(); }
+            @Override public void changedUpdate(javax.swing.event.DocumentEvent e) { }
+        });
+        productSuggestions.setFocusable(false); // typing goes on in the field
         formPanel.add(txtProductId, gbc);
 
+        gbc.gridy = row++;
+        gbc.insets = new Insets(-10, 0, 10, 0);
+        lblProductHint = new JLabel(" ");
+        lblProductHint.setFont(new Font("Arial", Font.ITALIC, 12));
+        lblProductHint.setForeground(Color.GRAY);
+        formPanel.add(lblProductHint, gbc);
+
         // Description
         gbc.gridy = row++;
         gbc.insets = new Insets(0, 0, 10, 0);
@@ -162,13 +195,22 @@ public class NewComplaintScreen extends JFrame {
 
         add(formPanel, BorderLayout.CENTER);
 
+        suggestTimer.setRepeats(false);
+        javax.swing.event.DocumentListener typing = new javax.swing.event.DocumentListener() {
+            @Override public void insertUpdate(javax.swing.event.DocumentEvent e) { suggestTimer.restart(); }
+            @Override public void removeUpdate(javax.swing.event.DocumentEvent e) { suggestTimer.restart(); }
+            @Override public void changedUpdate(javax.swing.event.DocumentEvent e) { }
+        };
+        txtTitle.getDocument().addDocumentListener(typing);
+        txtDescription.getDocument().addDocumentListener(typing);
+
         //  FOOTER BUTTONS
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
         buttonPanel.setBackground(BG_COLOR);
         buttonPanel.setBorder(new MatteBorder(1, 0, 0, 0, Color.LIGHT_GRAY));
 
         JButton cancelButton = createStyledButton("Cancel", Color.LIGHT_GRAY, Color.BLACK);
-        JButton submitButton = createStyledButton("SUBMIT COMPLAINT", ACCENT_COLOR, Color.WHITE);
+        submitButton = createStyledButton("SUBMIT COMPLAINT", ACCENT_COLOR, Color.WHITE);
 
         submitButton.addActionListener(e -> handleSubmit());
         cancelButton.addActionListener(e -> dispose());
@@ -212,70 +254,106 @@ public class NewComplaintScreen extends JFrame {
 
     private void loadComboData() {
         loadCategories();
-        loadMidPriorityId();
     }
 
     private void loadCategories() {
-        String sql = "SELECT ComplaintCategoryID, Name FROM ComplaintCategory ORDER BY Name";
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            cmbCategory.removeAllItems();
-            boolean hasAny = false;
-            while (rs.next()) {
-                hasAny = true;
-                cmbCategory.addItem(new ComboItem(
-                        rs.getInt("ComplaintCategoryID"),
-                        rs.getString("Name")
-                ));
-            }
-            if (!hasAny) {
-                cmbCategory.addItem(new ComboItem(-1, "(no categories)"));
-                cmbCategory.setEnabled(false);
-            }
+        settingCategory = true;
+        cmbCategory.removeAllItems();
+        cmbCategory.addItem(new ReferenceData.Item(-1, "(loading...)"));
+        cmbCategory.setEnabled(false);
+        settingCategory = false;
+
+        ReferenceData.get(ReferenceData.Kind.COMPLAINT_CATEGORIES).whenComplete((table, ex) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (!isDisplayable()) return; // screen closed meanwhile
+
+                    settingCategory = true;
+                    try {
+                        showCategories(table, ex);
+                    } finally {
+                        settingCategory = false;
+                    }
+                    suggestTimer.restart(); // text typed while loading
+                }));
+    }
 
-        } catch (Exception ex) {
+    private void showCategories(ReferenceData.Table table, Throwable ex) {
+        if (ex != null) {
             ex.printStackTrace();
+            cmbCategory.removeAllItems();
+            cmbCategory.addItem(new ReferenceData.Item(-1, "(no categories)"));
             JOptionPane.showMessageDialog(this,
                     "Error while loading categories:\n" + ex.getMessage(),
                     "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
-    }
-
-    private void loadMidPriorityId() {
-        String sqlByName = "SELECT ComplaintPriorityID FROM ComplaintPriority WHERE Name = 'Mid'";
-        String sqlFallback = "SELECT TOP 1 ComplaintPriorityID FROM ComplaintPriority ORDER BY Rank ASC";
 
-        try (Connection conn = DbConfig.getConnection()) {
-
-            try (PreparedStatement ps = conn.prepareStatement(sqlByName);
-                 ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    midPriorityId = rs.getInt("ComplaintPriorityID");
-                    return;
-                }
-            }
+        if (table.items().isEmpty()) {
+            cmbCategory.removeAllItems();
+            cmbCategory.addItem(new ReferenceData.Item(-1, "(no categories)"));
+        } else {
+            cmbCategory.setModel(table.toComboModel());
+            cmbCategory.setEnabled(true);
+        }
+    }
 
-            try (PreparedStatement ps2 = conn.prepareStatement(sqlFallback);
-                 ResultSet rs2 = ps2.executeQuery()) {
-                midPriorityId = rs2.next() ? rs2.getInt("ComplaintPriorityID") : null;
-            }
+    /** Preselects the category the text points to, unless the customer already picked one. */
+    private void suggestCategory() {
+        String title = txtTitle.getText();
+        String description = txtDescription.getText();
+        if (!isDisplayable() || categoryChosen || !cmbCategory.isEnabled() || (title + description).isBlank()) return;
+
+        int seq = ++suggestSeq;
+        ComplaintClassifier.suggest(title, description).thenAccept(result ->
+                SwingUtilities.invokeLater(() -> {
+                    // Closed, chosen meanwhile, or an older text
+                    if (!isDisplayable() || categoryChosen || seq != suggestSeq) return;
+                    if (!result.isConfident()) return;
+
+                    ComboBoxModel<ReferenceData.Item> model = cmbCategory.getModel();
+                    for (int i = 0; i < model.getSize(); i++) {
+                        if (model.getElementAt(i).id() == result.categoryId()) {
+                            settingCategory = true;
+                            cmbCategory.setSelectedIndex(i);
+                            settingCategory = false;
+                            lblCategoryHint.setText("Suggested from your text - change it if it does not fit");
+                            return;
+                        }
+                    }
+                }));
+    }
 
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            midPriorityId = null;
+    /**
+     * Offers the products whose code starts with the digits typed so far, or
+     * names the product once the code is complete. Served from memory, so
+     * it runs on every keystroke.
+     */
+    private void onProductCodeEdited() {
+        String code = txtProductId.getText().trim();
+        productSuggestions.setVisible(false);
+        productSuggestions.removeAll();
+        lblProductHint.setText(" ");
+        if (code.isEmpty() || !ProductCatalog.isLoaded()) return;
+
+        if (code.length() == ProductCatalog.CODE_DIGITS) {
+            java.util.List<ProductCatalog.Product> match = ProductCatalog.suggest(code, 1);
+            lblProductHint.setText(match.isEmpty()
+                    ? "No product found with this product code."
+                    : match.get(0).toString());
+            return;
         }
-    }
 
-    // Pick random staff id 
-    private Integer pickRandomStaffId(Connection conn) throws SQLException {
-        String sql = "SELECT TOP 1 StaffID FROM Staff ORDER BY NEWID()";
-        try (PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            if (rs.next()) return rs.getInt("StaffID");
+        java.util.List<ProductCatalog.Product> products = ProductCatalog.suggest(code, MAX_PRODUCT_SUGGESTIONS);
+        if (products.isEmpty()) {
+            lblProductHint.setText("No product code starts with " + code + ".");
+            return;
+        }
+        for (ProductCatalog.Product product : products) {
+            JMenuItem item = new JMenuItem(product.toString());
+            item.addActionListener(e -> txtProductId.setText(product.code()));
+            productSuggestions.add(item);
         }
-        return null; //if staff= null ;
+        if (txtProductId.isShowing()) productSuggestions.show(txtProductId, 0, txtProductId.getHeight());
     }
 
     private void handleSubmit() {
@@ -297,55 +375,116 @@ public class NewComplaintScreen extends JFrame {
             return;
         }
 
-        ComboItem catItem = (ComboItem) cmbCategory.getSelectedItem();
-        if (catItem == null || catItem.id <= 0) {
+        ReferenceData.Item catItem = (ReferenceData.Item) cmbCategory.getSelectedItem();
+        if (catItem == null || catItem.id() <= 0) {
             JOptionPane.showMessageDialog(this,
                     "Please select a valid complaint category.",
                     "Warning", JOptionPane.WARNING_MESSAGE);
             return;
         }
 
-        if (midPriorityId == null) {
+        if (!productCode.isEmpty() && productCode.length() != 6) {
             JOptionPane.showMessageDialog(this,
-                    "No 'Mid' priority found in ComplaintPriority table.",
+                    "Product Code must be exactly 6 digits.",
                     "Warning", JOptionPane.WARNING_MESSAGE);
             return;
         }
 
-        // ProductCode -> ProductID lookup
-        Integer productIdToInsert = null;
+        submit(productCode, catItem.id(), title, description, false);
+    }
 
-        if (!productCode.isEmpty()) {
-            if (productCode.length() != 6) {
-                JOptionPane.showMessageDialog(this,
-                        "Product Code must be exactly 6 digits.",
-                        "Warning", JOptionPane.WARNING_MESSAGE);
-                return;
-            }
+    private void submit(String productCode, int categoryId, String title, String description,
+                        boolean allowDuplicate) {
+        submitButton.setEnabled(false);
+        submitButton.setText("SUBMITTING...");
+
+        // Not bound to the window group: closing the screen must not abort the insert
+        DbExecutor.submit(
+                conn -> insertComplaint(conn, customerId, productCode, categoryId, title, description, allowDuplicate),
+                newComplaintId -> {
+                    JOptionPane.showMessageDialog(this,
+                            "Complaint submitted successfully!\nComplaintID: " + newComplaintId,
+                            "Success", JOptionPane.INFORMATION_MESSAGE);
+
+                    dispose();
+                },
+                ex -> {
+                    submitButton.setEnabled(true);
+                    submitButton.setText("SUBMIT COMPLAINT");
+
+                    if (ex instanceof DuplicateSuspectedException) {
+                        DuplicateDetector.Match match = ((DuplicateSuspectedException) ex).match;
+                        int choice = JOptionPane.showConfirmDialog(this,
+                                "You already have a similar open complaint:\n" +
+                                        "#" + match.complaintId() + " - " + match.title() + "\n\n" +
+                                        "It is being worked on. Submit this complaint anyway?",
+                                "Similar Complaint", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+                        if (choice == JOptionPane.YES_OPTION) {
+                            submit(productCode, categoryId, title, description, true);
+                        }
+                        return;
+                    }
+                    if (ex instanceof SubmitRejectedException) {
+                        JOptionPane.showMessageDialog(this,
+                                ex.getMessage(),
+                                "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    ex.printStackTrace();
+                    JOptionPane.showMessageDialog(this,
+                            "Error while submitting complaint:\n" + ex.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                });
+    }
 
-            String lookupSql = "SELECT ProductID FROM Products WHERE ProductCode = ?";
-            try (Connection conn = DbConfig.getConnection();
-                 PreparedStatement ps = conn.prepareStatement(lookupSql)) {
+    /**
+     * Runs in the background. ProductCode → ProductID lookup, duplicate
+     * check, staff assignment and the Complaints + ComplaintTexts inserts.
+     *
+     * @param allowDuplicate skip the duplicate check (the customer confirmed)
+     * @return new ComplaintID
+     */
+    private static int insertComplaint(Connection conn,
+                                       int customerId,
+                                       String productCode,
+                                       int categoryId,
+                                       String title,
+                                       String description,
+                                       boolean allowDuplicate) throws SQLException, SubmitRejectedException {
+
+        // Default source / status / priority, resolved by name from the cache
+        int sourceId = ReferenceData.customerAppSourceId();
+        int openStatusId = ReferenceData.openStatusId();
+        int priorityId = ReferenceData.defaultPriorityId();
+
+        // ProductCode -> ProductID, from memory; the query is only needed for
+        // products added since the catalog was loaded
+        Integer productIdToInsert = null;
 
+        int cachedProductId = productCode.isEmpty() ? ProductCatalog.NOT_FOUND : ProductCatalog.productId(productCode);
+        if (cachedProductId != ProductCatalog.NOT_FOUND) {
+            productIdToInsert = cachedProductId;
+        } else if (!productCode.isEmpty()) {
+            String lookupSql = "SELECT ProductID FROM Products WHERE ProductCode = ?";
+            try (PreparedStatement ps = conn.prepareStatement(lookupSql)) {
                 ps.setString(1, productCode);
 
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next()) {
                         productIdToInsert = rs.getInt("ProductID");
+                        ProductCatalog.refresh(); // catalog is behind
                     } else {
-                        JOptionPane.showMessageDialog(this,
-                                "No product found with this product code.",
-                                "Error", JOptionPane.ERROR_MESSAGE);
-                        return;
+                        throw new SubmitRejectedException("No product found with this product code.");
                     }
                 }
+            }
+        }
 
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this,
-                        "Error while verifying product code:\n" + ex.getMessage(),
-                        "Error", JOptionPane.ERROR_MESSAGE);
-                return;
+        // Only the customer's own complaints are offered; similar ones of other
+        // customers about the same product are not a resubmission
+        if (!allowDuplicate) {
+            for (DuplicateDetector.Match match : DuplicateDetector.find(customerId, productIdToInsert, title, description)) {
+                if (match.customerId() == customerId) throw new DuplicateSuspectedException(match);
             }
         }
 
@@ -364,20 +503,15 @@ public class NewComplaintScreen extends JFrame {
                 (?, ?, ?, SYSDATETIME(), NULL, SYSDATETIME())
             """;
 
-        try (Connection conn = DbConfig.getConnection()) {
-
-            conn.setAutoCommit(false);
-
-            Integer assignedStaffId = pickRandomStaffId(conn);
-            if (assignedStaffId == null) {
-                conn.rollback();
-                JOptionPane.showMessageDialog(this,
-                        "No staff found to assign this complaint.",
-                        "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
+        // Counted for the staff member right away; released again if the insert fails
+        Integer assignedStaffId = ComplaintAssigner.assign(categoryId);
+        if (assignedStaffId == null) {
+            throw new SubmitRejectedException("No staff found to assign this complaint.");
+        }
 
-            int newComplaintId;
+        int newComplaintId;
+        conn.setAutoCommit(false);
+        try {
 
             //  Complaints insert
             try (PreparedStatement ps = conn.prepareStatement(
@@ -388,10 +522,10 @@ public class NewComplaintScreen extends JFrame {
                 if (productIdToInsert != null) ps.setInt(2, productIdToInsert);
                 else ps.setNull(2, Types.INTEGER);
 
-                ps.setInt(3, catItem.id);
-                ps.setInt(4, DEFAULT_SOURCE_ID);
-                ps.setInt(5, OPEN_STATUS_ID);
-                ps.setInt(6, midPriorityId);
+                ps.setInt(3, categoryId);
+                ps.setInt(4, sourceId);
+                ps.setInt(5, openStatusId);
+                ps.setInt(6, priorityId);
 
                 // AssignedStaffID
                 ps.setInt(7, assignedStaffId);
@@ -400,13 +534,7 @@ public class NewComplaintScreen extends JFrame {
 
                 try (ResultSet keys = ps.getGeneratedKeys()) {
                     if (keys.next()) newComplaintId = keys.getInt(1);
-                    else {
-                        conn.rollback();
-                        JOptionPane.showMessageDialog(this,
-                                "Could not retrieve new ComplaintID.",
-                                "Error", JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
+                    else throw new SubmitRejectedException("Could not retrieve new ComplaintID.");
                 }
             }
 
@@ -420,17 +548,46 @@ public class NewComplaintScreen extends JFrame {
 
             conn.commit();
 
-            JOptionPane.showMessageDialog(this,
-                    "Complaint submitted successfully!\nComplaintID: " + newComplaintId,
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
+        } catch (SQLException | SubmitRejectedException | RuntimeException ex) {
+            conn.rollback();
+            ComplaintAssigner.release(assignedStaffId);
+            throw ex;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        // Committed. Nothing below may roll back or report the complaint as
+        // failed: it is in the database and assigned already
+        try {
+            DuplicateDetector.added(newComplaintId, customerId, productIdToInsert, title, description);
+            // Urgent wording raises the priority in the background
+            ComplaintClassifier.enqueue(newComplaintId, title, description, false);
+            ComplaintEvents.publish(new ComplaintEvents.ComplaintCreated(
+                    newComplaintId, customerId, assignedStaffId, title));
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        return newComplaintId;
+    }
 
-            dispose();
+    /** Submit refused for a business reason (message is shown as-is). */
+    private static class SubmitRejectedException extends Exception {
+        private static final long serialVersionUID = 1L;
 
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Error while submitting complaint:\n" + ex.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
+        SubmitRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    /** The customer has a similar open complaint; submit again with allowDuplicate to go ahead. */
+    private static class DuplicateSuspectedException extends SubmitRejectedException {
+        private static final long serialVersionUID = 1L;
+
+        final DuplicateDetector.Match match;
+
+        DuplicateSuspectedException(DuplicateDetector.Match match) {
+            super("Similar open complaint #" + match.complaintId());
+            this.match = match;
         }
     }
 
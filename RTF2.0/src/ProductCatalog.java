@@ -0,0 +1,320 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ProductCatalog
+ *
+ * In-memory ProductCode -> ProductID index for the complaint form, so a
+ * product code is validated and resolved without a query, and products can
+ * be suggested while the code is typed.
+ *
+ * Product codes are exactly 6 digits, so the code itself is the array
+ * index: a direct-addressed int[1_000_000] (4 MB) holds the ProductID of
+ * every code, and lookups are one array read, with no hashing, boxing or
+ * String keys. Suggestions use the codes in ascending order: all codes
+ * starting with a prefix form one contiguous run (e.g. "12" is
+ * 120000..129999), found with two binary searches.
+ *
+ * Tables used:
+ *  - Products (bulk load; ProductName is shown in the suggestions when the
+ *    column exists, otherwise only the codes are)
+ *
+ * The whole catalog is reloaded in the background once it is older than
+ * -Drtf.products.ttlMs (default 10 minutes), or by refresh() when a code is
+ * found in the database but not here; the new snapshot replaces the old one
+ * in a single write, so readers never lock.
+ */
+public final class ProductCatalog {
+
+    public static final int NOT_FOUND = -1;
+
+    static final int CODE_DIGITS = 6;
+    static final int CODES = 1_000_000; // 10^CODE_DIGITS
+
+    private static final long TTL_MS = Long.getLong("rtf.products.ttlMs", 10 * 60_000L);
+    private static final long RETRY_MS = 30_000L; // after a failed first load
+
+    private static final String PRODUCTS_SQL =
+            "SELECT ProductID, ProductCode FROM Products";
+
+    private static final String PRODUCTS_WITH_NAMES_SQL =
+            "SELECT ProductID, ProductCode, ProductName FROM Products";
+
+    /** Returns no rows; only its column list is read. */
+    private static final String COLUMNS_SQL =
+            "SELECT TOP 0 * FROM Products";
+
+    /** One product, usable directly as a suggestion item. */
+    public static final class Product {
+        private final int code;
+        private final int productId;
+        private final String name;
+
+        Product(int code, int productId, String name) {
+            this.code = code;
+            this.productId = productId;
+            this.name = name;
+        }
+
+        /** The 6-digit code with its leading zeros, as typed. */
+        public String code() {
+            return format(code);
+        }
+
+        public int productId() {
+            return productId;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name == null ? code() : code() + " - " + name;
+        }
+    }
+
+    /** Immutable snapshot of the catalog. */
+    static final class Catalog {
+        private final int[] idByCode;   // CODES slots, NOT_FOUND where no product
+        private final int[] codes;      // codes in use, ascending
+        private final String[] names;   // parallel to codes
+
+        /**
+         * Builds from parallel arrays (in any order). Codes outside
+         * 0..999999 are skipped; for a code listed twice the last row wins.
+         */
+        Catalog(int[] codes, int[] productIds, String[] names, int count) {
+            int[] idByCode = new int[CODES];
+            String[] nameByCode = new String[CODES];
+            Arrays.fill(idByCode, NOT_FOUND);
+            int distinct = 0;
+            for (int i = 0; i < count; i++) {
+                int code = codes[i];
+                if (code < 0 || code >= CODES) continue;
+                if (idByCode[code] == NOT_FOUND) distinct++;
+                idByCode[code] = productIds[i];
+                nameByCode[code] = names[i];
+            }
+
+            // Walking the table in order yields the codes already sorted
+            this.codes = new int[distinct];
+            this.names = new String[distinct];
+            for (int code = 0, n = 0; n < distinct; code++) {
+                if (idByCode[code] == NOT_FOUND) continue;
+                this.codes[n] = code;
+                this.names[n] = nameByCode[code];
+                n++;
+            }
+            this.idByCode = idByCode;
+        }
+
+        int productId(CharSequence code) {
+            int value = exactCode(code);
+            return value < 0 ? NOT_FOUND : idByCode[value];
+        }
+
+        List<Product> suggest(CharSequence prefix, int limit) {
+            int value = parse(prefix);
+            if (value < 0 || limit <= 0) return Collections.emptyList();
+            return suggest(value, digits(prefix), limit);
+        }
+
+        /** Products whose code starts with `digits` (0..6 digits), ascending, at most `limit`. */
+        private List<Product> suggest(int prefix, int digits, int limit) {
+            int width = 1;
+            for (int i = digits; i < CODE_DIGITS; i++) width *= 10;
+            int from = lowerBound(prefix * width);
+            int to = lowerBound((prefix + 1) * width);
+
+            List<Product> result = new ArrayList<>(Math.min(limit, to - from));
+            for (int i = from; i < to && result.size() < limit; i++) {
+                result.add(new Product(codes[i], idByCode[codes[i]], names[i]));
+            }
+            return result;
+        }
+
+        int size() {
+            return codes.length;
+        }
+
+        long memoryBytes() {
+            return 4L * idByCode.length + 4L * codes.length + 8L * names.length;
+        }
+
+        /** First index whose code is >= `code`. */
+        private int lowerBound(int code) {
+            int i = Arrays.binarySearch(codes, code);
+            return i >= 0 ? i : -i - 1;
+        }
+    }
+
+    private static volatile Catalog catalog; // null until the first load has finished
+    private static volatile long loadedAt;   // last load attempt
+
+    // Guarded by ProductCatalog.class
+    private static CompletableFuture<Catalog> loading;
+
+    private ProductCatalog() {
+    }
+
+    /** Starts the bulk load. Call once at application startup. */
+    public static void preload() {
+        refresh();
+    }
+
+    /** False until the first load has finished; until then every code is NOT_FOUND. */
+    public static boolean isLoaded() {
+        return catalog != null;
+    }
+
+    /**
+     * ProductID of a 6-digit code, or NOT_FOUND for an unknown, incomplete
+     * or malformed code. Allocation-free; safe on the EDT.
+     */
+    public static int productId(CharSequence code) {
+        Catalog c = current();
+        return c == null ? NOT_FOUND : c.productId(code);
+    }
+
+    /**
+     * Products whose code starts with the digits typed so far, ascending by
+     * code. An empty prefix lists from the lowest code.
+     */
+    public static List<Product> suggest(CharSequence prefix, int limit) {
+        Catalog c = current();
+        return c == null ? Collections.emptyList() : c.suggest(prefix, limit);
+    }
+
+    /** Reloads the whole catalog in the background (no-op if a reload is running). */
+    public static synchronized void refresh() {
+        if (loading != null) return;
+
+        CompletableFuture<Catalog> load = DbExecutor.supply(conn -> {
+            int[] codes = new int[1024];
+            int[] ids = new int[1024];
+            String[] names = new String[1024];
+            int n = 0;
+            boolean named = hasNameColumn(conn);
+            try (PreparedStatement ps = conn.prepareStatement(named ? PRODUCTS_WITH_NAMES_SQL : PRODUCTS_SQL);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int code = exactCode(rs.getString("ProductCode"));
+                    if (code < 0) continue; // not 6 digits; cannot be typed in the form
+                    if (n == codes.length) {
+                        codes = Arrays.copyOf(codes, n * 2);
+                        ids = Arrays.copyOf(ids, n * 2);
+                        names = Arrays.copyOf(names, n * 2);
+                    }
+                    codes[n] = code;
+                    ids[n] = rs.getInt("ProductID");
+                    names[n] = named ? rs.getString("ProductName") : null;
+                    n++;
+                }
+            }
+            return new Catalog(codes, ids, names, n);
+        });
+        loading = load;
+        load.whenComplete((c, ex) -> {
+            synchronized (ProductCatalog.class) {
+                loading = null;
+                loadedAt = System.currentTimeMillis();
+                if (ex != null) {
+                    ex.printStackTrace(); // keep serving the old snapshot
+                    return;
+                }
+                catalog = c;
+            }
+        });
+    }
+
+    private static boolean hasNameColumn(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(COLUMNS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            ResultSetMetaData md = rs.getMetaData();
+            for (int i = 1; i <= md.getColumnCount(); i++) {
+                if ("ProductName".equalsIgnoreCase(md.getColumnLabel(i))) return true;
+            }
+            return false;
+        }
+    }
+
+    public static int size() {
+        Catalog c = catalog;
+        return c == null ? 0 : c.size();
+    }
+
+    public static String getStats() {
+        Catalog c = catalog;
+        if (c == null) return "product catalog not loaded";
+        return String.format("%d products, %.1f MB", c.size(), c.memoryBytes() / 1048576.0);
+    }
+
+    /** Zero-padded 6-digit form of a code. */
+    static String format(int code) {
+        String s = Integer.toString(code);
+        return "000000".substring(s.length()) + s;
+    }
+
+    /**
+     * Value of 0..6 digits (surrounding blanks ignored), or -1 if the text
+     * has anything else in it. Allocation-free.
+     */
+    static int parse(CharSequence text) {
+        if (text == null) return -1;
+        int value = 0;
+        int digits = 0;
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == ' ') end--;
+        for (int i = 0; i < end; i++) {
+            char ch = text.charAt(i);
+            if (ch == ' ' && digits == 0) continue;
+            if (ch < '0' || ch > '9' || ++digits > CODE_DIGITS) return -1;
+            value = value * 10 + (ch - '0');
+        }
+        return value;
+    }
+
+    /** Value of exactly 6 digits (surrounding blanks ignored), or -1. Allocation-free. */
+    static int exactCode(CharSequence text) {
+        if (text == null) return -1;
+        if (text.length() == CODE_DIGITS) { // as typed; one pass
+            int value = 0;
+            for (int i = 0; i < CODE_DIGITS; i++) {
+                int digit = text.charAt(i) - '0';
+                if (digit < 0 || digit > 9) return -1;
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+        int value = parse(text);
+        return value >= 0 && digits(text) == CODE_DIGITS ? value : -1;
+    }
+
+    private static int digits(CharSequence text) {
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) != ' ') digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * The current snapshot (null before the first load); starts a
+     * background reload once it is older than the TTL.
+     */
+    private static Catalog current() {
+        Catalog c = catalog;
+        if (System.currentTimeMillis() - loadedAt > (c == null ? RETRY_MS : TTL_MS)) refresh();
+        return c;
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * ProductCatalogBenchmark
+ *
+ * Compares ProductCatalog (direct-addressed int[1_000_000] + sorted codes)
+ * with a HashMap<String, Integer> from code to ProductID, for catalogs of
+ * several sizes (no database needed):
+ *
+ *   java -cp build/classes ProductCatalogBenchmark [lookups]
+ *
+ * Reports the size of each structure (the catalog's arrays, including the
+ * product name references but not the names; the HashMap measured as heap
+ * growth, so roughly), the time of a code lookup as
+ * the form does it (the code arrives as a String; half of the codes exist)
+ * and of a prefix suggestion (2-5 digits, first 8 products). The probe
+ * Strings are reused, so the HashMap gets their cached hash codes, its
+ * best case. The HashMap has no order, so its suggestions scan every key.
+ */
+public class ProductCatalogBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000, 500_000};
+    private static final int SUGGESTIONS = 8;
+    private static final int ROUNDS = 3;
+
+    private static long sink; // keeps the JIT from dropping the lookups
+
+    public static void main(String[] args) {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        for (int size : SIZES) {
+            run(size, lookups);
+        }
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static void run(int size, int lookups) {
+        SplittableRandom random = new SplittableRandom(size);
+
+        // Distinct random codes; ProductIDs like an identity column
+        boolean[] used = new boolean[ProductCatalog.CODES];
+        int[] codes = new int[size];
+        int[] ids = new int[size];
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) {
+            int code;
+            do {
+                code = random.nextInt(ProductCatalog.CODES);
+            } while (used[code]);
+            used[code] = true;
+            codes[i] = code;
+            ids[i] = i + 1;
+            names[i] = "Product " + (i + 1);
+        }
+
+        used = null;
+
+        ProductCatalog.Catalog catalog = new ProductCatalog.Catalog(codes, ids, names, size);
+
+        long before = usedHeap();
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < size; i++) map.put(ProductCatalog.format(codes[i]), ids[i]);
+        long mapBytes = usedHeap() - before;
+        sink += codes.length + ids.length + names.length; // inputs stay reachable while measured
+
+        // Codes as typed in the form: half existing, half random (mostly unknown)
+        String[] probes = new String[1 << 16];
+        for (int i = 0; i < probes.length; i++) {
+            int code = i % 2 == 0 ? codes[random.nextInt(size)] : random.nextInt(ProductCatalog.CODES);
+            probes[i] = ProductCatalog.format(code);
+        }
+        String[] prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = probes[i].substring(0, 2 + random.nextInt(4));
+        }
+
+        System.out.printf("%,d products: ProductCatalog %.1f MB, HashMap<String,Integer> ~%.1f MB%n",
+                size, catalog.memoryBytes() / 1048576.0, mapBytes / 1048576.0);
+
+        for (int round = 0; round <= ROUNDS; round++) {
+            double catalogLookup = timeCatalogLookups(catalog, probes, lookups);
+            double mapLookup = timeMapLookups(map, probes, lookups);
+            int suggestRuns = Math.max(100, lookups / size);
+            double catalogSuggest = timeCatalogSuggest(catalog, prefixes, suggestRuns);
+            double mapSuggest = timeMapSuggest(map, prefixes, Math.max(10, suggestRuns / 100));
+            if (round == 0) continue; // warm-up
+
+            System.out.printf("  round %d: lookup %.1f ns vs %.1f ns;  suggest %.2f us vs %.1f us%n",
+                    round, catalogLookup, mapLookup, catalogSuggest / 1000, mapSuggest / 1000);
+        }
+    }
+
+    /** Nanoseconds per lookup. */
+    private static double timeCatalogLookups(ProductCatalog.Catalog catalog, String[] probes, int lookups) {
+        long t = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < lookups; i++) {
+            sum += catalog.productId(probes[i & (probes.length - 1)]);
+        }
+        sink += sum;
+        return (System.nanoTime() - t) / (double) lookups;
+    }
+
+    private static double timeMapLookups(Map<String, Integer> map, String[] probes, int lookups) {
+        long t = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < lookups; i++) {
+            Integer id = map.get(probes[i & (probes.length - 1)]);
+            sum += id == null ? ProductCatalog.NOT_FOUND : id;
+        }
+        sink += sum;
+        return (System.nanoTime() - t) / (double) lookups;
+    }
+
+    /** Nanoseconds per suggestion list. */
+    private static double timeCatalogSuggest(ProductCatalog.Catalog catalog, String[] prefixes, int runs) {
+        long t = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            sink += catalog.suggest(prefixes[i & (prefixes.length - 1)], SUGGESTIONS).size();
+        }
+        return (System.nanoTime() - t) / (double) runs;
+    }
+
+    private static double timeMapSuggest(Map<String, Integer> map, String[] prefixes, int runs) {
+        long t = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            String prefix = prefixes[i & (prefixes.length - 1)];
+            List<String> found = new ArrayList<>();
+            for (String code : map.keySet()) {
+                if (code.startsWith(prefix)) found.add(code);
+            }
+            found.sort(null);
+            sink += Math.min(SUGGESTIONS, found.size());
+        }
+        return (System.nanoTime() - t) / (double) runs;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
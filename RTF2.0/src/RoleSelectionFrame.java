@@ -124,6 +124,13 @@ public class RoleSelectionFrame extends JFrame {
             UIManager.setLookAndFeel(UIManager.getCrossPlatformLookAndFeelClassName());
         } catch (Exception e) {}
 
+        ReferenceData.preload(); // lookup tables load while the user picks a role
+        ComplaintAssigner.preload();
+        DuplicateDetector.preload();
+        ComplaintClassifier.preload(); // trains the category model from past complaints
+        ProductCatalog.preload(); // product codes for the complaint form
+        ChangeFeed.start(); // changes made on the other workstations
+
         SwingUtilities.invokeLater(() -> {
             new RoleSelectionFrame().setVisible(true);
         });
@@ -1,6 +1,7 @@
 import javax.swing.*;
 import java.awt.*;
 import java.sql.*;
+import java.util.Optional;
 
 /**
  * SatisfactionSurveyFrame
@@ -11,6 +12,8 @@ import java.sql.*;
  *  - Complaints (to verify complaint exists)
  *  - ComplaintTexts (Title)
  *  - SatisfactionSurvey (insert: ComplaintID, CallID (NULL), Rating, CreatedAt)
+ *  - ComplaintActions (a "Survey" row for the status change)
+ *  - ComplaintStatus ("Survey Completed", via ReferenceData)
  */
 public class SatisfactionSurveyFrame extends JFrame {
 
@@ -21,6 +24,9 @@ public class SatisfactionSurveyFrame extends JFrame {
     private JButton btnSubmit;
     private JButton btnCancel;
 
+    // Background DB work for this window (cancelled when the window is disposed)
+    private final DbExecutor.Group tasks = new DbExecutor.Group(this);
+
     public SatisfactionSurveyFrame(int complaintId) {
         this.complaintId = complaintId;
 
@@ -79,32 +85,37 @@ public class SatisfactionSurveyFrame extends JFrame {
             WHERE c.ComplaintID = ?
             """;
 
-        try (Connection conn = DbConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        btnSubmit.setEnabled(false);
 
-            ps.setInt(1, complaintId);
+        tasks.submit(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, complaintId);
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return Optional.<String>empty();
+                    }
                     String title = rs.getString("Title");
                     if (title == null || title.isBlank()) title = "(no title)";
-
-                    lblInfo.setText("<html>Complaint #" + complaintId +
-                            "<br/>Title: " + title +
-                            "<br/><br/>Please rate your satisfaction.</html>");
-                    btnSubmit.setEnabled(true);
-
-                } else {
-                    lblInfo.setText("Complaint not found.");
-                    btnSubmit.setEnabled(false);
+                    return Optional.of(title);
                 }
             }
-
-        } catch (Exception ex) {
+        }, title -> {
+            if (title.isPresent()) {
+                lblInfo.setText("<html>Complaint #" + complaintId +
+                        "<br/>Title: " + title.get() +
+                        "<br/><br/>Please rate your satisfaction.</html>");
+                btnSubmit.setEnabled(true);
+
+            } else {
+                lblInfo.setText("Complaint not found.");
+                btnSubmit.setEnabled(false);
+            }
+        }, ex -> {
             ex.printStackTrace();
             lblInfo.setText("Error while loading complaint info: " + ex.getMessage());
             btnSubmit.setEnabled(false);
-        }
+        });
     }
 
     /*Inserts into SatisfactionSurvey by ComplaintID.
@@ -113,6 +124,40 @@ public class SatisfactionSurveyFrame extends JFrame {
 
     int rating = (Integer) cmbRating.getSelectedItem();
 
+    btnSubmit.setEnabled(false);
+
+    // Not bound to the window group: closing the screen must not abort the insert
+    DbExecutor.submit(conn -> saveSurvey(conn, complaintId, rating), message -> {
+        if (message != null) {
+            btnSubmit.setEnabled(true);
+            JOptionPane.showMessageDialog(this, message,
+                    "Info", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        JOptionPane.showMessageDialog(this,
+                "Thank you! Your satisfaction survey has been recorded.",
+                "Success", JOptionPane.INFORMATION_MESSAGE);
+
+        dispose();
+    }, ex -> {
+        btnSubmit.setEnabled(true);
+        ex.printStackTrace();
+        JOptionPane.showMessageDialog(this,
+                "Error while saving satisfaction survey:\n" + ex.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+    });
+}
+
+    /**
+     * Runs in the background. Inserts the survey and moves the complaint
+     * to the "Survey Completed" status in one transaction, recorded as a
+     * "Survey" ComplaintActions row so ChangeFeed and the timeline see it.
+     *
+     * @return null on success, otherwise a message explaining why nothing was saved
+     */
+    private static String saveSurvey(Connection conn, int complaintId, int rating) throws SQLException {
+
     String checkSql = "SELECT COUNT(*) AS Cnt FROM SatisfactionSurvey WHERE ComplaintID = ?";
 
     String insertSql = """
@@ -120,17 +165,25 @@ public class SatisfactionSurveyFrame extends JFrame {
         VALUES (?, NULL, ?, SYSDATETIME())
         """;
 
-    //find statusID by name
-    String findStatusByNameSql = "SELECT ComplaintStatusID FROM ComplaintStatus WHERE Name = ?";
-    // if cant find : fallback
-    String fallbackStatusSql = "SELECT TOP 1 ComplaintStatusID FROM ComplaintStatus ORDER BY ComplaintStatusID ASC";
+    // Old status from the row itself; the customer is not a staff member, so no PerformedByID
+    String insertActionSql = """
+        INSERT INTO ComplaintActions
+            (ComplaintID, OldStatusID, NewStatusID, PerformedByID, ActionType, ActionDate)
+        SELECT ComplaintID, ComplaintStatusID, ?, NULL, 'Survey', SYSDATETIME()
+        FROM Complaints
+        WHERE ComplaintID = ?
+        """;
 
     // update complaint status
     String updateComplaintStatusSql = "UPDATE Complaints SET ComplaintStatusID = ? WHERE ComplaintID = ?";
 
-    try (Connection conn = DbConfig.getConnection()) {
+    // "Survey Completed" (or the first status as fallback), from the cache
+    int newStatusId = ReferenceData.surveyCompletedStatusId();
+    // Its name for the StatusChanged event, read now: nothing after the commit may throw SQLException
+    ReferenceData.Item newStatus = ReferenceData.require(ReferenceData.Kind.COMPLAINT_STATUSES).byId(newStatusId);
 
-        conn.setAutoCommit(false); // transaction is succesfull
+    conn.setAutoCommit(false); // transaction is succesfull
+    try {
 
         // Already exists?
         try (PreparedStatement psCheck = conn.prepareStatement(checkSql)) {
@@ -138,10 +191,7 @@ public class SatisfactionSurveyFrame extends JFrame {
             try (ResultSet rs = psCheck.executeQuery()) {
                 if (rs.next() && rs.getInt("Cnt") > 0) {
                     conn.rollback();
-                    JOptionPane.showMessageDialog(this,
-                            "A survey has already been recorded for this complaint.",
-                            "Info", JOptionPane.INFORMATION_MESSAGE);
-                    return;
+                    return "A survey has already been recorded for this complaint.";
                 }
             }
         }
@@ -153,30 +203,11 @@ public class SatisfactionSurveyFrame extends JFrame {
             psInsert.executeUpdate();
         }
 
-        //  new status id 
-        Integer newStatusId = null;
-        String desiredStatusName = "Survey Completed"; 
-
-        try (PreparedStatement psFind = conn.prepareStatement(findStatusByNameSql)) {
-            psFind.setString(1, desiredStatusName);
-            try (ResultSet rs = psFind.executeQuery()) {
-                if (rs.next()) newStatusId = rs.getInt("ComplaintStatusID");
-            }
-        }
-
-        if (newStatusId == null) {
-            try (PreparedStatement psFb = conn.prepareStatement(fallbackStatusSql);
-                 ResultSet rs = psFb.executeQuery()) {
-                if (rs.next()) newStatusId = rs.getInt("ComplaintStatusID");
-            }
-        }
-
-        if (newStatusId == null) {
-            conn.rollback();
-            JOptionPane.showMessageDialog(this,
-                    "Could not determine a new complaint status to set after survey.",
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            return;
+        // Record the status change, then make it
+        try (PreparedStatement psAction = conn.prepareStatement(insertActionSql)) {
+            psAction.setInt(1, newStatusId);
+            psAction.setInt(2, complaintId);
+            psAction.executeUpdate();
         }
 
         // Update complaint status
@@ -188,18 +219,22 @@ public class SatisfactionSurveyFrame extends JFrame {
 
         conn.commit();
 
-        JOptionPane.showMessageDialog(this,
-                "Thank you! Your satisfaction survey has been recorded.",
-                "Success", JOptionPane.INFORMATION_MESSAGE);
-
-        dispose();
+    } catch (SQLException | RuntimeException ex) {
+        conn.rollback();
+        throw ex;
+    } finally {
+        conn.setAutoCommit(true);
+    }
 
-    } catch (Exception ex) {
-        ex.printStackTrace();
-        JOptionPane.showMessageDialog(this,
-                "Error while saving satisfaction survey:\n" + ex.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
+    // Committed. A failure below must not report the survey as not saved
+    try {
+        ComplaintEvents.publish(new ComplaintEvents.SurveySubmitted(complaintId, rating));
+        ComplaintEvents.publish(new ComplaintEvents.StatusChanged(complaintId, newStatusId,
+                newStatus == null ? null : newStatus.name()));
+    } catch (RuntimeException e) {
+        e.printStackTrace();
     }
+    return null;
 }
 
 }